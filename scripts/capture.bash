@@ -0,0 +1,4 @@
+#!/bin/bash
+#maye need to run with sudo
+#usage: capture.bash "<device name>" <descriptor file> [make [model]]
+java -cp .:build/libs/keyboarding-re-master.jar:libs/input/jinput.jar -Djava.library.path=libs/native com.monkygames.kbmaster.util.ScanHardware --capture "$@"
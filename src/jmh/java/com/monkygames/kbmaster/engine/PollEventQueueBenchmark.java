@@ -0,0 +1,59 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.engine;
+
+import com.monkygames.kbmaster.engine.sim.SimComponent;
+import com.monkygames.kbmaster.engine.sim.SimKeyboard;
+import java.util.concurrent.TimeUnit;
+import net.java.games.input.Component.Identifier.Key;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures polling a keyboard and collecting the changed components
+ * which is done for every device on every iteration of the poll loop.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PollEventQueueBenchmark {
+
+	/**
+	 * The number of keys on the keyboard.
+	 */
+	@Param({ "20", "104" })
+	public int keys;
+	/**
+	 * The number of keys that change between two polls.
+	 */
+	@Param({ "0", "1", "4" })
+	public int changes;
+
+	private SimKeyboard keyboard;
+	private PollEventQueue queue;
+	private int next;
+	private float value;
+
+	@Setup
+	public void setup() {
+		Key[] all = new Key[keys];
+		for (int i = 0; i < keys; i++) all[i] = new SimComponent.SimKey("key" + i);
+		keyboard = new SimKeyboard("Benchmark Keyboard", all);
+		keyboard.poll();
+		queue = new PollEventQueue(keyboard.getComponents());
+	}
+
+	@Benchmark
+	public int getEvents() {
+		value = value == 0 ? 1 : 0;
+		for (int i = 0; i < changes; i++) {
+			keyboard.getKey(next).setValue(value);
+			next = (next + 1) % keys;
+		}
+		keyboard.poll();
+		return queue.getEvents().size();
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.engine;
+
+import com.monkygames.kbmaster.driver.devices.razer.nostromo.Nostromo;
+import com.monkygames.kbmaster.driver.devices.sony.SonyDualShock4;
+import com.monkygames.kbmaster.input.ButtonMapping;
+import com.monkygames.kbmaster.input.Output;
+import com.monkygames.kbmaster.input.OutputMouse;
+import com.monkygames.kbmaster.profiles.Profile;
+import java.awt.Point;
+import java.awt.event.InputEvent;
+import java.util.concurrent.TimeUnit;
+import net.java.games.input.Component.Identifier.Key;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures translating an input event into system outputs.
+ * The outputs go to an injector which only consumes them so only
+ * the engine's own work is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProcessOutputBenchmark {
+
+	private HardwareEngine keyboardEngine, gamepadEngine;
+	private Output keyOutput, mouseOutput, dpadOutput;
+	private String keyName;
+	private float angle;
+
+	@Setup
+	public void setup(Blackhole blackhole) {
+		NoOpInjector injector = new NoOpInjector(blackhole);
+		Nostromo nostromo = new Nostromo();
+		Profile profile = new Profile();
+		nostromo.setDefaultKeymaps(profile);
+		keyboardEngine = new HardwareEngine(nostromo, null, injector);
+		keyboardEngine.setOutputProfile(profile);
+		keyName = Key.W.getName();
+		ButtonMapping mapping = profile.getKeymap(0).getButtonMapping(keyName);
+		keyOutput = mapping.getOutput();
+		mouseOutput = new OutputMouse("Left Click", InputEvent.BUTTON1_DOWN_MASK, OutputMouse.MouseType.MouseClick);
+
+		SonyDualShock4 dualShock = new SonyDualShock4();
+		profile = new Profile();
+		dualShock.setDefaultKeymaps(profile);
+		gamepadEngine = new HardwareEngine(dualShock, null, injector);
+		gamepadEngine.setOutputProfile(profile);
+		dpadOutput = profile.getKeymap(0).getJoystickMapping("JOYSTICK_XY").getOutput();
+	}
+
+	@Benchmark
+	public void keyPressRelease() {
+		keyboardEngine.processOutput(keyName, keyOutput, 1);
+		keyboardEngine.processOutput(keyName, keyOutput, 0);
+	}
+
+	@Benchmark
+	public void mouseClick() {
+		keyboardEngine.processOutput("Left", mouseOutput, 1);
+		keyboardEngine.processOutput("Left", mouseOutput, 0);
+	}
+
+	/**
+	 * Sweeps the x axis around the stick which crosses every dpad sector.
+	 */
+	@Benchmark
+	public void joystickDpad() {
+		angle += 0.1f;
+		gamepadEngine.processOutput("x", dpadOutput, (float) Math.cos(angle));
+		gamepadEngine.processOutput("y", dpadOutput, (float) Math.sin(angle));
+	}
+
+	/**
+	 * Consumes the outputs so they are not optimized away.
+	 */
+	private static class NoOpInjector implements OutputInjector {
+		private final Blackhole blackhole;
+		private final Point point = new Point();
+		NoOpInjector(Blackhole blackhole) { this.blackhole = blackhole; }
+		@Override
+		public void keyPress(int keycode) { blackhole.consume(keycode); }
+		@Override
+		public void keyRelease(int keycode) { blackhole.consume(keycode); }
+		@Override
+		public void mousePress(int buttons) { blackhole.consume(buttons); }
+		@Override
+		public void mouseRelease(int buttons) { blackhole.consume(buttons); }
+		@Override
+		public void mouseWheel(int wheelAmount) { blackhole.consume(wheelAmount); }
+		@Override
+		public void mouseMove(int x, int y) { blackhole.consume(x); blackhole.consume(y); }
+		@Override
+		public void delay(int ms) { }
+		@Override
+		public Point getPointerLocation() { return point; }
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.input;
+
+import java.awt.Point;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the joystick math used while a stick is held.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JoystickInfoBenchmark {
+
+	private static final int SAMPLES = 256;
+	private JoystickInfo joystickInfo;
+	private float[] xs, ys;
+	private Point pointer;
+	private int next;
+
+	@Setup
+	public void setup() {
+		joystickInfo = new JoystickInfo();
+		xs = new float[SAMPLES];
+		ys = new float[SAMPLES];
+		// a sweep around the stick including the axes
+		for (int i = 0; i < SAMPLES; i++) {
+			double angle = 2 * Math.PI * i / SAMPLES;
+			xs[i] = Math.round(Math.cos(angle) * 100) / 100f;
+			ys[i] = Math.round(Math.sin(angle) * 100) / 100f;
+		}
+		pointer = new Point(500, 500);
+		joystickInfo.setLastAngleXY(45, pointer);
+	}
+
+	@Benchmark
+	public float findAngle() {
+		next = (next + 1) & (SAMPLES - 1);
+		return joystickInfo.findAngle(xs[next], ys[next]);
+	}
+
+	/**
+	 * Moves the pointer to the returned coordinates like the engine does
+	 * and restarts the circle periodically so the radius stays bounded.
+	 */
+	@Benchmark
+	public int[] getNewCoords() {
+		if (++next == SAMPLES) {
+			next = 0;
+			pointer.setLocation(500, 500);
+			joystickInfo.setLastAngleXY(45, pointer);
+		}
+		int[] coords = joystickInfo.getNewCoords("XY", pointer);
+		pointer.setLocation(coords[0], coords[1]);
+		return coords;
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.input;
+
+import com.monkygames.kbmaster.driver.devices.razer.nostromo.Nostromo;
+import com.monkygames.kbmaster.profiles.Profile;
+import java.util.concurrent.TimeUnit;
+import net.java.games.input.Component.Identifier.Key;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the button mapping lookup done for each input event and the
+ * cloning of a keymap, which shares its mappings until a change.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeymapBenchmark {
+
+	private Keymap keymap;
+	private Output output;
+	/**
+	 * Names of inputs that are mapped and names that are not (such as the
+	 * gamepad's POV names built at runtime).
+	 */
+	private String[] hits, misses;
+	private int next;
+
+	@Setup
+	public void setup() {
+		Nostromo nostromo = new Nostromo();
+		Profile profile = new Profile();
+		nostromo.setDefaultKeymaps(profile);
+		keymap = profile.getKeymap(0);
+		hits = new String[]{ Key.TAB.getName(), Key.Q.getName(), Key.W.getName(), Key.E.getName(),
+			Key.A.getName(), Key.S.getName(), Key.D.getName(), Key.SPACE.getName() };
+		misses = new String[hits.length];
+		for (int i = 0; i < hits.length; i++) misses[i] = new String("pov" + i);
+		output = new OutputKey("Q", 81, 0);
+	}
+
+	@Benchmark
+	public ButtonMapping getButtonMappingHit() {
+		next = (next + 1) & 7;
+		return keymap.getButtonMapping(hits[next]);
+	}
+
+	@Benchmark
+	public ButtonMapping getButtonMappingMiss() {
+		next = (next + 1) & 7;
+		return keymap.getButtonMapping(misses[next]);
+	}
+
+	@Benchmark
+	public Object cloneKeymap() {
+		return keymap.clone();
+	}
+
+	@Benchmark
+	public Keymap cloneAndReplace() {
+		Keymap clone = (Keymap) keymap.clone();
+		next = (next + 1) & 7;
+		ButtonMapping mapping = clone.getButtonMapping(hits[next]);
+		clone.replaceMapping(mapping, mapping.withOutput(output, true));
+		return clone;
+	}
+}
@@ -0,0 +1,39 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.input;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures resolving the key for a stick direction.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutputJoystickBenchmark {
+
+	@Param({ "false", "true" })
+	public boolean wasd;
+
+	private static final String[] DIRECTIONS = { "UP", "DOWN", "LEFT", "RIGHT" };
+	private static final int[] INVERTS = { 1, -1 };
+	private OutputJoystick output;
+	private int next;
+
+	@Setup
+	public void setup() {
+		output = new OutputJoystick("X", 1, OutputJoystick.JoystickType.DPAD);
+		output.setWASD(wasd);
+	}
+
+	@Benchmark
+	public int getKeycode() {
+		next = (next + 1) & 7;
+		return output.getKeycode(DIRECTIONS[next & 3], INVERTS[next >> 2]);
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.io;
+
+import com.monkygames.kbmaster.driver.devices.razer.nostromo.Nostromo;
+import com.monkygames.kbmaster.input.Keymap;
+import com.monkygames.kbmaster.profiles.App;
+import com.monkygames.kbmaster.profiles.AppType;
+import com.monkygames.kbmaster.profiles.Profile;
+import com.monkygames.kbmaster.profiles.RootManager;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares loading the profiles of a device at startup from the binary
+ * ProfileStore (which reads the manifest only) against the xml file,
+ * reading the keymaps of the active profile and saving a change to one
+ * profile (which writes its shard and the manifest). The apps share one
+ * logo, which is stored once as a blob.
+ * Run with -PjmhArgs="ProfileStoreBenchmark -prof gc" to compare the bytes
+ * allocated, which should not grow with the number of apps for the store.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+// XStream 1.4.12 reflects into the JDK which has to be opened on JDK 16 and later
+@Fork(value = 1, jvmArgsAppend = { "--add-opens=java.base/java.lang=ALL-UNNAMED",
+	"--add-opens=java.base/java.lang.reflect=ALL-UNNAMED", "--add-opens=java.base/java.util=ALL-UNNAMED",
+	"--add-opens=java.base/java.text=ALL-UNNAMED", "--add-opens=java.desktop/java.awt.font=ALL-UNNAMED" })
+public class ProfileStoreBenchmark {
+
+	/**
+	 * The number of apps, each has 4 profiles of 8 keymaps and two 16 KB logos.
+	 */
+	@Param({ "20", "100" })
+	public int apps;
+	private RootManager rootManager;
+	private File directory, xmlFile, storeDirectory;
+	private RootManager stored;
+	private Profile edited;
+
+	@Setup
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("kbmaster-store").toFile();
+		xmlFile = new File(directory, "Razer_Nostromo.xml");
+		storeDirectory = new File(directory, "Razer_Nostromo");
+		File logo = new File(directory, "logo.png");
+		byte[] bytes = new byte[16 * 1024];
+		new Random(1).nextBytes(bytes);
+		Files.write(logo.toPath(), bytes);
+
+		Nostromo nostromo = new Nostromo();
+		rootManager = new RootManager();
+		for (int i = 0; i < apps; i++) {
+			App app = new App("Synthetic app " + i, logo.getPath(), logo.getPath(), "App " + i,
+				nostromo.getDeviceInformation().getName(), i % 2 == 0 ? AppType.APPLICATION : AppType.GAME);
+			rootManager.addApp(app);
+			for (int j = 0; j < 4; j++) {
+				Profile profile = new Profile(app, "Profile " + j);
+				nostromo.setDefaultKeymaps(profile);
+				rootManager.addProfile(app, profile);
+			}
+		}
+		XStreamManager.getStreamManager().writeRootManager(xmlFile.getPath(), rootManager);
+		ProfileStore.getProfileStore().writeRootManager(storeDirectory, rootManager);
+		stored = ProfileStore.getProfileStore().readRootManager(storeDirectory);
+		edited = stored.getGamesRoot().getList().get(0).getProfiles().get(0);
+	}
+
+	@TearDown
+	public void tearDown() {
+		stored.close();
+		for (File child : storeDirectory.listFiles()) child.delete();
+		for (File child : new File(directory, BlobStore.DIRECTORY).listFiles()) child.delete();
+		for (File child : directory.listFiles()) child.delete();
+		directory.delete();
+	}
+
+	@Benchmark
+	public RootManager readXml() {
+		return XStreamManager.getStreamManager().readRootManager(xmlFile.getPath());
+	}
+
+	@Benchmark
+	public RootManager readStore() {
+		RootManager read = ProfileStore.getProfileStore().readRootManager(storeDirectory);
+		read.close();
+		return read;
+	}
+
+	@Benchmark
+	public Keymap readStoreActiveProfile() {
+		RootManager read = ProfileStore.getProfileStore().readRootManager(storeDirectory);
+		Keymap keymap = read.getGamesRoot().getList().get(0).getProfiles().get(0).getKeymap(0);
+		read.close();
+		return keymap;
+	}
+
+	@Benchmark
+	public boolean writeStoreChangedProfile() {
+		edited.getKeymap(0).setDescription("Edited " + System.nanoTime());
+		return ProfileStore.getProfileStore().writeRootManager(storeDirectory, stored);
+	}
+}
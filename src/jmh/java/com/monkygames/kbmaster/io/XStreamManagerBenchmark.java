@@ -0,0 +1,99 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.io;
+
+import com.monkygames.kbmaster.driver.devices.razer.nostromo.Nostromo;
+import com.monkygames.kbmaster.profiles.App;
+import com.monkygames.kbmaster.profiles.AppType;
+import com.monkygames.kbmaster.profiles.Profile;
+import com.monkygames.kbmaster.profiles.RootManager;
+import com.thoughtworks.xstream.io.xml.DomDriver;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares saving and loading a large profile file with the streaming
+ * XStreamManager against the previous DomDriver and whole file String approach.
+ * Run with -PjmhArgs="XStreamManagerBenchmark -prof gc" to compare the
+ * bytes allocated by each operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+// XStream 1.4.12 reflects into the JDK which has to be opened on JDK 16 and later
+@Fork(value = 1, jvmArgsAppend = { "--add-opens=java.base/java.lang=ALL-UNNAMED",
+	"--add-opens=java.base/java.lang.reflect=ALL-UNNAMED", "--add-opens=java.base/java.util=ALL-UNNAMED",
+	"--add-opens=java.base/java.text=ALL-UNNAMED", "--add-opens=java.desktop/java.awt.font=ALL-UNNAMED" })
+public class XStreamManagerBenchmark {
+
+	/**
+	 * The number of apps, each has 4 profiles of 8 keymaps and two 16 KB logos.
+	 */
+	@Param({ "20", "100" })
+	public int apps;
+	private XStreamManager streaming, legacy;
+	private RootManager rootManager;
+	private File directory, file;
+
+	@Setup
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("kbmaster-xstream").toFile();
+		file = new File(directory, "Razer_Nostromo.xml");
+		File logo = new File(directory, "logo.png");
+		byte[] bytes = new byte[16 * 1024];
+		new Random(1).nextBytes(bytes);
+		Files.write(logo.toPath(), bytes);
+
+		Nostromo nostromo = new Nostromo();
+		rootManager = new RootManager();
+		for (int i = 0; i < apps; i++) {
+			App app = new App("Synthetic app " + i, logo.getPath(), logo.getPath(), "App " + i,
+				nostromo.getDeviceInformation().getName(), i % 2 == 0 ? AppType.APPLICATION : AppType.GAME);
+			rootManager.addApp(app);
+			for (int j = 0; j < 4; j++) {
+				Profile profile = new Profile(app, "Profile " + j);
+				nostromo.setDefaultKeymaps(profile);
+				rootManager.addProfile(app, profile);
+			}
+		}
+		streaming = new XStreamManager();
+		legacy = new XStreamManager(new DomDriver());
+		streaming.writeRootManager(file.getPath(), rootManager);
+	}
+
+	@TearDown
+	public void tearDown() {
+		for (File child : directory.listFiles()) child.delete();
+		directory.delete();
+	}
+
+	@Benchmark
+	public boolean writeStreaming() {
+		return streaming.writeRootManager(file.getPath(), rootManager);
+	}
+
+	@Benchmark
+	public RootManager readStreaming() {
+		return streaming.readRootManager(file.getPath());
+	}
+
+	@Benchmark
+	public File writeLegacy() throws IOException {
+		String xml = legacy.getRootStream().toXML(rootManager);
+		Files.write(file.toPath(), xml.getBytes());
+		return file;
+	}
+
+	@Benchmark
+	public Object readLegacy() throws IOException {
+		String xml = new String(Files.readAllBytes(file.toPath()));
+		return legacy.getRootStream().fromXML(xml);
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.profiles;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the app and profile lookups done when the devices are loaded
+ * and the combo boxes of the profile UI are filled, for a user with
+ * hundreds of games.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RootBenchmark {
+
+	@Param({ "500" })
+	public int apps;
+	private RootManager rootManager;
+	private String[] names;
+	private int next;
+
+	@Setup
+	public void setup() {
+		rootManager = new RootManager();
+		names = new String[apps];
+		for (int i = 0; i < apps; i++) {
+			// added out of order as the user creates them
+			names[i] = "Game " + ((i * 7919) % apps);
+			App app = new App("", null, null, names[i], "Razer Nostromo", AppType.GAME);
+			rootManager.addApp(app);
+			for (int j = 0; j < 4; j++) rootManager.addProfile(app, new Profile(app, "Profile " + j));
+		}
+	}
+
+	@Benchmark
+	public ArrayList<App> getList() {
+		return rootManager.getGamesRoot().getList();
+	}
+
+	@Benchmark
+	public App getApp() {
+		next = (next + 1) % apps;
+		return rootManager.getGamesRoot().getApp(names[next]);
+	}
+
+	@Benchmark
+	public boolean doesProfileExist() {
+		next = (next + 1) % apps;
+		return rootManager.getGamesRoot().getApp(names[next]).doesProfileExist("Profile 3");
+	}
+
+	@Benchmark
+	public boolean addRemoveApp() {
+		App app = new App("", null, null, "Game added", "Razer Nostromo", AppType.GAME);
+		rootManager.addApp(app);
+		return rootManager.removeApp(app);
+	}
+}
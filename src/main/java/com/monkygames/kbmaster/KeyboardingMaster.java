@@ -3,24 +3,31 @@
  */
 package com.monkygames.kbmaster;
 
+import com.monkygames.kbmaster.cloud.CloudAccount;
+import com.monkygames.kbmaster.cloud.CloudSyncService;
 import com.monkygames.kbmaster.cloud.DropBoxAccount;
 import com.monkygames.kbmaster.cloud.DropBoxApp;
+import com.monkygames.kbmaster.cloud.LocalDirectoryCloudAccount;
 import com.monkygames.kbmaster.cloud.UserSettings;
 import com.monkygames.kbmaster.controller.login.LoginUIController;
+import com.monkygames.kbmaster.io.PersistenceService;
 import com.monkygames.kbmaster.io.XStreamManager;
+import com.monkygames.kbmaster.metrics.MetricsServer;
 import com.monkygames.kbmaster.util.WindowUtil;
-import com.monkygames.kbmaster.cloud.thread.DropboxSyncTask;
+import com.monkygames.kbmaster.cloud.thread.CloudSyncTask;
 import com.monkygames.kbmaster.cloud.thread.SyncEventHandler;
-import com.monkygames.kbmaster.cloud.thread.SyncEventOnExitHandler;
 
 import java.awt.*;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.JavaFXBuilderFactory;
 import javafx.scene.Parent;
@@ -35,8 +42,12 @@ public class KeyboardingMaster extends Application {
 
     // === variables === //
     private LoginUIController controller;
-    private DropboxSyncTask syncTask;
+    private CloudSyncTask syncTask;
     public static final String VERSION = "0.5.3";
+    /**
+     * The time in seconds the last sync is waited for on logout or exit.
+     */
+    private static final long END_SYNC_TIMEOUT = 30;
 
     /**
      * Reference to this object.
@@ -87,6 +98,10 @@ public class KeyboardingMaster extends Application {
         KeyboardingMaster._instance = this;
 
         this.userSettings = XStreamManager.getStreamManager().readUserSettings();
+        // the model is serialized on the JavaFX thread and written in the background
+        PersistenceService.getPersistenceService().setSnapshotExecutor(Platform::runLater);
+        // only enabled with -Dkbmaster.metrics.port
+        MetricsServer.startFromSystemProperty();
 
         // initialize the login ui
         try {
@@ -120,12 +135,15 @@ public class KeyboardingMaster extends Application {
         if (userSettings.isRemember) {
             switch (userSettings.loginMethod) {
                 case LoginUIController.LOGIN_LOCAL:
-                    controller.showDeviceMenuFromLogin(null, false);
+                    // synced with a shared directory if one is set
+                    LocalDirectoryCloudAccount localAccount = LocalDirectoryCloudAccount.fromSystemProperty();
+                    if (localAccount != null) startCloudSync(localAccount, false);
+                    else controller.showDeviceMenuFromLogin(null, false);
                     break;
                 case LoginUIController.LOGIN_DROPBOX:
                     String accessToken = DropBoxApp.ACCESS_TOKEN;
                     if (accessToken != null && !accessToken.equals(""))
-                        startDropboxSync(new DropBoxAccount(accessToken), false);
+                        startCloudSync(new DropBoxAccount(accessToken), false);
                     else {
                         controller.resetLoginUI();
                         controller.showStage();
@@ -135,32 +153,39 @@ public class KeyboardingMaster extends Application {
         } else controller.showStage();
     }
     /**
-     * Opens the dropbox sync UI and created a thread to start syncing.
-     * @param dropBoxAccount the dropbox account to sync.
+     * Opens the cloud sync UI and created a thread to start syncing.
+     * @param cloudAccount the cloud account to sync.
      * @param checkRemember true if the settings should be saved and false otherwise.
      */
-    public void startDropboxSync(DropBoxAccount dropBoxAccount, boolean checkRemember){
+    public void startCloudSync(CloudAccount cloudAccount, boolean checkRemember){
         dropboxSyncStage.show();
-        SyncEventHandler handler = new SyncEventHandler (dropBoxAccount, checkRemember, controller, dropboxSyncStage);
-        syncTask = new DropboxSyncTask(dropBoxAccount);
+        SyncEventHandler handler = new SyncEventHandler (cloudAccount, checkRemember, controller, dropboxSyncStage);
+        syncTask = new CloudSyncTask(cloudAccount);
         syncTask.setOnSucceeded(handler);
         syncTask.setOnFailed(handler);
         new Thread(syncTask).start();
     }
 
     /**
-     * Initiates a dropbox sync on logout or exit.
-     * @param isOnLogout true if after the dropbox sync, return to the login screen
-     * @param dropBoxAccount the account used to connect to dropbox.
+     * Stops the background sync on logout or exit and waits for the saves
+     * not synced yet, the sync UI is only shown if there are some.
+     * @param isOnLogout true if after the cloud sync, return to the login screen
      * else exit the program.
+     * @param syncService the background sync of the account.
+     * @param onEnded run on the JavaFX thread once the sync ended or timed out,
+     * before the login screen is shown or the program exits.
      */
-    public void endDropboxSync(boolean isOnLogout, DropBoxAccount dropBoxAccount) {
-        dropboxSyncStage.show();
-        SyncEventOnExitHandler handler = new SyncEventOnExitHandler(dropboxSyncStage, isOnLogout);
-        syncTask = new DropboxSyncTask(dropBoxAccount);
-        syncTask.setOnSucceeded(handler);
-        syncTask.setOnFailed(handler);
-        new Thread(syncTask).start();
+    public void endCloudSync(boolean isOnLogout, CloudSyncService syncService, Runnable onEnded) {
+        CompletableFuture<Boolean> synced = syncService.stop();
+        if (!synced.isDone()) dropboxSyncStage.show();
+        synced.completeOnTimeout(false, END_SYNC_TIMEOUT, TimeUnit.SECONDS)
+                .whenComplete((isSynced, ex) -> Platform.runLater(() -> {
+                    dropboxSyncStage.hide();
+                    if (!Boolean.TRUE.equals(isSynced)) System.out.println("Sync failed");
+                    onEnded.run();
+                    if (isOnLogout) logout();
+                    else exit();
+                }));
     }
 
     public static KeyboardingMaster getInstance(){
@@ -170,7 +195,11 @@ public class KeyboardingMaster extends Application {
     /**
      * Exit the program.
      */
-    public void exit(){ System.exit(0); }
+    public void exit(){
+        PersistenceService.getPersistenceService().flush();
+        MetricsServer.shutdown();
+        System.exit(0);
+    }
 
     public void logout(){
         controller.showStage();
@@ -3,6 +3,10 @@
  */
 package com.monkygames.kbmaster.cloud;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.function.Consumer;
+
 /**
  *
  * A ClientAccount manages saving and loading profiles.
@@ -20,4 +24,24 @@ public interface CloudAccount {
 	 * Returns the access token for the web account.
 	 */
 	public String getAccessToken();
+
+	/**
+	 * Sets the listener notified on the sync thread of each device
+	 * directory whose profiles were downloaded, and null for none.
+	 */
+	public void setDownloadListener(Consumer<File> downloadListener);
+
+	/**
+	 * Returns a cursor at the current state of the profiles in the cloud.
+	 */
+	public String getProfilesCursor() throws IOException;
+
+	/**
+	 * Waits until the profiles in the cloud change after the cursor or the
+	 * timeout has passed.
+	 * @param timeout the time in seconds to wait (30 to 480).
+	 * @return the cursor after the changes and the same cursor if nothing changed.
+	 * @throws IOException if the cursor is no longer valid or the cloud can not be reached.
+	 */
+	public String waitForChanges(String cursor, long timeout) throws IOException, InterruptedException;
 }
@@ -0,0 +1,49 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.cloud;
+
+// === kbmaster imports === //
+import com.monkygames.kbmaster.cloud.metadata.CloudFile;
+// === java imports === //
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * The files of a cloud the profiles are synced with by a {@link CloudSync}.
+ * The paths are relative to the root of the cloud and separated by '/'.
+ * The methods are called from several threads at once.
+ * @version 1.0
+ */
+public interface CloudStorage {
+
+	/**
+	 * Lists the files of the directory and its sub directories.
+	 * @return the files and null if the directory doesn't exist.
+	 */
+	public List<CloudFile> listFiles(String directory) throws IOException;
+
+	/**
+	 * Creates the directory.
+	 */
+	public void createFolder(String directory) throws IOException;
+
+	/**
+	 * Uploads a file, replacing the file of the path.
+	 * @return the file uploaded.
+	 */
+	public CloudFile upload(String path, InputStream in) throws IOException;
+
+	/**
+	 * Downloads a file.
+	 * @return the file downloaded.
+	 */
+	public CloudFile download(String path, OutputStream out) throws IOException;
+
+	/**
+	 * Deletes a file, a file that doesn't exist is ignored.
+	 */
+	public void delete(String path) throws IOException;
+}
@@ -0,0 +1,559 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.cloud;
+
+// === kbmaster imports === //
+import com.monkygames.kbmaster.cloud.metadata.CloudFile;
+import com.monkygames.kbmaster.cloud.metadata.FileSyncState;
+import com.monkygames.kbmaster.cloud.metadata.MetaData;
+import com.monkygames.kbmaster.io.BlobStore;
+import com.monkygames.kbmaster.io.ProfileStore;
+import com.monkygames.kbmaster.io.SyncStateStore;
+import com.monkygames.kbmaster.io.XStreamManager;
+import com.monkygames.kbmaster.metrics.MetricsRegistry;
+import com.monkygames.kbmaster.profiles.ProfileManager;
+// === java imports === //
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Syncs the profile directory with a {@link CloudStorage}.
+ * <p>
+ * The cloud is listed once and the devices and files are synced in
+ * parallel. Whether a file changed is decided from its state when it was
+ * last synced, which is kept in a {@link SyncStateStore}, so unchanged
+ * files are not read; when both sides changed the latest change wins and
+ * a file with the same content hash on both sides is not transferred.
+ * The profiles of a device are synced by its manifest: only the shards
+ * and logo blobs missing on one side are transferred.
+ * <p>
+ * A save writes new shards, so the shards and blobs no longer referenced
+ * are deleted in the cloud once a manifest is uploaded. The files of the
+ * manifest replaced are kept for the readers still downloading it, and
+ * recent files are kept as they may belong to a manifest another computer
+ * is uploading.
+ * @version 1.0
+ */
+public class CloudSync {
+
+	// ============= Class variables ============== //
+	/**
+	 * The number of devices and files synced at the same time.
+	 */
+	private static final int SYNC_THREADS = 4;
+	/**
+	 * The time in milliseconds a file is kept in the cloud once it is no longer referenced.
+	 */
+	public static final long CLEANUP_AGE = 60 * 60 * 1000;
+	/**
+	 * The copy of the manifest last synced in the directory of a device,
+	 * which tells the files of the manifest replaced by an upload.
+	 */
+	private static final String SYNCED_MANIFEST = ProfileStore.MANIFEST + ".synced";
+	private final CloudStorage storage;
+	/**
+	 * The directory holding the profile directory and null for the working directory.
+	 */
+	private final File localRoot;
+	/**
+	 * The content hashes of the local files.
+	 */
+	private final DropBoxContentHash contentHash;
+	/**
+	 * Notified of the device directories downloaded by a sync.
+	 */
+	private volatile Consumer<File> downloadListener;
+
+	// ============= Constructors ============== //
+	/**
+	 * @param storage the cloud synced with.
+	 * @param localRoot the directory holding the profile directory and null for the working directory.
+	 */
+	public CloudSync(CloudStorage storage, File localRoot) {
+		this.storage = storage;
+		this.localRoot = localRoot;
+		contentHash = new DropBoxContentHash();
+	}
+
+	// ============= Public Methods ============== //
+	/**
+	 * Sets the listener notified on the sync thread of each device
+	 * directory whose profiles were downloaded, and null for none.
+	 */
+	public void setDownloadListener(Consumer<File> downloadListener) {
+		this.downloadListener = downloadListener;
+	}
+	/**
+	 * Syncs every device directory and profile file found locally or in the cloud.
+	 * @return true if successful.
+	 */
+	public boolean sync() {
+		long start = System.nanoTime();
+		try {
+			return syncProfiles();
+		} finally {
+			MetricsRegistry.getMetricsRegistry().recordSync(System.nanoTime() - start);
+		}
+	}
+
+	// ============= Private Methods ============== //
+	private boolean syncProfiles() {
+		String profileDir = ProfileManager.PROFILE_DIR;
+		File localProfileDir = toFile(profileDir);
+		if (!localProfileDir.exists()) localProfileDir.mkdirs();
+		Map<String, CloudFile> cloudFiles = new HashMap<>();
+		try {
+			List<CloudFile> listed = storage.listFiles(profileDir);
+			if (listed == null) storage.createFolder(profileDir);
+			else for (CloudFile file : listed) cloudFiles.put(toKey(file.path), file);
+		} catch (IOException ex) {
+			Logger.getLogger(CloudSync.class.getName()).log(Level.FINE, null, ex);
+			return false;
+		}
+		// the devices and files found locally and in the cloud are synced once
+		LinkedHashMap<String, String> devices = new LinkedHashMap<>();
+		LinkedHashMap<String, String> files = new LinkedHashMap<>();
+		for (File file : localProfileDir.listFiles()) {
+			String path = profileDir + "/" + file.getName();
+			if (file.getName().equals(BlobStore.DIRECTORY)) {
+				continue;
+			} else if (file.isDirectory()) {
+				devices.putIfAbsent(toKey(path), path);
+			} else if (isValidFile(file.getName())) {
+				files.putIfAbsent(toKey(path), path);
+			}
+		}
+		for (CloudFile cloudFile : cloudFiles.values()) {
+			// the path relative to the profile directory
+			String path = cloudFile.path.substring(profileDir.length() + 1);
+			int separator = path.indexOf('/');
+			if (separator >= 0) {
+				String directory = path.substring(0, separator);
+				if (!directory.equals(BlobStore.DIRECTORY))
+					devices.putIfAbsent(toKey(profileDir + "/" + directory), profileDir + "/" + directory);
+			} else if (isValidFile(path)) {
+				files.putIfAbsent(toKey(profileDir + "/" + path), profileDir + "/" + path);
+			}
+		}
+		SyncPass sync = new SyncPass(cloudFiles, new SyncStateStore(new File(localProfileDir, SyncStateStore.FILENAME)));
+		ExecutorService executor = Executors.newFixedThreadPool(SYNC_THREADS, runnable -> {
+			Thread thread = new Thread(runnable, "kbmaster-sync");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			ArrayList<Future<Boolean>> results = new ArrayList<>();
+			for (String directory : devices.values())
+				results.add(executor.submit(() -> syncDevice(directory, sync)));
+			for (String filename : files.values())
+				results.add(executor.submit(() -> syncFile(filename, sync)));
+			boolean synced = true;
+			for (Future<Boolean> result : results) {
+				if (!result.get()) synced = false;
+			}
+			// every manifest is in the cloud once the sync succeeded
+			if (synced && sync.uploaded && !sync.replacedUnknown) collectBlobs(devices.values(), sync);
+			// the states of the files that are gone are dropped
+			ArrayList<String> paths = new ArrayList<>(files.keySet());
+			for (String directory : devices.keySet()) paths.add(directory + "/" + toKey(ProfileStore.MANIFEST));
+			sync.states.retain(paths);
+			if (sync.deleted.sum() > 0)
+				Logger.getLogger(CloudSync.class.getName()).log(Level.INFO, "Sync deleted {0} unreferenced files", sync.deleted.sum());
+			if (sync.skipped.sum() > 0)
+				Logger.getLogger(CloudSync.class.getName()).log(Level.INFO, "Sync skipped {0} unchanged files ({1} bytes saved)",
+					new Object[] { sync.skipped.sum(), sync.bytesSaved.sum() });
+			return synced;
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (ExecutionException ex) {
+			Logger.getLogger(CloudSync.class.getName()).log(Level.SEVERE, null, ex);
+			return false;
+		} finally {
+			executor.shutdownNow();
+			// the files synced are kept even if the sync failed
+			sync.states.save();
+		}
+	}
+	/**
+	 * Syncs the profiles of a device using the sync state of the manifest.
+	 * Only the shards and logo blobs missing on one side are transferred:
+	 * they are uploaded before the manifest and the manifest is only
+	 * replaced once they are downloaded, so a manifest never references a
+	 * missing file. A blob shared by devices is transferred once.
+	 * Once a manifest is uploaded, the shards in the cloud referenced by
+	 * neither it nor the manifest it replaced are deleted when older than
+	 * the {@link #CLEANUP_AGE}; the blobs no manifest references are
+	 * deleted at the end of the sync (see collectBlobs). Nothing is deleted
+	 * if the manifest replaced is not the one last synced.
+	 * @param directory the directory of the device.
+	 * @return true if successful.
+	 */
+	private boolean syncDevice(String directory, SyncPass sync) {
+		ProfileStore profileStore = ProfileStore.getProfileStore();
+		File localDirectory = toFile(directory);
+		String manifest = directory + "/" + ProfileStore.MANIFEST;
+		File localManifest = new File(localDirectory, ProfileStore.MANIFEST);
+		String blobDirectory = ProfileManager.PROFILE_DIR + "/" + BlobStore.DIRECTORY;
+		CloudFile cloudManifest = sync.cloudFiles.get(toKey(manifest));
+		FileSyncState state = sync.states.get(toKey(manifest));
+		File syncedManifest = new File(localDirectory, SYNCED_MANIFEST);
+		CloudFile cloudFile;
+		Set<String> shards, blobs;
+		switch (getTransfer(sync, localManifest, cloudManifest, state, () -> profileStore.readMetaData(localDirectory))) {
+			case UPLOAD:
+				shards = profileStore.readShardNames(localManifest);
+				blobs = profileStore.readBlobNames(localManifest);
+				if (shards == null || blobs == null) return false;
+				// the manifest replaced is the one last synced unless it changed in the cloud
+				Set<String> replacedShards = null, replacedBlobs = null;
+				if (cloudManifest == null) {
+					replacedShards = Collections.emptySet();
+					replacedBlobs = Collections.emptySet();
+				} else if (state != null && cloudManifest.rev.equals(state.rev) && syncedManifest.exists()) {
+					replacedShards = profileStore.readShardNames(syncedManifest);
+					replacedBlobs = profileStore.readBlobNames(syncedManifest);
+				}
+				for (String shard : shards) {
+					String filename = directory + "/" + shard;
+					if (!sync.cloudFiles.containsKey(toKey(filename)) && uploadFile(filename) == null) return false;
+				}
+				for (String blob : blobs) {
+					String filename = blobDirectory + "/" + blob;
+					if (!sync.cloudFiles.containsKey(toKey(filename))
+						&& sync.transferOnce(filename, () -> uploadFile(filename)) == null) return false;
+				}
+				cloudFile = uploadFile(manifest);
+				if (cloudFile == null) return false;
+				sync.uploaded = true;
+				if (replacedShards == null || replacedBlobs == null) {
+					sync.replacedUnknown = true;
+				} else {
+					sync.replacedBlobs.addAll(replacedBlobs);
+					HashSet<String> referenced = new HashSet<>(shards);
+					referenced.addAll(replacedShards);
+					deleteUnreferenced(sync, directory, ProfileStore.SHARD_EXTENSION, referenced);
+				}
+				break;
+			case DOWNLOAD:
+				if (!localDirectory.exists()) localDirectory.mkdirs();
+				File downloadedManifest = new File(localDirectory, ProfileStore.MANIFEST + ".cloud");
+				cloudFile = downloadFile(manifest, downloadedManifest);
+				if (cloudFile == null) return false;
+				shards = profileStore.readShardNames(downloadedManifest);
+				blobs = profileStore.readBlobNames(downloadedManifest);
+				if (shards == null || blobs == null) return false;
+				for (String shard : shards) {
+					File file = new File(localDirectory, shard);
+					if (!file.exists() && downloadFile(directory + "/" + shard, file) == null) return false;
+				}
+				File localBlobDirectory = toFile(blobDirectory);
+				if (!blobs.isEmpty() && !localBlobDirectory.exists()) localBlobDirectory.mkdirs();
+				for (String blob : blobs) {
+					File file = new File(localBlobDirectory, blob);
+					String filename = blobDirectory + "/" + blob;
+					if (!file.exists() && sync.transferOnce(filename, () -> downloadFile(filename, file)) == null) return false;
+				}
+				// the sync time is kept in the manifest for earlier versions
+				if (!profileStore.replaceManifest(localDirectory, downloadedManifest,
+					new MetaData(cloudFile.serverModified))) return false;
+				Consumer<File> listener = downloadListener;
+				if (listener != null) listener.accept(localDirectory);
+				break;
+			case RECORD:
+				cloudFile = cloudManifest;
+				break;
+			default:
+				return true;
+		}
+		sync.states.put(toKey(manifest), toSyncState(cloudFile, localManifest));
+		try {
+			Files.copy(localManifest.toPath(), syncedManifest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException ex) {
+			// the files of the manifest are not deleted by the next upload
+			syncedManifest.delete();
+		}
+		return true;
+	}
+	/**
+	 * Deletes the files of the directory in the cloud that are not referenced
+	 * and older than the {@link #CLEANUP_AGE}.
+	 * A file that can not be deleted is deleted by a later sync.
+	 * @param directory the directory in the cloud.
+	 * @param extension the extension of the files deleted.
+	 * @param referenced the names of the files kept.
+	 */
+	private void deleteUnreferenced(SyncPass sync, String directory, String extension, Set<String> referenced) {
+		String prefix = toKey(directory + "/");
+		HashSet<String> keys = new HashSet<>();
+		for (String name : referenced) keys.add(toKey(name));
+		long oldest = System.currentTimeMillis() - CLEANUP_AGE;
+		for (CloudFile cloudFile : sync.cloudFiles.values()) {
+			String key = toKey(cloudFile.path);
+			if (!key.startsWith(prefix) || !key.endsWith(extension) || key.indexOf('/', prefix.length()) >= 0) continue;
+			if (keys.contains(key.substring(prefix.length())) || cloudFile.serverModified > oldest) continue;
+			try {
+				storage.delete(cloudFile.path);
+				sync.deleted.increment();
+			} catch (IOException ex) {
+				Logger.getLogger(CloudSync.class.getName()).log(Level.FINE, null, ex);
+			}
+		}
+	}
+	/**
+	 * Deletes the blobs in the cloud that are not referenced by the
+	 * manifest of a device or by a manifest replaced by this sync.
+	 * Nothing is deleted if a manifest can not be read.
+	 * @param devices the directories of the devices.
+	 */
+	private void collectBlobs(Collection<String> devices, SyncPass sync) {
+		HashSet<String> referenced = new HashSet<>(sync.replacedBlobs);
+		for (String directory : devices) {
+			File manifest = new File(toFile(directory), ProfileStore.MANIFEST);
+			if (!manifest.exists()) continue;
+			Set<String> names = ProfileStore.getProfileStore().readBlobNames(manifest);
+			if (names == null) return;
+			referenced.addAll(names);
+		}
+		deleteUnreferenced(sync, ProfileManager.PROFILE_DIR + "/" + BlobStore.DIRECTORY, BlobStore.EXTENSION, referenced);
+	}
+	/**
+	 * Attemps to sync the file using its sync state.
+	 * @param filename The file to be synced.
+	 * @return true if successful.
+	 */
+	private boolean syncFile(String filename, SyncPass sync) {
+		File file = toFile(filename);
+		CloudFile cloudFile = sync.cloudFiles.get(toKey(filename));
+		CloudFile synced;
+		switch (getTransfer(sync, file, cloudFile, sync.states.get(toKey(filename)),
+			() -> XStreamManager.getStreamManager().readMetaData(file.getPath()))) {
+			case UPLOAD: synced = uploadFile(filename); break;
+			case DOWNLOAD:
+				synced = downloadFile(filename, file);
+				if (synced != null) contentHash.put(file, synced.contentHash);
+				break;
+			case RECORD: synced = cloudFile; break;
+			default: return true;
+		}
+		if (synced == null) return false;
+		sync.states.put(toKey(filename), toSyncState(synced, file));
+		return true;
+	}
+	/**
+	 * Decides how to sync a file from its sync state, so the file is
+	 * only read when it changed. A file synced before the sync states were
+	 * kept is decided once with the sync time stored in it. A file with the
+	 * same content hash on both sides is not transferred.
+	 * @param file the local file.
+	 * @param cloudFile the file listed in the cloud and null if none.
+	 * @param state the state of the file when it was last synced and null if none.
+	 * @param localMetaData reads the sync time stored in the local file.
+	 */
+	private Transfer getTransfer(SyncPass sync, File file, CloudFile cloudFile, FileSyncState state,
+		Supplier<MetaData> localMetaData) {
+		Transfer transfer = getTransfer(file, cloudFile, state, localMetaData);
+		if ((transfer == Transfer.UPLOAD || transfer == Transfer.DOWNLOAD) && file.exists() && cloudFile != null
+			&& cloudFile.contentHash != null && cloudFile.contentHash.equals(contentHash.get(file))) {
+			sync.skipped.increment();
+			sync.bytesSaved.add(cloudFile.size);
+			MetricsRegistry.getMetricsRegistry().recordSyncSkip(cloudFile.size);
+			return Transfer.RECORD;
+		}
+		return transfer;
+	}
+	private Transfer getTransfer(File file, CloudFile cloudFile, FileSyncState state, Supplier<MetaData> localMetaData) {
+		boolean local = file.exists();
+		if (!local && cloudFile == null) return Transfer.NONE;
+		if (cloudFile == null) return Transfer.UPLOAD;
+		if (!local) return Transfer.DOWNLOAD;
+		long cloudModified = cloudFile.serverModified;
+		if (state == null) {
+			MetaData metaData = localMetaData.get();
+			if (metaData == null || metaData.lastSync < cloudModified) return Transfer.DOWNLOAD;
+			if (metaData.lastSync > cloudModified) return Transfer.UPLOAD;
+			return Transfer.RECORD;
+		}
+		boolean localChanged = file.lastModified() != state.localModified || file.length() != state.length;
+		boolean cloudChanged = !cloudFile.rev.equals(state.rev);
+		// changed on both sides, the latest change wins
+		if (localChanged && cloudChanged) return file.lastModified() > cloudModified ? Transfer.UPLOAD : Transfer.DOWNLOAD;
+		if (localChanged) return Transfer.UPLOAD;
+		if (cloudChanged) return Transfer.DOWNLOAD;
+		return Transfer.NONE;
+	}
+	/**
+	 * Uploads a file to the cloud.
+	 * @param filename the file to upload to the cloud.
+	 * @return the file uploaded (on success) and null on failure.
+	 */
+	private CloudFile uploadFile(String filename) {
+		try (InputStream in = new FileInputStream(toFile(filename))) {
+			CloudFile cloudFile = storage.upload(filename, in);
+			MetricsRegistry.getMetricsRegistry().recordSyncTransfer(cloudFile.size);
+			return cloudFile;
+		} catch (IOException ex) {
+			Logger.getLogger(CloudSync.class.getName()).log(Level.FINE, null, ex);
+			return null;
+		}
+	}
+	/**
+	 * Download the file from the cloud.
+	 * The file is downloaded next to the local file which is only replaced
+	 * once the download is complete.
+	 * @param filename the file in the cloud.
+	 * @param file the local file.
+	 * @return the file downloaded (on success) and null on failure.
+	 */
+	private CloudFile downloadFile(String filename, File file) {
+		File download = new File(file.getPath() + ".download");
+		try {
+			CloudFile cloudFile;
+			try (OutputStream out = new FileOutputStream(download)) {
+				cloudFile = storage.download(filename, out);
+			}
+			Files.move(download.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			MetricsRegistry.getMetricsRegistry().recordSyncTransfer(cloudFile.size);
+			return cloudFile;
+		} catch (IOException ex) {
+			Logger.getLogger(CloudSync.class.getName()).log(Level.FINE, null, ex);
+			download.delete();
+			return null;
+		}
+	}
+	/**
+	 * Returns the local file of a path relative to the local root.
+	 */
+	private File toFile(String path) {
+		return new File(localRoot, path);
+	}
+
+	// ============= Internal Classes ============== //
+	/**
+	 * How a file is synced.
+	 */
+	private enum Transfer {
+		NONE,
+		UPLOAD,
+		DOWNLOAD,
+		/**
+		 * The file is in sync but has no sync state yet.
+		 */
+		RECORD
+	}
+	/**
+	 * The cloud listing and the states shared by the devices and files of a sync.
+	 */
+	private static class SyncPass {
+		/**
+		 * The files in the cloud by {@link CloudSync#toKey}.
+		 */
+		final Map<String, CloudFile> cloudFiles;
+		final SyncStateStore states;
+		/**
+		 * The blob transfers by {@link CloudSync#toKey}.
+		 */
+		private final ConcurrentHashMap<String, FutureTask<CloudFile>> transfers;
+		/**
+		 * The files not transferred because their content hashes matched.
+		 */
+		final LongAdder skipped, bytesSaved;
+		/**
+		 * The files deleted in the cloud.
+		 */
+		final LongAdder deleted;
+		/**
+		 * The blobs referenced by the manifests replaced by this sync, which are kept.
+		 */
+		final Set<String> replacedBlobs;
+		/**
+		 * True once a manifest was uploaded, and once a manifest whose files
+		 * are not known was replaced (the blobs are then not deleted).
+		 */
+		volatile boolean uploaded, replacedUnknown;
+		SyncPass(Map<String, CloudFile> cloudFiles, SyncStateStore states) {
+			this.cloudFiles = cloudFiles;
+			this.states = states;
+			transfers = new ConcurrentHashMap<>();
+			skipped = new LongAdder();
+			bytesSaved = new LongAdder();
+			deleted = new LongAdder();
+			replacedBlobs = ConcurrentHashMap.newKeySet();
+		}
+		/**
+		 * Runs the transfer of the file unless another device is transferring
+		 * it, in which case its result is waited for.
+		 * @return the file transferred and null on failure.
+		 */
+		CloudFile transferOnce(String filename, Callable<CloudFile> transfer) {
+			FutureTask<CloudFile> task = new FutureTask<>(transfer);
+			FutureTask<CloudFile> running = transfers.putIfAbsent(toKey(filename), task);
+			if (running == null) {
+				task.run();
+				running = task;
+			}
+			try {
+				return running.get();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException ex) { }
+			return null;
+		}
+	}
+
+	// ============= Static Methods ============== //
+	/**
+	 * Returns the state of the file after it was synced.
+	 * @param cloudFile the file in the cloud.
+	 * @param file the local file.
+	 */
+	private static FileSyncState toSyncState(CloudFile cloudFile, File file) {
+		return new FileSyncState(cloudFile.rev, cloudFile.contentHash, cloudFile.serverModified,
+			file.lastModified(), file.length());
+	}
+	/**
+	 * Returns the key of a path in the cloud, which is not case sensitive.
+	 * @param path the path relative to the root of the cloud.
+	 */
+	private static String toKey(String path) {
+		return path.toLowerCase(Locale.ROOT);
+	}
+	/**
+	 * Returns true if this is a valid file to sync.
+	 * Only xml files (saved by earlier versions) are valid, the profiles
+	 * of a device are synced by directory.
+	 * @param fileName the file to check.
+	 */
+	private static boolean isValidFile(String fileName) {
+		return fileName.endsWith(".xml");
+	}
+}
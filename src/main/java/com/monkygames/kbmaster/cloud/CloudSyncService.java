@@ -0,0 +1,210 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.cloud;
+
+// === kbmaster imports === //
+import com.monkygames.kbmaster.profiles.ProfileManager;
+// === java imports === //
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Syncs the profiles with a cloud account in the background while the
+ * device menu is open.
+ * <p>
+ * A save is uploaded after the upload delay, so a burst of edits is synced
+ * once, and the changes made in the cloud (such as by another computer)
+ * are watched on a cursor of the profiles (a longpoll with DropBox) and downloaded
+ * after the download delay. The profiles downloaded are applied to the
+ * profile manager on the model executor (the JavaFX thread in the
+ * application). The syncs run one at a time on a single background thread.
+ * @version 1.0
+ */
+public class CloudSyncService {
+
+	// ============= Class variables ============== //
+	/**
+	 * The time in milliseconds saves are coalesced before they are uploaded.
+	 */
+	public static final long UPLOAD_DELAY = 2000;
+	/**
+	 * The time in milliseconds changes in the cloud are coalesced before they are downloaded.
+	 */
+	public static final long DOWNLOAD_DELAY = 1000;
+	/**
+	 * The time in seconds a longpoll waits for changes.
+	 */
+	public static final long LONGPOLL_TIMEOUT = 60;
+	/**
+	 * The time in milliseconds before a failed sync or longpoll is retried.
+	 */
+	private static final long RETRY_DELAY = 30000;
+	/**
+	 * The time in milliseconds the changes are waited for before a sync.
+	 */
+	private static final long WRITE_TIMEOUT = 10000;
+	private final CloudAccount account;
+	private final ProfileManager profileManager;
+	private final Executor modelExecutor;
+	private final ScheduledExecutorService syncer;
+	/**
+	 * True if there are saves not synced yet.
+	 */
+	private final AtomicBoolean dirty;
+	/**
+	 * True while a sync is running.
+	 */
+	private final AtomicBoolean syncing;
+	private ScheduledFuture<?> scheduled;
+	private Thread watcher;
+	private volatile boolean running;
+
+	// ============= Constructors ============== //
+	/**
+	 * @param account the account synced, which has been synced at login.
+	 * @param profileManager the profiles the downloads are applied to.
+	 * @param modelExecutor runs the methods of the profile manager on the thread owning the model.
+	 */
+	public CloudSyncService(CloudAccount account, ProfileManager profileManager, Executor modelExecutor) {
+		this.account = account;
+		this.profileManager = profileManager;
+		this.modelExecutor = modelExecutor;
+		dirty = new AtomicBoolean();
+		syncing = new AtomicBoolean();
+		syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "kbmaster-cloud-sync");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	// ============= Public Methods ============== //
+	/**
+	 * Starts watching the saves and the changes in the cloud.
+	 */
+	public void start() {
+		running = true;
+		account.setDownloadListener(directory -> modelExecutor.execute(() -> profileManager.reloadDevice(directory)));
+		profileManager.setSaveListener(this::requestSync);
+		watcher = new Thread(this::watch, "kbmaster-cloud-watch");
+		watcher.setDaemon(true);
+		watcher.start();
+	}
+	/**
+	 * Syncs the saves after the upload delay, which is restarted by each save.
+	 */
+	public void requestSync() {
+		dirty.set(true);
+		schedule(UPLOAD_DELAY);
+	}
+	/**
+	 * Stops watching and syncs the saves not synced yet, so only the last
+	 * changes are uploaded when the program exits.
+	 * Must be called before the profiles are closed, which must not delete
+	 * files while a sync is running (see isSyncing).
+	 * @return completes with true once synced and the sync running has ended,
+	 * right away if there was nothing to sync.
+	 */
+	public CompletableFuture<Boolean> stop() {
+		running = false;
+		profileManager.setSaveListener(null);
+		account.setDownloadListener(null);
+		if (watcher != null) watcher.interrupt();
+		boolean started;
+		synchronized (this) {
+			// a sync that started can not be cancelled and is waited for
+			started = scheduled != null && !scheduled.cancel(false) && !scheduled.isDone();
+		}
+		if (!dirty.get() && !syncing.get() && !started) {
+			syncer.shutdown();
+			return CompletableFuture.completedFuture(true);
+		}
+		CompletableFuture<Boolean> synced = new CompletableFuture<>();
+		syncer.execute(() -> synced.complete(!dirty.get() || sync()));
+		syncer.shutdown();
+		return synced;
+	}
+	/**
+	 * Returns true while a sync is running.
+	 */
+	public boolean isSyncing() {
+		return syncing.get();
+	}
+
+	// ============= Private Methods ============== //
+	/**
+	 * Replaces the sync waiting to run with one after the delay.
+	 */
+	private synchronized void schedule(long delay) {
+		if (!running) return;
+		if (scheduled != null) scheduled.cancel(false);
+		scheduled = syncer.schedule(() -> {
+			if (!sync() && running) schedule(RETRY_DELAY);
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+	/**
+	 * Writes the saves to the store on the model executor and syncs them.
+	 * @return true if successful.
+	 */
+	private boolean sync() {
+		syncing.set(true);
+		boolean saved = dirty.getAndSet(false);
+		try {
+			// a journal is only in the store once compacted
+			CompletableFuture.runAsync(profileManager::writeChanges, modelExecutor)
+				.get(WRITE_TIMEOUT, TimeUnit.MILLISECONDS);
+			if (account.sync()) return true;
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException | TimeoutException ex) {
+			Logger.getLogger(CloudSyncService.class.getName()).log(Level.WARNING, "Cloud sync failed", ex);
+		} finally {
+			syncing.set(false);
+		}
+		// the saves are synced by the next sync
+		if (saved) dirty.set(true);
+		return false;
+	}
+	/**
+	 * Waits for the changes in the cloud and syncs them.
+	 * The changes missed while the cloud can not be reached are found by
+	 * the sync once it can be.
+	 */
+	private void watch() {
+		String cursor = null;
+		boolean missed = false;
+		while (running) {
+			try {
+				if (cursor == null) {
+					cursor = account.getProfilesCursor();
+					if (missed) schedule(DOWNLOAD_DELAY);
+				}
+				String next = account.waitForChanges(cursor, LONGPOLL_TIMEOUT);
+				if (!next.equals(cursor)) schedule(DOWNLOAD_DELAY);
+				cursor = next;
+			} catch (InterruptedException ex) {
+				return;
+			} catch (IOException ex) {
+				Logger.getLogger(CloudSyncService.class.getName()).log(Level.FINE, "Cloud watch failed", ex);
+				cursor = null;
+				missed = true;
+				try {
+					Thread.sleep(RETRY_DELAY);
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		}
+	}
+}
@@ -4,43 +4,76 @@
 package com.monkygames.kbmaster.cloud;
 
 import com.dropbox.core.*;
+import com.dropbox.core.http.StandardHttpRequestor;
 import com.dropbox.core.v2.DbxClientV2;
 import com.dropbox.core.v2.files.*;
 import com.monkygames.kbmaster.KeyboardingMaster;
-import com.monkygames.kbmaster.cloud.metadata.MetaData;
-import com.monkygames.kbmaster.io.XStreamManager;
+import com.monkygames.kbmaster.cloud.metadata.CloudFile;
 import com.monkygames.kbmaster.profiles.ProfileManager;
-import com.monkygames.kbmaster.profiles.RootManager;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Manages the DropBox Synchronization.
+ * The profiles are synced by a {@link CloudSync} with the files of the app folder.
  * @author spethm (modified by vapula87)
  */
-public class DropBoxAccount implements CloudAccount{
+public class DropBoxAccount implements CloudAccount, CloudStorage{
     private DbxAppInfo appInfo;
     private DbxPKCEWebAuth webAuth;
     private String dropBoxAccessToken;
     private DbxClientV2 dropBoxClient;
     private DbxRequestConfig dropBoxConfig;
+    private final DbxHost dropBoxHost;
+    /**
+     * The client waiting for changes, which reads for longer than a longpoll.
+     */
+    private DbxClientV2 longpollClient;
+    /**
+     * Syncs the profiles with the app folder.
+     */
+    private final CloudSync cloudSync;
+    /**
+     * The time in minutes a longpoll is read, DropBox adds up to 90 seconds to its timeout.
+     */
+    private static final long LONGPOLL_READ_TIMEOUT = 5;
 
 	///---Constructors---\\\
     public DropBoxAccount(){
-        dropBoxConfig = DbxRequestConfig.newBuilder(
-                "Keyboarding(Re)Master/"+ KeyboardingMaster.VERSION).build();
-        appInfo = new DbxAppInfo(DropBoxApp.APP_KEY);
-        webAuth = new DbxPKCEWebAuth(dropBoxConfig, appInfo);
+        // the requests refused with 429 or 503 are retried with the backoff DropBox asks for
+        this(DbxRequestConfig.newBuilder("Keyboarding(Re)Master/"+ KeyboardingMaster.VERSION)
+                .withAutoRetryEnabled().build(), DbxHost.DEFAULT, null);
     }
     public DropBoxAccount(String dropBoxAccessToken){
         this();
         this.dropBoxAccessToken = dropBoxAccessToken;
         setupClient();
     }
+    /**
+     * Creates an account on other hosts, such as the DropBoxStandIn used to
+     * measure the sync without the network.
+     * @param localRoot the directory holding the local profile directory and null for the working directory.
+     */
+    public DropBoxAccount(String dropBoxAccessToken, DbxRequestConfig dropBoxConfig, DbxHost dropBoxHost, File localRoot){
+        this(dropBoxConfig, dropBoxHost, localRoot);
+        this.dropBoxAccessToken = dropBoxAccessToken;
+        setupClient();
+    }
+    private DropBoxAccount(DbxRequestConfig dropBoxConfig, DbxHost dropBoxHost, File localRoot){
+        this.dropBoxConfig = dropBoxConfig;
+        this.dropBoxHost = dropBoxHost;
+        appInfo = new DbxAppInfo(DropBoxApp.APP_KEY);
+        webAuth = new DbxPKCEWebAuth(dropBoxConfig, appInfo);
+        cloudSync = new CloudSync(this, localRoot);
+    }
 
     ///---Getters and Setters---\\\
     @Override
@@ -74,160 +107,121 @@ public class DropBoxAccount implements CloudAccount{
         }
     }
 
+    @Override
+    public void setDownloadListener(Consumer<File> downloadListener) {
+        cloudSync.setDownloadListener(downloadListener);
+    }
+
     ///---Public Methods---\\\
     @Override
     public boolean sync() {
-        String profileDir = ProfileManager.PROFILE_DIR;
-        File localProfileDir = new File(profileDir);
-        if (!localProfileDir.exists()) localProfileDir.mkdir();
-        ListFolderResult result = null;
+        return cloudSync.sync();
+    }
+    @Override
+    public String getProfilesCursor() throws IOException {
         try {
-            result = dropBoxClient.files().listFolder("/" + profileDir);
-        }catch (DbxException ex) { }
-        if(result == null) {
-            try {
-                dropBoxClient.files().createFolderV2("/" + profileDir);
-                result = dropBoxClient.files().listFolder("/" + profileDir);
-            } catch (DbxException ex) { return false; }
-        }
-        for(File file: localProfileDir.listFiles()){
-           if (isValidFile(file.getName())) {
-               if(!syncFile(profileDir+"/"+file.getName()))
-                   return false;
-           }
-        }
-        for (Metadata metadata : result.getEntries()) {
-            if (isValidFile(metadata.getName())) {
-                if (!syncFile(profileDir+"/"+metadata.getName()))
-                    return false;
-            }
+            return dropBoxClient.files().listFolderGetLatestCursorBuilder("/" + ProfileManager.PROFILE_DIR)
+                    .withRecursive(true).start().getCursor();
+        } catch (DbxException ex) {
+            throw new IOException(ex);
         }
-        return true;
     }
-
-    ///---Private Methods---\\\
-    private void setupClient(){
-        dropBoxClient = new DbxClientV2(dropBoxConfig, dropBoxAccessToken);
-    }
-
     /**
-     * Attemps to sync the file using local and cloud meta data.
-     * @param filename The file to be synced.
-     * @return true if successful.
+     * Waits with a longpoll and waits as long as DropBox asks before returning.
      */
-    private boolean syncFile(String filename) {
-        MetaData localMetaData = getLocalDropboxMetaData(filename);
-        MetaData cloudMetaData = getCloudDropboxMetaData(filename);
-        MetaData metaData = null;
-        if (cloudMetaData == null) metaData = uploadFile(filename);
-        else if (localMetaData == null) metaData = downloadFile(filename);
-        else if (localMetaData.lastSync < cloudMetaData.lastSync) metaData = downloadFile(filename);
-        else if (localMetaData.lastSync > cloudMetaData.lastSync) metaData = uploadFile(filename);
-        else if (localMetaData.lastSync == cloudMetaData.lastSync) return true;
-        if (metaData == null) return false;
-        return updateLocalFileMetaData(filename, metaData);
-    }
-    /**
-     * Uploads a file to the cloud.
-     * @param filename the file to upload to the cloud.
-     * @return the metadata for the uploaded file (on success) 
-     * and null on failure.
-     */ 
-    private MetaData uploadFile(String filename) {
-        FileInputStream inputStream = null;
+    @Override
+    public String waitForChanges(String cursor, long timeout) throws IOException, InterruptedException {
         try {
-            File inputFile = new File(filename);
-            inputStream = new FileInputStream(inputFile);
-            UploadBuilder builder = dropBoxClient.files().uploadBuilder("/" + filename);
-            builder.withMode(WriteMode.OVERWRITE);
-            FileMetadata fileMetadata = builder.uploadAndFinish(inputStream);
-            MetaData metaData = new MetaData(fileMetadata.getServerModified().getTime());
-            return metaData;
-        } catch (Exception e) { }
-        finally {
-            if (inputStream != null) {
-                try {
-                    inputStream.close();
-                } catch (IOException ex) {
-                    Logger.getLogger(DropBoxAccount.class.getName()).log(Level.SEVERE, null, ex);
-                }
+            ListFolderLongpollResult longpoll = longpollClient.files().listFolderLongpoll(cursor, timeout);
+            if (longpoll.getChanges()) {
+                ListFolderResult result;
+                do {
+                    result = dropBoxClient.files().listFolderContinue(cursor);
+                    cursor = result.getCursor();
+                } while (result.getHasMore());
             }
+            if (longpoll.getBackoff() != null) Thread.sleep(TimeUnit.SECONDS.toMillis(longpoll.getBackoff()));
+            return cursor;
+        } catch (DbxException ex) {
+            throw new IOException(ex);
         }
-        return null;
     }
-    /**
-     * Download the file from the cloud.
-     * @return the meta data for the downloaded file (on success) 
-     * and null on failure.
-     */
-    private MetaData downloadFile(String filename){
-        FileOutputStream outputStream = null;
+    @Override
+    public List<CloudFile> listFiles(String directory) throws IOException {
+        ArrayList<CloudFile> files = new ArrayList<>();
         try {
-            outputStream = new FileOutputStream(filename);
-            DbxDownloader<FileMetadata> downloader = dropBoxClient.files().download("/"+filename);
-            MetaData metaData = new MetaData(downloader.getResult().getServerModified().getTime());
-            downloader.download(outputStream);
-            return metaData;
-        }catch (Exception e){ }
-         finally {
-            if(outputStream != null){
-                try {
-                    outputStream.close();
-                } catch (IOException ex) {
-                    Logger.getLogger(DropBoxAccount.class.getName()).log(Level.SEVERE, null, ex);
+            ListFolderResult result = dropBoxClient.files().listFolderBuilder("/" + directory)
+                    .withRecursive(true).start();
+            while (true) {
+                for (Metadata metadata : result.getEntries()) {
+                    if (metadata instanceof FileMetadata) files.add(toCloudFile((FileMetadata) metadata));
                 }
+                if (!result.getHasMore()) break;
+                result = dropBoxClient.files().listFolderContinue(result.getCursor());
             }
+        } catch (ListFolderErrorException ex) {
+            if (ex.errorValue.isPath() && ex.errorValue.getPathValue().isNotFound()) return null;
+            throw new IOException(ex);
+        } catch (DbxException ex) {
+            throw new IOException(ex);
         }
-        return null;
+        return files;
     }
-    /**
-     * Return the DropBox metadata from the cloud.
-     * @param filename the name of the file to get the rev number
-     * @return the metadata and -1 if it doesn't exist
-     */
-    private MetaData getCloudDropboxMetaData(String filename){
+    @Override
+    public void createFolder(String directory) throws IOException {
         try {
-            Metadata entry = dropBoxClient.files().getMetadata("/"+filename);
-            if(entry != null){
-                if(entry instanceof FileMetadata){
-                    FileMetadata fileMetadata = (FileMetadata)entry;
-                    MetaData metaData = new MetaData(fileMetadata.getServerModified().getTime());
-                    return metaData;
-                }
-            }
-        } catch (DbxException ex) { }
-        return null;
+            dropBoxClient.files().createFolderV2("/" + directory);
+        } catch (DbxException ex) {
+            throw new IOException(ex);
+        }
     }
-    /**
-     * Return the dropbox meta data
-     * @param filename on the local filesystem.
-     * @return the meta data and null if it doesn't exist.
-     */
-    private MetaData getLocalDropboxMetaData(String filename){
-        RootManager rootManager = XStreamManager.getStreamManager().readRootManager(filename);
-        if (rootManager == null) return null;
-        return rootManager.getMetaData();
+    @Override
+    public CloudFile upload(String path, InputStream in) throws IOException {
+        try {
+            return toCloudFile(dropBoxClient.files().uploadBuilder("/" + path)
+                    .withMode(WriteMode.OVERWRITE).uploadAndFinish(in));
+        } catch (DbxException ex) {
+            throw new IOException(ex);
+        }
     }
-    /**
-     * Updates the local metadata.
-     * @param filename The file to be updated.
-     * @param metaData The meta data to write.
-     * @return true if successful.
-     */
-    private boolean updateLocalFileMetaData(String filename, MetaData metaData){
-        try{
-            RootManager rootManager = XStreamManager.getStreamManager().readRootManager(filename);
-            if(rootManager == null) return false;
-            rootManager.setMetaData(metaData);
-            return XStreamManager.getStreamManager().writeRootManager(filename, rootManager);
-        }catch (Exception e){ return false; }
+    @Override
+    public CloudFile download(String path, OutputStream out) throws IOException {
+        try {
+            return toCloudFile(dropBoxClient.files().download("/" + path).download(out));
+        } catch (DbxException ex) {
+            throw new IOException(ex);
+        }
     }
+    @Override
+    public void delete(String path) throws IOException {
+        try {
+            dropBoxClient.files().deleteV2("/" + path);
+        } catch (DeleteErrorException ex) {
+            if (ex.errorValue.isPathLookup() && ex.errorValue.getPathLookupValue().isNotFound()) return;
+            throw new IOException(ex);
+        } catch (DbxException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    ///---Private Methods---\\\
+    private void setupClient(){
+        dropBoxClient = new DbxClientV2(dropBoxConfig, dropBoxAccessToken, dropBoxHost);
+        // a requestor set in the config (such as by a stand-in) is kept
+        if (!(dropBoxConfig.getHttpRequestor() instanceof StandardHttpRequestor)) {
+            longpollClient = dropBoxClient;
+            return;
+        }
+        StandardHttpRequestor requestor = new StandardHttpRequestor(StandardHttpRequestor.Config.builder()
+                .withReadTimeout(LONGPOLL_READ_TIMEOUT, TimeUnit.MINUTES).build());
+        longpollClient = new DbxClientV2(dropBoxConfig.copy().withHttpRequestor(requestor).build(), dropBoxAccessToken, dropBoxHost);
+    }
+
     /**
-     * Returns true if this is a valid file to upload to dropbox.
-     * Only xml files are valid.
-     * @param fileName the file to check.
+     * Returns the file listed by DropBox, with its path relative to the app folder.
      */
-    private boolean isValidFile(String fileName){
-        return fileName.endsWith(".xml");
+    private static CloudFile toCloudFile(FileMetadata metadata){
+        return new CloudFile(metadata.getPathDisplay().substring(1), metadata.getRev(), metadata.getContentHash(),
+                metadata.getServerModified().getTime(), metadata.getSize());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,116 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.cloud;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Computes the DropBox content hash of local files, so a file with the
+ * same content as the file in the cloud is not transferred.
+ * <p>
+ * The content hash is the SHA-256 of the SHA-256 of every 4 MiB block of
+ * the file. The hash of each file is cached by its modification time and
+ * length, so a file is only read again when it changed.
+ * @version 1.0
+ */
+public class DropBoxContentHash {
+
+	// ============= Class variables ============== //
+	public static final int BLOCK_SIZE = 4 * 1024 * 1024;
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+	/**
+	 * The hashes by absolute path.
+	 */
+	private final ConcurrentHashMap<String, Hash> hashes;
+
+	// ============= Constructors ============== //
+	public DropBoxContentHash() {
+		hashes = new ConcurrentHashMap<>();
+	}
+
+	// ============= Public Methods ============== //
+	/**
+	 * Returns the content hash of the file, which is only computed if the
+	 * file changed since it was last hashed.
+	 * @return the hash in hex and null if the file can not be read.
+	 */
+	public String get(File file) {
+		String path = file.getAbsolutePath();
+		long modified = file.lastModified(), length = file.length();
+		Hash hash = hashes.get(path);
+		if (hash != null && hash.modified == modified && hash.length == length) return hash.hash;
+		try (InputStream in = new FileInputStream(file)) {
+			String value = compute(in);
+			// a file changed while it was read is hashed again next time
+			if (file.lastModified() == modified) hashes.put(path, new Hash(modified, length, value));
+			return value;
+		} catch (IOException ex) {
+			return null;
+		}
+	}
+	/**
+	 * Caches the known hash of the file, such as the hash of a file just downloaded.
+	 */
+	public void put(File file, String hash) {
+		if (hash == null) return;
+		hashes.put(file.getAbsolutePath(), new Hash(file.lastModified(), file.length(), hash));
+	}
+
+	// ============= Internal Classes ============== //
+	private static class Hash {
+		final long modified, length;
+		final String hash;
+		Hash(long modified, long length, String hash) {
+			this.modified = modified;
+			this.length = length;
+			this.hash = hash;
+		}
+	}
+
+	// ============= Static Methods ============== //
+	/**
+	 * Returns the content hash of the stream in hex.
+	 */
+	public static String compute(InputStream in) throws IOException {
+		MessageDigest block = newDigest(), overall = newDigest();
+		byte[] buffer = new byte[64 * 1024];
+		int blockLength = 0;
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			int offset = 0;
+			while (offset < read) {
+				int length = Math.min(read - offset, BLOCK_SIZE - blockLength);
+				block.update(buffer, offset, length);
+				offset += length;
+				blockLength += length;
+				if (blockLength == BLOCK_SIZE) {
+					overall.update(block.digest());
+					blockLength = 0;
+				}
+			}
+		}
+		if (blockLength > 0) overall.update(block.digest());
+		byte[] hash = overall.digest();
+		char[] hex = new char[hash.length * 2];
+		for (int i = 0; i < hash.length; i++) {
+			hex[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+			hex[i * 2 + 1] = HEX[hash[i] & 0xF];
+		}
+		return new String(hex);
+	}
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException ex) {
+			// every Java platform supports SHA-256
+			throw new IllegalStateException(ex);
+		}
+	}
+}
@@ -0,0 +1,203 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.cloud;
+
+// === kbmaster imports === //
+import com.monkygames.kbmaster.cloud.metadata.CloudFile;
+import com.monkygames.kbmaster.profiles.ProfileManager;
+// === java imports === //
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Syncs the profiles with a directory, such as a shared folder or a NAS
+ * mounted on each computer, with the same incremental sync as DropBox, so
+ * profiles are shared without internet and the sync can be run offline.
+ * <p>
+ * A file is uploaded to a temporary file next to it which is moved over
+ * it, so another computer never reads a partial file. The revision of a
+ * file is its content hash. The changes are watched by polling the
+ * listing, as the file events of network shares are not reliable.
+ * The sync is only enabled with -Dkbmaster.sync.dir=&lt;directory&gt;
+ * when logged in locally.
+ * @version 1.0
+ */
+public class LocalDirectoryCloudAccount implements CloudAccount, CloudStorage {
+
+	// ============= Class variables ============== //
+	public static final String SYNC_DIR_PROPERTY = "kbmaster.sync.dir";
+	/**
+	 * The time in milliseconds between the listings of the directory while
+	 * waiting for changes.
+	 */
+	public static final long POLL_INTERVAL = 2000;
+	/**
+	 * The extension of the files being uploaded, which are not listed.
+	 */
+	private static final String TEMP_EXTENSION = ".tmp";
+	/**
+	 * The directory synced with.
+	 */
+	private final File root;
+	private final CloudSync cloudSync;
+	/**
+	 * The content hashes of the files of the directory.
+	 */
+	private final DropBoxContentHash contentHash;
+
+	// ============= Constructors ============== //
+	/**
+	 * @param root the directory synced with.
+	 */
+	public LocalDirectoryCloudAccount(File root) {
+		this(root, null);
+	}
+	/**
+	 * @param root the directory synced with.
+	 * @param localRoot the directory holding the local profile directory and null for the working directory.
+	 */
+	public LocalDirectoryCloudAccount(File root, File localRoot) {
+		this.root = root;
+		cloudSync = new CloudSync(this, localRoot);
+		contentHash = new DropBoxContentHash();
+	}
+
+	// ============= Public Methods ============== //
+	public File getRoot() { return root; }
+	@Override
+	public boolean sync() {
+		return cloudSync.sync();
+	}
+	/**
+	 * Returns null as a directory has no access token.
+	 */
+	@Override
+	public String getAccessToken() {
+		return null;
+	}
+	@Override
+	public void setDownloadListener(Consumer<File> downloadListener) {
+		cloudSync.setDownloadListener(downloadListener);
+	}
+	/**
+	 * Returns a checksum of the paths, times and lengths of the profiles.
+	 */
+	@Override
+	public String getProfilesCursor() throws IOException {
+		File directory = new File(root, ProfileManager.PROFILE_DIR);
+		if (!directory.isDirectory()) return "";
+		CRC32 crc = new CRC32();
+		List<Path> paths = listPaths(directory);
+		paths.sort(null);
+		for (Path path : paths) {
+			File file = path.toFile();
+			crc.update((toPath(path) + '\0' + file.lastModified() + '\0' + file.length() + '\n').getBytes(StandardCharsets.UTF_8));
+		}
+		return paths.size() + ":" + Long.toHexString(crc.getValue());
+	}
+	/**
+	 * Polls the directory every {@link #POLL_INTERVAL}.
+	 */
+	@Override
+	public String waitForChanges(String cursor, long timeout) throws IOException, InterruptedException {
+		long end = System.currentTimeMillis() + timeout * 1000;
+		while (System.currentTimeMillis() < end) {
+			Thread.sleep(POLL_INTERVAL);
+			String next = getProfilesCursor();
+			if (!next.equals(cursor)) return next;
+		}
+		return cursor;
+	}
+	@Override
+	public List<CloudFile> listFiles(String directory) throws IOException {
+		File folder = new File(root, directory);
+		if (!folder.isDirectory()) return null;
+		ArrayList<CloudFile> files = new ArrayList<>();
+		for (Path path : listPaths(folder)) files.add(toCloudFile(toPath(path), path.toFile()));
+		return files;
+	}
+	@Override
+	public void createFolder(String directory) throws IOException {
+		Files.createDirectories(new File(root, directory).toPath());
+	}
+	@Override
+	public CloudFile upload(String path, InputStream in) throws IOException {
+		Path target = new File(root, path).toPath();
+		Files.createDirectories(target.getParent());
+		Path temp = Files.createTempFile(target.getParent(), target.getFileName() + ".", TEMP_EXTENSION);
+		try {
+			Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+			try {
+				Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException ex) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+		return toCloudFile(path, target.toFile());
+	}
+	@Override
+	public CloudFile download(String path, OutputStream out) throws IOException {
+		File file = new File(root, path);
+		if (!file.isFile()) throw new FileNotFoundException(file.getPath());
+		long modified = file.lastModified();
+		Files.copy(file.toPath(), out);
+		// a file replaced while it was read is downloaded again by the next sync
+		if (file.lastModified() != modified) throw new IOException(file.getPath() + " changed while it was read");
+		return toCloudFile(path, file);
+	}
+	@Override
+	public void delete(String path) throws IOException {
+		Files.deleteIfExists(new File(root, path).toPath());
+	}
+
+	// ============= Private Methods ============== //
+	/**
+	 * Returns the files of the directory and its sub directories, without the files being uploaded.
+	 */
+	private List<Path> listPaths(File directory) throws IOException {
+		try (Stream<Path> paths = Files.walk(directory.toPath())) {
+			return paths.filter(Files::isRegularFile)
+				.filter(path -> !path.getFileName().toString().endsWith(TEMP_EXTENSION))
+				.collect(Collectors.toCollection(ArrayList::new));
+		}
+	}
+	/**
+	 * Returns the path of the file relative to the root.
+	 */
+	private String toPath(Path path) {
+		return root.toPath().relativize(path).toString().replace(File.separatorChar, '/');
+	}
+	private CloudFile toCloudFile(String path, File file) throws IOException {
+		String hash = contentHash.get(file);
+		if (hash == null) throw new IOException(file.getPath() + " can not be read");
+		return new CloudFile(path, hash, hash, file.lastModified(), file.length());
+	}
+
+	// ============= Static Methods ============== //
+	/**
+	 * Returns the account of the directory set with the sync directory
+	 * property and null if it is not set.
+	 */
+	public static LocalDirectoryCloudAccount fromSystemProperty() {
+		String directory = System.getProperty(SYNC_DIR_PROPERTY);
+		if (directory == null || directory.isEmpty()) return null;
+		return new LocalDirectoryCloudAccount(new File(directory));
+	}
+}
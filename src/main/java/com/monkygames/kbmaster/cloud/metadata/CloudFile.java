@@ -0,0 +1,33 @@
+package com.monkygames.kbmaster.cloud.metadata;
+
+/**
+ * A file listed in the cloud by a {@link com.monkygames.kbmaster.cloud.CloudStorage}.
+ */
+public class CloudFile {
+	/**
+	 * The path of the file relative to the root of the cloud.
+	 */
+	public final String path;
+	/**
+	 * The revision of the file, which changes when its content changes.
+	 */
+	public final String rev;
+	/**
+	 * The DropBox content hash of the file and null if unknown.
+	 */
+	public final String contentHash;
+	/**
+	 * The time the file was modified in the cloud.
+	 */
+	public final long serverModified;
+	public final long size;
+	public CloudFile(String path, String rev, String contentHash, long serverModified, long size) {
+		this.path = path;
+		this.rev = rev;
+		this.contentHash = contentHash;
+		this.serverModified = serverModified;
+		this.size = size;
+	}
+	@Override
+	public String toString(){ return "CloudFile["+path+","+rev+","+contentHash+","+serverModified+","+size+"]"; }
+}
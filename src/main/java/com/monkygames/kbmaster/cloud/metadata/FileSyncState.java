@@ -0,0 +1,34 @@
+package com.monkygames.kbmaster.cloud.metadata;
+
+/**
+ * The state of a file when it was last synced with the cloud, which is kept
+ * next to the profiles so the file is not read to decide if it changed.
+ */
+public class FileSyncState {
+	/**
+	 * The revision of the file in the cloud.
+	 */
+	public final String rev;
+	/**
+	 * The DropBox content hash of the file.
+	 */
+	public final String contentHash;
+	/**
+	 * The time the file was modified in the cloud.
+	 */
+	public final long serverModified;
+	/**
+	 * The time the local file was modified and its length.
+	 */
+	public final long localModified;
+	public final long length;
+	public FileSyncState(String rev, String contentHash, long serverModified, long localModified, long length) {
+		this.rev = rev;
+		this.contentHash = contentHash;
+		this.serverModified = serverModified;
+		this.localModified = localModified;
+		this.length = length;
+	}
+	@Override
+	public String toString(){ return "FileSyncState["+rev+","+contentHash+","+serverModified+","+localModified+","+length+"]"; }
+}
@@ -0,0 +1,31 @@
+/* 
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.cloud.thread;
+
+import com.monkygames.kbmaster.cloud.CloudAccount;
+import javafx.concurrent.Task;
+
+/**
+ * Manages the work to sync between local and the cloud account.
+ * @author spethm
+ */
+public class CloudSyncTask extends Task{
+
+	private CloudAccount cloudAccount;
+
+	/**
+	 * Uses the cloudAccount (which should already have the access token set.
+	 * @param cloudAccount requires the access token to be set.
+	 */
+	public CloudSyncTask(CloudAccount cloudAccount){
+		this.cloudAccount = cloudAccount;
+	}
+
+	@Override
+	protected Object call() {
+		if (!cloudAccount.sync()) super.updateMessage("failed");
+		else super.updateMessage("");
+		return null;
+	}
+}
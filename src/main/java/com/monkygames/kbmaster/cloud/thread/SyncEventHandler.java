@@ -18,11 +18,11 @@ import javafx.stage.Stage;
 public class SyncEventHandler implements EventHandler<WorkerStateEvent>{
 	private LoginUIController loginController;
 	private Stage dropboxSyncStage;
-	private DropBoxAccount dropBoxAccount;
+	private CloudAccount cloudAccount;
 	private boolean checkRemember;
 
-	public SyncEventHandler(DropBoxAccount dropBoxAccount, boolean checkRemember, LoginUIController loginController, Stage dropboxSyncStage){
-		this.dropBoxAccount = dropBoxAccount;
+	public SyncEventHandler(CloudAccount cloudAccount, boolean checkRemember, LoginUIController loginController, Stage dropboxSyncStage){
+		this.cloudAccount = cloudAccount;
 		this.loginController = loginController;
 		this.dropboxSyncStage = dropboxSyncStage;
 		this.checkRemember = checkRemember;
@@ -34,11 +34,13 @@ public class SyncEventHandler implements EventHandler<WorkerStateEvent>{
 		if (event.getSource().getMessage().equals("failed") || event.getEventType() == WorkerStateEvent.WORKER_STATE_FAILED) {
 			loginController.resetLoginUI();
 			loginController.showStage();
-			KeyboardingMaster.getUserSettings().accessToken = null;
-			DropBoxApp.ACCESS_TOKEN = null;
-			PopupManager.getPopupManager().showError("Sync failed. Please log in again.");
+			if (cloudAccount instanceof DropBoxAccount) {
+				KeyboardingMaster.getUserSettings().accessToken = null;
+				DropBoxApp.ACCESS_TOKEN = null;
+				PopupManager.getPopupManager().showError("Sync failed. Please log in again.");
+			} else PopupManager.getPopupManager().showError("Sync failed. Is the sync directory available?");
 
 		}
-		else loginController.showDeviceMenuFromLogin(dropBoxAccount, checkRemember);
+		else loginController.showDeviceMenuFromLogin(cloudAccount, checkRemember);
 	}
 }
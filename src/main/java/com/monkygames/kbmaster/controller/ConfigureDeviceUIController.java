@@ -24,8 +24,13 @@ import javafx.scene.Parent;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.TabPane;
+import javafx.scene.control.TextInputControl;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.Pane;
 import javafx.stage.Stage;
 
@@ -79,6 +84,13 @@ public class ConfigureDeviceUIController implements Initializable, PopupNotifyIn
 		stage.setOnCloseRequest(event -> {
 			profileUIController.saveProfile();
 		});
+		// undoes the last change to the profiles
+		KeyCombination undo = new KeyCodeCombination(KeyCode.Z, KeyCombination.SHORTCUT_DOWN);
+		stage.getScene().addEventHandler(KeyEvent.KEY_PRESSED, event -> {
+			if (!undo.match(event) || event.getTarget() instanceof TextInputControl) return;
+			profileUIController.undo();
+			event.consume();
+		});
 		this.stage = stage;
 	}
 
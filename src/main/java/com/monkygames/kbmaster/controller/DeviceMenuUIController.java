@@ -4,6 +4,8 @@
 package com.monkygames.kbmaster.controller;
 
 import com.monkygames.kbmaster.KeyboardingMaster;
+import com.monkygames.kbmaster.cloud.CloudAccount;
+import com.monkygames.kbmaster.cloud.CloudSyncService;
 import com.monkygames.kbmaster.cloud.DropBoxAccount;
 import com.monkygames.kbmaster.cloud.DropBoxApp;
 import com.monkygames.kbmaster.driver.DeviceManager;
@@ -11,6 +13,7 @@ import com.monkygames.kbmaster.cloud.UserSettings;
 import com.monkygames.kbmaster.controller.login.LoginUIController;
 import com.monkygames.kbmaster.driver.Device;
 import com.monkygames.kbmaster.engine.HardwareManager;
+import com.monkygames.kbmaster.io.PersistenceService;
 import com.monkygames.kbmaster.util.GenerateBindingsImage;
 import com.monkygames.kbmaster.profiles.ProfileManager;
 import com.monkygames.kbmaster.profiles.App;
@@ -137,7 +140,11 @@ public class DeviceMenuUIController implements Initializable, EventHandler<Actio
     private AboutUIController aboutController;
     private KBMSystemTray systemTray;
     private UserSettings userSettings;
-    private DropBoxAccount dropBoxAccount;
+    private CloudAccount cloudAccount;
+    /**
+     * Syncs the profiles in the background when logged in with a cloud account.
+     */
+    private CloudSyncService cloudSyncService;
 
 // ============= Constructors ============== //
 // ============= Public Methods ============== //
@@ -183,6 +190,24 @@ public class DeviceMenuUIController implements Initializable, EventHandler<Actio
 		deviceManager.save();
 		hardwareManager.startPollingDevice(device, profile);
     }
+	/**
+	 * Disables the device and clears its profile, such as when the profile
+	 * was removed by the cloud sync.
+	 */
+	public void clearActiveProfile(Device device) {
+		hardwareManager.disableDevice(device);
+		device.setEnabled(false);
+		device.setProfile(null);
+		updateDevices();
+		deviceManager.save();
+	}
+	/**
+	 * Returns true if the device is open in the configuration.
+	 */
+	public boolean isConfiguring(Device device) {
+		return configureDeviceStage != null && configureDeviceStage.isShowing()
+			&& configureDeviceController.getProfileUIController().getDevice() == device;
+	}
 	/**
 	 * Returns the device manager. Used in saving.
 	 */
@@ -201,9 +226,9 @@ public class DeviceMenuUIController implements Initializable, EventHandler<Actio
      * Prepares the gui and databases to populate device list.
      * @param userSettings the settings for this menu
      */
-    public void initResources(UserSettings userSettings, DropBoxAccount dropBoxAccount) {
+    public void initResources(UserSettings userSettings, CloudAccount cloudAccount) {
 		this.userSettings = userSettings;
-		this.dropBoxAccount = dropBoxAccount;
+		this.cloudAccount = cloudAccount;
 		Image image;
 		// manage the icons
 		switch (userSettings.loginMethod) {
@@ -216,10 +241,17 @@ public class DeviceMenuUIController implements Initializable, EventHandler<Actio
 				accountIcon.setImage(image);
 				break;
 		}
-		deviceManager = new DeviceManager(this);
 		deviceList = FXCollections.observableArrayList();
-		checkUpdates();
+		// the devices are shown right away and filled in as they are loaded
+		deviceManager = new DeviceManager(this);
 		updateDevices();
+		if (cloudAccount != null) {
+			cloudSyncService = new CloudSyncService(cloudAccount, profileManager, Platform::runLater);
+			cloudSyncService.start();
+		}
+		Thread updateCheck = new Thread(this::checkUpdates, "kbmaster-update-check");
+		updateCheck.setDaemon(true);
+		updateCheck.start();
 	}
 	public void handleUpdateLink(ActionEvent e) {
 		updateLink.setVisited(false);
@@ -239,7 +271,8 @@ public class DeviceMenuUIController implements Initializable, EventHandler<Actio
 				}
 			}
 			read.close();
-			if (!latestVersion.equals(KeyboardingMaster.VERSION)) updateLink.setText("Updates Available");
+			if (!latestVersion.equals(KeyboardingMaster.VERSION))
+				Platform.runLater(() -> updateLink.setText("Updates Available"));
 		} catch (MalformedURLException e) {
 			System.out.println("Update check failed: Incorrect URL.");
 		} catch (IOException e) {
@@ -256,17 +289,23 @@ public class DeviceMenuUIController implements Initializable, EventHandler<Actio
      */
 	public void updateDevices() {
 		for (Device device : deviceManager.getInstalledDevices()) {
-			if(!hardwareManager.isDeviceManaged(device)) {
-				hardwareManager.addManagedDevice(device);
-				deviceList.add(new DeviceEntry(device));
+			boolean isLoaded = profileManager.isDeviceLoaded(device);
+			if (getDeviceEntry(device) == null) {
+				DeviceEntry deviceEntry = new DeviceEntry(device);
+				if (!isLoaded) deviceEntry.setLoading();
+				deviceList.add(deviceEntry);
 			}
+			// the engine is added once the profiles are read so it polls with the selected profile
+			if (!isLoaded) continue;
+			if (!hardwareManager.isDeviceManaged(device)) hardwareManager.addManagedDeviceLater(device);
 			deviceManager.updateDescriptor(device);
 		}
 		for (Object entry : deviceList) {
 			DeviceEntry deviceEntry = (DeviceEntry) entry;
 			Device entryDevice = deviceEntry.getDevice();
 			String entryConnected = entryDevice.isConnected() ? "Yes" : "No", entryProfile;
-			try {
+			if (!profileManager.isDeviceLoaded(entryDevice)) entryProfile = DeviceEntry.LOADING;
+			else try {
 				entryProfile = entryDevice.getProfile().getProfileName();
 			}catch (NullPointerException e) { entryProfile = "None Selected"; }
 			boolean isModified = false;
@@ -290,12 +329,13 @@ public class DeviceMenuUIController implements Initializable, EventHandler<Actio
      * Shutsdown all engines and exits the program.
      */
     public void exitApplication() {
-		cleanUp();
-		if (dropBoxAccount != null) {
+		stopEngines();
+		if (cloudAccount != null) {
 			loginController.hideDeviceMenu(false);
-			// pop cloud sync UI
-			KeyboardingMaster.getInstance().endDropboxSync(false, dropBoxAccount);
+			// only the saves not synced yet are uploaded, the profiles are closed once the sync ended
+			KeyboardingMaster.getInstance().endCloudSync(false, cloudSyncService, this::closeProfiles);
 		} else {
+			closeProfiles();
 			KeyboardingMaster.getInstance().exit();
 		}
 	}
@@ -305,11 +345,38 @@ public class DeviceMenuUIController implements Initializable, EventHandler<Actio
 			aboutController.showAbout(AboutUIController.AboutType.KBM);
 		});
 	}
+	/**
+	 * Updates the devices from the engine threads.
+	 */
+	public void updateDevicesFromNonJavaFXThread() {
+		Platform.runLater(() -> {
+			updateDevices();
+			deviceManager.save();
+		});
+	}
+	/**
+	 * Shows the device once its profiles are read and starts its engine.
+	 */
+	public void deviceLoadedFromNonJavaFXThread(Device device) {
+		Platform.runLater(() -> {
+			if (!deviceManager.getInstalledDevices().contains(device)) return;
+			updateDevices();
+		});
+	}
     public void showDeviceUI() {
 		loginController.showDeviceMenuFromNonJavaFXThread();
 	}
 // ============= Protected Methods ============== //
 // ============= Private Methods ============== //
+	/**
+	 * Returns the entry of the device in the table and null if there is none.
+	 */
+	private DeviceEntry getDeviceEntry(Device device) {
+		for (Object entry : deviceList) {
+			if (((DeviceEntry) entry).getDevice() == device) return (DeviceEntry) entry;
+		}
+		return null;
+	}
     @FXML
     private void handleButtonAction(ActionEvent evt) {
 		Object src = evt.getSource();
@@ -559,13 +626,16 @@ public class DeviceMenuUIController implements Initializable, EventHandler<Actio
      * Disables all devices.
      */
     private void logout() {
-		cleanUp();
+		stopEngines();
 		keysRepeatCB.setSelected(true);
-		if (dropBoxAccount != null) {
-			clearAccessToken();
+		if (cloudAccount != null) {
+			if (cloudAccount instanceof DropBoxAccount) clearAccessToken();
 			loginController.hideDeviceMenu(false);
-			KeyboardingMaster.getInstance().endDropboxSync(true, dropBoxAccount);
-		} else loginController.hideDeviceMenu(true);
+			KeyboardingMaster.getInstance().endCloudSync(true, cloudSyncService, this::closeProfiles);
+		} else {
+			closeProfiles();
+			loginController.hideDeviceMenu(true);
+		}
 	}
 	private void clearAccessToken() {
 		DropBoxApp.ACCESS_TOKEN = "";
@@ -573,12 +643,21 @@ public class DeviceMenuUIController implements Initializable, EventHandler<Actio
 		KeyboardingMaster.saveUserSettings();
 	}
     /**
-     * Closes all databases, frees memory, and prepares this gui to be closed.
+     * Stops the engines before this gui is closed.
      */
-    private void cleanUp(){
+    private void stopEngines(){
 		RepeatManager.setRepeat(true);
 		hardwareManager.close();
-    	profileManager.close();
+    }
+    /**
+     * Closes all databases, frees memory, and prepares this gui to be closed.
+     * The logos no longer used are only deleted if no cloud sync is running,
+     * as a sync downloads the logos before the manifest referencing them.
+     */
+    private void closeProfiles(){
+		// write the pending saves before the profiles are closed
+		PersistenceService.getPersistenceService().flush();
+		profileManager.close(cloudSyncService == null || !cloudSyncService.isSyncing());
     	deviceManager.close();
     }
 // ============= Extended Methods ============== //
@@ -290,6 +290,24 @@ public class ProfileUIController implements Initializable, PopupNotifyInterface{
 		if (selectedApp != null) selectedApp.setInfo(appInfoTA.getText());
 		profileManager.saveProfile(device);
 	}
+	/**
+	 * Undoes the last save of the profiles and updates the UI.
+	 */
+	public void undo() {
+		if (device == null) return;
+		saveProfile();
+		if (!profileManager.undo(device)) return;
+		if (currentProfile != null) {
+			App app = profileManager.getAppByName(device, currentProfile.getAppInfo().getAppType().toString(),
+				currentProfile.getAppInfo().getName());
+			// the undo removed the profile or replaced its app
+			if (app == null || !app.getProfiles().contains(currentProfile)) currentProfile = null;
+		}
+		if (currentProfile != null) keymapTabPane.getSelectionModel().select(currentProfile.getDefaultKeymap());
+		keymapUIController.setProfile(currentProfile);
+		profileManager.setActiveProfile(device, currentProfile);
+		updateComboBoxes(getAppType());
+	}
 	/**
 	 * The profiles combo box selected a new profile.
 	 */
@@ -298,6 +316,8 @@ public class ProfileUIController implements Initializable, PopupNotifyInterface{
 	   	currentProfile = selectedProfile;
 	    keymapUIController.setProfile(selectedProfile);
 		profileManager.setActiveProfile(device, selectedProfile);
+		if (selectedProfile != null && selectedProfile.isDamaged())
+			PopupManager.getPopupManager().showError("The keymaps of this profile could not be read.\nThey were restored from the backup or reset.");
     }
     public void onTypeChange() {
 		if (currentProfile != null) {
@@ -692,14 +712,7 @@ public class ProfileUIController implements Initializable, PopupNotifyInterface{
 				currentApp = (App) appsCB.getSelectionModel().getSelectedItem();
 				appType = appName.getAppType();
 				currentAppType = getAppType();
-				Profile getProf = null;
-				int appIndex = profileManager.getRoot(device, appType).getList().indexOf(appName);
-				for (Profile profile : profileManager.getRoot(device, appType).getList().get(appIndex).getProfiles()) {
-					if (profile.toString().equals(objectNames[3])) {
-						getProf = profile;
-						break;
-					}
-				}
+				Profile getProf = profileManager.getProfileByName(appName, objectNames[3]);
 				profileSelected(getProf);
 				if (appType != currentAppType)
 					typeCB.getSelectionModel().select(typeCB.getSelectionModel().getSelectedIndex() == 0 ? 1 : 0);
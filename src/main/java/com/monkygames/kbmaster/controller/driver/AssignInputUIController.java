@@ -75,33 +75,37 @@ public class AssignInputUIController extends PopupController implements ChangeLi
 	
 	public void okEventFired(ActionEvent evt) {
 		// set the mapping
+		Output output;
+		boolean hasMapping = true;
 		if (currentParent == singleKeyParent) {
 			if (singleKeyController.getConfiguredOutput().getName().equals("Unassigned")) {
 				PopupManager.getPopupManager().showError("No key assigned.");
 				return;
 			}
-			currentMapping.setMapping(true);
-			currentMapping.setOutput(singleKeyController.getConfiguredOutput());
+			output = singleKeyController.getConfiguredOutput();
 		} else if (currentParent == mouseButtonParent) {
 			if (mouseButtonController.getSelectedMouse() == -1) {
 				PopupManager.getPopupManager().showError("No mouse action selected.");
 				return;
 			}
-			currentMapping.setMapping(true);
-			currentMapping.setOutput(mouseButtonController.getConfiguredOutput());
+			output = mouseButtonController.getConfiguredOutput();
 		} else if (currentParent == keymapParent) {
 			if (keymapController.keymapSelected() == -1) {
 				PopupManager.getPopupManager().showError("No keymap selected.");
 				return;
 			}
-			currentMapping.setMapping(true);
-			currentMapping.setOutput(keymapController.getConfiguredOutput());
+			output = keymapController.getConfiguredOutput();
 		} else if (currentParent == disabledParent) {
-			currentMapping.setMapping(false);
-			currentMapping.setOutput(new OutputDisabled());
+			hasMapping = false;
+			output = new OutputDisabled();
+		} else {
+			output = currentMapping.getOutput();
+			hasMapping = currentMapping.hasMapping();
 		}
 		// save description
-		currentMapping.getOutput().setDescription(descriptionTF.getText());
+		output = output.withDescription(descriptionTF.getText());
+		// the mapping is shared with the clones of the keymap so it is replaced
+		keymap.replaceMapping(currentMapping, currentMapping.withOutput(output, hasMapping));
 		// save profile
 		this.notifyOK("Save");
 		reset();
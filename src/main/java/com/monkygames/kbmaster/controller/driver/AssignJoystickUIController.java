@@ -62,16 +62,20 @@ public class AssignJoystickUIController extends PopupController implements Chang
 	
 	public void okEventFired(ActionEvent evt) {
 		// set the mapping
+		Output output = currentMapping.getOutput();
+		boolean hasMapping = currentMapping.hasMapping();
 		if (currentParent == joystickParent) {
-			currentMapping.setMapping(true);
-			currentMapping.setOutput(joystickController.getConfiguredOutput());
+			hasMapping = true;
+			output = joystickController.getConfiguredOutput();
 		}
 		else if (currentParent == disabledParent) {
-			currentMapping.setMapping(false);
-			currentMapping.setOutput(new OutputDisabled());
+			hasMapping = false;
+			output = new OutputDisabled();
 		}
 		// save description
-		currentMapping.getOutput().setDescription(descriptionTF.getText());
+		output = output.withDescription(descriptionTF.getText());
+		// the mapping is shared with the clones of the keymap so it is replaced
+		keymap.replaceMapping(currentMapping, currentMapping.withOutput(output, hasMapping));
 		// save profile
 		this.notifyOK("Save");
 		reset();
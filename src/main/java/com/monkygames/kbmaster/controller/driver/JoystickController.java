@@ -30,9 +30,8 @@ public class JoystickController implements Initializable {
 	 * or pre-configured selection.
 	 */
 	public Output getConfiguredOutput() {
-		if (buttonCB.getSelectionModel().getSelectedIndex() == 0) joystick.setJoystickType(OutputJoystick.JoystickType.DPAD);
-		else joystick.setJoystickType(OutputJoystick.JoystickType.MOUSE);
-		return joystick;
+		if (buttonCB.getSelectionModel().getSelectedIndex() == 0) return joystick.withJoystickType(OutputJoystick.JoystickType.DPAD);
+		return joystick.withJoystickType(OutputJoystick.JoystickType.MOUSE);
 	}
 	public void reset() {
 		buttonCB.getSelectionModel().select(0);
@@ -56,15 +56,7 @@ public class KeymapController implements Initializable {
 	 */
 	public Output getConfiguredOutput() {
 		OutputKeymapSwitch outputKeymapSwitch = (OutputKeymapSwitch) keymapCB.getSelectionModel().getSelectedItem();
-		// clone so that a new instance is created in order to not effect
-		// the instance in the list.
-		OutputKeymapSwitch output = (OutputKeymapSwitch) outputKeymapSwitch.clone();
-		if (switchBackCB.isSelected()) {
-			output.setIsSwitchOnRelease(true);
-		} else {
-			output.setIsSwitchOnRelease(false);
-		}
-		return output;
+		return outputKeymapSwitch.withSwitchOnRelease(switchBackCB.isSelected());
 	}
 	// ============= Private Methods ============== //
 	@FXML
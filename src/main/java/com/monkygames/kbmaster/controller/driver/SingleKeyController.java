@@ -6,7 +6,7 @@ package com.monkygames.kbmaster.controller.driver;
 // === javafx imports === //
 import com.monkygames.kbmaster.input.Output;
 import com.monkygames.kbmaster.input.OutputKey;
-import com.monkygames.kbmaster.util.JavaFXToAwt;
+import com.monkygames.kbmaster.util.KeyCodes;
 import java.net.URL;
 import java.util.ResourceBundle;
 import javafx.event.ActionEvent;
@@ -52,9 +52,7 @@ public class SingleKeyController implements Initializable, EventHandler {
 	 * @parma output the output to be set for this key.
 	 */
 	public void setConfiguredOutput(Output output) {
-		outputKey.setName(output.getName());
-		outputKey.setKeycode(output.getKeycode());
-		outputKey.setModifier(output.getModifier());
+		outputKey = new OutputKey(output.getName(), output.getKeycode(), output.getModifier());
 		singleKeyTF.setText(outputKey.getName());
 	}
 	
@@ -130,11 +128,9 @@ public class SingleKeyController implements Initializable, EventHandler {
 		String key = keyEvent.getCharacter();
 		KeyCode code = keyEvent.getCode();
 		
-		int awtCode = JavaFXToAwt.getAWTKeyCode(keyEvent);
+		int awtCode = KeyCodes.getAWTCode(code);
 		//int awtModifier = JavaFXToAwt.getAWTModifiers(keyEvent);
-		outputKey.setName(code.getName());
-		outputKey.setKeycode(awtCode);
-		outputKey.setModifier(awtModifier);
+		outputKey = new OutputKey(code.getName(), awtCode, awtModifier);
 		
 		singleKeyTF.setText(code.getName());
 	}
@@ -90,7 +90,7 @@ public class DropBoxUIController implements Initializable {
                     PopupManager.getPopupManager().showError("Authentication failed.");
                 else {
                     stage.hide();
-                    KeyboardingMaster.getInstance().startDropboxSync(dropBoxAccount, true);
+                    KeyboardingMaster.getInstance().startCloudSync(dropBoxAccount, true);
                 }
                 found = true;
                 break;
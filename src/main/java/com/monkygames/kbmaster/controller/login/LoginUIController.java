@@ -7,6 +7,7 @@ import com.monkygames.kbmaster.KeyboardingMaster;
 import com.monkygames.kbmaster.cloud.CloudAccount;
 import com.monkygames.kbmaster.cloud.DropBoxAccount;
 import com.monkygames.kbmaster.cloud.DropBoxApp;
+import com.monkygames.kbmaster.cloud.LocalDirectoryCloudAccount;
 import com.monkygames.kbmaster.cloud.UserSettings;
 import com.monkygames.kbmaster.controller.ButtonController;
 import com.monkygames.kbmaster.controller.DeviceMenuUIController;
@@ -97,12 +98,15 @@ public class LoginUIController implements Initializable {
 		loginStage.hide();
 		switch (accessCB.getSelectionModel().getSelectedIndex()) {
 			case LOGIN_LOCAL:
-				showDeviceMenuFromLogin(null, true);
+				// synced with a shared directory if one is set
+				LocalDirectoryCloudAccount localAccount = LocalDirectoryCloudAccount.fromSystemProperty();
+				if (localAccount != null) KeyboardingMaster.getInstance().startCloudSync(localAccount, true);
+				else showDeviceMenuFromLogin(null, true);
 				break;
 			case LOGIN_DROPBOX:
 				if (DropBoxApp.ACCESS_TOKEN != "" && DropBoxApp.ACCESS_TOKEN != null) {
 					DropBoxAccount dropBoxAccount = new DropBoxAccount(DropBoxApp.ACCESS_TOKEN);
-					KeyboardingMaster.getInstance().startDropboxSync(dropBoxAccount, true);
+					KeyboardingMaster.getInstance().startCloudSync(dropBoxAccount, true);
 				}
 				else {
 					dropBoxController = null;
@@ -169,15 +173,15 @@ public class LoginUIController implements Initializable {
 
 	/**
 	 * Open the device menu from the login page (either this page or network pages).
-	 * @param dropBoxAccount the cloud account used to login
+	 * @param cloudAccount the cloud account used to login
 	 */
-	public void showDeviceMenuFromLogin(DropBoxAccount dropBoxAccount, boolean checkRemember){
+	public void showDeviceMenuFromLogin(CloudAccount cloudAccount, boolean checkRemember){
 		// check if remember has been selected
 		UserSettings userSettings = KeyboardingMaster.getUserSettings();
 		if(checkRemember){
 			// get the user settings
 			userSettings.loginMethod = accessCB.getSelectionModel().getSelectedIndex();
-			if(dropBoxAccount != null) userSettings.accessToken = dropBoxAccount.getAccessToken();
+			if(cloudAccount instanceof DropBoxAccount) userSettings.accessToken = cloudAccount.getAccessToken();
 
 			if(rememberEmailCB.isSelected()){
 				// save the state and also save the cloud account
@@ -205,7 +209,7 @@ public class LoginUIController implements Initializable {
 		}
 
 		// check if the cloud account -- if so, pop sync display plus thread
-		deviceMenuController.initResources(userSettings,dropBoxAccount);
+		deviceMenuController.initResources(userSettings,cloudAccount);
 		deviceMenuStage.setOnCloseRequest(event -> { RepeatManager.setRepeat(true); });
 		deviceMenuStage.show();
 	}
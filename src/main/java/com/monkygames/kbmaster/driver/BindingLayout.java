@@ -0,0 +1,53 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.driver;
+
+/**
+ * The pixel locations where the output and the description of each input
+ * are written on the bindings image, indexed by the id of the input.
+ * <p>
+ * The locations are kept in one array of four ints per id so a lookup
+ * is O(1) and does not allocate.
+ * @version 1.0
+ */
+public class BindingLayout {
+
+	// ============= Class variables ============== //
+	private static final int OUTPUT_X = 0, OUTPUT_Y = 1, DESCRIPTION_X = 2, DESCRIPTION_Y = 3, SIZE = 4;
+	private final int[] locations;
+
+	// ============= Constructors ============== //
+	/**
+	 * @param maxId the largest id of the inputs.
+	 */
+	public BindingLayout(int maxId) {
+		locations = new int[(maxId + 1) * SIZE];
+	}
+
+	// ============= Public Methods ============== //
+	/**
+	 * Sets the locations of the input.
+	 */
+	public void setLocation(int id, int outputX, int outputY, int descriptionX, int descriptionY) {
+		int i = id * SIZE;
+		locations[i + OUTPUT_X] = outputX;
+		locations[i + OUTPUT_Y] = outputY;
+		locations[i + DESCRIPTION_X] = descriptionX;
+		locations[i + DESCRIPTION_Y] = descriptionY;
+	}
+	/**
+	 * Returns the x location of the output and 0 for an unknown id,
+	 * as do the other getters.
+	 */
+	public int getOutputX(int id) { return get(id, OUTPUT_X); }
+	public int getOutputY(int id) { return get(id, OUTPUT_Y); }
+	public int getDescriptionX(int id) { return get(id, DESCRIPTION_X); }
+	public int getDescriptionY(int id) { return get(id, DESCRIPTION_Y); }
+
+	// ============= Private Methods ============== //
+	private int get(int id, int field) {
+		int i = id * SIZE + field;
+		return id >= 0 && i < locations.length ? locations[i] : 0;
+	}
+}
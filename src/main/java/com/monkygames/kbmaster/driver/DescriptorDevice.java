@@ -0,0 +1,116 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.driver;
+
+// === kbmaster imports === //
+import com.monkygames.kbmaster.input.Button;
+import com.monkygames.kbmaster.input.ButtonMapping;
+import com.monkygames.kbmaster.input.Interner;
+import com.monkygames.kbmaster.input.JoystickMapping;
+import com.monkygames.kbmaster.input.Keymap;
+import com.monkygames.kbmaster.input.Mapping;
+import com.monkygames.kbmaster.input.OutputKey;
+import com.monkygames.kbmaster.input.OutputMouse;
+import com.monkygames.kbmaster.input.OutputMouse.MouseType;
+import com.monkygames.kbmaster.input.Wheel;
+import com.monkygames.kbmaster.input.WheelMapping;
+import com.monkygames.kbmaster.util.KeyCodes;
+// === java imports === //
+import java.awt.Rectangle;
+import java.awt.event.KeyEvent;
+// === javafx imports === //
+import javafx.scene.input.KeyCode;
+
+/**
+ * A driver defined by a {@link DeviceDescriptor}, so new hardware with
+ * keys, buttons and a wheel can be added without code.
+ * <p>
+ * Every input of the descriptor is mapped to its default output.
+ * @version 1.0
+ */
+public class DescriptorDevice extends Device {
+
+	// ============= Class variables ============== //
+	private final DeviceDescriptor descriptor;
+
+	// ============= Constructors ============== //
+	public DescriptorDevice(DeviceDescriptor descriptor) {
+		this(descriptor.getDeviceInformation(), descriptor);
+	}
+	/**
+	 * Creates a device with the inputs of the descriptor and other information,
+	 * used by the devices sharing the layout of another device.
+	 */
+	public DescriptorDevice(DeviceInformation deviceInformation, DeviceDescriptor descriptor) {
+		super(deviceInformation);
+		this.descriptor = descriptor;
+	}
+
+	// ============= Public Methods ============== //
+	public DeviceDescriptor getDescriptor() { return descriptor; }
+
+	// ============= Implemented Methods ============== //
+	@Override
+	public Keymap generateDefaultKeymap(int id) {
+		Keymap keymap = new Keymap(id + 1);
+		for (int inputId : descriptor.getIds()) {
+			String name = descriptor.getName(inputId);
+			int code = descriptor.getCode(inputId);
+			switch (descriptor.getKind(inputId)) {
+				case DeviceDescriptor.KEY -> addButtonMapping(keymap, new InputMap(inputId, name, code));
+				case DeviceDescriptor.MOUSE -> keymap.addButtonMapping(name, Interner.getInterner().intern(
+					new ButtonMapping(new Button(inputId, name), new OutputMouse(name, code, MouseType.MouseClick))));
+				case DeviceDescriptor.BUTTON -> keymap.addButtonMapping(name, Interner.getInterner().intern(
+					new ButtonMapping(new Button(inputId, name), new OutputKey(getKeyName(code), code, 0))));
+				case DeviceDescriptor.WHEEL_UP -> keymap.setzUpWheelMapping(
+					new WheelMapping(new Wheel(inputId), new OutputMouse("Scroll Up", code, MouseType.MouseWheel)));
+				case DeviceDescriptor.WHEEL_DOWN -> keymap.setzDownWheelMapping(
+					new WheelMapping(new Wheel(inputId), new OutputMouse("Scroll Down", code, MouseType.MouseWheel)));
+			}
+		}
+		return keymap;
+	}
+	@Override
+	public ButtonMapping getButtonMapping(int index, Keymap keymap) {
+		return keymap.getButtonMapping(getId(index));
+	}
+	@Override
+	public JoystickMapping getJoystickMapping(int index, Keymap keymap) {
+		return null;
+	}
+	@Override
+	public Mapping getMapping(int index, Keymap keymap) {
+		switch (descriptor.getKind(index)) {
+			case DeviceDescriptor.WHEEL_UP: return keymap.getzUpWheelMapping();
+			case DeviceDescriptor.WHEEL_DOWN: return keymap.getzDownWheelMapping();
+			default: return keymap.getButtonMapping(getId(index));
+		}
+	}
+	@Override
+	public String getId(int index) {
+		String name = descriptor.getName(index);
+		return name != null ? name : super.getId(index);
+	}
+
+	// ============= Private Methods ============== //
+	/**
+	 * Returns the name of the key of the AWT code as named by the UI.
+	 */
+	private static String getKeyName(int awtCode) {
+		KeyCode code = KeyCodes.getKeyCode(awtCode);
+		return code != null ? code.getName() : KeyEvent.getKeyText(awtCode);
+	}
+
+	// ============= Extended Methods ============== //
+	@Override
+	public BindingLayout getBindingLayout() {
+		return descriptor.getBindingLayout();
+	}
+	@Override
+	public Rectangle getBindingOutputAndDescriptionLocation(Mapping mapping) {
+		BindingLayout layout = descriptor.getBindingLayout();
+		int id = mapping.getInputHardware().getID();
+		return new Rectangle(layout.getOutputX(id), layout.getOutputY(id), layout.getDescriptionX(id), layout.getDescriptionY(id));
+	}
+}
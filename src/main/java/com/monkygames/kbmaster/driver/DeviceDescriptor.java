@@ -0,0 +1,242 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.driver;
+
+// === kbmaster imports === //
+import com.monkygames.kbmaster.util.KeyCodes;
+// === java imports === //
+import java.awt.event.KeyEvent;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+// === jinput imports === //
+import net.java.games.input.Component;
+import net.java.games.input.Component.Identifier.Key;
+
+/**
+ * The description of a device driver read from a descriptor file (.kbd)
+ * instead of being written as a driver class.
+ * <p>
+ * A descriptor is a UTF-8 properties file with the device information
+ * (make, model, type, jinput, package, icon, fxml, template, amazon, mouse,
+ * description), the optional USB ids (usb=vendor:product in hex) and one
+ * line per input:
+ * <pre>
+ * input.&lt;id&gt;=&lt;kind&gt;,&lt;input&gt;,&lt;code&gt;,&lt;x&gt;,&lt;y&gt;[,&lt;description x&gt;,&lt;description y&gt;]
+ * </pre>
+ * where kind is key (input is a jinput Key and code a KeyEvent VK_ name,
+ * which may be left out for the key's own code),
+ * mouse (input is a jinput Button and code an InputEvent mask name),
+ * button (a jinput Button, such as a pad button, with a key as output),
+ * wheelup or wheeldown (no input and the code is the wheel amount).
+ * x and y locate the output on the bindings template and the description
+ * is written at offset (-8,15 by default) from it.
+ * <p>
+ * A descriptor is parsed once into arrays indexed by the input id.
+ * @version 1.0
+ */
+public class DeviceDescriptor {
+
+	// ============= Class variables ============== //
+	/**
+	 * The kinds of inputs.
+	 */
+	public static final byte NONE = 0, KEY = 1, MOUSE = 2, WHEEL_UP = 3, WHEEL_DOWN = 4, BUTTON = 5;
+	/**
+	 * The parsed descriptors by resource.
+	 */
+	private static final ConcurrentHashMap<String, DeviceDescriptor> descriptors = new ConcurrentHashMap<>();
+	private final String resource;
+	private final DeviceInformation deviceInformation;
+	private final int usbVendorId, usbProductId;
+	/**
+	 * The ids of the inputs in order.
+	 */
+	private final int[] ids;
+	/**
+	 * The kind, jinput name and code of the inputs by id.
+	 */
+	private final byte[] kinds;
+	private final String[] names;
+	private final int[] codes;
+	private final BindingLayout bindingLayout;
+
+	// ============= Constructors ============== //
+	/**
+	 * Parses the descriptor.
+	 * @param resource the name of the descriptor used in the errors and
+	 * as the package name when the descriptor has none.
+	 * @throws IllegalArgumentException if a value is not valid.
+	 */
+	public DeviceDescriptor(String resource, Properties properties) {
+		this.resource = resource;
+		String[] usb = properties.getProperty("usb", "").split(":");
+		usbVendorId = usb.length == 2 ? parseInt("usb", usb[0], 16) : -1;
+		usbProductId = usb.length == 2 ? parseInt("usb", usb[1], 16) : -1;
+		deviceInformation = new DeviceInformation(get(properties, "make"), get(properties, "model"),
+			get(properties, "jinput"), DeviceType.valueOf(get(properties, "type")), properties.getProperty("icon"),
+			properties.getProperty("description", ""), properties.getProperty("package", resource),
+			properties.getProperty("fxml"), properties.getProperty("template"), properties.getProperty("amazon"),
+			Boolean.parseBoolean(properties.getProperty("mouse")));
+		int[] offset = parseInts("offset", properties.getProperty("offset", "-8,15"));
+		if (offset.length != 2) throw new IllegalArgumentException(resource + ": offset needs 2 values");
+		ids = properties.stringPropertyNames().stream().filter(name -> name.startsWith("input."))
+			.mapToInt(name -> parseInt(name, name.substring(6))).sorted().toArray();
+		int maxId = ids.length > 0 ? ids[ids.length - 1] : 0;
+		kinds = new byte[maxId + 1];
+		names = new String[maxId + 1];
+		codes = new int[maxId + 1];
+		bindingLayout = new BindingLayout(maxId);
+		for (int id : ids) {
+			String key = "input." + id;
+			String[] values = properties.getProperty(key).split(",", -1);
+			if (values.length != 5 && values.length != 7)
+				throw new IllegalArgumentException(resource + ": " + key + " needs 5 or 7 values");
+			switch (values[0].trim()) {
+				case "key" -> {
+					kinds[id] = KEY;
+					names[id] = getIdentifier(Key.class, key, values[1]).getName();
+					// the code of a key defaults to its AWT code
+					codes[id] = values[2].isBlank() ? KeyCodes.getAWTCode(names[id]) : getCode(key, values[2]);
+				}
+				case "mouse" -> {
+					kinds[id] = MOUSE;
+					names[id] = getIdentifier(Component.Identifier.Button.class, key, values[1]).getName();
+					codes[id] = getCode(key, values[2]);
+				}
+				case "button" -> {
+					kinds[id] = BUTTON;
+					names[id] = getIdentifier(Component.Identifier.Button.class, key, values[1]).getName();
+					codes[id] = getCode(key, values[2]);
+				}
+				case "wheelup", "wheeldown" -> {
+					kinds[id] = values[0].trim().equals("wheelup") ? WHEEL_UP : WHEEL_DOWN;
+					codes[id] = parseInt(key, values[2]);
+				}
+				default -> throw new IllegalArgumentException(resource + ": " + key + " has an unknown kind " + values[0]);
+			}
+			int x = parseInt(key, values[3]), y = parseInt(key, values[4]);
+			if (values.length == 7) bindingLayout.setLocation(id, x, y, parseInt(key, values[5]), parseInt(key, values[6]));
+			else bindingLayout.setLocation(id, x, y, x + offset[0], y + offset[1]);
+		}
+	}
+
+	// ============= Public Methods ============== //
+	public String getResource() { return resource; }
+	public DeviceInformation getDeviceInformation() { return deviceInformation; }
+	/**
+	 * Returns the USB vendor id and -1 if none.
+	 */
+	public int getUsbVendorId() { return usbVendorId; }
+	/**
+	 * Returns the USB product id and -1 if none.
+	 */
+	public int getUsbProductId() { return usbProductId; }
+	/**
+	 * Returns the ids of the inputs in order.
+	 */
+	public int[] getIds() { return ids.clone(); }
+	/**
+	 * Returns the kind of the input and {@link #NONE} for an unknown id.
+	 */
+	public byte getKind(int id) { return id >= 0 && id < kinds.length ? kinds[id] : NONE; }
+	/**
+	 * Returns the jinput name of the input and null for a wheel or an unknown id.
+	 */
+	public String getName(int id) { return id >= 0 && id < names.length ? names[id] : null; }
+	/**
+	 * Returns the code of the default output of the input.
+	 */
+	public int getCode(int id) { return id >= 0 && id < codes.length ? codes[id] : 0; }
+	public BindingLayout getBindingLayout() { return bindingLayout; }
+	@Override
+	public String toString() {
+		return "DeviceDescriptor[" + resource + "," + Arrays.toString(ids) + "]";
+	}
+
+	// ============= Private Methods ============== //
+	private String get(Properties properties, String key) {
+		String value = properties.getProperty(key);
+		if (value == null) throw new IllegalArgumentException(resource + ": " + key + " is missing");
+		return value;
+	}
+	private int parseInt(String key, String value) {
+		return parseInt(key, value, 10);
+	}
+	private int parseInt(String key, String value, int radix) {
+		try {
+			return Integer.parseInt(value.trim(), radix);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(resource + ": " + key + " has an invalid number " + value, e);
+		}
+	}
+	private int[] parseInts(String key, String value) {
+		return Arrays.stream(value.split(",")).mapToInt(v -> parseInt(key, v)).toArray();
+	}
+	/**
+	 * Returns the jinput identifier of the class named by the field.
+	 */
+	private Component.Identifier getIdentifier(Class<? extends Component.Identifier> type, String key, String field) {
+		try {
+			return (Component.Identifier) type.getField(field.trim()).get(null);
+		} catch (ReflectiveOperationException | ClassCastException e) {
+			throw new IllegalArgumentException(resource + ": " + key + " has an unknown input " + field, e);
+		}
+	}
+	/**
+	 * Returns the KeyEvent or InputEvent constant named by the value or the value as a number.
+	 */
+	private int getCode(String key, String value) {
+		value = value.trim();
+		if (value.isEmpty() || !Character.isLetter(value.charAt(0))) return parseInt(key, value);
+		try {
+			return KeyEvent.class.getField(value).getInt(null);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalArgumentException(resource + ": " + key + " has an unknown code " + value, e);
+		}
+	}
+
+	// ============= Static Methods ============== //
+	/**
+	 * Returns the descriptor of the class path resource, which is parsed once.
+	 * @throws IllegalArgumentException if the descriptor can not be read or is not valid.
+	 */
+	public static DeviceDescriptor getDescriptor(String resource) {
+		return descriptors.computeIfAbsent(resource, DeviceDescriptor::readResource);
+	}
+	/**
+	 * Reads a descriptor.
+	 * @param resource the name of the descriptor.
+	 */
+	public static DeviceDescriptor read(String resource, InputStream in) throws IOException {
+		Properties properties = new Properties();
+		try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+			properties.load(reader);
+		}
+		return new DeviceDescriptor(resource, properties);
+	}
+	/**
+	 * Reads a descriptor file, such as one made by {@link com.monkygames.kbmaster.util.DescriptorCapture}.
+	 * @throws IllegalArgumentException if the descriptor is not valid.
+	 */
+	public static DeviceDescriptor read(File file) throws IOException {
+		return read(file.getPath(), new FileInputStream(file));
+	}
+	private static DeviceDescriptor readResource(String resource) {
+		InputStream in = DeviceDescriptor.class.getResourceAsStream(resource);
+		if (in == null) throw new IllegalArgumentException(resource + " was not found");
+		try {
+			return read(resource, in);
+		} catch (IOException e) {
+			throw new IllegalArgumentException(resource + " can not be read", e);
+		}
+	}
+}
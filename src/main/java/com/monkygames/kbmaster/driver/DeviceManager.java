@@ -6,13 +6,19 @@ package com.monkygames.kbmaster.driver;
 import com.monkygames.kbmaster.cloud.metadata.MetaData;
 import com.monkygames.kbmaster.controller.DeviceMenuUIController;
 import com.monkygames.kbmaster.profiles.ProfileManager;
+import com.monkygames.kbmaster.io.PersistenceService;
 import com.monkygames.kbmaster.io.XStreamManager;
 import com.monkygames.kbmaster.profiles.App;
+import com.monkygames.kbmaster.profiles.AppType;
 import com.monkygames.kbmaster.profiles.Profile;
 import com.monkygames.kbmaster.profiles.ProfileInfo;
+import com.monkygames.kbmaster.profiles.Root;
+import com.monkygames.kbmaster.profiles.RootManager;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Contains a list of device drivers available for download and whats already
@@ -36,37 +42,41 @@ public class DeviceManager {
      * Contains all drivers available.
      */
     private DriverManager driverManager;
+    private ProfileManager profileManager;
+    /**
+     * The number of devices loaded at the same time.
+     */
+    private static final int LOAD_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
 
 
 // ============= Constructors ============== //
+    /**
+     * Reads the device descriptors and loads the profiles of the devices
+     * concurrently, the device menu is told when each device is loaded.
+     */
     public DeviceManager(DeviceMenuUIController deviceMenuUIController) {
 		driverManager = new DriverManager();
 		deviceList = XStreamManager.getStreamManager().readGlobalAccount();
 		installedDevices = new ArrayList<>();
+		profileManager = deviceMenuUIController.getProfileManager();
+		int threads = Math.min(LOAD_THREADS, Math.max(1, deviceList.getList().size()));
+		ExecutorService loader = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "kbmaster-loader");
+			thread.setDaemon(true);
+			return thread;
+		});
 		for (DevicePackage devicePackage : deviceList.getList()) {
 			Device installedDevice = driverManager.getDevice(devicePackage.getPackageName());
-			deviceMenuUIController.getProfileManager().addManagedDevice(installedDevice);
 			installedDevice.setEnabled(devicePackage.isEnabled());
-			App app = null;
-			if (devicePackage.getAppInfo() != null) {
-				app = deviceMenuUIController.getProfileManager().getAppByName(
-						installedDevice,
-						devicePackage.getAppInfo().getAppType().toString(),
-						devicePackage.getAppInfo().getName()
-				);
-			}
-			if (app != null) {
-				Profile profile = deviceMenuUIController.getProfileManager().getProfileByName(
-						app,
-						devicePackage.getProfileInfo().getProfileName()
-				);
-				if (profile != null) profile.setDefaultKeymap(devicePackage.getProfileInfo().getDefaultMap());
-				installedDevice.setProfile(profile);
-			}
 			installedDevices.add(installedDevice);
+			// the profile is set before the device is loaded, so the device is never seen loaded without it
+			profileManager.loadManagedDevice(installedDevice, loader,
+				(device, rootManager) -> device.setProfile(findProfile(rootManager, devicePackage)))
+				.whenComplete((loaded, ex) -> deviceMenuUIController.deviceLoadedFromNonJavaFXThread(installedDevice));
 		}
+		// the threads end once the devices are loaded
+		loader.shutdown();
 	}
-
     // ============= Public Methods ============== //
     public DriverManager getDriverManager() { return driverManager;  }
 	/**
@@ -77,7 +87,10 @@ public class DeviceManager {
     /**
      * Writes the list out to file.
      */
-    public void save() { XStreamManager.getStreamManager().writeGlobalAccount(deviceList); }
+    /**
+     * Saves the device list in the background (see PersistenceService).
+     */
+    public void save() { PersistenceService.getPersistenceService().saveGlobalAccount(deviceList); }
     
     /**
      * Downloads the device specified by the package name
@@ -91,13 +104,10 @@ public class DeviceManager {
 			if (device.getDeviceInformation().getPackageName().equals(devicePackageName))
 				return false;
 		// Retrieve the device
-		for (Device device : driverManager.getDevices()) {
-			if (device.getDeviceInformation().getPackageName().equals(devicePackageName)) {
-				DevicePackage devicePackage = new DevicePackage(device);
-				deviceList.getList().add(devicePackage);
-				installedDevices.add(device);
-				break;
-			}
+		Device device = driverManager.getDevice(devicePackageName);
+		if (device != null) {
+			deviceList.getList().add(new DevicePackage(device));
+			installedDevices.add(device);
 		}
 		return true;
 	}
@@ -125,13 +135,15 @@ public class DeviceManager {
 
 	/**
 	 *  Updates the device descriptor.
+	 * The profile is kept while the profiles of the device are loaded.
 	 * @param device The device to be updated.
 	 */
 	public void updateDescriptor(Device device) {
+		String packageName = device.getDeviceInformation().getPackageName();
 		for (DevicePackage devicePackage : deviceList.getList()) {
-			Device tempDevice = driverManager.getDevice(devicePackage.getPackageName());
-			if (tempDevice == device) {
+			if (devicePackage.getPackageName().equals(packageName)) {
 				devicePackage.setEnabled(device.isEnabled());
+				if (!profileManager.isDeviceLoaded(device)) continue;
 				if (device.getProfile() != null) {
 					devicePackage.setAppInfo(device.getProfile().getAppInfo());
 					devicePackage.setProfileInfo(new ProfileInfo(device.getProfile()));
@@ -147,4 +159,18 @@ public class DeviceManager {
     	installedDevices.clear();
     	driverManager.close();
 	}
+	// ============= Private Methods ============== //
+	/**
+	 * Returns the profile of the device package and null if it has none.
+	 */
+	private static Profile findProfile(RootManager rootManager, DevicePackage devicePackage) {
+		if (devicePackage.getAppInfo() == null || devicePackage.getProfileInfo() == null) return null;
+		Root root = devicePackage.getAppInfo().getAppType() == AppType.APPLICATION
+				? rootManager.getAppsRoot() : rootManager.getGamesRoot();
+		App app = root.getApp(devicePackage.getAppInfo().getName());
+		if (app == null) return null;
+		Profile profile = app.getProfile(devicePackage.getProfileInfo().getProfileName());
+		if (profile != null) profile.setDefaultKeymap(devicePackage.getProfileInfo().getDefaultMap());
+		return profile;
+	}
 }
@@ -0,0 +1,23 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.driver;
+
+// === java imports === //
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Describes a driver so the {@link DriverManager} can index it without
+ * creating it. The values must match the device information of the driver.
+ * @version 1.0
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface DriverInfo {
+	DeviceType type();
+	String make();
+	String model();
+}
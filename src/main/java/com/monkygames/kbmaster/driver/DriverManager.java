@@ -1,61 +1,101 @@
-/* 
+/*
  * See LICENSE in top-level directory.
  */
 package com.monkygames.kbmaster.driver;
 
+// === kbmaster imports === //
+import com.monkygames.kbmaster.profiles.ProfileManager;
+// === java imports === //
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
- * Manages drivers by creating the necessary information for all device drivers.
- * For now, the makes of the devices are stored in two lists; however,
- * later on when there becomes thousands of devices hopefully, a tree like
- * data structure will be more efficient.  For now, I went with a simpler option.
+ * Manages drivers by indexing the information of all device drivers.
+ * <p>
+ * The drivers are found with a {@link ServiceLoader} and indexed by package
+ * name and by type, make and model from their {@link DriverInfo} annotation,
+ * so a driver is only created the first time it is requested and startup
+ * only pays for the installed devices. Drivers without a class are
+ * defined by {@link DeviceDescriptor} files.
  * @version 1.0
  */
 public class DriverManager {
 
 	// ============= Class variables ============== //
-	ArrayList<Device> devices;
 	/**
-	 * The list of keyboard device makes.
+	 * The class path resource listing the descriptors (one resource per
+	 * line) of the drivers without a class.
 	 */
-	ArrayList<String> keyboardMakes;
+	public static final String DESCRIPTORS = "META-INF/kbmaster/devices";
 	/**
-	 * The list of mouse device makes.
+	 * The directory of the descriptors (.kbd) added by the user, such as
+	 * the ones made by {@link com.monkygames.kbmaster.util.DescriptorCapture}.
 	 */
-	ArrayList<String> mouseMakes;
+	public static final String DRIVER_DIR = ProfileManager.PROFILE_DIR + File.separator + "drivers";
 	/**
-	 * The list of joystick device makes.
+	 * The drivers by package name, in the order they are registered.
 	 */
-	ArrayList<String> gamepadMakes;
+	private final LinkedHashMap<String, Driver> drivers;
+	/**
+	 * The drivers by type, make and model.
+	 */
+	private final HashMap<List<Object>, Driver> models;
+	/**
+	 * The makes of each type, in the order they are registered.
+	 */
+	private final EnumMap<DeviceType, ArrayList<String>> makes;
+	/**
+	 * The model names of each type and make.
+	 */
+	private final HashMap<List<Object>, ArrayList<String>> modelNames;
 
 	// ============= Constructors ============== //
 	public DriverManager() {
-		devices = new ArrayList<>();
-		keyboardMakes = new ArrayList<>();
-		mouseMakes = new ArrayList<>();
-		gamepadMakes = new ArrayList<>();
+		drivers = new LinkedHashMap<>();
+		models = new HashMap<>();
+		makes = new EnumMap<>(DeviceType.class);
+		for (DeviceType type : DeviceType.values()) makes.put(type, new ArrayList<>());
+		modelNames = new HashMap<>();
 		createDrivers();
 	}
 
 	// ============= Public Methods ============== //
 
 	/**
-	 * Returns all installed devices.
+	 * Returns all the drivers, which creates the ones not created yet.
 	 */
-	public ArrayList<Device> getDevices() { return devices; }
+	public synchronized ArrayList<Device> getDevices() {
+		ArrayList<Device> devices = new ArrayList<>(drivers.size());
+		for (Driver driver : drivers.values()) devices.add(driver.getDevice());
+		return devices;
+	}
 	/**
 	 * Returns a list of device makes.
 	 */
-	public ArrayList<String> getKeyboardMakes() { return keyboardMakes; }
+	public ArrayList<String> getKeyboardMakes() { return makes.get(DeviceType.KEYBOARD); }
 	/**
 	 * Returns a list of device makes.
 	 */
-	public ArrayList<String> getMouseMakes() { return mouseMakes; }
+	public ArrayList<String> getMouseMakes() { return makes.get(DeviceType.MOUSE); }
 	/**
 	 * Returns a list of joystick makes.
 	 */
-	public ArrayList<String> getGamepadMakes() { return gamepadMakes; }
+	public ArrayList<String> getGamepadMakes() { return makes.get(DeviceType.GAMEPAD); }
 	/**
 	 * Returns the list of device model names specified by the make and the type.
 	 *
@@ -63,105 +103,140 @@ public class DriverManager {
 	 * @param make the string of the make (ie Razer).
 	 * @return returns a list of model names.
 	 */
-	public ArrayList<String> getDevicesByMake(DeviceType type, String make) {
-		//Investigate
-		ArrayList<String> list = new ArrayList<>();
-		for (Device device : devices) {
-			if (device.getDeviceInformation().getDeviceType() == type &&
-					device.getDeviceInformation().getMake().equals(make)) {
-				list.add(device.getDeviceInformation().getModel());
-			}
-		}
-		return list;
+	public synchronized ArrayList<String> getDevicesByMake(DeviceType type, String make) {
+		ArrayList<String> list = modelNames.get(Arrays.asList(type, make));
+		return list != null ? new ArrayList<>(list) : new ArrayList<>();
 	}
 	/**
 	 * Returns the device based on the specified information.
 	 * @param packageName the device package name.
 	 * @return the device if found and null if not found.
 	 */
-	public Device getDevice(String packageName) {
-		for (Device device : devices) {
-			if (device.getDeviceInformation().getPackageName().equals(packageName))
-				return device;
-		}
-		return null;
+	public synchronized Device getDevice(String packageName) {
+		Driver driver = drivers.get(packageName);
+		return driver != null ? driver.getDevice() : null;
 	}
 	/**
 	 * Returns the device based on the specified information.
 	 * @return the device if found and null if not found.
 	 */
-	public Device getDeviceByType(DeviceType deviceType, String make, String model) {
-		for (Device device : devices) {
-			if (device.getDeviceInformation().getDeviceType() == deviceType
-					&& device.getDeviceInformation().getMake().equals(make)
-					&& device.getDeviceInformation().getModel().equals(model))
-				return device;
-		}
-		return null;
+	public synchronized Device getDeviceByType(DeviceType deviceType, String make, String model) {
+		Driver driver = models.get(Arrays.asList(deviceType, make, model));
+		return driver != null ? driver.getDevice() : null;
+	}
+	/**
+	 * Returns true if the driver of the package has been created.
+	 */
+	public synchronized boolean isCreated(String packageName) {
+		Driver driver = drivers.get(packageName);
+		return driver != null && driver.device != null;
+	}
+	/**
+	 * Registers a driver that is created by the factory when it is first requested.
+	 * A driver already registered with the package name is replaced.
+	 * @param packageName the package name of the device information.
+	 * @param factory creates the driver.
+	 */
+	public synchronized void register(String packageName, DeviceType type, String make, String model,
+		Supplier<? extends Device> factory) {
+		Driver driver = new Driver(factory);
+		Driver previous = drivers.put(packageName, driver);
+		if (previous != null) models.values().remove(previous);
+		models.put(Arrays.asList(type, make, model), driver);
+		ArrayList<String> list = makes.get(type);
+		if (!list.contains(make)) list.add(make);
+		ArrayList<String> names = modelNames.computeIfAbsent(Arrays.asList(type, make), key -> new ArrayList<>());
+		if (!names.contains(model)) names.add(model);
 	}
 
 	/**
 	 * Cleans up the devices. Invoked on program logout/exit.
 	 */
-	public void close() {
-		for (Device device : devices) device = null;
-		for (String keyboardMake : keyboardMakes) keyboardMake = null;
-		for (String mouseMake : mouseMakes) mouseMake = null;
-		for (String gamepadMake : gamepadMakes) gamepadMake = null;
-		devices.clear();
-		keyboardMakes.clear();
-		mouseMakes.clear();
-		gamepadMakes.clear();
+	public synchronized void close() {
+		drivers.clear();
+		models.clear();
+		for (ArrayList<String> list : makes.values()) list.clear();
+		modelNames.clear();
 	}
 // ============= Private Methods ============== //
 
 	/**
-	 * Adds a device and sets up the appropriate make information.
-	 *
-	 * @param device the device to add.
+	 * Registers the drivers listed as services of {@link Device}, then
+	 * the descriptors listed in {@link #DESCRIPTORS} that have no driver class
+	 * and then the descriptors in {@link #DRIVER_DIR}.
+	 * Includes mice and keyboards.
 	 */
-	private void addDevice(Device device) {
-		devices.add(device);
-		if (device.getDeviceInformation().getDeviceType() == DeviceType.KEYBOARD) {
-			if (!keyboardMakes.contains(device.getDeviceInformation().getMake())) {
-				keyboardMakes.add(device.getDeviceInformation().getMake());
+	private void createDrivers() {
+		ServiceLoader<Device> loader = ServiceLoader.load(Device.class, DriverManager.class.getClassLoader());
+		loader.stream().forEach(provider -> {
+			DriverInfo info = provider.type().getAnnotation(DriverInfo.class);
+			if (info != null) {
+				register(provider.type().getName(), info.type(), info.make(), info.model(), provider);
+				return;
 			}
-		} else if (device.getDeviceInformation().getDeviceType() == DeviceType.MOUSE) {
-			if (!mouseMakes.contains(device.getDeviceInformation().getMake())) {
-				mouseMakes.add(device.getDeviceInformation().getMake());
+			// a driver without its information has to be created to be indexed
+			Device device = provider.get();
+			DeviceInformation information = device.getDeviceInformation();
+			register(information.getPackageName(), information.getDeviceType(), information.getMake(),
+				information.getModel(), () -> device);
+		});
+		for (String resource : getDescriptorResources()) {
+			try {
+				register(DeviceDescriptor.getDescriptor(resource));
+			} catch (IllegalArgumentException e) {
+				Logger.getLogger(DriverManager.class.getName()).log(Level.WARNING, "Skipping driver " + resource, e);
 			}
-		} else if (device.getDeviceInformation().getDeviceType() == DeviceType.GAMEPAD) {
-			if (!gamepadMakes.contains(device.getDeviceInformation().getMake())) {
-				gamepadMakes.add(device.getDeviceInformation().getMake());
+		}
+		File[] files = new File(DRIVER_DIR).listFiles((dir, name) -> name.endsWith(".kbd"));
+		if (files == null) return;
+		Arrays.sort(files);
+		for (File file : files) {
+			try {
+				register(DeviceDescriptor.read(file));
+			} catch (IOException | IllegalArgumentException e) {
+				Logger.getLogger(DriverManager.class.getName()).log(Level.WARNING, "Skipping driver " + file, e);
 			}
 		}
 	}
-
 	/**
-	 * Handles creating all drivers.
-	 * Includes mice and keyboards.
+	 * Registers the driver of the descriptor unless a driver has its package.
 	 */
-	private void createDrivers() {
-		//Razer
-		addDevice(new com.monkygames.kbmaster.driver.devices.razer.nostromo.Nostromo());
-		addDevice(new com.monkygames.kbmaster.driver.devices.razer.tartarus.Tartarus());
-		addDevice(new com.monkygames.kbmaster.driver.devices.razer.tartarus_v2.TartarusV2());
-		addDevice(new com.monkygames.kbmaster.driver.devices.razer.tartaruschroma.TartarusChroma());
-		addDevice(new com.monkygames.kbmaster.driver.devices.razer.orbweaver.Orbweaver());
-		addDevice(new com.monkygames.kbmaster.driver.devices.razer.orbweaverchroma.OrbweaverChroma());
-		addDevice(new com.monkygames.kbmaster.driver.devices.razer.naga.Naga());
-		addDevice(new com.monkygames.kbmaster.driver.devices.razer.taipan.Taipan());
-		addDevice(new com.monkygames.kbmaster.driver.devices.razer.marauder.Marauder());
-
-		//Belkin
-		addDevice(new com.monkygames.kbmaster.driver.devices.belkin.n52.N52());
-		addDevice(new com.monkygames.kbmaster.driver.devices.belkin.n52te.N52TE());
+	private void register(DeviceDescriptor descriptor) {
+		DeviceInformation information = descriptor.getDeviceInformation();
+		// a descriptor of a driver class is loaded by the class
+		if (drivers.containsKey(information.getPackageName())) return;
+		register(information.getPackageName(), information.getDeviceType(), information.getMake(),
+			information.getModel(), () -> new DescriptorDevice(descriptor));
+	}
+	/**
+	 * Returns the descriptor resources listed by all the {@link #DESCRIPTORS} files on the class path.
+	 */
+	private static ArrayList<String> getDescriptorResources() {
+		ArrayList<String> resources = new ArrayList<>();
+		try {
+			Enumeration<URL> lists = DriverManager.class.getClassLoader().getResources(DESCRIPTORS);
+			while (lists.hasMoreElements()) {
+				try (BufferedReader reader = new BufferedReader(new InputStreamReader(lists.nextElement().openStream(), StandardCharsets.UTF_8))) {
+					reader.lines().map(String::trim).filter(line -> !line.isEmpty() && !line.startsWith("#")).forEach(resources::add);
+				}
+			}
+		} catch (IOException e) {
+			Logger.getLogger(DriverManager.class.getName()).log(Level.WARNING, null, e);
+		}
+		return resources;
+	}
 
-		//Other
-		addDevice(new com.monkygames.kbmaster.driver.devices.lacunary_limited.ipv6buddy.IPV6Buddy());
-		addDevice(new com.monkygames.kbmaster.driver.devices.digitus.numpad.Numpad());
-		addDevice(new com.monkygames.kbmaster.driver.devices.generic.mouse.gspy.GSpyUsbGamingMouseRH1900());
-		addDevice(new com.monkygames.kbmaster.driver.devices.logitech.LogitechG502());
-		addDevice(new com.monkygames.kbmaster.driver.devices.sony.SonyDualShock4());
+// ============= Internal Classes ============== //
+	/**
+	 * Creates a driver once when it is first requested.
+	 */
+	private static class Driver {
+		private final Supplier<? extends Device> factory;
+		private Device device;
+		Driver(Supplier<? extends Device> factory) { this.factory = factory; }
+		Device getDevice() {
+			if (device == null) device = factory.get();
+			return device;
+		}
 	}
 }
@@ -11,6 +11,7 @@ import com.monkygames.kbmaster.driver.devices.razer.nostromo.Nostromo;
 /**
  * Contains information about a specific device.
  */
+@DriverInfo(type = DeviceType.KEYBOARD, make = "Belkin", model = "n52te")
 public class N52TE extends Nostromo{
 
 // ============= Class variables ============== //
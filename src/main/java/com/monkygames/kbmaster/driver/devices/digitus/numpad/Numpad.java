@@ -18,6 +18,7 @@ import java.awt.Rectangle;
 /**
  * Contains information about a specific device.
  */
+@DriverInfo(type = DeviceType.KEYBOARD, make = "DIGITUS", model = "Numpad")
 public class Numpad extends Device{
 
 // ============= Class variables ============== //
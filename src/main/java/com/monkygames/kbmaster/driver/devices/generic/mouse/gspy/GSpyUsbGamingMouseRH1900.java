@@ -15,6 +15,7 @@ import java.awt.Rectangle;
 /**
  * Contributed by David Ferreira (FZ)
  */
+@DriverInfo(type = DeviceType.MOUSE, make = "G-SPY", model = "RH1900")
 public class GSpyUsbGamingMouseRH1900 extends Device{
 
 // ============= Class variables ============== //
@@ -18,6 +18,7 @@ import java.awt.Rectangle;
 /**
  * Contains information about a specific device.
  */
+@DriverInfo(type = DeviceType.KEYBOARD, make = "Lacunary Limited", model = "IPv6 Buddy")
 public class IPV6Buddy extends Device{
 
 // ============= Class variables ============== //
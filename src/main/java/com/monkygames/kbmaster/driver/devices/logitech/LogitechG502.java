@@ -3,6 +3,7 @@ import java.awt.event.InputEvent;
 
 import com.monkygames.kbmaster.driver.Device;
 import com.monkygames.kbmaster.driver.DeviceType;
+import com.monkygames.kbmaster.driver.DriverInfo;
 
 import com.monkygames.kbmaster.input.*;
 import net.java.games.input.Component;
@@ -12,6 +13,7 @@ import net.java.games.input.Component;
 
 import java.awt.Rectangle;
 
+@DriverInfo(type = DeviceType.MOUSE, make = "Logitech", model = "G502")
 public class LogitechG502 extends Device {
     public LogitechG502() {
             super("Logitech","G502","Logitech Gaming Mouse G502", DeviceType.MOUSE,
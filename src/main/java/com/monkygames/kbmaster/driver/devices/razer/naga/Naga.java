@@ -17,6 +17,7 @@ import net.java.games.input.Component.Identifier.Key;
 /**
  * Contains information about a specific device.
  */
+@DriverInfo(type = DeviceType.MOUSE, make = "Razer", model = "Naga")
 public class Naga extends Device{
 
 // ============= Class variables ============== //
@@ -18,6 +18,7 @@ import java.awt.Rectangle;
 /**
  * Contains information about a specific device.
  */
+@DriverInfo(type = DeviceType.KEYBOARD, make = "Razer", model = "Orbweaver Chroma")
 public class OrbweaverChroma extends Device{
 
 // ============= Class variables ============== //
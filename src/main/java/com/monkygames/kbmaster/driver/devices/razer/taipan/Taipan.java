@@ -15,6 +15,7 @@ import java.awt.Rectangle;
 /**
  * Contains information about a specific device.
  */
+@DriverInfo(type = DeviceType.MOUSE, make = "Razer", model = "Taipan")
 public class Taipan extends Device{
 
 // ============= Class variables ============== //
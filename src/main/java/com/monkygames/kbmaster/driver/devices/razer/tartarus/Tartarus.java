@@ -18,6 +18,7 @@ import java.awt.Rectangle;
 /**
  * Contains information about a specific device.
  */
+@DriverInfo(type = DeviceType.KEYBOARD, make = "Razer", model = "Tartarus")
 public class Tartarus extends Device{
 
 // ============= Class variables ============== //
@@ -7,6 +7,7 @@ package com.monkygames.kbmaster.driver.devices.razer.tartarus_v2;
 
 import com.monkygames.kbmaster.driver.Device;
 import com.monkygames.kbmaster.driver.DeviceType;
+import com.monkygames.kbmaster.driver.DriverInfo;
 import com.monkygames.kbmaster.driver.InputMap;
 import com.monkygames.kbmaster.input.*;
 import com.monkygames.kbmaster.input.Button;
@@ -22,6 +23,7 @@ import java.awt.event.KeyEvent;
 /**
  * Contains information about a specific device.
  */
+@DriverInfo(type = DeviceType.KEYBOARD, make = "Razer", model = "Tartarus V2")
 public class TartarusV2 extends Device{
 
 // ============= Class variables ============== //
@@ -18,6 +18,7 @@ import java.awt.Rectangle;
 /**
  * Contains information about a specific device.
  */
+@DriverInfo(type = DeviceType.KEYBOARD, make = "Razer", model = "Tartarus Chroma")
 public class TartarusChroma extends Device{
 
 // ============= Class variables ============== //
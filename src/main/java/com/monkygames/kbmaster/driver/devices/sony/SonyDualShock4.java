@@ -2,6 +2,7 @@ package com.monkygames.kbmaster.driver.devices.sony;
 
 import com.monkygames.kbmaster.driver.Device;
 import com.monkygames.kbmaster.driver.DeviceType;
+import com.monkygames.kbmaster.driver.DriverInfo;
 import com.monkygames.kbmaster.input.Mapping;
 import com.monkygames.kbmaster.input.JoystickMapping;
 import com.monkygames.kbmaster.input.ButtonMapping;
@@ -15,6 +16,7 @@ import net.java.games.input.Component;
 import java.awt.Rectangle;
 import java.awt.event.KeyEvent;
 
+@DriverInfo(type = DeviceType.GAMEPAD, make = "Sony", model = "DualShock4")
 public class SonyDualShock4 extends Device {
 
     public SonyDualShock4() {
@@ -0,0 +1,13 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.engine;
+
+/**
+ * A gamepad controller that holds every input of the device, like the
+ * LinuxCombinedController of jinput, which the engine polls as the
+ * gamepad of a device. Implemented by the gamepads that are not made by
+ * jinput, such as the simulated ones.
+ */
+public interface CombinedGamepad {
+}
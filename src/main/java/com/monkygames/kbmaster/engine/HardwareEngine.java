@@ -7,23 +7,23 @@ package com.monkygames.kbmaster.engine;
 import com.monkygames.kbmaster.driver.Device;
 import com.monkygames.kbmaster.input.*;
 import com.monkygames.kbmaster.input.OutputMouse.MouseType;
+import com.monkygames.kbmaster.metrics.DeviceMetrics;
+import com.monkygames.kbmaster.metrics.MetricsRegistry;
 import com.monkygames.kbmaster.profiles.Profile;
 
-import java.awt.AWTException;
+import java.awt.GraphicsEnvironment;
 import java.awt.MouseInfo;
 import java.awt.Point;
-import java.awt.Robot;
 
 import java.util.ArrayList;
 import java.util.Timer;
 import java.util.TimerTask;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
 import javafx.scene.input.KeyCode;
 import net.java.games.input.Component;
 import net.java.games.input.Component.Identifier.Axis;
 import net.java.games.input.Controller;
+import net.java.games.input.ControllerEnvironment;
 import net.java.games.input.Event;
 import net.java.games.input.Keyboard;
 import net.java.games.input.LinuxEnvironmentPlugin;
@@ -38,10 +38,20 @@ import net.java.games.input.LinuxCombinedController;
 public class HardwareEngine implements Runnable{
 
 	// ============= Class variables ============== //
+	/**
+	 * The poll threads are named with this prefix and the name of the device.
+	 */
+	public static final String POLL_THREAD_PREFIX = "kbmaster-poll-";
+	/**
+	 * The names of the POV hat directions in the keymaps, built once so the
+	 * poll loop does not concatenate strings.
+	 */
+	private static final String POV_UP = Axis.POV.getName()+"UP", POV_DOWN = Axis.POV.getName()+"DOWN",
+		POV_LEFT = Axis.POV.getName()+"LEFT", POV_RIGHT = Axis.POV.getName()+"RIGHT";
 	private final Device device;
 	private ArrayList<Keyboard> keyboards;
 	private Mouse mouse;
-	private LinuxCombinedController gamepad;
+	private volatile Controller gamepad;
 	private JoystickInfo joystickInfo;
 	private ArrayList<PollEventQueue> keyboardEventQueues;
 	private PollEventQueue mouseEventQueue, gamepadEventQueue;
@@ -56,11 +66,11 @@ public class HardwareEngine implements Runnable{
 	/**
 	 * True if polling and false otherwise.
 	 */
-	private boolean isPolling = false;
+	private volatile boolean isPolling = false;
 	/**
 	 * Controls the thread loop for polling.
 	 */
-	private boolean poll = false, pollFail = false;
+	private volatile boolean poll = false, pollFail = false;
 	/**
 	 * Used for polling the devices.
 	 */
@@ -97,7 +107,7 @@ public class HardwareEngine implements Runnable{
 	/**
 	 * Controls the forwarding of key presses and scroll wheel.
 	 */
-	private Robot robot;
+	private final OutputInjector injector;
 	/**
 	 * A list of listeners for hardware status change.
 	 */
@@ -122,8 +132,26 @@ public class HardwareEngine implements Runnable{
 	 * Used for determining if a mouse should be polled.
 	 */
 	private boolean hasMouse = true;
+	/**
+	 * Counters for this device and the time the current poll started
+	 * which is used for measuring the injection latency.
+	 */
+	private final DeviceMetrics metrics;
+	private long pollTime;
+	/**
+	 * Replaces the jinput environment when scanning for controllers
+	 * (such as simulated controllers) and null to use jinput.
+	 */
+	private static ControllerEnvironment controllerEnvironment;
 	// ============= Constructors ============== //
 	public HardwareEngine(Device device, HardwareManager hardwareManager){
+		this(device, hardwareManager, new RobotInjector());
+	}
+	/**
+	 * Creates an engine that sends its outputs to the specified injector.
+	 * @param injector receives the remapped outputs.
+	 */
+	public HardwareEngine(Device device, HardwareManager hardwareManager, OutputInjector injector){
 		this.device = device;
 		this.hardwareManager = hardwareManager;
 		event = new Event();
@@ -131,11 +159,9 @@ public class HardwareEngine implements Runnable{
 		keyboardEventQueues = new ArrayList<>();
 		mouseEventQueue = null;
 		gamepadEventQueue = null;
-		try { robot = new Robot();}
-		catch (AWTException ex) {
-			Logger.getLogger(HardwareEngine.class.getName()).log(Level.SEVERE, null, ex);
-		}
+		this.injector = injector;
 		hasMouse = device.getDeviceInformation().hasMouse();
+		metrics = MetricsRegistry.getMetricsRegistry().getDeviceMetrics(device.getDeviceInformation().getName());
 	}
 // ============= Public Methods ============== //
 	/**
@@ -151,6 +177,8 @@ public class HardwareEngine implements Runnable{
 	 * Halts hardware scanning.
 	 */
 	public void stopScanning() {
+		// the scanning may not have started (see HardwareManager.addManagedDeviceLater)
+		if (timer == null) return;
 		timerTask.cancel();
 		timer.cancel();
 	}
@@ -201,7 +229,9 @@ public class HardwareEngine implements Runnable{
 		else return;
 		this.isKeymapOnRelease = false;
 		poll = true;
-		thread = new Thread(this);
+		// set before starting so a second call waits for this thread
+		isPolling = true;
+		thread = new Thread(this, POLL_THREAD_PREFIX + device.getDeviceInformation().getName());
 		thread.start();
 	}
 	public void stopPolling(){
@@ -216,6 +246,8 @@ public class HardwareEngine implements Runnable{
 	 */
 	private void pollNormalMode(){
 		while(poll){
+			pollTime = System.nanoTime();
+			metrics.recordPoll();
 			//poll gamepad
 			if (gamepad != null) {
 				if (!gamepad.poll()) {
@@ -226,9 +258,9 @@ public class HardwareEngine implements Runnable{
 				}
 			}
 
-			// poll keyboard
-			for(Keyboard keyboard: keyboards){
-				if(!keyboard.poll()) {
+			// poll keyboard (indexed loops so the loop does not allocate iterators)
+			for(int k = 0; k < keyboards.size(); k++){
+				if(!keyboards.get(k).poll()) {
 					poll = false;
 					pollFail = true;
 					grabHardware(false);
@@ -245,8 +277,11 @@ public class HardwareEngine implements Runnable{
 			// Determines whether to process the output or not
 			if (!isEnabled) continue;
 			// handle keyboard events
-			for(PollEventQueue keyboardEventQueue: this.keyboardEventQueues){
-				for(Event event: keyboardEventQueue.getEvents()){
+			for(int q = 0; q < keyboardEventQueues.size(); q++){
+				ArrayList<Event> events = keyboardEventQueues.get(q).getEvents();
+				metrics.recordEvents(DeviceMetrics.Queue.KEYBOARD, events.size());
+				for(int e = 0; e < events.size(); e++){
+					Event event = events.get(e);
 					Component component = event.getComponent();
 					String name = component.getIdentifier().getName();
 					//System.out.println("===== New Event Queue =====");
@@ -284,9 +319,9 @@ public class HardwareEngine implements Runnable{
 					if (elapsedTime >= minTime) {
 						joystickInfo.setTimeXY(System.nanoTime());
 						float angle = joystickInfo.findAngle(joystickInfo.getLastX(),joystickInfo.getLastY());
-						if (joystickInfo.getLastAngleXY() != angle) joystickInfo.setLastAngleXY(angle);
-						int[] newCoords = joystickInfo.getNewCoords("XY");
-						robot.mouseMove(newCoords[0], newCoords[1]);
+						if (joystickInfo.getLastAngleXY() != angle) joystickInfo.setLastAngleXY(angle, injector.getPointerLocation());
+						int[] newCoords = joystickInfo.getNewCoords("XY", injector.getPointerLocation());
+						injector.mouseMove(newCoords[0], newCoords[1]);
 						// TODO remember to check for mousepress and inversion
 					}
 				}
@@ -304,13 +339,16 @@ public class HardwareEngine implements Runnable{
 					if (elapsedTime >= minTime) {
 						joystickInfo.setTimeRXRY(System.nanoTime());
 						float angle = joystickInfo.findAngle(joystickInfo.getLastRX(),joystickInfo.getLastRY());
-						if (joystickInfo.getLastAngleRXRY() != angle) joystickInfo.setLastAngleRXRY(angle);
-						int[] newCoords = joystickInfo.getNewCoords("RXRY");
-						robot.mouseMove(newCoords[0], newCoords[1]);
+						if (joystickInfo.getLastAngleRXRY() != angle) joystickInfo.setLastAngleRXRY(angle, injector.getPointerLocation());
+						int[] newCoords = joystickInfo.getNewCoords("RXRY", injector.getPointerLocation());
+						injector.mouseMove(newCoords[0], newCoords[1]);
 						// TODO remember to check for mousepress and inversion
 					}
 				}
-				for (Event event : gamepadEventQueue.getEvents()) {
+				ArrayList<Event> events = gamepadEventQueue.getEvents();
+				metrics.recordEvents(DeviceMetrics.Queue.GAMEPAD, events.size());
+				for (int e = 0; e < events.size(); e++) {
+					Event event = events.get(e);
 					Component component = event.getComponent();
 					String name = component.getIdentifier().getName();
 					//System.out.println("===== New Event Queue =====");
@@ -318,50 +356,50 @@ public class HardwareEngine implements Runnable{
 					if (component.getIdentifier() == Axis.POV) {
 						float pollData = event.getValue();
 						//Must call key release on unrelated DPad buttons and prevent new key press on already pressed keys
-						ButtonMapping bMapping = keymap.getButtonMapping(name+"UP");
+						ButtonMapping bMapping = keymap.getButtonMapping(POV_UP);
 						if (bMapping != null && pollData != JoystickInfo.DPAD_UP && pollData != JoystickInfo.DPAD_UP_RIGHT && pollData != JoystickInfo.DPAD_UP_LEFT)
 							processOutput(name, bMapping.getOutput(), 0);
-						bMapping = keymap.getButtonMapping(name+"DOWN");
+						bMapping = keymap.getButtonMapping(POV_DOWN);
 						if (bMapping != null && pollData != JoystickInfo.DPAD_DOWN && pollData != JoystickInfo.DPAD_DOWN_LEFT && pollData != JoystickInfo.DPAD_DOWN_RIGHT)
 							processOutput(name, bMapping.getOutput(), 0);
-						bMapping = keymap.getButtonMapping(name+"LEFT");
+						bMapping = keymap.getButtonMapping(POV_LEFT);
 						if (bMapping != null && pollData != JoystickInfo.DPAD_LEFT && pollData != JoystickInfo.DPAD_UP_LEFT && pollData != JoystickInfo.DPAD_DOWN_LEFT)
 							processOutput(name, bMapping.getOutput(), 0);
-						bMapping = keymap.getButtonMapping(name+"RIGHT");
+						bMapping = keymap.getButtonMapping(POV_RIGHT);
 						if (bMapping != null && pollData != JoystickInfo.DPAD_RIGHT && pollData != JoystickInfo.DPAD_UP_RIGHT && pollData != JoystickInfo.DPAD_DOWN_RIGHT)
 							processOutput(name, bMapping.getOutput(), 0);
-						if (pollData == JoystickInfo.DPAD_UP) name+="UP";
-						else if (pollData == JoystickInfo.DPAD_DOWN) name+="DOWN";
-						else if (pollData == JoystickInfo.DPAD_LEFT) name+="LEFT";
-						else if (pollData == JoystickInfo.DPAD_RIGHT) name+="RIGHT";
+						if (pollData == JoystickInfo.DPAD_UP) name = POV_UP;
+						else if (pollData == JoystickInfo.DPAD_DOWN) name = POV_DOWN;
+						else if (pollData == JoystickInfo.DPAD_LEFT) name = POV_LEFT;
+						else if (pollData == JoystickInfo.DPAD_RIGHT) name = POV_RIGHT;
 						else if (pollData == JoystickInfo.DPAD_UP_RIGHT) {
-							bMapping = keymap.getButtonMapping(name+"UP");
+							bMapping = keymap.getButtonMapping(POV_UP);
 							if (bMapping != null && joystickInfo.getLastPOV() != JoystickInfo.DPAD_UP) processOutput(name, bMapping.getOutput(), 1);
-							bMapping = keymap.getButtonMapping(name+"RIGHT");
+							bMapping = keymap.getButtonMapping(POV_RIGHT);
 							if (bMapping != null && joystickInfo.getLastPOV() != JoystickInfo.DPAD_RIGHT) processOutput(name, bMapping.getOutput(), 1);
 							joystickInfo.setLastPOV(pollData);
 							continue;
 						}
 						else if (pollData == JoystickInfo.DPAD_UP_LEFT) {
-							bMapping = keymap.getButtonMapping(name+"UP");
+							bMapping = keymap.getButtonMapping(POV_UP);
 							if (bMapping != null && joystickInfo.getLastPOV() != JoystickInfo.DPAD_UP) processOutput(name, bMapping.getOutput(), 1);
-							bMapping = keymap.getButtonMapping(name+"LEFT");
+							bMapping = keymap.getButtonMapping(POV_LEFT);
 							if (bMapping != null && joystickInfo.getLastPOV() != JoystickInfo.DPAD_LEFT) processOutput(name, bMapping.getOutput(), 1);
 							joystickInfo.setLastPOV(pollData);
 							continue;
 						}
 						else if (pollData == JoystickInfo.DPAD_DOWN_RIGHT) {
-							bMapping = keymap.getButtonMapping(name+"DOWN");
+							bMapping = keymap.getButtonMapping(POV_DOWN);
 							if (bMapping != null  && joystickInfo.getLastPOV() != JoystickInfo.DPAD_DOWN) processOutput(name, bMapping.getOutput(), 1);
-							bMapping = keymap.getButtonMapping(name+"RIGHT");
+							bMapping = keymap.getButtonMapping(POV_RIGHT);
 							if (bMapping != null && joystickInfo.getLastPOV() != JoystickInfo.DPAD_RIGHT) processOutput(name, bMapping.getOutput(), 1);
 							joystickInfo.setLastPOV(pollData);
 							continue;
 						}
 						else if (pollData == JoystickInfo.DPAD_DOWN_LEFT) {
-							bMapping = keymap.getButtonMapping(name+"DOWN");
+							bMapping = keymap.getButtonMapping(POV_DOWN);
 							if (bMapping != null  && joystickInfo.getLastPOV() != JoystickInfo.DPAD_DOWN) processOutput(name, bMapping.getOutput(), 1);
-							bMapping = keymap.getButtonMapping(name+"LEFT");
+							bMapping = keymap.getButtonMapping(POV_LEFT);
 							if (bMapping != null  && joystickInfo.getLastPOV() != JoystickInfo.DPAD_LEFT) processOutput(name, bMapping.getOutput(), 1);
 							joystickInfo.setLastPOV(pollData);
 							continue;
@@ -393,7 +431,10 @@ public class HardwareEngine implements Runnable{
 			// handle mouse events
 			if(hasMouse){
 				if (mouseEventQueue == null) continue;
-				for(Event event: mouseEventQueue.getEvents()){
+				ArrayList<Event> events = mouseEventQueue.getEvents();
+				metrics.recordEvents(DeviceMetrics.Queue.MOUSE, events.size());
+				for(int e = 0; e < events.size(); e++){
+					Event event = events.get(e);
 					Component component = event.getComponent();
 					String name = component.getIdentifier().getName();
 					//System.out.println("===== New Event Queue =====");
@@ -402,27 +443,27 @@ public class HardwareEngine implements Runnable{
 						keymap = profile.getKeymap(profile.getDefaultKeymap());
 					WheelMapping mapping; 
 					if(component.getIdentifier() == Axis.X){
-						Point point = MouseInfo.getPointerInfo().getLocation();
+						Point point = injector.getPointerLocation();
 						float rel = component.getPollData();
 						float x = point.x + rel;
-						if (point.x != x) robot.mouseMove((int) x, point.y);
+						if (point.x != x) injector.mouseMove((int) x, point.y);
 					}else if(component.getIdentifier() == Axis.Y){
-						Point point = MouseInfo.getPointerInfo().getLocation();
+						Point point = injector.getPointerLocation();
 						float rel = component.getPollData();
 						float y = point.y + rel;
-						if (point.y != y) robot.mouseMove(point.x, (int) y);
+						if (point.y != y) injector.mouseMove(point.x, (int) y);
 					}else if(component.getIdentifier() == Axis.Z && event.getValue() >= 1){
 						mapping = keymap.getzUpWheelMapping();
 						if(mapping.getOutput() instanceof OutputKey || mapping.getOutput() instanceof OutputKeymapSwitch){
 							processOutput(name, mapping.getOutput(),1);
-							robot.delay(10);
+							injector.delay(10);
 							processOutput(name, mapping.getOutput(),0);
 						}else processOutput(name, mapping.getOutput(),event.getValue());
 					}else if(component.getIdentifier() == Axis.Z && event.getValue() <= -1){
 						mapping = keymap.getzDownWheelMapping();
 						if(mapping.getOutput() instanceof OutputKey || mapping.getOutput() instanceof OutputKeymapSwitch){
 							processOutput(name, mapping.getOutput(),1);
-							robot.delay(10);
+							injector.delay(10);
 							processOutput(name, mapping.getOutput(),0);
 						}else processOutput(name, mapping.getOutput(),event.getValue());
 					}else if(component.getIdentifier() == Axis.Z && event.getValue() == 0){ /*on release, do nothing*/ }
@@ -437,13 +478,25 @@ public class HardwareEngine implements Runnable{
 		}
 	}
 	/**
-	 * Processes the proper response to the output.
+	 * Processes the proper response to the output and records the time
+	 * since the poll that detected the event.
+	 * Package private for the benchmarks.
+	 * @param name the name of the input component.
+	 * @param output the output to process.
+	 * @param eventValue the event's value.
+	 */
+	void processOutput(String name, Output output, float eventValue){
+		injectOutput(name, output, eventValue);
+		metrics.recordInjection(System.nanoTime() - pollTime);
+	}
+	/**
+	 * Sends the proper response to the output.
 	 * Checks for mouse, keyboard, or keymap events.
 	 * @param name the name of the input component.
 	 * @param output the output to process.
 	 * @param eventValue the event's value.
 	 */
-	private void processOutput(String name, Output output, float eventValue){
+	private void injectOutput(String name, Output output, float eventValue){
 		// test for a release on a switch on release keymap event.
 		if(isKeymapOnRelease && name.equals(previousComponentName) && eventValue == 0){
 			isKeymapOnRelease = false;
@@ -458,34 +511,34 @@ public class HardwareEngine implements Runnable{
 			if(eventValue == 1){
 				// handle modifiers
 				if(output.getModifier() != 0)
-					robot.keyPress(output.getModifier());
-				robot.keyPress(output.getKeycode());
+					injector.keyPress(output.getModifier());
+				injector.keyPress(output.getKeycode());
 			}else if(eventValue == 0){
 				// note, don't do anything if the value is 2 (which means repeat)
-				robot.keyRelease(output.getKeycode());
+				injector.keyRelease(output.getKeycode());
 				// release the modifier after the key has been released
 				if(output.getModifier() != 0)
-					robot.keyRelease(output.getModifier());
+					injector.keyRelease(output.getModifier());
 			}
 		}else if(output instanceof OutputMouse){
 			OutputMouse outputM = (OutputMouse)output;
 			if(outputM.getMouseType() == MouseType.MouseClick) {
 				if (eventValue == 1)
-					robot.mousePress(outputM.getKeycode());
+					injector.mousePress(outputM.getKeycode());
 				else if(eventValue == 0)
-					robot.mouseRelease(outputM.getKeycode());
+					injector.mouseRelease(outputM.getKeycode());
 			}else if(outputM.getMouseType() == MouseType.MouseDoubleClick){
 				if(eventValue == 1){
-					robot.mousePress(outputM.getKeycode());
-					robot.delay(10);
-					robot.mouseRelease(outputM.getKeycode());
-					robot.delay(10);
-					robot.mousePress(outputM.getKeycode());
-					robot.delay(10);
-					robot.mouseRelease(outputM.getKeycode());
+					injector.mousePress(outputM.getKeycode());
+					injector.delay(10);
+					injector.mouseRelease(outputM.getKeycode());
+					injector.delay(10);
+					injector.mousePress(outputM.getKeycode());
+					injector.delay(10);
+					injector.mouseRelease(outputM.getKeycode());
 				}
 			}else if(outputM.getMouseType() == MouseType.MouseWheel)
-				robot.mouseWheel(outputM.getKeycode());
+				injector.mouseWheel(outputM.getKeycode());
 		}else if(output instanceof OutputKeymapSwitch){
 			if(output.getKeycode() > 0 && output.getKeycode() <= 8){
 				OutputKeymapSwitch outputSwitch = (OutputKeymapSwitch)output;
@@ -522,11 +575,11 @@ public class HardwareEngine implements Runnable{
 						case RIGHT:
 							return;
 						case UP_RIGHT:
-							robot.keyRelease(outputJ.getKeycode("UP",outputJ.getKeycode()));
+							injector.keyRelease(outputJ.getKeycode("UP",outputJ.getKeycode()));
 							joystickInfo.setLastPress(JoystickInfo.LastPress.RIGHT);
 							return;
 						case DOWN_RIGHT:
-							robot.keyRelease(outputJ.getKeycode("DOWN",outputJ.getKeycode()));
+							injector.keyRelease(outputJ.getKeycode("DOWN",outputJ.getKeycode()));
 							joystickInfo.setLastPress(JoystickInfo.LastPress.RIGHT);
 							return;
 						default:
@@ -537,11 +590,11 @@ public class HardwareEngine implements Runnable{
 						case LEFT:
 							return;
 						case UP_LEFT:
-							robot.keyRelease(outputJ.getKeycode("UP",outputJ.getKeycode()));
+							injector.keyRelease(outputJ.getKeycode("UP",outputJ.getKeycode()));
 							joystickInfo.setLastPress(JoystickInfo.LastPress.LEFT);
 							return;
 						case DOWN_LEFT:
-							robot.keyRelease(outputJ.getKeycode("DOWN",outputJ.getKeycode()));
+							injector.keyRelease(outputJ.getKeycode("DOWN",outputJ.getKeycode()));
 							joystickInfo.setLastPress(JoystickInfo.LastPress.LEFT);
 							return;
 						default:
@@ -552,11 +605,11 @@ public class HardwareEngine implements Runnable{
 						case UP:
 							return;
 						case UP_RIGHT:
-							robot.keyRelease(outputJ.getKeycode("RIGHT",outputJ.getKeycode()));
+							injector.keyRelease(outputJ.getKeycode("RIGHT",outputJ.getKeycode()));
 							joystickInfo.setLastPress(JoystickInfo.LastPress.UP);
 							return;
 						case UP_LEFT:
-							robot.keyRelease(outputJ.getKeycode("LEFT",outputJ.getKeycode()));
+							injector.keyRelease(outputJ.getKeycode("LEFT",outputJ.getKeycode()));
 							joystickInfo.setLastPress(JoystickInfo.LastPress.UP);
 							return;
 						default:
@@ -567,11 +620,11 @@ public class HardwareEngine implements Runnable{
 						case DOWN:
 							return;
 						case DOWN_RIGHT:
-							robot.keyRelease(outputJ.getKeycode("RIGHT",outputJ.getKeycode()));
+							injector.keyRelease(outputJ.getKeycode("RIGHT",outputJ.getKeycode()));
 							joystickInfo.setLastPress(JoystickInfo.LastPress.DOWN);
 							return;
 						case DOWN_LEFT:
-							robot.keyRelease(outputJ.getKeycode("LEFT",outputJ.getKeycode()));
+							injector.keyRelease(outputJ.getKeycode("LEFT",outputJ.getKeycode()));
 							joystickInfo.setLastPress(JoystickInfo.LastPress.DOWN);
 							return;
 						default:
@@ -582,14 +635,14 @@ public class HardwareEngine implements Runnable{
 						case UP_RIGHT:
 							return;
 						case UP:
-							robot.keyPress(outputJ.getKeycode("RIGHT", output.getKeycode()));
+							injector.keyPress(outputJ.getKeycode("RIGHT", output.getKeycode()));
 							break;
 						case RIGHT:
-							robot.keyPress(outputJ.getKeycode("UP", output.getKeycode()));
+							injector.keyPress(outputJ.getKeycode("UP", output.getKeycode()));
 							break;
 						default:
-							robot.keyPress(outputJ.getKeycode("RIGHT", output.getKeycode()));
-							robot.keyPress(outputJ.getKeycode("UP", output.getKeycode()));
+							injector.keyPress(outputJ.getKeycode("RIGHT", output.getKeycode()));
+							injector.keyPress(outputJ.getKeycode("UP", output.getKeycode()));
 					}
 					joystickInfo.setLastPress(JoystickInfo.LastPress.UP_RIGHT);
 					return;
@@ -598,14 +651,14 @@ public class HardwareEngine implements Runnable{
 						case UP_LEFT:
 							return;
 						case UP:
-							robot.keyPress(outputJ.getKeycode("LEFT", output.getKeycode()));
+							injector.keyPress(outputJ.getKeycode("LEFT", output.getKeycode()));
 							break;
 						case LEFT:
-							robot.keyPress(outputJ.getKeycode("UP", output.getKeycode()));
+							injector.keyPress(outputJ.getKeycode("UP", output.getKeycode()));
 							break;
 						default:
-							robot.keyPress(outputJ.getKeycode("LEFT", output.getKeycode()));
-							robot.keyPress(outputJ.getKeycode("UP", output.getKeycode()));
+							injector.keyPress(outputJ.getKeycode("LEFT", output.getKeycode()));
+							injector.keyPress(outputJ.getKeycode("UP", output.getKeycode()));
 					}
 					joystickInfo.setLastPress(JoystickInfo.LastPress.UP_LEFT);
 					return;
@@ -614,14 +667,14 @@ public class HardwareEngine implements Runnable{
 						case DOWN_LEFT:
 							return;
 						case DOWN:
-							robot.keyPress(outputJ.getKeycode("LEFT", output.getKeycode()));
+							injector.keyPress(outputJ.getKeycode("LEFT", output.getKeycode()));
 							break;
 						case LEFT:
-							robot.keyPress(outputJ.getKeycode("DOWN", output.getKeycode()));
+							injector.keyPress(outputJ.getKeycode("DOWN", output.getKeycode()));
 							break;
 						default:
-							robot.keyPress(outputJ.getKeycode("LEFT", output.getKeycode()));
-							robot.keyPress(outputJ.getKeycode("DOWN", output.getKeycode()));
+							injector.keyPress(outputJ.getKeycode("LEFT", output.getKeycode()));
+							injector.keyPress(outputJ.getKeycode("DOWN", output.getKeycode()));
 					}
 					joystickInfo.setLastPress(JoystickInfo.LastPress.DOWN_LEFT);
 					return;
@@ -630,25 +683,25 @@ public class HardwareEngine implements Runnable{
 						case DOWN_RIGHT:
 							return;
 						case DOWN:
-							robot.keyPress(outputJ.getKeycode("RIGHT", output.getKeycode()));
+							injector.keyPress(outputJ.getKeycode("RIGHT", output.getKeycode()));
 							break;
 						case RIGHT:
-							robot.keyPress(outputJ.getKeycode("DOWN", output.getKeycode()));
+							injector.keyPress(outputJ.getKeycode("DOWN", output.getKeycode()));
 							break;
 						default:
-							robot.keyPress(outputJ.getKeycode("RIGHT", output.getKeycode()));
-							robot.keyPress(outputJ.getKeycode("DOWN", output.getKeycode()));
+							injector.keyPress(outputJ.getKeycode("RIGHT", output.getKeycode()));
+							injector.keyPress(outputJ.getKeycode("DOWN", output.getKeycode()));
 					}
 					joystickInfo.setLastPress(JoystickInfo.LastPress.DOWN_RIGHT);
 					return;
 				}else {
-					robot.keyRelease(outputJ.getKeycode("RIGHT",outputJ.getKeycode()));
-					robot.keyRelease(outputJ.getKeycode("LEFT",outputJ.getKeycode()));
-					robot.keyRelease(outputJ.getKeycode("DOWN",outputJ.getKeycode()));
-					robot.keyRelease(outputJ.getKeycode("UP",outputJ.getKeycode()));
+					injector.keyRelease(outputJ.getKeycode("RIGHT",outputJ.getKeycode()));
+					injector.keyRelease(outputJ.getKeycode("LEFT",outputJ.getKeycode()));
+					injector.keyRelease(outputJ.getKeycode("DOWN",outputJ.getKeycode()));
+					injector.keyRelease(outputJ.getKeycode("UP",outputJ.getKeycode()));
 				}
 				if (keycode != 0) {
-					robot.keyPress(keycode);
+					injector.keyPress(keycode);
 					if (keycode == KeyCode.UP.getCode() || keycode == KeyCode.W.getCode())
 						joystickInfo.setLastPress(JoystickInfo.LastPress.UP);
 					else if (keycode == KeyCode.DOWN.getCode() || keycode == KeyCode.S.getCode())
@@ -707,6 +760,7 @@ public class HardwareEngine implements Runnable{
 	 * @return true if the hardware has been found and false otherwise.
 	 */
 	private void rescanHardware(){
+		metrics.recordRescan();
 		scanHardware(getControllers(false));
 	}
 	private void scanHardware(){
@@ -773,17 +827,20 @@ public class HardwareEngine implements Runnable{
 			if(mouse.getX() != null && !mouse.getX().isRelative())
 				isMouseRelative = false;
 			else isMouseRelative = true;
-			float width = MouseInfo.getPointerInfo().getDevice().getDisplayMode().getWidth();
-			float height = MouseInfo.getPointerInfo().getDevice().getDisplayMode().getHeight();
-			unit_width = 1f/width;
-			unit_height = 1f/height;
+			if (!GraphicsEnvironment.isHeadless()) {
+				float width = MouseInfo.getPointerInfo().getDevice().getDisplayMode().getWidth();
+				float height = MouseInfo.getPointerInfo().getDevice().getDisplayMode().getHeight();
+				unit_width = 1f/width;
+				unit_height = 1f/height;
+			}
 			mouseEventQueue = new PollEventQueue(mouse.getComponents());
 		}
 		else if (type == Controller.Type.GAMEPAD) {
-			if (controller instanceof LinuxCombinedController) {
-				gamepad = (LinuxCombinedController)controller;
-				gamepadEventQueue = new PollEventQueue(gamepad.getComponents());
+			if (controller instanceof LinuxCombinedController || controller instanceof CombinedGamepad) {
+				// set up before the gamepad since the poll thread may already be running
 				joystickInfo = new JoystickInfo();
+				gamepadEventQueue = new PollEventQueue(controller.getComponents());
+				gamepad = controller;
 			}
 		}
 		doesHardwareExist = true;
@@ -793,19 +850,31 @@ public class HardwareEngine implements Runnable{
 		if (device.isEnabled()) startPolling(device.getProfile());
 		//System.out.println(device.getDeviceInformation().getName()+" ("+controller.getType()+") connected");
 	}
+	/**
+	 * Sets the profile used for processing outputs without grabbing the
+	 * hardware or starting the poll thread.
+	 * Package private for the benchmarks.
+	 * @param profile the profile used to remap the outputs.
+	 */
+	void setOutputProfile(Profile profile) {
+		this.profile = profile;
+		this.keymap = profile.getKeymap(profile.getDefaultKeymap());
+		this.isKeymapOnRelease = false;
+		if (joystickInfo == null) joystickInfo = new JoystickInfo();
+	}
 	public void resetJoystick() {
 		joystickInfo.setMouseSpeedXY(0);
 		joystickInfo.setMouseSpeedRXRY(0);
 		OutputJoystick testJoystick =  (OutputJoystick) keymap.getJoystickMapping("JOYSTICK_XY").getOutput();
-		robot.keyRelease(testJoystick.getKeycode("UP",testJoystick.getKeycode()));
-		robot.keyRelease(testJoystick.getKeycode("DOWN",testJoystick.getKeycode()));
-		robot.keyRelease(testJoystick.getKeycode("LEFT",testJoystick.getKeycode()));
-		robot.keyRelease(testJoystick.getKeycode("RIGHT",testJoystick.getKeycode()));
+		injector.keyRelease(testJoystick.getKeycode("UP",testJoystick.getKeycode()));
+		injector.keyRelease(testJoystick.getKeycode("DOWN",testJoystick.getKeycode()));
+		injector.keyRelease(testJoystick.getKeycode("LEFT",testJoystick.getKeycode()));
+		injector.keyRelease(testJoystick.getKeycode("RIGHT",testJoystick.getKeycode()));
 		testJoystick =  (OutputJoystick) keymap.getJoystickMapping("JOYSTICK_RXRY").getOutput();
-		robot.keyRelease(testJoystick.getKeycode("UP",testJoystick.getKeycode()));
-		robot.keyRelease(testJoystick.getKeycode("DOWN",testJoystick.getKeycode()));
-		robot.keyRelease(testJoystick.getKeycode("LEFT",testJoystick.getKeycode()));
-		robot.keyRelease(testJoystick.getKeycode("RIGHT",testJoystick.getKeycode()));
+		injector.keyRelease(testJoystick.getKeycode("UP",testJoystick.getKeycode()));
+		injector.keyRelease(testJoystick.getKeycode("DOWN",testJoystick.getKeycode()));
+		injector.keyRelease(testJoystick.getKeycode("LEFT",testJoystick.getKeycode()));
+		injector.keyRelease(testJoystick.getKeycode("RIGHT",testJoystick.getKeycode()));
 		//TODO resetMouse() and resetKeyboard() (if necessary)
 	}
 	public void close() {
@@ -837,8 +906,17 @@ public class HardwareEngine implements Runnable{
 	 * @return
 	 */
 	public static synchronized Controller[] getControllers(boolean firstScan) {
-		if (firstScan) return LinuxEnvironmentPlugin.getDefaultEnvironment().getControllers();
-		else return LinuxEnvironmentPlugin.getDefaultEnvironment().rescanControllers();
+		ControllerEnvironment environment = controllerEnvironment;
+		if (environment == null) environment = LinuxEnvironmentPlugin.getDefaultEnvironment();
+		if (firstScan) return environment.getControllers();
+		else return environment.rescanControllers();
+	}
+	/**
+	 * Sets the environment used to find controllers.
+	 * @param environment the environment to scan and null to use jinput.
+	 */
+	public static synchronized void setControllerEnvironment(ControllerEnvironment environment) {
+		controllerEnvironment = environment;
 	}
 
 	// ============= Private Classes ============== //
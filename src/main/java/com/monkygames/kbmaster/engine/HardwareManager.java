@@ -7,8 +7,14 @@ package com.monkygames.kbmaster.engine;
 import com.monkygames.kbmaster.controller.DeviceMenuUIController;
 import com.monkygames.kbmaster.controller.ProfileUIController;
 import com.monkygames.kbmaster.driver.Device;
+import com.monkygames.kbmaster.metrics.MetricsRegistry;
 import com.monkygames.kbmaster.profiles.Profile;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Manages the Hardware devices that are configured.
@@ -20,15 +26,34 @@ public class HardwareManager implements HardwareListener{
 	/**
 	 * A list of engines that are configured.
 	 */
-	private HashMap<String,HardwareEngine> engines;
+	private ConcurrentHashMap<String,HardwareEngine> engines;
+	/**
+	 * The first scans of the engines added with addManagedDeviceLater
+	 * that may not have completed.
+	 */
+	private ConcurrentHashMap<String,Future<?>> scans;
+	/**
+	 * Runs the first scans so the UI does not wait for them.
+	 */
+	private final ExecutorService scanner;
 	/**
 	 * Used to update if a device was connected/disconnected.
 	 */
 	private DeviceMenuUIController deviceMenuController;
 	// ============= Constructors ============== //
+	/**
+	 * @param deviceMenuController the ui to update on device changes and null
+	 * when running without a user interface (such as the test harnesses).
+	 */
 	public HardwareManager(DeviceMenuUIController deviceMenuController){
 		this.deviceMenuController = deviceMenuController;
-		engines = new HashMap<>();
+		engines = new ConcurrentHashMap<>();
+		scans = new ConcurrentHashMap<>();
+		scanner = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "kbmaster-scanner");
+			thread.setDaemon(true);
+			return thread;
+		});
 	}
 // ============= Public Methods ============== //
 	/**
@@ -36,12 +61,30 @@ public class HardwareManager implements HardwareListener{
 	 * @return true if the device is connected and false otherwise.
 	 */
 	public boolean addManagedDevice(Device device){
-		HardwareEngine engine = new HardwareEngine(device, this);
+		return addManagedDevice(device, new RobotInjector());
+	}
+	/**
+	 * Adds a device whose outputs are sent to the specified injector.
+	 * @return true if the device is connected and false otherwise.
+	 */
+	public synchronized boolean addManagedDevice(Device device, OutputInjector injector){
+		HardwareEngine engine = new HardwareEngine(device, this, injector);
 		engines.put(device.getDeviceInformation().getJinputName(),engine);
 		engine.startScanning();
 		boolean hardwareExist = engine.hardwareExist();
 		return hardwareExist;
 	}
+	/**
+	 * Adds a device that will be managed and scans for its hardware in the
+	 * background. The device is managed once this returns and its engine
+	 * starts polling when the hardware is found.
+	 */
+	public synchronized void addManagedDeviceLater(Device device) {
+		String name = device.getDeviceInformation().getJinputName();
+		HardwareEngine engine = new HardwareEngine(device, this, new RobotInjector());
+		engines.put(name, engine);
+		scans.put(name, scanner.submit(engine::startScanning));
+	}
 	/**
 	 * Checks if this device is already managed.
 	 * @param device to be checked.
@@ -67,10 +110,14 @@ public class HardwareManager implements HardwareListener{
 	 * @return true if disables and removes and false otherwise.
 	 */
 	public void removeDevice(Device device){
+		awaitScan(device.getDeviceInformation().getJinputName());
 		HardwareEngine engine = engines.remove(device.getDeviceInformation().getJinputName());
+		// the device may be removed before its profiles were read
+		if (engine == null) return;
 		engine.stopPolling();
 		engine.stopScanning();
 		engine = null;
+		MetricsRegistry.getMetricsRegistry().removeDevice(device.getDeviceInformation().getName());
 	}
 	/**
 	 * Starts polling the specified device.
@@ -103,16 +150,25 @@ public class HardwareManager implements HardwareListener{
 	public void cleanUpEngines() {
 		for (HardwareEngine engine : engines.values()) {
 			engine.close();
+			MetricsRegistry.getMetricsRegistry().removeDevice(engine.getDevice().getDeviceInformation().getName());
 			engine = null;
 		}
 		engines.clear();
 	}
 	public void close() {
+		// lets the running first scan complete so its engine is stopped below
+		scanner.shutdownNow();
+		try {
+			scanner.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
 		stopScanningAllDevices();
 		stopPollingAllDevices();
 		cleanUpEngines();
 	}
 	public ProfileUIController getProfileUIController() {
+		if (deviceMenuController == null) return null;
 		return deviceMenuController.getProfileUIController();
 	}
 	/**
@@ -126,9 +182,25 @@ public class HardwareManager implements HardwareListener{
 		// update device connection status
 		HardwareEngine engine = engines.get(deviceName);
 		engine.getDevice().setConnected(hasConnected);
-		deviceMenuController.updateDevices();
-		deviceMenuController.getDeviceManager().save();
+		if (deviceMenuController == null) return;
+		// called from the scanner and the timer threads of the engines
+		deviceMenuController.updateDevicesFromNonJavaFXThread();
 	}
 	@Override
 	public void eventIndexPerformed(int index) { }
+// ============= Private Methods ============== //
+	/**
+	 * Waits for the first scan of the device if it is running.
+	 */
+	private void awaitScan(String name) {
+		Future<?> scan = scans.remove(name);
+		if (scan == null) return;
+		try {
+			scan.get();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException ex) {
+			System.out.println("Scan failure (" + name + "): " + ex.getCause());
+		}
+	}
 }
@@ -0,0 +1,32 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.engine;
+
+import java.awt.Point;
+
+/**
+ * Sends the remapped outputs to the system.
+ * The engine uses a Robot backed implementation by default; other
+ * implementations are used for benchmarking and replaying without
+ * touching the desktop.
+ */
+public interface OutputInjector {
+
+	public void keyPress(int keycode);
+	public void keyRelease(int keycode);
+	public void mousePress(int buttons);
+	public void mouseRelease(int buttons);
+	public void mouseWheel(int wheelAmount);
+	public void mouseMove(int x, int y);
+	/**
+	 * Waits between two outputs (such as a double click).
+	 * @param ms the time to wait in milliseconds.
+	 */
+	public void delay(int ms);
+	/**
+	 * Returns the current location of the mouse pointer.
+	 * The point may be reused by the injector so callers must not keep it.
+	 */
+	public Point getPointerLocation();
+}
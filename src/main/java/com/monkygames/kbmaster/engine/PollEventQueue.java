@@ -23,6 +23,10 @@ public class PollEventQueue {
      * Contains the events.
      */
     private ArrayList<Event> events;
+	/**
+	 * One reusable event per component so polling does not allocate.
+	 */
+	private Event[] componentEvents;
 	private float[] previousValues;
 
     public PollEventQueue(Component[] components) {
@@ -31,11 +35,15 @@ public class PollEventQueue {
 		// populate previous values
 		for (int i = 0; i < components.length; i++)
 			previousValues[i] = components[i].getPollData();
-		events = new ArrayList<>();
+		componentEvents = new Event[components.length];
+		for (int i = 0; i < components.length; i++)
+			componentEvents[i] = new Event();
+		events = new ArrayList<>(components.length);
 	}
 
     /**
      * Runs through all components to check for updates to the poll value.
+     * The returned list and its events are reused by the next call.
      */
     public ArrayList<Event> getEvents() {
 
@@ -47,8 +55,8 @@ public class PollEventQueue {
 			val = components[i].getPollData();
 			if (val != previousValues[i]) {
 
-				// create a new Event
-				Event event = new Event();
+				// reuse the event of the component
+				Event event = componentEvents[i];
 				event.set(components[i], val, 0);
 
 				// add to queue
@@ -0,0 +1,55 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.engine;
+
+import java.awt.AWTException;
+import java.awt.MouseInfo;
+import java.awt.Point;
+import java.awt.PointerInfo;
+import java.awt.Robot;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sends outputs to the system using a java.awt.Robot.
+ */
+public class RobotInjector implements OutputInjector {
+
+// ============= Class variables ============== //
+	/**
+	 * Controls the forwarding of key presses and scroll wheel.
+	 * Null if the robot could not be created (such as a headless system).
+	 */
+	private Robot robot;
+
+// ============= Constructors ============== //
+	public RobotInjector() {
+		try { robot = new Robot(); }
+		catch (AWTException ex) {
+			Logger.getLogger(RobotInjector.class.getName()).log(Level.SEVERE, null, ex);
+		}
+	}
+
+// ============= Implemented Methods ============== //
+	@Override
+	public void keyPress(int keycode) { robot.keyPress(keycode); }
+	@Override
+	public void keyRelease(int keycode) { robot.keyRelease(keycode); }
+	@Override
+	public void mousePress(int buttons) { robot.mousePress(buttons); }
+	@Override
+	public void mouseRelease(int buttons) { robot.mouseRelease(buttons); }
+	@Override
+	public void mouseWheel(int wheelAmount) { robot.mouseWheel(wheelAmount); }
+	@Override
+	public void mouseMove(int x, int y) { robot.mouseMove(x, y); }
+	@Override
+	public void delay(int ms) { robot.delay(ms); }
+	@Override
+	public Point getPointerLocation() {
+		PointerInfo pointerInfo = MouseInfo.getPointerInfo();
+		if (pointerInfo == null) return new Point();
+		return pointerInfo.getLocation();
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.engine.sim;
+
+import com.monkygames.kbmaster.engine.OutputInjector;
+import java.awt.Point;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the outputs of an engine without storing them so it can be
+ * used by long running tests.
+ * The pointer is tracked like {@link RecordingInjector}.
+ */
+public class CountingInjector implements OutputInjector {
+
+// ============= Class variables ============== //
+	private final Point pointer;
+	/**
+	 * Returned by getPointerLocation() so counting does not allocate.
+	 */
+	private final Point location;
+	private final LongAdder keys, buttons, wheels, moves;
+
+// ============= Constructors ============== //
+	public CountingInjector() {
+		pointer = new Point();
+		location = new Point();
+		keys = new LongAdder();
+		buttons = new LongAdder();
+		wheels = new LongAdder();
+		moves = new LongAdder();
+	}
+
+// ============= Public Methods ============== //
+	/**
+	 * Returns the number of outputs sent to this injector (delays are not counted).
+	 */
+	public long getOutputs() { return keys.sum() + buttons.sum() + wheels.sum() + moves.sum(); }
+	public long getKeyOutputs() { return keys.sum(); }
+	public long getButtonOutputs() { return buttons.sum(); }
+	public long getWheelOutputs() { return wheels.sum(); }
+	public long getMoveOutputs() { return moves.sum(); }
+
+// ============= Implemented Methods ============== //
+	@Override
+	public void keyPress(int keycode) { keys.increment(); }
+	@Override
+	public void keyRelease(int keycode) { keys.increment(); }
+	@Override
+	public void mousePress(int buttons) { this.buttons.increment(); }
+	@Override
+	public void mouseRelease(int buttons) { this.buttons.increment(); }
+	@Override
+	public void mouseWheel(int wheelAmount) { wheels.increment(); }
+	@Override
+	public synchronized void mouseMove(int x, int y) {
+		pointer.setLocation(x, y);
+		moves.increment();
+	}
+	/**
+	 * Does not wait so the engine is not slowed down.
+	 */
+	@Override
+	public void delay(int ms) { }
+	@Override
+	public synchronized Point getPointerLocation() {
+		location.setLocation(pointer);
+		return location;
+	}
+}
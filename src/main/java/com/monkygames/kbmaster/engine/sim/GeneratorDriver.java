@@ -0,0 +1,90 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.engine.sim;
+
+import java.util.ArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Steps a set of {@link InputGenerator}s from a single thread,
+ * each at its own rate.
+ * A generator that falls behind is stepped once and rescheduled from
+ * the current time instead of trying to catch up.
+ */
+public class GeneratorDriver implements Runnable {
+
+// ============= Class variables ============== //
+	private final ArrayList<InputGenerator> generators;
+	private long[] due;
+	private Thread thread;
+	private volatile boolean running;
+	/**
+	 * Only written by the driver thread.
+	 */
+	private volatile long changes, steps, lateSteps;
+
+// ============= Constructors ============== //
+	public GeneratorDriver() {
+		generators = new ArrayList<>();
+	}
+
+// ============= Public Methods ============== //
+	/**
+	 * Adds a generator, must be called before {@link #start}.
+	 */
+	public void addGenerator(InputGenerator generator) {
+		if (thread != null) throw new IllegalStateException("The driver has already started");
+		generators.add(generator);
+	}
+	public synchronized void start() {
+		if (thread != null) return;
+		due = new long[generators.size()];
+		long now = System.nanoTime();
+		for (int i = 0; i < due.length; i++) due[i] = now + generators.get(i).getPeriod();
+		running = true;
+		thread = new Thread(this, "kbmaster-generators");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	/**
+	 * Stops stepping the generators and waits for the thread to finish.
+	 */
+	public synchronized void stop() throws InterruptedException {
+		running = false;
+		if (thread != null) thread.join();
+	}
+	/**
+	 * Returns the number of inputs changed by the generators.
+	 */
+	public long getChanges() { return changes; }
+	public long getSteps() { return steps; }
+	/**
+	 * Returns the number of steps that were more than a period late.
+	 */
+	public long getLateSteps() { return lateSteps; }
+
+// ============= Implemented Methods ============== //
+	@Override
+	public void run() {
+		while (running) {
+			long now = System.nanoTime();
+			long next = Long.MAX_VALUE;
+			for (int i = 0; i < due.length; i++) {
+				if (due[i] <= now) {
+					InputGenerator generator = generators.get(i);
+					changes += generator.step(now);
+					steps++;
+					long period = generator.getPeriod();
+					if (now - due[i] > period) {
+						lateSteps++;
+						due[i] = now + period;
+					} else due[i] += period;
+				}
+				if (due[i] < next) next = due[i];
+			}
+			long wait = next - System.nanoTime();
+			if (wait > 0) LockSupport.parkNanos(wait);
+		}
+	}
+}
@@ -0,0 +1,22 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.engine.sim;
+
+/**
+ * Changes the inputs of a simulated controller at a fixed rate.
+ * Generators are stepped by a {@link GeneratorDriver}.
+ */
+public interface InputGenerator {
+
+	/**
+	 * Returns the time between steps in nanoseconds.
+	 */
+	public long getPeriod();
+	/**
+	 * Changes the inputs of the controller.
+	 * @param now the time of the step from System.nanoTime().
+	 * @return the number of inputs changed.
+	 */
+	public int step(long now);
+}
@@ -0,0 +1,171 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.engine.sim;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import net.java.games.input.Controller;
+
+/**
+ * A recording of component changes written by {@link InputTraceWriter}.
+ * <p>
+ * The file starts with a header describing each controller and its
+ * components followed by one record per change:
+ * the time since the previous record in nanoseconds (varint), the
+ * controller index (varint), the component index (varint) and the
+ * new value (float).
+ */
+public class InputTrace {
+
+// ============= Class variables ============== //
+	/**
+	 * "KBMT"
+	 */
+	public static final int MAGIC = 0x4B424D54;
+	public static final int VERSION = 1;
+	private final ArrayList<ControllerInfo> controllers;
+	/**
+	 * The records stored as parallel arrays (times are from the start of the trace).
+	 */
+	private long[] times;
+	private int[] controllerIndexes, componentIndexes;
+	private float[] values;
+	private int size;
+
+// ============= Constructors ============== //
+	private InputTrace() {
+		controllers = new ArrayList<>();
+		times = new long[1024];
+		controllerIndexes = new int[1024];
+		componentIndexes = new int[1024];
+		values = new float[1024];
+	}
+
+// ============= Public Methods ============== //
+	public ArrayList<ControllerInfo> getControllers() { return controllers; }
+	/**
+	 * Returns the number of records.
+	 */
+	public int size() { return size; }
+	public long getTime(int record) { return times[record]; }
+	public int getControllerIndex(int record) { return controllerIndexes[record]; }
+	public int getComponentIndex(int record) { return componentIndexes[record]; }
+	public float getValue(int record) { return values[record]; }
+	/**
+	 * Creates simulated controllers matching the recorded controllers.
+	 * @return the controllers in the order of the trace and null for a
+	 * controller type the engine does not use.
+	 */
+	public Controller[] createControllers() {
+		Controller[] simControllers = new Controller[controllers.size()];
+		for (int i = 0; i < simControllers.length; i++) {
+			ControllerInfo info = controllers.get(i);
+			SimComponent[] components = new SimComponent[info.names.length];
+			for (int j = 0; j < components.length; j++)
+				components[j] = new SimComponent(SimComponent.findIdentifier(info.kinds[j], info.names[j]), info.relative[j], info.analog[j]);
+			if (info.type.equals(Controller.Type.KEYBOARD.toString()))
+				simControllers[i] = new SimKeyboard(info.name, components);
+			else if (info.type.equals(Controller.Type.MOUSE.toString()))
+				simControllers[i] = new SimMouse(info.name, components);
+			else if (info.type.equals(Controller.Type.GAMEPAD.toString()))
+				simControllers[i] = new SimGamepad(info.name, components);
+		}
+		return simControllers;
+	}
+
+// ============= Private Methods ============== //
+	private void add(long time, int controller, int component, float value) {
+		if (size == times.length) {
+			int length = size * 2;
+			times = Arrays.copyOf(times, length);
+			controllerIndexes = Arrays.copyOf(controllerIndexes, length);
+			componentIndexes = Arrays.copyOf(componentIndexes, length);
+			values = Arrays.copyOf(values, length);
+		}
+		times[size] = time;
+		controllerIndexes[size] = controller;
+		componentIndexes[size] = component;
+		values[size] = value;
+		size++;
+	}
+
+// ============= Static Methods ============== //
+	/**
+	 * Reads a trace file.
+	 * @param file the trace written by {@link InputTraceWriter}.
+	 * @return the trace.
+	 * @throws IOException if the file cannot be read or is not a trace.
+	 */
+	public static InputTrace read(File file) throws IOException {
+		InputTrace trace = new InputTrace();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC) throw new IOException(file + " is not an input trace");
+			int version = in.readInt();
+			if (version != VERSION) throw new IOException("Unsupported trace version " + version);
+			int controllerCount = readVarInt(in);
+			for (int i = 0; i < controllerCount; i++) {
+				ControllerInfo info = new ControllerInfo(in.readUTF(), in.readUTF(), readVarInt(in));
+				for (int j = 0; j < info.names.length; j++) {
+					info.kinds[j] = in.readUTF();
+					info.names[j] = in.readUTF();
+					int flags = in.readUnsignedByte();
+					info.relative[j] = (flags & 1) != 0;
+					info.analog[j] = (flags & 2) != 0;
+				}
+				trace.controllers.add(info);
+			}
+			long time = 0;
+			while (true) {
+				long delta;
+				try { delta = readVarLong(in); }
+				catch (EOFException ex) { break; }
+				time += delta;
+				trace.add(time, readVarInt(in), readVarInt(in), in.readFloat());
+			}
+		}
+		return trace;
+	}
+	static int readVarInt(DataInputStream in) throws IOException {
+		return (int) readVarLong(in);
+	}
+	static long readVarLong(DataInputStream in) throws IOException {
+		long value = 0;
+		int shift = 0;
+		while (true) {
+			int b = in.readUnsignedByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) return value;
+			shift += 7;
+			if (shift > 63) throw new IOException("Malformed varint");
+		}
+	}
+
+// ============= Internal Classes ============== //
+	/**
+	 * The recorded description of a controller.
+	 */
+	public static class ControllerInfo {
+		public final String name;
+		/**
+		 * The name of the jinput Controller.Type.
+		 */
+		public final String type;
+		public final String[] kinds, names;
+		public final boolean[] relative, analog;
+		ControllerInfo(String name, String type, int components) {
+			this.name = name;
+			this.type = type;
+			kinds = new String[components];
+			names = new String[components];
+			relative = new boolean[components];
+			analog = new boolean[components];
+		}
+	}
+}
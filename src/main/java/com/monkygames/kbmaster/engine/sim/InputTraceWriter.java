@@ -0,0 +1,79 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.engine.sim;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import net.java.games.input.Component;
+import net.java.games.input.Controller;
+
+/**
+ * Writes component changes to a trace file which can be replayed with
+ * simulated controllers (see {@link InputTrace}).
+ */
+public class InputTraceWriter implements Closeable {
+
+// ============= Class variables ============== //
+	private final DataOutputStream out;
+	private long lastTime;
+
+// ============= Constructors ============== //
+	/**
+	 * Creates the trace file and writes the description of the controllers.
+	 * @param file the trace file to create.
+	 * @param controllers the controllers that will be recorded, the index
+	 * in this array is the controller index of the records.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public InputTraceWriter(File file, Controller[] controllers) throws IOException {
+		out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+		out.writeInt(InputTrace.MAGIC);
+		out.writeInt(InputTrace.VERSION);
+		writeVarLong(controllers.length);
+		for (Controller controller : controllers) {
+			Component[] components = controller.getComponents();
+			out.writeUTF(controller.getName());
+			out.writeUTF(controller.getType().toString());
+			writeVarLong(components.length);
+			for (Component component : components) {
+				out.writeUTF(SimComponent.getKind(component.getIdentifier()));
+				out.writeUTF(component.getIdentifier().getName());
+				out.writeByte((component.isRelative() ? 1 : 0) | (component.isAnalog() ? 2 : 0));
+			}
+		}
+		lastTime = System.nanoTime();
+	}
+
+// ============= Public Methods ============== //
+	/**
+	 * Records a component change.
+	 * @param nanos the time of the change from System.nanoTime().
+	 * @param controller the index of the controller.
+	 * @param component the index of the component in the controller.
+	 * @param value the new value.
+	 * @throws IOException if the record cannot be written.
+	 */
+	public synchronized void write(long nanos, int controller, int component, float value) throws IOException {
+		writeVarLong(Math.max(0, nanos - lastTime));
+		writeVarLong(controller);
+		writeVarLong(component);
+		out.writeFloat(value);
+		lastTime = Math.max(lastTime, nanos);
+	}
+	@Override
+	public synchronized void close() throws IOException { out.close(); }
+
+// ============= Private Methods ============== //
+	private void writeVarLong(long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.writeByte((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.engine.sim;
+
+import net.java.games.input.Component;
+
+/**
+ * Moves a simulated mouse around a circle like a mouse reporting
+ * at a high rate (1000 Hz for most gaming mice).
+ */
+public class MouseMotionGenerator implements InputGenerator {
+
+// ============= Class variables ============== //
+	private final SimMouse mouse;
+	private final long period;
+	private final int x, y;
+	/**
+	 * The change in angle of each step.
+	 */
+	private final double step;
+	private final float radius;
+	private double angle;
+
+// ============= Constructors ============== //
+	/**
+	 * @param mouse the mouse to move (must have relative x and y axes).
+	 * @param rate the reports per second.
+	 * @param circlesPerSecond how fast the mouse goes around the circle.
+	 * @param radius the radius of the circle in counts.
+	 */
+	public MouseMotionGenerator(SimMouse mouse, int rate, double circlesPerSecond, float radius) {
+		this.mouse = mouse;
+		this.period = 1000000000L / rate;
+		this.step = 2 * Math.PI * circlesPerSecond / rate;
+		this.radius = radius;
+		x = indexOf(mouse, Component.Identifier.Axis.X);
+		y = indexOf(mouse, Component.Identifier.Axis.Y);
+	}
+
+// ============= Implemented Methods ============== //
+	@Override
+	public long getPeriod() { return period; }
+	@Override
+	public int step(long now) {
+		double next = angle + step;
+		// the distance between two points of the circle
+		float dx = (float) Math.rint(radius * (Math.cos(next) - Math.cos(angle)));
+		float dy = (float) Math.rint(radius * (Math.sin(next) - Math.sin(angle)));
+		angle = next % (2 * Math.PI);
+		int changes = 0;
+		if (dx != 0) { mouse.move(x, dx); changes++; }
+		if (dy != 0) { mouse.move(y, dy); changes++; }
+		return changes;
+	}
+
+// ============= Static Methods ============== //
+	private static int indexOf(SimMouse mouse, Component.Identifier id) {
+		Component[] components = mouse.getComponents();
+		for (int i = 0; i < components.length; i++) {
+			if (components[i].getIdentifier() == id) return i;
+		}
+		throw new IllegalArgumentException(mouse.getName() + " has no " + id + " axis");
+	}
+}
@@ -0,0 +1,42 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.engine.sim;
+
+import java.util.Random;
+
+/**
+ * Presses and releases random keys of a simulated keyboard.
+ * Each step toggles one key so a key is held until it is picked again.
+ */
+public class RandomKeyGenerator implements InputGenerator {
+
+// ============= Class variables ============== //
+	private final SimKeyboard keyboard;
+	private final Random random;
+	private final long period;
+	private final int keys;
+
+// ============= Constructors ============== //
+	/**
+	 * @param keyboard the keyboard to type on.
+	 * @param changesPerSecond the number of presses and releases per second.
+	 * @param seed the seed of the random keys so runs can be repeated.
+	 */
+	public RandomKeyGenerator(SimKeyboard keyboard, double changesPerSecond, long seed) {
+		this.keyboard = keyboard;
+		this.random = new Random(seed);
+		this.period = (long) (1e9 / changesPerSecond);
+		this.keys = keyboard.getComponents().length;
+	}
+
+// ============= Implemented Methods ============== //
+	@Override
+	public long getPeriod() { return period; }
+	@Override
+	public int step(long now) {
+		SimComponent key = keyboard.getKey(random.nextInt(keys));
+		key.setValue(key.getValue() == 0 ? 1 : 0);
+		return 1;
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.engine.sim;
+
+import com.monkygames.kbmaster.engine.OutputInjector;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Records the outputs of an engine instead of sending them to the system.
+ * The pointer is tracked so relative mouse movements and joystick
+ * mouse movements behave as they would on a desktop.
+ */
+public class RecordingInjector implements OutputInjector {
+
+// ============= Class variables ============== //
+	public enum Type { KEY_PRESS, KEY_RELEASE, MOUSE_PRESS, MOUSE_RELEASE, MOUSE_WHEEL, MOUSE_MOVE, DELAY }
+	private static final Type[] TYPES = Type.values();
+	private final Point pointer;
+	/**
+	 * The outputs stored as parallel arrays.
+	 */
+	private long[] times;
+	private byte[] types;
+	private int[] firstValues, secondValues;
+	private int size;
+
+// ============= Constructors ============== //
+	/**
+	 * @param x the starting x location of the pointer.
+	 * @param y the starting y location of the pointer.
+	 */
+	public RecordingInjector(int x, int y) {
+		pointer = new Point(x, y);
+		times = new long[1024];
+		types = new byte[1024];
+		firstValues = new int[1024];
+		secondValues = new int[1024];
+	}
+	public RecordingInjector() { this(0, 0); }
+
+// ============= Public Methods ============== //
+	/**
+	 * Returns the number of outputs recorded.
+	 */
+	public synchronized int size() { return size; }
+	public synchronized long getTime(int index) { return times[index]; }
+	public synchronized Type getType(int index) { return TYPES[types[index]]; }
+	/**
+	 * Returns the keycode, mouse buttons, wheel amount, delay or x location
+	 * of the output depending on its type.
+	 */
+	public synchronized int getValue(int index) { return firstValues[index]; }
+	/**
+	 * Returns the y location of a mouse move and 0 for other types.
+	 */
+	public synchronized int getSecondValue(int index) { return secondValues[index]; }
+	/**
+	 * Returns the output as a line of text such as "KEY_PRESS 87".
+	 */
+	public synchronized String toString(int index) {
+		Type type = TYPES[types[index]];
+		if (type == Type.MOUSE_MOVE) return type + " " + firstValues[index] + " " + secondValues[index];
+		return type + " " + firstValues[index];
+	}
+	/**
+	 * Returns all of the outputs as lines of text.
+	 */
+	public synchronized ArrayList<String> getOutputs() {
+		ArrayList<String> outputs = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) outputs.add(toString(i));
+		return outputs;
+	}
+	public synchronized void clear() { size = 0; }
+
+// ============= Implemented Methods ============== //
+	@Override
+	public void keyPress(int keycode) { record(Type.KEY_PRESS, keycode, 0); }
+	@Override
+	public void keyRelease(int keycode) { record(Type.KEY_RELEASE, keycode, 0); }
+	@Override
+	public void mousePress(int buttons) { record(Type.MOUSE_PRESS, buttons, 0); }
+	@Override
+	public void mouseRelease(int buttons) { record(Type.MOUSE_RELEASE, buttons, 0); }
+	@Override
+	public void mouseWheel(int wheelAmount) { record(Type.MOUSE_WHEEL, wheelAmount, 0); }
+	@Override
+	public synchronized void mouseMove(int x, int y) {
+		pointer.setLocation(x, y);
+		record(Type.MOUSE_MOVE, x, y);
+	}
+	/**
+	 * Recorded but does not wait so replays are not slowed down.
+	 */
+	@Override
+	public void delay(int ms) { record(Type.DELAY, ms, 0); }
+	@Override
+	public synchronized Point getPointerLocation() { return new Point(pointer); }
+
+// ============= Private Methods ============== //
+	private synchronized void record(Type type, int first, int second) {
+		if (size == times.length) {
+			int length = size * 2;
+			times = Arrays.copyOf(times, length);
+			types = Arrays.copyOf(types, length);
+			firstValues = Arrays.copyOf(firstValues, length);
+			secondValues = Arrays.copyOf(secondValues, length);
+		}
+		times[size] = System.nanoTime();
+		types[size] = (byte) type.ordinal();
+		firstValues[size] = first;
+		secondValues[size] = second;
+		size++;
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.engine.sim;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import net.java.games.input.AbstractComponent;
+import net.java.games.input.Component;
+
+/**
+ * A component whose value is set by the caller instead of a device.
+ * The value is latched when the owning controller is polled so a
+ * change made while the engine reads the components is not seen
+ * until the next poll (like a real device).
+ */
+public class SimComponent extends AbstractComponent {
+
+// ============= Class variables ============== //
+	/**
+	 * The kinds of identifiers used when describing a component by name.
+	 */
+	public static final String KEY = "Key", BUTTON = "Button", AXIS = "Axis", OTHER = "Other";
+	private static HashMap<String, Component.Identifier> identifiers;
+	private final boolean isRelative;
+	private final boolean isAnalog;
+	/**
+	 * The value returned on the next poll.
+	 */
+	private volatile float value;
+	/**
+	 * The value latched by the last poll of the controller.
+	 */
+	private float polledValue;
+
+// ============= Constructors ============== //
+	/**
+	 * Creates an absolute component which is analog if the identifier is an axis.
+	 * @param id the identifier of the component.
+	 */
+	public SimComponent(Component.Identifier id) {
+		this(id, false, id instanceof Component.Identifier.Axis);
+	}
+	/**
+	 * @param id the identifier of the component.
+	 * @param isRelative true if the values are deltas (such as a mouse axis).
+	 * @param isAnalog true if the component reports a range of values.
+	 */
+	public SimComponent(Component.Identifier id, boolean isRelative, boolean isAnalog) {
+		super(id.getName(), id);
+		this.isRelative = isRelative;
+		this.isAnalog = isAnalog;
+	}
+
+// ============= Public Methods ============== //
+	/**
+	 * Sets the value reported on the next poll.
+	 * @param value the new value.
+	 */
+	public void setValue(float value) { this.value = value; }
+	public float getValue() { return value; }
+	/**
+	 * Latches the value, called by the controller while polling.
+	 */
+	public void latch() { polledValue = value; }
+
+// ============= Extended Methods ============== //
+	@Override
+	public boolean isRelative() { return isRelative; }
+	@Override
+	public boolean isAnalog() { return isAnalog; }
+	@Override
+	protected float poll() { return polledValue; }
+
+// ============= Static Methods ============== //
+	/**
+	 * Returns the kind of the identifier which is used with the name to
+	 * find the identifier again with {@link #findIdentifier}.
+	 */
+	public static String getKind(Component.Identifier id) {
+		if (id instanceof Component.Identifier.Key) return KEY;
+		if (id instanceof Component.Identifier.Button) return BUTTON;
+		if (id instanceof Component.Identifier.Axis) return AXIS;
+		return OTHER;
+	}
+	/**
+	 * Returns the jinput identifier with the specified kind and name.
+	 * The engine compares some identifiers by reference (such as the POV axis)
+	 * so the jinput constants are returned when they exist.
+	 * @param kind the kind returned by {@link #getKind}.
+	 * @param name the name of the identifier.
+	 * @return the jinput constant or a new identifier of the same kind if the
+	 * name is not known to jinput.
+	 */
+	public static synchronized Component.Identifier findIdentifier(String kind, String name) {
+		if (identifiers == null) {
+			identifiers = new HashMap<>();
+			addIdentifiers(KEY, Component.Identifier.Key.class);
+			addIdentifiers(BUTTON, Component.Identifier.Button.class);
+			addIdentifiers(AXIS, Component.Identifier.Axis.class);
+		}
+		Component.Identifier id = identifiers.get(kind + ":" + name);
+		if (id != null) return id;
+		switch (kind) {
+			case KEY: return new SimKey(name);
+			case BUTTON: return new SimButton(name);
+			default: return new SimAxis(name);
+		}
+	}
+	private static void addIdentifiers(String kind, Class<?> type) {
+		for (Field field : type.getFields()) {
+			if (!Modifier.isStatic(field.getModifiers()) || !type.isAssignableFrom(field.getType())) continue;
+			try {
+				Component.Identifier id = (Component.Identifier) field.get(null);
+				identifiers.putIfAbsent(kind + ":" + id.getName(), id);
+			} catch (IllegalAccessException ex) { }
+		}
+	}
+
+// ============= Internal Classes ============== //
+	/**
+	 * Identifiers for inputs that jinput has no constant for.
+	 */
+	public static class SimKey extends Component.Identifier.Key {
+		public SimKey(String name) { super(name); }
+	}
+	public static class SimButton extends Component.Identifier.Button {
+		public SimButton(String name) { super(name); }
+	}
+	public static class SimAxis extends Component.Identifier.Axis {
+		public SimAxis(String name) { super(name); }
+	}
+}
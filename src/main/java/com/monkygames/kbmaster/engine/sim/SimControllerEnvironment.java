@@ -0,0 +1,42 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.engine.sim;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import net.java.games.input.Controller;
+import net.java.games.input.ControllerEnvironment;
+
+/**
+ * A controller environment containing simulated controllers.
+ * Set on the engine with HardwareEngine.setControllerEnvironment() so
+ * the engines find the simulated controllers when scanning.
+ */
+public class SimControllerEnvironment extends ControllerEnvironment {
+
+// ============= Class variables ============== //
+	private final CopyOnWriteArrayList<Controller> controllers;
+
+// ============= Constructors ============== //
+	public SimControllerEnvironment() {
+		controllers = new CopyOnWriteArrayList<>();
+	}
+
+// ============= Public Methods ============== //
+	/**
+	 * Adds a controller which will be found on the next scan.
+	 */
+	public void addController(Controller controller) { controllers.add(controller); }
+	/**
+	 * Removes a controller which the engines will see as disconnected on the next scan.
+	 */
+	public void removeController(Controller controller) { controllers.remove(controller); }
+
+// ============= Extended Methods ============== //
+	@Override
+	public Controller[] getControllers() { return controllers.toArray(new Controller[0]); }
+	@Override
+	public Controller[] rescanControllers() { return getControllers(); }
+	@Override
+	public boolean isSupported() { return true; }
+}
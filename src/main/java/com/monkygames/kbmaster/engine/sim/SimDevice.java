@@ -0,0 +1,128 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.engine.sim;
+
+// === kbmaster imports === //
+import com.monkygames.kbmaster.driver.Device;
+import com.monkygames.kbmaster.driver.DeviceType;
+import com.monkygames.kbmaster.driver.InputMap;
+import com.monkygames.kbmaster.input.Button;
+import com.monkygames.kbmaster.input.ButtonMapping;
+import com.monkygames.kbmaster.input.Joystick;
+import com.monkygames.kbmaster.input.JoystickMapping;
+import com.monkygames.kbmaster.input.Keymap;
+import com.monkygames.kbmaster.input.Mapping;
+import com.monkygames.kbmaster.input.OutputJoystick;
+import com.monkygames.kbmaster.input.OutputKey;
+import com.monkygames.kbmaster.input.OutputMouse;
+import com.monkygames.kbmaster.input.OutputMouse.MouseType;
+import com.monkygames.kbmaster.input.Wheel;
+import com.monkygames.kbmaster.input.WheelMapping;
+// === java imports === //
+import java.awt.Rectangle;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import net.java.games.input.Component;
+import net.java.games.input.Component.Identifier.Key;
+import net.java.games.input.Controller;
+
+/**
+ * A driver for a simulated device made of a keyboard with the keys A to Z,
+ * a three button mouse with a wheel and a gamepad with two sticks, a hat
+ * and four buttons.
+ * Every input is mapped so all of the engine's output paths are exercised.
+ */
+public class SimDevice extends Device {
+
+// ============= Class variables ============== //
+	private static final Key[] KEYS = { Key.A, Key.B, Key.C, Key.D, Key.E, Key.F, Key.G, Key.H, Key.I,
+		Key.J, Key.K, Key.L, Key.M, Key.N, Key.O, Key.P, Key.Q, Key.R, Key.S, Key.T, Key.U, Key.V,
+		Key.W, Key.X, Key.Y, Key.Z };
+	/**
+	 * The ids of the mappings that are not keyboard keys.
+	 */
+	private static final int MOUSE_ID = 30, WHEEL_ID = 40, POV_ID = 50, STICK_ID = 60;
+	private static final int GAMEPAD_BUTTONS = 4;
+	private static final Component.Identifier.Button[] MOUSE_BUTTONS = { Component.Identifier.Button.LEFT,
+		Component.Identifier.Button.RIGHT, Component.Identifier.Button.MIDDLE };
+	private static final String[] DIRECTIONS = { "UP", "DOWN", "LEFT", "RIGHT" };
+
+// ============= Constructors ============== //
+	/**
+	 * @param model the model which is part of the jinput name and must
+	 * be unique among the simulated devices (such as "Device 3").
+	 */
+	public SimDevice(String model) {
+		super("Simulated", model, "Simulated " + model, DeviceType.KEYBOARD, null,
+			"A simulated keyboard, mouse and gamepad.", SimDevice.class.getName(), null, null, null, true);
+		for (int i = 0; i < KEYS.length; i++)
+			inputMaps.put(i + 1, new InputMap(i + 1, KEYS[i].getName(), KeyEvent.VK_A + i));
+	}
+
+// ============= Public Methods ============== //
+	/**
+	 * Creates the controllers of this device named with its jinput name.
+	 * @return the keyboard, mouse and gamepad.
+	 */
+	public Controller[] createControllers() {
+		String name = getDeviceInformation().getJinputName();
+		return new Controller[]{ new SimKeyboard(name, KEYS), new SimMouse(name), new SimGamepad(name, GAMEPAD_BUTTONS) };
+	}
+
+// ============= Implemented Methods ============== //
+	@Override
+	public Keymap generateDefaultKeymap(int id) {
+		Keymap keymap = new Keymap(id + 1);
+		// the gamepad buttons (A, B, X and Y) share the mappings of the keys with the same names
+		for (int i = 1; i <= KEYS.length; i++) addButtonMapping(keymap, inputMaps.get(i));
+		// mouse
+		int[] masks = { InputEvent.BUTTON1_DOWN_MASK, InputEvent.BUTTON3_DOWN_MASK, InputEvent.BUTTON2_DOWN_MASK };
+		for (int i = 0; i < MOUSE_BUTTONS.length; i++) {
+			String name = MOUSE_BUTTONS[i].getName();
+			keymap.addButtonMapping(name, new ButtonMapping(new Button(MOUSE_ID + i, name), new OutputMouse(name, masks[i], MouseType.MouseClick)));
+		}
+		keymap.setzUpWheelMapping(new WheelMapping(new Wheel(WHEEL_ID), new OutputMouse("Scroll Up", -1, MouseType.MouseWheel)));
+		keymap.setzDownWheelMapping(new WheelMapping(new Wheel(WHEEL_ID + 1), new OutputMouse("Scroll Down", 1, MouseType.MouseWheel)));
+		// gamepad
+		String pov = Component.Identifier.Axis.POV.getName();
+		int[] arrows = { KeyEvent.VK_UP, KeyEvent.VK_DOWN, KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT };
+		for (int i = 0; i < DIRECTIONS.length; i++) {
+			keymap.addButtonMapping(pov + DIRECTIONS[i], new ButtonMapping(new Button(POV_ID + i, pov + DIRECTIONS[i]),
+				new OutputKey(DIRECTIONS[i], arrows[i], 0)));
+		}
+		keymap.addJoystickMapping("JOYSTICK_XY", new JoystickMapping(new Joystick(STICK_ID, "JOYSTICK_XY"),
+			new OutputJoystick("X", 1, OutputJoystick.JoystickType.DPAD)));
+		keymap.addJoystickMapping("JOYSTICK_RXRY", new JoystickMapping(new Joystick(STICK_ID + 1, "JOYSTICK_RXRY"),
+			new OutputJoystick("RX", 1, OutputJoystick.JoystickType.MOUSE)));
+		return keymap;
+	}
+	@Override
+	public ButtonMapping getButtonMapping(int index, Keymap keymap) {
+		return keymap.getButtonMapping(getId(index));
+	}
+	@Override
+	public JoystickMapping getJoystickMapping(int index, Keymap keymap) {
+		if (index == STICK_ID) return keymap.getJoystickMapping("JOYSTICK_XY");
+		if (index == STICK_ID + 1) return keymap.getJoystickMapping("JOYSTICK_RXRY");
+		return null;
+	}
+	@Override
+	public Mapping getMapping(int index, Keymap keymap) {
+		if (index == WHEEL_ID) return keymap.getzUpWheelMapping();
+		if (index == WHEEL_ID + 1) return keymap.getzDownWheelMapping();
+		if (index == STICK_ID || index == STICK_ID + 1) return getJoystickMapping(index, keymap);
+		return keymap.getButtonMapping(getId(index));
+	}
+	@Override
+	public String getId(int index) {
+		if (index >= MOUSE_ID && index < MOUSE_ID + MOUSE_BUTTONS.length) return MOUSE_BUTTONS[index - MOUSE_ID].getName();
+		if (index >= POV_ID && index < POV_ID + DIRECTIONS.length) return Component.Identifier.Axis.POV.getName() + DIRECTIONS[index - POV_ID];
+		return super.getId(index);
+	}
+	/**
+	 * Simulated devices are not printed.
+	 */
+	@Override
+	public Rectangle getBindingOutputAndDescriptionLocation(Mapping mapping) { return new Rectangle(); }
+}
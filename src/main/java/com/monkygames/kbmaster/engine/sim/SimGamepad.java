@@ -0,0 +1,74 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.engine.sim;
+
+import com.monkygames.kbmaster.engine.CombinedGamepad;
+import net.java.games.input.AbstractController;
+import net.java.games.input.Component;
+import net.java.games.input.Controller;
+import net.java.games.input.Event;
+import net.java.games.input.Rumbler;
+
+/**
+ * A gamepad made of {@link SimComponent}s.
+ * Stands in for jinput's LinuxCombinedController which cannot be
+ * extended outside of jinput, so it is a {@link CombinedGamepad}.
+ */
+public class SimGamepad extends AbstractController implements CombinedGamepad {
+
+// ============= Constructors ============== //
+	/**
+	 * Creates a gamepad with two analog sticks (x, y, rx and ry), a POV
+	 * hat and the specified buttons.
+	 * @param name the name reported to the engine (must match the jinput name of the device).
+	 * @param buttons the number of buttons.
+	 */
+	public SimGamepad(String name, int buttons) {
+		this(name, createComponents(buttons));
+	}
+	/**
+	 * @param name the name reported to the engine.
+	 * @param components the components of the gamepad.
+	 */
+	public SimGamepad(String name, SimComponent[] components) {
+		super(name, components, new Controller[0], new Rumbler[0]);
+	}
+
+// ============= Public Methods ============== //
+	public SimComponent getSimComponent(int index) { return (SimComponent) getComponents()[index]; }
+	/**
+	 * Returns the component with the specified identifier and null if none.
+	 */
+	public SimComponent getSimComponent(Component.Identifier id) { return (SimComponent) getComponent(id); }
+
+// ============= Extended Methods ============== //
+	@Override
+	public Type getType() { return Type.GAMEPAD; }
+	@Override
+	protected void pollDevice() {
+		for (Component component : getComponents()) ((SimComponent) component).latch();
+	}
+	@Override
+	protected boolean getNextDeviceEvent(Event event) { return false; }
+
+// ============= Static Methods ============== //
+	private static SimComponent[] createComponents(int buttons) {
+		Component.Identifier.Axis[] axes = { Component.Identifier.Axis.X, Component.Identifier.Axis.Y,
+			Component.Identifier.Axis.RX, Component.Identifier.Axis.RY, Component.Identifier.Axis.POV };
+		SimComponent[] components = new SimComponent[axes.length + buttons];
+		for (int i = 0; i < axes.length; i++)
+			components[i] = new SimComponent(axes[i], false, axes[i] != Component.Identifier.Axis.POV);
+		for (int i = 0; i < buttons; i++)
+			components[axes.length + i] = new SimComponent(SimComponent.findIdentifier(SimComponent.BUTTON, buttonName(i)), false, false);
+		return components;
+	}
+	/**
+	 * The names jinput uses for gamepad buttons.
+	 */
+	private static String buttonName(int index) {
+		String[] names = { "A", "B", "X", "Y", "Left Thumb", "Right Thumb", "Left Thumb 2", "Right Thumb 2",
+			"Select", "Mode", "Unknown", "Left Thumb 3", "Right Thumb 3" };
+		return index < names.length ? names[index] : String.valueOf(index);
+	}
+}
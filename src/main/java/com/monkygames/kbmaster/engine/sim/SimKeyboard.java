@@ -0,0 +1,58 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.engine.sim;
+
+import net.java.games.input.Component;
+import net.java.games.input.Controller;
+import net.java.games.input.Event;
+import net.java.games.input.Keyboard;
+import net.java.games.input.Rumbler;
+
+/**
+ * A keyboard made of {@link SimComponent}s.
+ */
+public class SimKeyboard extends Keyboard {
+
+// ============= Constructors ============== //
+	/**
+	 * @param name the name reported to the engine (must match the jinput name of the device).
+	 * @param keys the identifiers of the keys.
+	 */
+	public SimKeyboard(String name, Component.Identifier.Key... keys) {
+		super(name, createComponents(keys), new Controller[0], new Rumbler[0]);
+	}
+	/**
+	 * @param name the name reported to the engine.
+	 * @param components the keys of the keyboard.
+	 */
+	public SimKeyboard(String name, SimComponent[] components) {
+		super(name, components, new Controller[0], new Rumbler[0]);
+	}
+
+// ============= Public Methods ============== //
+	/**
+	 * Returns the simulated key at the specified index.
+	 */
+	public SimComponent getKey(int index) { return (SimComponent) getComponents()[index]; }
+
+// ============= Extended Methods ============== //
+	@Override
+	protected void pollDevice() {
+		for (Component component : getComponents()) ((SimComponent) component).latch();
+	}
+	@Override
+	protected boolean getNextDeviceEvent(Event event) { return false; }
+	@Override
+	public boolean grab() { return true; }
+	@Override
+	public boolean ungrab() { return true; }
+
+// ============= Static Methods ============== //
+	private static Component[] createComponents(Component.Identifier.Key[] keys) {
+		Component[] components = new Component[keys.length];
+		for (int i = 0; i < keys.length; i++)
+			components[i] = new SimComponent(keys[i], false, false);
+		return components;
+	}
+}
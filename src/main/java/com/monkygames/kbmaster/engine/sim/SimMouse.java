@@ -0,0 +1,85 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.engine.sim;
+
+import net.java.games.input.Component;
+import net.java.games.input.Controller;
+import net.java.games.input.Event;
+import net.java.games.input.Mouse;
+import net.java.games.input.Rumbler;
+
+/**
+ * A mouse made of {@link SimComponent}s.
+ * Relative components (the axes and wheel) only report a value through
+ * events so their movements are queued with {@link #move} and
+ * delivered on the next poll.
+ */
+public class SimMouse extends Mouse {
+
+// ============= Class variables ============== //
+	/**
+	 * The movement of each relative component since the last poll.
+	 */
+	private final float[] pending;
+
+// ============= Constructors ============== //
+	/**
+	 * Creates a mouse with relative x, y and wheel axes along with
+	 * the left, right and middle buttons.
+	 * @param name the name reported to the engine (must match the jinput name of the device).
+	 */
+	public SimMouse(String name) {
+		this(name, new SimComponent[]{
+			new SimComponent(Component.Identifier.Axis.X, true, true),
+			new SimComponent(Component.Identifier.Axis.Y, true, true),
+			new SimComponent(Component.Identifier.Axis.Z, true, true),
+			new SimComponent(Component.Identifier.Button.LEFT, false, false),
+			new SimComponent(Component.Identifier.Button.RIGHT, false, false),
+			new SimComponent(Component.Identifier.Button.MIDDLE, false, false)
+		});
+	}
+	/**
+	 * @param name the name reported to the engine.
+	 * @param components the components of the mouse.
+	 */
+	public SimMouse(String name, SimComponent[] components) {
+		super(name, components, new Controller[0], new Rumbler[0]);
+		pending = new float[components.length];
+	}
+
+// ============= Public Methods ============== //
+	public SimComponent getSimComponent(int index) { return (SimComponent) getComponents()[index]; }
+	/**
+	 * Queues a movement of a relative component.
+	 * Movements of the same component before the next poll are added together.
+	 * @param index the index of the component.
+	 * @param delta the amount moved.
+	 */
+	public synchronized void move(int index, float delta) { pending[index] += delta; }
+
+// ============= Extended Methods ============== //
+	@Override
+	protected void pollDevice() {
+		for (Component component : getComponents()) ((SimComponent) component).latch();
+	}
+	/**
+	 * Called while polling (which holds the lock on this mouse).
+	 */
+	@Override
+	protected boolean getNextDeviceEvent(Event event) {
+		Component[] components = getComponents();
+		for (int i = 0; i < pending.length; i++) {
+			if (pending[i] != 0) {
+				event.set(components[i], pending[i], System.nanoTime());
+				pending[i] = 0;
+				return true;
+			}
+		}
+		return false;
+	}
+	@Override
+	public boolean grab() { return true; }
+	@Override
+	public boolean ungrab() { return true; }
+}
@@ -0,0 +1,50 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.engine.sim;
+
+import net.java.games.input.Component;
+
+/**
+ * Sweeps the analog sticks of a simulated gamepad around their full
+ * range, the left stick clockwise and the right stick counter clockwise.
+ */
+public class StickSweepGenerator implements InputGenerator {
+
+// ============= Class variables ============== //
+	private final SimComponent x, y, rx, ry;
+	private final long period;
+	private final double step;
+	private double angle;
+
+// ============= Constructors ============== //
+	/**
+	 * @param gamepad the gamepad to move (must have x, y, rx and ry axes).
+	 * @param rate the stick updates per second.
+	 * @param sweepsPerSecond the full turns of the sticks per second.
+	 */
+	public StickSweepGenerator(SimGamepad gamepad, int rate, double sweepsPerSecond) {
+		this.x = gamepad.getSimComponent(Component.Identifier.Axis.X);
+		this.y = gamepad.getSimComponent(Component.Identifier.Axis.Y);
+		this.rx = gamepad.getSimComponent(Component.Identifier.Axis.RX);
+		this.ry = gamepad.getSimComponent(Component.Identifier.Axis.RY);
+		if (x == null || y == null || rx == null || ry == null)
+			throw new IllegalArgumentException(gamepad.getName() + " does not have two sticks");
+		this.period = 1000000000L / rate;
+		this.step = 2 * Math.PI * sweepsPerSecond / rate;
+	}
+
+// ============= Implemented Methods ============== //
+	@Override
+	public long getPeriod() { return period; }
+	@Override
+	public int step(long now) {
+		angle = (angle + step) % (2 * Math.PI);
+		float cos = (float) Math.cos(angle), sin = (float) Math.sin(angle);
+		x.setValue(cos);
+		y.setValue(sin);
+		rx.setValue(cos);
+		ry.setValue(-sin);
+		return 4;
+	}
+}
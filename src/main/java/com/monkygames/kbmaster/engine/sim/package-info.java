@@ -0,0 +1,5 @@
+/**
+ * Simulated jinput controllers and components which allow the engine to be
+ * exercised (benchmarks, replays and soak runs) without any hardware.
+ */
+package com.monkygames.kbmaster.engine.sim;
@@ -14,10 +14,6 @@ public class Button extends Hardware{
     }
 
 // ============= Extended Methods ============== //
-    @Override
-    public Object clone(){
-	return new Button(this.id,this.inputString);
-    }
     @Override
     public String toString(){
 	return "Button["+id+","+inputString+"]";
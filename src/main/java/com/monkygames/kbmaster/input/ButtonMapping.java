@@ -13,10 +13,6 @@ public class ButtonMapping extends Mapping{
 	super(inputButton, output);
     }
 
-    @Override
-    public Object clone(){
-	return new ButtonMapping((Button)inputHardware.clone(),(Output)output.clone());
-    }
     @Override
     public String toString(){
 	return "ButtonMapping["+inputHardware+","+output+"]";
@@ -5,6 +5,7 @@ package com.monkygames.kbmaster.input;
 
 /**
  * A hardware component from the device.
+ * The hardware is immutable and shared by the mappings of its clones.
  * @version 1.0
  */
 public class Hardware{
@@ -30,6 +31,12 @@ public class Hardware{
     public int getID(){
 	return id;
     }
+    /**
+     * Returns the jinput name of this hardware.
+     */
+    public String getInputString(){
+	return inputString;
+    }
 
     /**
      * Returns true if this hardware is this key.
@@ -41,9 +48,12 @@ public class Hardware{
     }
 
 // ============= Extended Methods ============== //
+    /**
+     * Returns this hardware as it is immutable.
+     */
     @Override
     public Object clone(){
-	return new Hardware(this.id,this.inputString);
+	return this;
     }
     @Override
     public String toString(){
@@ -0,0 +1,249 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.input;
+
+// === java imports === //
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.List;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps one canonical instance of each distinct mapping, hardware, output
+ * and name string so that the keymaps of all the profiles share them.
+ * <p>
+ * Mappings, hardware and outputs are immutable, so an interned value can
+ * be used by any number of keymaps. The values are interned when the
+ * keymaps are read (XStream, the binary store and the journal) and when a
+ * device builds its default keymaps. The canonical values are weakly
+ * held, so a value no keymap uses any more (such as a keymap decoded to
+ * be compared with a save) is released.
+ * Interning can be turned off with -Dkbmaster.intern=false.
+ * @version 1.0
+ */
+public class Interner {
+
+	// ============= Class variables ============== //
+	/**
+	 * Singleton.
+	 */
+	private static Interner interner;
+	/**
+	 * The system property turning interning off when false.
+	 */
+	public static final String PROPERTY = "kbmaster.intern";
+	/**
+	 * The strings are their own keys, so the keys are weak too.
+	 */
+	private final WeakHashMap<String, WeakReference<String>> strings;
+	private final WeakValues<List<Object>, Hardware> hardware;
+	private final WeakValues<List<Object>, Output> outputs;
+	private final WeakValues<List<Object>, Mapping> mappings;
+	private volatile boolean enabled;
+
+	// ============= Constructors ============== //
+	public Interner() {
+		strings = new WeakHashMap<>();
+		hardware = new WeakValues<>();
+		outputs = new WeakValues<>();
+		mappings = new WeakValues<>();
+		enabled = true;
+	}
+
+	// ============= Public Methods ============== //
+	public String intern(String string) {
+		if (string == null || !enabled) return string;
+		synchronized (strings) {
+			WeakReference<String> reference = strings.get(string);
+			String canonical = reference == null ? null : reference.get();
+			if (canonical != null) return canonical;
+			strings.put(string, new WeakReference<>(string));
+			return string;
+		}
+	}
+	/**
+	 * Returns the canonical hardware equal to the hardware.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Hardware> T intern(T input) {
+		if (input == null || !enabled) return input;
+		List<Object> key = Arrays.asList(input.getClass(), input.id, input.inputString);
+		Hardware canonical = hardware.get(key);
+		if (canonical == null) {
+			input.inputString = intern(input.inputString);
+			canonical = hardware.putIfAbsent(key, input);
+			if (canonical == null) canonical = input;
+		}
+		return (T) canonical;
+	}
+	/**
+	 * Returns the canonical output equal to the output.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Output> T intern(T output) {
+		if (output == null || !enabled) return output;
+		List<Object> key = getKey(output);
+		Output canonical = outputs.get(key);
+		if (canonical == null) {
+			output.name = intern(output.name);
+			output.description = intern(output.description);
+			canonical = outputs.putIfAbsent(key, output);
+			if (canonical == null) canonical = output;
+		}
+		return (T) canonical;
+	}
+	/**
+	 * Returns the canonical mapping equal to the mapping, its hardware
+	 * and output are interned too.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Mapping> T intern(T mapping) {
+		if (mapping == null || !enabled) return mapping;
+		Hardware input = intern(mapping.inputHardware);
+		Output output = intern(mapping.output);
+		// the parts are canonical so they are compared by identity
+		List<Object> key = Arrays.asList(mapping.getClass(), new Identity(input), new Identity(output), mapping.hasMapping);
+		Mapping canonical = mappings.get(key);
+		if (canonical == null) {
+			Mapping value = mapping;
+			if (input != mapping.inputHardware || output != mapping.output) {
+				value = mapping.withOutput(output, mapping.hasMapping);
+				value.inputHardware = input;
+			}
+			canonical = mappings.putIfAbsent(key, value);
+			if (canonical == null) canonical = value;
+		}
+		return (T) canonical;
+	}
+	/**
+	 * Returns the number of canonical values.
+	 */
+	public int getSize() {
+		int size;
+		synchronized (strings) {
+			size = strings.size();
+		}
+		return size + hardware.size() + outputs.size() + mappings.size();
+	}
+	public boolean isEnabled() {
+		return enabled;
+	}
+	/**
+	 * Turns interning on or off, the values are returned as they are when off.
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+	/**
+	 * Releases the canonical values, the values in use are kept by their
+	 * keymaps and the values interned afterwards are new canonical values.
+	 */
+	public void clear() {
+		synchronized (strings) {
+			strings.clear();
+		}
+		hardware.clear();
+		outputs.clear();
+		mappings.clear();
+	}
+
+	// ============= Private Methods ============== //
+	/**
+	 * Returns the fields that make an output distinct.
+	 */
+	private static List<Object> getKey(Output output) {
+		if (output instanceof OutputKeymapSwitch) {
+			OutputKeymapSwitch keymapSwitch = (OutputKeymapSwitch) output;
+			return Arrays.asList(output.getClass(), output.name, output.keycode, output.modifier, output.description,
+				keymapSwitch.getOriginalName(), keymapSwitch.isIsSwitchOnRelease());
+		}
+		if (output instanceof OutputMouse) {
+			return Arrays.asList(output.getClass(), output.name, output.keycode, output.modifier, output.description,
+				((OutputMouse) output).getMouseType());
+		}
+		if (output instanceof OutputJoystick) {
+			OutputJoystick joystick = (OutputJoystick) output;
+			return Arrays.asList(output.getClass(), output.name, output.keycode, output.modifier, output.description,
+				joystick.getJoystickType(), joystick.doPress(), joystick.useWASD());
+		}
+		return Arrays.asList(output.getClass(), output.name, output.keycode, output.modifier, output.description);
+	}
+
+	// ============= Internal Classes ============== //
+	/**
+	 * A map of weakly held values, which drops the entry of a value once
+	 * the value is collected.
+	 */
+	private static class WeakValues<K, V> {
+		private final ConcurrentHashMap<K, Value<K, V>> map = new ConcurrentHashMap<>();
+		private final ReferenceQueue<V> queue = new ReferenceQueue<>();
+		V get(K key) {
+			purge();
+			Value<K, V> value = map.get(key);
+			return value == null ? null : value.get();
+		}
+		/**
+		 * @return the value of the key and null if the value was put.
+		 */
+		V putIfAbsent(K key, V value) {
+			purge();
+			Value<K, V> reference = new Value<>(key, value, queue);
+			while (true) {
+				Value<K, V> current = map.putIfAbsent(key, reference);
+				if (current == null) return null;
+				V canonical = current.get();
+				if (canonical != null) return canonical;
+				// the value was collected and its entry is not purged yet
+				if (map.replace(key, current, reference)) return null;
+			}
+		}
+		int size() {
+			purge();
+			return map.size();
+		}
+		void clear() {
+			map.clear();
+		}
+		@SuppressWarnings("unchecked")
+		private void purge() {
+			Reference<? extends V> reference;
+			while ((reference = queue.poll()) != null) map.remove(((Value<K, V>) reference).key, reference);
+		}
+	}
+	/**
+	 * A weakly held value with its key, so its entry can be removed.
+	 */
+	private static class Value<K, V> extends WeakReference<V> {
+		final K key;
+		Value(K key, V value, ReferenceQueue<V> queue) {
+			super(value, queue);
+			this.key = key;
+		}
+	}
+	/**
+	 * Compares an object by identity in a key.
+	 */
+	private static class Identity {
+		private final Object value;
+		Identity(Object value) { this.value = value; }
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Identity && ((Identity) other).value == value;
+		}
+		@Override
+		public int hashCode() { return System.identityHashCode(value); }
+	}
+
+	// ============= Static Methods ============== //
+	public static synchronized Interner getInterner() {
+		if (interner == null) {
+			interner = new Interner();
+			interner.setEnabled(!"false".equals(System.getProperty(PROPERTY)));
+		}
+		return interner;
+	}
+}
@@ -5,10 +5,6 @@ package com.monkygames.kbmaster.input;
 public class Joystick extends Hardware {
     public Joystick(int id, String inputString) { super(id, inputString); }
     @Override
-    public Object clone(){
-        return new Joystick(this.id,this.inputString);
-    }
-    @Override
     public String toString(){
         return "Joystick["+id+","+inputString+"]";
     }
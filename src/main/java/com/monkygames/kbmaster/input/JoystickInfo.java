@@ -1,6 +1,5 @@
 package com.monkygames.kbmaster.input;
 import java.awt.Point;
-import java.awt.MouseInfo;
 
 /**
  * Contains info about the joystick device.
@@ -22,6 +21,11 @@ public class JoystickInfo {
 	private int radiusXY, radiusRXRY;
 	private enum Quadrant { I, II, III, IV }
 	private LastPress lastPress;
+	/**
+	 * Reused by getNewCoords() so moving the mouse does not allocate.
+	 */
+	private final int[] coords = new int[2];
+	private final float[] pointOnCircle = new float[2];
 	
 	///---Constructor---\\\
 	public JoystickInfo() {
@@ -40,16 +44,18 @@ public class JoystickInfo {
 	public void setLastPOV(float lastPOV) { this.lastPOV = lastPOV; }
 	public void setMouseSpeedXY(float mouseSpeedXY) { this.mouseSpeedXY = mouseSpeedXY; }
 	public void setMouseSpeedRXRY(float mouseSpeedRXRY) { this.mouseSpeedRXRY = mouseSpeedRXRY; }
-	public void setLastAngleXY(float lastAngleXY) {
+	/**
+	 * Sets the angle of the joystick and restarts the circle at the pointer.
+	 * @param point the current location of the mouse pointer.
+	 */
+	public void setLastAngleXY(float lastAngleXY, Point point) {
 		this.lastAngleXY = lastAngleXY;
-		Point point = MouseInfo.getPointerInfo().getLocation();
 		startingX = point.x;
 		startingY = point.y;
 		radiusXY = 1;
 	}
-	public void setLastAngleRXRY(float lastAngleRXRY) {
+	public void setLastAngleRXRY(float lastAngleRXRY, Point point) {
 		this.lastAngleRXRY = lastAngleRXRY;
-		Point point = MouseInfo.getPointerInfo().getLocation();
 		startingRX = point.x;
 		startingRY = point.y;
 		radiusRXRY = 1;
@@ -120,51 +126,53 @@ public class JoystickInfo {
 	/**
 	 * Retrieves the next mouse coordinates.
 	 * @param jType The joystick Axis type
-	 * @return New coordinates for the robot.
+	 * @param point The current location of the mouse pointer.
+	 * @return New coordinates for the robot, the array is reused by the next call.
 	 */
-	public int[] getNewCoords(String jType) {
+	public int[] getNewCoords(String jType, Point point) {
 		//Use the angle, radius, and the original x,y position to find a point on the circle
-		float angle = (jType.equals("RXRY") ? lastAngleRXRY : lastAngleXY);
-		int radius = (jType.equals("RXRY") ? radiusRXRY : radiusXY);
+		boolean isRXRY = jType.equals("RXRY");
+		float angle = (isRXRY ? lastAngleRXRY : lastAngleXY);
+		int radius = (isRXRY ? radiusRXRY : radiusXY);
 		radius*=radius;
-		float x = (jType.equals("RXRY") ? startingRX : startingX);
-		float y = (jType.equals("RXRY") ? startingRY : startingY);
+		float x = (isRXRY ? startingRX : startingX);
+		float y = (isRXRY ? startingRY : startingY);
 		float[] floatCoords = findPoint(angle, radius, x, y);
 		//Compare the point on the circle to the current mouse position.
 		//Determine which direction is closest to the point and move that way.
-		Point point = MouseInfo.getPointerInfo().getLocation();
-		float[] distances = new float[]{
-				distance(floatCoords[0], floatCoords[1], point.x, point.y + 1), //Up
-				distance(floatCoords[0], floatCoords[1], point.x, point.y - 1), //Down
-				distance(floatCoords[0], floatCoords[1], point.x - 1, point.y), //Left
-				distance(floatCoords[0], floatCoords[1], point.x + 1, point.y), //Right
-				distance(floatCoords[0], floatCoords[1], point.x, point.y) //Current position
-		};
+		//0 = Up, 1 = Down, 2 = Left, 3 = Right, 4 = Current position
 		int position = 0;
-		float shortestDistance = distances[position];
-		for (int i = 1; i < distances.length; i++) {
-			if (distances[i] < shortestDistance) {
-				shortestDistance = distances[i];
+		float shortestDistance = distance(floatCoords[0], floatCoords[1], point.x, point.y + 1);
+		for (int i = 1; i < 5; i++) {
+			float distance = switch (i) {
+				case 1 -> distance(floatCoords[0], floatCoords[1], point.x, point.y - 1);
+				case 2 -> distance(floatCoords[0], floatCoords[1], point.x - 1, point.y);
+				case 3 -> distance(floatCoords[0], floatCoords[1], point.x + 1, point.y);
+				default -> distance(floatCoords[0], floatCoords[1], point.x, point.y);
+			};
+			if (distance < shortestDistance) {
+				shortestDistance = distance;
 				position = i;
 			}
 		}
-		int[] intCoords;
+		int[] intCoords = coords;
 		// Increase radius but do not move
 		switch (position) {
-			case 0 -> intCoords = new int[]{ point.x, point.y + 1 }; //Up
-			case 1 -> intCoords = new int[]{ point.x, point.y - 1 }; //Down
-			case 2 -> intCoords = new int[]{ point.x - 1, point.y }; //Left
-			case 3 -> intCoords = new int[]{ point.x + 1, point.y }; //Right
+			case 0 -> { intCoords[0] = point.x; intCoords[1] = point.y + 1; } //Up
+			case 1 -> { intCoords[0] = point.x; intCoords[1] = point.y - 1; } //Down
+			case 2 -> { intCoords[0] = point.x - 1; intCoords[1] = point.y; } //Left
+			case 3 -> { intCoords[0] = point.x + 1; intCoords[1] = point.y; } //Right
 			default -> {
-				intCoords = new int[]{ point.x, point.y };
-				if (jType.equals("RXRY")) radiusRXRY++;
+				intCoords[0] = point.x;
+				intCoords[1] = point.y;
+				if (isRXRY) radiusRXRY++;
 				else radiusXY++;
 			}
 		}
 		// If the new point is outside the radius, increase the radius
 		float dist = distance(intCoords[0],intCoords[1], x, y);
 		if (dist >= radius) {
-			if (jType.equals("RXRY")) radiusRXRY++;
+			if (isRXRY) radiusRXRY++;
 			else radiusXY++;
 		}
 		return intCoords;
@@ -193,6 +201,7 @@ public class JoystickInfo {
 	}
 	/**
 	 * Finds a point on the circle using the given angle, radius, and starting position.
+	 * @return the x,y coordinates, the array is reused by the next call.
 	 */
 	private float[] findPoint(float angle, int radius, float x, float y) {
 		//Convert from degrees to radians
@@ -203,6 +212,8 @@ public class JoystickInfo {
 		newY*=-1; //y-axis is inverse for joysticks
 		newX += x;
 		newY += y;
-		return new float[]{ newX, newY };
+		pointOnCircle[0] = newX;
+		pointOnCircle[1] = newY;
+		return pointOnCircle;
 	}
 }
\ No newline at end of file
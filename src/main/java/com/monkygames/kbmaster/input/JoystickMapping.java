@@ -5,10 +5,6 @@ package com.monkygames.kbmaster.input;
 public class JoystickMapping extends Mapping {
     public JoystickMapping(Hardware inputHardware, Output output) { super(inputHardware, output); }
     @Override
-    public Object clone(){
-        return new JoystickMapping((Joystick)inputHardware.clone(),(Output)output.clone());
-    }
-    @Override
     public String toString(){
         return "JoystickMapping["+inputHardware+","+output+"]";
     }
@@ -5,12 +5,16 @@ package com.monkygames.kbmaster.input;
 
 // === java imports === //
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
 /**
  * The key mappings.
+ * <p>
+ * A clone shares the immutable mappings and the maps holding them with
+ * this keymap, and the maps are copied by the first of them to change.
  * @version 1.0
  */
 public class Keymap{
@@ -40,6 +44,14 @@ public class Keymap{
      * Describes this keymap.
      */
     private String description;
+	/**
+	 * True if the maps of the mappings may be shared with a clone.
+	 */
+	private transient boolean shared;
+	/**
+	 * Counts the changes, so a save only compares the keymaps that changed.
+	 */
+	private transient int modifications;
 // ============= Constructors ============== //
     public Keymap(int id) {
 		this.id = id;
@@ -47,34 +59,94 @@ public class Keymap{
 		joystickMappings = new HashMap<>();
 		description = "";
 	}
+	/**
+	 * Creates a keymap sharing the mappings of the keymap.
+	 */
+	private Keymap(Keymap keymap) {
+		id = keymap.id;
+		buttonMappings = keymap.buttonMappings;
+		joystickMappings = keymap.joystickMappings;
+		zUpWheelMapping = keymap.zUpWheelMapping;
+		zDownWheelMapping = keymap.zDownWheelMapping;
+		description = keymap.description;
+		shared = true;
+		keymap.shared = true;
+	}
 // ============= Public Methods ============== //
     public void addButtonMapping(String index, ButtonMapping buttonMapping){
+		copyOnWrite();
 		buttonMappings.put(index, buttonMapping);
     }
     public ButtonMapping getButtonMapping(String index){
    	   	return buttonMappings.get(index);
     }
 	public void addJoystickMapping(String index, JoystickMapping joystickMapping) {
+		copyOnWrite();
 		joystickMappings.put(index, joystickMapping);
 	}
 	public JoystickMapping getJoystickMapping(String index){ return joystickMappings.get(index); }
+	/**
+	 * Returns the button mappings by index (read only).
+	 */
+	public Map<String,ButtonMapping> getButtonMappings() { return Collections.unmodifiableMap(buttonMappings); }
+	/**
+	 * Returns the joystick mappings by index (read only).
+	 */
+	public Map<String,JoystickMapping> getJoystickMappings() { return Collections.unmodifiableMap(joystickMappings); }
     public void setzDownWheelMapping(WheelMapping zDownWheelMapping) {
+	modifications++;
 	this.zDownWheelMapping = zDownWheelMapping;
     }
 	public WheelMapping getzDownWheelMapping() { return zDownWheelMapping;  }
 	public void setzUpWheelMapping(WheelMapping zUpWheelMapping) {
+		modifications++;
 		this.zUpWheelMapping = zUpWheelMapping;
 	}
     public WheelMapping getzUpWheelMapping() {
 	return zUpWheelMapping;
     }
     public void setDescription(String description){
+	modifications++;
 	this.description = description;
     }
 	public String getDescription(){	return description; }
     public int getID(){
 	return id;
     }
+	/**
+	 * Returns the number of changes made to this keymap.
+	 */
+	public int getModifications() { return modifications; }
+	/**
+	 * Replaces a mapping of this keymap with another one.
+	 * @param mapping the mapping in this keymap.
+	 * @param replacement the new mapping, usually made with {@link Mapping#withOutput}.
+	 * @return true if the mapping was replaced and false if it is not in this keymap.
+	 */
+	public boolean replaceMapping(Mapping mapping, Mapping replacement) {
+		if (mapping == null) return false;
+		if (mapping == zUpWheelMapping) {
+			setzUpWheelMapping((WheelMapping) replacement);
+			return true;
+		}
+		if (mapping == zDownWheelMapping) {
+			setzDownWheelMapping((WheelMapping) replacement);
+			return true;
+		}
+		for (Map.Entry<String,ButtonMapping> entry : buttonMappings.entrySet()) {
+			if (entry.getValue() == mapping) {
+				addButtonMapping(entry.getKey(), (ButtonMapping) replacement);
+				return true;
+			}
+		}
+		for (Map.Entry<String,JoystickMapping> entry : joystickMappings.entrySet()) {
+			if (entry.getValue() == mapping) {
+				addJoystickMapping(entry.getKey(), (JoystickMapping) replacement);
+				return true;
+			}
+		}
+		return false;
+	}
 
     /**
      * Returns a list of all the mappings.
@@ -91,6 +163,13 @@ public class Keymap{
 		return list;
 	}
 	public void close() {
+		modifications++;
+		// the maps of a clone are left alone
+		if (shared) {
+			buttonMappings = new HashMap<>();
+			joystickMappings = new HashMap<>();
+			shared = false;
+		}
     	try {
     	    buttonMappings.clear();
 		    joystickMappings.clear();
@@ -98,24 +177,49 @@ public class Keymap{
     	zDownWheelMapping = null;
     	zUpWheelMapping = null;
     }
+// ============= Private Methods ============== //
+	/**
+	 * Counts a change and copies the maps of the mappings if they may be shared.
+	 */
+	private void copyOnWrite() {
+		modifications++;
+		if (!shared) return;
+		buttonMappings = new HashMap<>(buttonMappings);
+		joystickMappings = new HashMap<>(joystickMappings);
+		shared = false;
+	}
+	/**
+	 * Called by XStream, which restores the maps shared by clones as one map
+	 * and a new copy of every mapping, so the maps are rebuilt with the
+	 * interned names and mappings.
+	 */
+	private Object readResolve() {
+		Interner interner = Interner.getInterner();
+		HashMap<String,ButtonMapping> buttons = new HashMap<>();
+		if (buttonMappings != null) {
+			for (Map.Entry<String,ButtonMapping> entry : buttonMappings.entrySet())
+				buttons.put(interner.intern(entry.getKey()), interner.intern(entry.getValue()));
+		}
+		HashMap<String,JoystickMapping> joysticks = new HashMap<>();
+		if (joystickMappings != null) {
+			for (Map.Entry<String,JoystickMapping> entry : joystickMappings.entrySet())
+				joysticks.put(interner.intern(entry.getKey()), interner.intern(entry.getValue()));
+		}
+		buttonMappings = buttons;
+		joystickMappings = joysticks;
+		zUpWheelMapping = interner.intern(zUpWheelMapping);
+		zDownWheelMapping = interner.intern(zDownWheelMapping);
+		description = interner.intern(description);
+		shared = false;
+		return this;
+	}
 // ============= Extended Methods ============== //
+	/**
+	 * Returns a keymap sharing the mappings of this keymap until either changes.
+	 */
     @Override
     public Object clone() {
-		Keymap keymap = new Keymap(this.id);
-		keymap.setDescription(description);
-		for (String key : buttonMappings.keySet()) {
-			ButtonMapping mapping = buttonMappings.get(key);
-			keymap.addButtonMapping(key, (ButtonMapping) mapping.clone());
-		}
-	    for (String key : joystickMappings.keySet()) {
-			JoystickMapping mapping = joystickMappings.get(key);
-		    keymap.addJoystickMapping(key, (JoystickMapping) mapping.clone());
-	    }
-		if (zUpWheelMapping != null)
-			keymap.setzUpWheelMapping((WheelMapping) zUpWheelMapping.clone());
-		if (zDownWheelMapping != null)
-			keymap.setzDownWheelMapping((WheelMapping) zDownWheelMapping.clone());
-		return keymap;
+		return new Keymap(this);
 	}
     public String toString() {
 		String out = "";
@@ -5,9 +5,12 @@ package com.monkygames.kbmaster.input;
 
 /**
  * Holds the mapping between the device's event and the Robot event.
+ * <p>
+ * A mapping is immutable so that it is shared by the clones of a keymap;
+ * a change is made with {@link #withOutput} and {@link Keymap#replaceMapping}.
  * @version 1.0
  */
-public class Mapping {
+public class Mapping implements Cloneable {
 
 // ============= Class variables ============== //
     /**
@@ -42,12 +45,22 @@ public class Mapping {
      */
     public Output getOutput() { return output;  }
 
-    public void setOutput(Output output) { this.output = output;  }
-
     /**
-     * True if this has a mapping and false if the key should be disabled.
+     * Returns a mapping of the same input and class with the output.
+     * @param output the output which must not be changed afterwards.
+     * @param hasMapping true if this has a mapping and false if the key should be disabled.
      */
-    public void setMapping(boolean hasMapping) { this.hasMapping = hasMapping;  }
+    public Mapping withOutput(Output output, boolean hasMapping) {
+        Mapping mapping;
+        try {
+            mapping = (Mapping) super.clone();
+        } catch (CloneNotSupportedException ex) {
+            throw new AssertionError(ex);
+        }
+        mapping.output = output;
+        mapping.hasMapping = hasMapping;
+        return mapping;
+    }
 
     /**
      * Returns true if this has a mapping.
@@ -57,12 +70,11 @@ public class Mapping {
     public boolean hasMapping() { return hasMapping;  }
 
     // ============= Extended Methods ============== //
+    /**
+     * Returns this mapping as it is immutable.
+     */
     @Override
-    public Object clone() {
-        Mapping mapping = new Mapping((Hardware) inputHardware.clone(), (Output) output.clone());
-        mapping.setMapping(hasMapping);
-        return mapping;
-    }
+    public Object clone() { return this; }
 
     @Override
     public String toString() { return "Mapping[" + inputHardware + "," + output + "]";  }
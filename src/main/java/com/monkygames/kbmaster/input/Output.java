@@ -6,6 +6,9 @@ package com.monkygames.kbmaster.input;
 /**
  * The base class for handling output information.
  * processing.
+ * <p>
+ * An output is immutable since it is shared by the keymaps through the
+ * {@link Interner}; a changed output is a copy such as {@link #withDescription}.
  * @version 1.0
  */
 public class Output {
@@ -53,24 +56,22 @@ public class Output {
         return description;
     }
     
-    public void setKeycode(int keycode) { this.keycode = keycode; }
-    
-    public void setModifier(int modifier) {
-        this.modifier = modifier;
-    }
-    
-    public void setName(String name) {
-        this.name = name;
+    /**
+     * Returns this output if it has the description and a copy with it otherwise.
+     */
+    public Output withDescription(String description) {
+        if (description == null ? this.description == null : description.equals(this.description)) return this;
+        Output output = (Output) clone();
+        output.description = description;
+        return output;
     }
     
-    public void setDescription(String description) { this.description = description; }
-    
     
     // ============= Extended Methods ============== //
     @Override
     public Object clone() {
         Output output = new Output(name, keycode, modifier);
-        output.setDescription(description);
+        output.description = description;
         return output;
     }
     
@@ -15,7 +15,7 @@ public class OutputDisabled extends Output{
     @Override
     public Object clone(){
 	OutputDisabled output =  new OutputDisabled();
-	output.setDescription(getDescription());
+	output.description = description;
 	return output;
     }
 }
@@ -16,8 +16,13 @@ public class OutputJoystick extends Output {
     private HashMap<String, KeyCode> keyCodes;
     public enum JoystickType { DPAD, MOUSE };
     public OutputJoystick(String name, int keycode, JoystickType joystickType) {
+        this(name, keycode, joystickType, false, false);
+    }
+    public OutputJoystick(String name, int keycode, JoystickType joystickType, boolean mousePress, boolean wasd) {
         super (name, keycode, 0);
         this.joystickType = joystickType;
+        this.mousePress = mousePress;
+        this.wasd = wasd;
         keyCodes = new HashMap<>();
         keyCodes.put("Up",KeyCode.UP);
         keyCodes.put("Down",KeyCode.DOWN);
@@ -29,11 +34,16 @@ public class OutputJoystick extends Output {
         keyCodes.put("D",KeyCode.D);
     }
     public JoystickType getJoystickType() { return joystickType; }
-    public void setJoystickType(JoystickType joystickType) { this.joystickType = joystickType; }
+    /**
+     * Returns a copy of this output with the joystick type.
+     */
+    public OutputJoystick withJoystickType(JoystickType joystickType) {
+        OutputJoystick output = new OutputJoystick(name, keycode, joystickType, mousePress, wasd);
+        output.description = description;
+        return output;
+    }
     public boolean doPress() { return mousePress; }
-    public void setPress(boolean mousePress) { this.mousePress = mousePress; }
     public boolean useWASD() { return wasd; }
-    public void setWASD(boolean wasd) { this.wasd = wasd; }
     public int getKeycode(String dir, int invert) {
         //TODO finish code for Q and E (if I decide to allow it)
         if (dir.equals("UP")) {
@@ -80,8 +90,6 @@ public class OutputJoystick extends Output {
     }
     @Override
     public Object clone() {
-        OutputJoystick output = new OutputJoystick(name, keycode, joystickType);
-        output.setDescription(getDescription());
-        return output;
+        return withJoystickType(joystickType);
     }
 }
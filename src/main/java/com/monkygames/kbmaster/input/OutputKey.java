@@ -16,7 +16,7 @@ public class OutputKey extends Output {
 	@Override
 	public Object clone() {
 		OutputKey output = new OutputKey(this.name, this.keycode, this.modifier);
-		output.setDescription(getDescription());
+		output.description = description;
 		return output;
 	}
 }
@@ -33,9 +33,19 @@ public class OutputKeymapSwitch extends Output{
 	return isSwitchOnRelease;
     }
 
-    public void setIsSwitchOnRelease(boolean isSwitchOnRelease) {
-        this.isSwitchOnRelease = isSwitchOnRelease;
-        updateName();
+    /**
+     * Returns the name without the while held suffix.
+     */
+    public String getOriginalName() {
+	return originalName;
+    }
+    /**
+     * Returns a copy of this output which switches back on release or not.
+     */
+    public OutputKeymapSwitch withSwitchOnRelease(boolean isSwitchOnRelease) {
+        OutputKeymapSwitch output = new OutputKeymapSwitch(originalName != null ? originalName : name, keycode, isSwitchOnRelease);
+        output.description = description;
+        return output;
     }
 
 // ============= Private Methods ============== //
@@ -50,8 +60,8 @@ public class OutputKeymapSwitch extends Output{
 // ============= Extended Methods ============== //
     @Override
     public Object clone() {
-        OutputKeymapSwitch output = new OutputKeymapSwitch(name, keycode, isSwitchOnRelease);
-        output.setDescription(getDescription());
+        OutputKeymapSwitch output = new OutputKeymapSwitch(originalName != null ? originalName : name, keycode, isSwitchOnRelease);
+        output.description = description;
         return output;
     }
 }
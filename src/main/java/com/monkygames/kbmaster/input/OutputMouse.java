@@ -27,15 +27,12 @@ public class OutputMouse extends Output {
     public MouseType getMouseType() {
 	return mouseType;
     }
-    public void setMouseType(MouseType mouseType) {
-	this.mouseType = mouseType;
-    }
 
 // ============= Extended Methods ============== //
     @Override
     public Object clone() {
         OutputMouse output = new OutputMouse(name, keycode, mouseType);
-        output.setDescription(getDescription());
+        output.description = description;
         return output;
     }
 }
\ No newline at end of file
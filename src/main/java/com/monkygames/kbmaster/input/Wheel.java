@@ -28,10 +28,6 @@ public class Wheel extends Hardware{
     }
 
 // ============= Extended Methods ============== //
-    @Override
-    public Object clone(){
-	return new Wheel(id);
-    }
     @Override
     public String toString(){
 	return "Wheel["+id+","+inputString+"]";
@@ -12,10 +12,6 @@ public class WheelMapping extends Mapping{
 	super(inputWheel,output);
     }
     @Override
-    public Object clone(){
-	return new WheelMapping((Wheel)inputHardware.clone(),(Output)output.clone());
-    }
-    @Override
     public String toString(){
 	return "WheelMapping["+inputHardware+","+output+"]";
     }
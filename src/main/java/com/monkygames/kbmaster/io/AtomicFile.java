@@ -0,0 +1,175 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.io;
+
+// === java imports === //
+import com.thoughtworks.xstream.XStreamException;
+import java.io.File;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes files so a crash leaves either the old or the new file and
+ * recovers the previous generation of a file that can not be read.
+ * <p>
+ * A file is written to a temporary file next to it which is synced and
+ * then atomically renamed over the old file. The previous generation is
+ * kept with the backup extension. A file that fails to parse is renamed
+ * with the corrupt extension and the backup is restored.
+ * @version 1.0
+ */
+class AtomicFile {
+
+	// ============= Class variables ============== //
+	/**
+	 * Extension of the previous generation of a file.
+	 */
+	static final String BACKUP_EXTENSION = ".bak";
+	/**
+	 * Extension given to a file that could not be parsed.
+	 */
+	static final String CORRUPT_EXTENSION = ".corrupt";
+
+	// ============= Constructors ============== //
+	private AtomicFile() { }
+
+	// ============= Static Methods ============== //
+	/**
+	 * Writes the file.
+	 * @param file the file to write.
+	 * @param content writes the content to the channel.
+	 * @return true on success and false otherwise.
+	 */
+	static boolean write(File file, ChannelWriter content) {
+		return write(file, content, true);
+	}
+	/**
+	 * Writes the file.
+	 * @param file the file to write.
+	 * @param content writes the content to the channel.
+	 * @param backup true to keep the previous generation of the file.
+	 * @return true on success and false otherwise.
+	 */
+	static boolean write(File file, ChannelWriter content, boolean backup) {
+		Path target = file.getAbsoluteFile().toPath();
+		Path directory = target.getParent();
+		Path temp = null;
+		try {
+			temp = Files.createTempFile(directory, file.getName() + ".", ".tmp");
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				content.write(channel);
+				channel.force(true);
+			}
+			if (backup && Files.exists(target)) keepBackup(target);
+			try {
+				Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException ex) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+			syncDirectory(directory);
+		} catch (IOException | XStreamException ex) {
+			System.out.println("Write failure (" + file.getName() + "): " + ex.getMessage());
+			if (temp != null) {
+				try { Files.deleteIfExists(temp); } catch (IOException e) { }
+			}
+			return false;
+		}
+		return true;
+	}
+	/**
+	 * Writes the bytes to the file.
+	 * @return true on success and false otherwise.
+	 */
+	static boolean write(File file, byte[] bytes) {
+		return write(file, bytes, true);
+	}
+	/**
+	 * Writes the bytes to the file.
+	 * @param backup true to keep the previous generation of the file.
+	 * @return true on success and false otherwise.
+	 */
+	static boolean write(File file, byte[] bytes, boolean backup) {
+		return write(file, channel -> {
+			ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			while (buffer.hasRemaining()) channel.write(buffer);
+		}, backup);
+	}
+	/**
+	 * Reads the file and restores the backup if the file is corrupted.
+	 * A reader reports a corrupted file with a StreamCorruptedException or an XStreamException.
+	 * @return the object read and null if the file does not exist or can not be read.
+	 */
+	static <T> T read(File file, FileReader<T> reader) {
+		if (!file.exists()) return null;
+		try {
+			return reader.read(file);
+		} catch (StreamCorruptedException | XStreamException ex) {
+			System.out.println("Read error (" + file.getName() + "): File corrupted.");
+			return restoreBackup(file, reader);
+		} catch (IOException ex) {
+			System.out.println("Read error (" + file.getName() + "): " + ex.getMessage());
+		}
+		return null;
+	}
+	/**
+	 * Keeps the current file as the backup, linked if possible so the file is not copied.
+	 */
+	private static void keepBackup(Path target) throws IOException {
+		Path backup = target.resolveSibling(target.getFileName() + BACKUP_EXTENSION);
+		Files.deleteIfExists(backup);
+		try {
+			Files.createLink(backup, target);
+		} catch (IOException | UnsupportedOperationException ex) {
+			Files.copy(target, backup, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+	/**
+	 * Syncs the directory so the rename survives a crash (not supported on all platforms).
+	 */
+	private static void syncDirectory(Path directory) {
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException ex) { }
+	}
+	/**
+	 * Moves the corrupted file aside and restores the backup if it can be read.
+	 * @return the object read from the backup and null if there is no good backup.
+	 */
+	private static <T> T restoreBackup(File file, FileReader<T> reader) {
+		Path target = file.toPath();
+		Path backup = target.resolveSibling(file.getName() + BACKUP_EXTENSION);
+		try {
+			Files.move(target, target.resolveSibling(file.getName() + CORRUPT_EXTENSION), StandardCopyOption.REPLACE_EXISTING);
+			if (!Files.exists(backup)) return null;
+			T obj = reader.read(backup.toFile());
+			Files.copy(backup, target, StandardCopyOption.REPLACE_EXISTING);
+			System.out.println("Restored (" + file.getName() + ") from the backup.");
+			return obj;
+		} catch (IOException | XStreamException ex) {
+			System.out.println("Unable to restore (" + file.getName() + "): " + ex.getMessage());
+		}
+		return null;
+	}
+
+	// ============= Internal Classes ============== //
+	/**
+	 * Writes the content of a file.
+	 */
+	interface ChannelWriter {
+		void write(FileChannel channel) throws IOException;
+	}
+	/**
+	 * Reads the content of a file.
+	 */
+	interface FileReader<T> {
+		T read(File file) throws IOException;
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.io;
+
+// === java imports === //
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the binary formats written with {@link BinaryOutput}.
+ * Reading past the end or an invalid value throws a StreamCorruptedException.
+ * @version 1.0
+ */
+class BinaryInput {
+
+	// ============= Class variables ============== //
+	private final byte[] buffer;
+	private int position;
+	private final int end;
+	private String[] table;
+
+	// ============= Constructors ============== //
+	BinaryInput(byte[] buffer) {
+		this(buffer, 0, buffer.length);
+	}
+	BinaryInput(byte[] buffer, int offset, int length) {
+		this.buffer = buffer;
+		this.position = offset;
+		this.end = offset + length;
+		table = new String[0];
+	}
+
+	// ============= Public Methods ============== //
+	int readByte() throws StreamCorruptedException {
+		if (position >= end) throw new StreamCorruptedException("Unexpected end of data");
+		return buffer[position++] & 0xFF;
+	}
+	boolean readBoolean() throws StreamCorruptedException { return readByte() != 0; }
+	byte[] readBytes(int length) throws StreamCorruptedException {
+		if (length < 0 || length > end - position) throw new StreamCorruptedException("Invalid length " + length);
+		byte[] bytes = new byte[length];
+		System.arraycopy(buffer, position, bytes, 0, length);
+		position += length;
+		return bytes;
+	}
+	int readVarInt() throws StreamCorruptedException {
+		long value = readVarLong();
+		if (value > 0xFFFFFFFFL) throw new StreamCorruptedException("Invalid integer " + value);
+		return (int) value;
+	}
+	long readVarLong() throws StreamCorruptedException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = readByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) return value;
+		}
+		throw new StreamCorruptedException("Invalid variable length integer");
+	}
+	int readSignedVarInt() throws StreamCorruptedException {
+		int value = readVarInt();
+		return (value >>> 1) ^ -(value & 1);
+	}
+	/**
+	 * Reads bytes written with writeBlob.
+	 * @return the bytes and null if none were written.
+	 */
+	byte[] readBlob() throws StreamCorruptedException {
+		int length = readVarInt() - 1;
+		if (length < 0) return null;
+		return readBytes(length);
+	}
+	/**
+	 * Reads a count which must not be more than the remaining bytes.
+	 */
+	int readCount() throws StreamCorruptedException {
+		int count = readVarInt();
+		if (count < 0 || count > end - position) throw new StreamCorruptedException("Invalid count " + count);
+		return count;
+	}
+	/**
+	 * Reads the string table used by {@link #readString}.
+	 */
+	void readStringTable() throws StreamCorruptedException {
+		table = new String[readCount()];
+		for (int i = 0; i < table.length; i++)
+			table[i] = new String(readBytes(readCount()), StandardCharsets.UTF_8);
+	}
+	/**
+	 * Reads a string from the string table.
+	 */
+	String readString() throws StreamCorruptedException {
+		int index = readVarInt();
+		if (index == 0) return null;
+		if (index < 0 || index > table.length) throw new StreamCorruptedException("Invalid string " + index);
+		return table[index - 1];
+	}
+	/**
+	 * Reads an enum constant written as its ordinal plus one (0 for null).
+	 */
+	<E extends Enum<E>> E readEnum(E[] values) throws StreamCorruptedException {
+		int index = readVarInt();
+		if (index == 0) return null;
+		if (index < 0 || index > values.length) throw new StreamCorruptedException("Invalid constant " + index);
+		return values[index - 1];
+	}
+}
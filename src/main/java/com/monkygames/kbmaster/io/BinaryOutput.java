@@ -0,0 +1,150 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.io;
+
+// === java imports === //
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A growable buffer for writing the binary formats.
+ * Numbers are written as variable length integers (7 bits per byte) and
+ * strings as indexes into a string table which is written separately
+ * with {@link #writeStringTable}.
+ * @version 1.0
+ */
+class BinaryOutput {
+
+	// ============= Class variables ============== //
+	private byte[] buffer;
+	private int size;
+	/**
+	 * The index of each string in the string table.
+	 */
+	private final HashMap<String, Integer> strings;
+	private String[] table;
+
+	// ============= Constructors ============== //
+	BinaryOutput(int capacity) {
+		buffer = new byte[Math.max(16, capacity)];
+		strings = new HashMap<>();
+		table = new String[16];
+	}
+
+	// ============= Public Methods ============== //
+	int size() { return size; }
+	byte[] toByteArray() { return Arrays.copyOf(buffer, size); }
+	void writeByte(int value) {
+		ensure(1);
+		buffer[size++] = (byte) value;
+	}
+	void writeBoolean(boolean value) { writeByte(value ? 1 : 0); }
+	void writeBytes(byte[] bytes) { writeBytes(bytes, 0, bytes.length); }
+	void writeBytes(byte[] bytes, int offset, int length) {
+		ensure(length);
+		System.arraycopy(bytes, offset, buffer, size, length);
+		size += length;
+	}
+	/**
+	 * Writes an unsigned variable length integer.
+	 */
+	void writeVarInt(int value) { writeVarLong(value & 0xFFFFFFFFL); }
+	/**
+	 * Writes an unsigned variable length long.
+	 */
+	void writeVarLong(long value) {
+		ensure(10);
+		while ((value & ~0x7FL) != 0) {
+			buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buffer[size++] = (byte) value;
+	}
+	/**
+	 * Writes a signed integer so small negative values are short.
+	 */
+	void writeSignedVarInt(int value) { writeVarInt((value << 1) ^ (value >> 31)); }
+	/**
+	 * Writes the length plus one (0 for null) followed by the bytes.
+	 */
+	void writeBlob(byte[] bytes) {
+		if (bytes == null) {
+			writeVarInt(0);
+			return;
+		}
+		writeVarInt(bytes.length + 1);
+		writeBytes(bytes);
+	}
+	/**
+	 * Writes an enum constant as its ordinal plus one (0 for null).
+	 */
+	void writeEnum(Enum<?> value) { writeVarInt(value == null ? 0 : value.ordinal() + 1); }
+	/**
+	 * Writes a fixed length big endian long at the specified position.
+	 */
+	void setLong(int position, long value) {
+		for (int i = 7; i >= 0; i--) {
+			buffer[position + i] = (byte) value;
+			value >>>= 8;
+		}
+	}
+	/**
+	 * Writes a fixed length big endian integer at the specified position.
+	 */
+	void setInt(int position, int value) {
+		for (int i = 3; i >= 0; i--) {
+			buffer[position + i] = (byte) value;
+			value >>>= 8;
+		}
+	}
+	/**
+	 * Reserves the specified number of bytes to be set later.
+	 * @return the position of the bytes.
+	 */
+	int skip(int length) {
+		ensure(length);
+		int position = size;
+		size += length;
+		return position;
+	}
+	/**
+	 * Writes the index of the string in the string table (0 for null).
+	 */
+	void writeString(String value) {
+		if (value == null) {
+			writeVarInt(0);
+			return;
+		}
+		Integer index = strings.get(value);
+		if (index == null) {
+			index = strings.size();
+			strings.put(value, index);
+			if (index == table.length) table = Arrays.copyOf(table, index * 2);
+			table[index] = value;
+		}
+		writeVarInt(index + 1);
+	}
+	/**
+	 * Writes the strings written with {@link #writeString} of the specified output.
+	 */
+	void writeStringTable(BinaryOutput output) {
+		writeVarInt(output.strings.size());
+		for (int i = 0; i < output.strings.size(); i++) {
+			byte[] bytes = output.table[i].getBytes(StandardCharsets.UTF_8);
+			writeVarInt(bytes.length);
+			writeBytes(bytes);
+		}
+	}
+	/**
+	 * Writes the content of the specified output.
+	 */
+	void write(BinaryOutput output) { writeBytes(output.buffer, 0, output.size); }
+
+	// ============= Private Methods ============== //
+	private void ensure(int length) {
+		if (size + length > buffer.length)
+			buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + length));
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.io;
+
+// === java imports === //
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Stores the logos of the apps of every device once in a directory of
+ * blobs named with the SHA-256 of their content, which sits next to the
+ * directories of the devices in the {@link ProfileStore}.
+ * <p>
+ * A blob is never modified, so the same logo used by several apps or
+ * devices is stored and synced once. The blobs no longer referenced by
+ * a manifest are deleted by {@link #collect(Set)}.
+ * @version 1.0
+ */
+public class BlobStore {
+
+	// ============= Class variables ============== //
+	/**
+	 * The name of the directory of the blobs in the profile directory.
+	 */
+	public static final String DIRECTORY = "blobs";
+	public static final String EXTENSION = ".blob";
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+	private final File directory;
+
+	// ============= Constructors ============== //
+	/**
+	 * @param directory the directory of the blobs.
+	 */
+	public BlobStore(File directory) {
+		this.directory = directory;
+	}
+
+	// ============= Public Methods ============== //
+	/**
+	 * Returns the directory of the blobs.
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+	/**
+	 * Deletes the blobs that are not referenced.
+	 * Must not be called while the store is written.
+	 * @param referenced the names of the blobs referenced by the manifests.
+	 * @return the number of blobs deleted.
+	 */
+	public int collect(Set<String> referenced) {
+		File[] files = directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+		if (files == null) return 0;
+		int deleted = 0;
+		for (File file : files) {
+			if (!referenced.contains(file.getName()) && file.delete()) deleted++;
+		}
+		return deleted;
+	}
+
+	// ============= Private Methods ============== //
+	/**
+	 * Returns the blob of the content, which is written with write.
+	 */
+	Blob blob(byte[] bytes) {
+		return new Blob(this, hash(bytes), bytes.length);
+	}
+	/**
+	 * Writes the blob if it is not stored yet.
+	 * @return true on success and false otherwise.
+	 */
+	boolean write(Blob blob, byte[] bytes) {
+		File file = blob.getFile();
+		if (file.length() == blob.length) return true;
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			System.out.println("Write failure (" + directory.getName() + "): Unable to create the directory.");
+			return false;
+		}
+		return AtomicFile.write(file, bytes, false);
+	}
+
+	// ============= Internal Classes ============== //
+	/**
+	 * Reads a blob and checks its length and hash.
+	 */
+	public static class Blob implements Supplier<byte[]> {
+		private final BlobStore store;
+		private final String hash;
+		private final int length;
+		Blob(BlobStore store, String hash, int length) {
+			this.store = store;
+			this.hash = hash;
+			this.length = length;
+		}
+		/**
+		 * Returns the SHA-256 of the content in hex.
+		 */
+		public String getHash() { return hash; }
+		public int getLength() { return length; }
+		public String getName() { return hash + EXTENSION; }
+		File getFile() { return new File(store.directory, getName()); }
+		/**
+		 * Returns true if the blob is stored in the directory of the store.
+		 */
+		boolean isIn(BlobStore blobs) { return store.directory.equals(blobs.directory); }
+		/**
+		 * @throws IllegalStateException if the blob can not be read or is corrupted.
+		 */
+		@Override
+		public byte[] get() {
+			byte[] bytes;
+			try {
+				bytes = Files.readAllBytes(getFile().toPath());
+			} catch (IOException ex) {
+				throw new IllegalStateException("Unable to read the blob " + getName(), ex);
+			}
+			if (bytes.length != length || !hash(bytes).equals(hash))
+				throw new IllegalStateException("The blob " + getName() + " is corrupted");
+			return bytes;
+		}
+	}
+
+	// ============= Static Methods ============== //
+	/**
+	 * Returns the blob store of the device directories in the parent of the directory.
+	 */
+	static BlobStore forDevice(File deviceDirectory) {
+		File parent = deviceDirectory.getAbsoluteFile().getParentFile();
+		return new BlobStore(new File(parent, DIRECTORY));
+	}
+	/**
+	 * Returns true if the name is a valid hash.
+	 */
+	static boolean isHash(String name) {
+		return name != null && name.matches("[0-9a-f]{64}");
+	}
+	/**
+	 * Returns the SHA-256 of the bytes in hex.
+	 */
+	public static String hash(byte[] bytes) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException ex) {
+			// every Java platform supports SHA-256
+			throw new IllegalStateException(ex);
+		}
+		byte[] hash = digest.digest(bytes);
+		char[] hex = new char[hash.length * 2];
+		for (int i = 0; i < hash.length; i++) {
+			hex[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+			hex[i * 2 + 1] = HEX[hash[i] & 0xF];
+		}
+		return new String(hex);
+	}
+}
@@ -0,0 +1,255 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.io;
+
+// === kbmaster imports === //
+import com.monkygames.kbmaster.input.Button;
+import com.monkygames.kbmaster.input.ButtonMapping;
+import com.monkygames.kbmaster.input.Hardware;
+import com.monkygames.kbmaster.input.Interner;
+import com.monkygames.kbmaster.input.Joystick;
+import com.monkygames.kbmaster.input.JoystickMapping;
+import com.monkygames.kbmaster.input.Keymap;
+import com.monkygames.kbmaster.input.Mapping;
+import com.monkygames.kbmaster.input.Output;
+import com.monkygames.kbmaster.input.OutputDisabled;
+import com.monkygames.kbmaster.input.OutputJoystick;
+import com.monkygames.kbmaster.input.OutputKey;
+import com.monkygames.kbmaster.input.OutputKeymapSwitch;
+import com.monkygames.kbmaster.input.OutputMouse;
+import com.monkygames.kbmaster.input.Wheel;
+import com.monkygames.kbmaster.input.WheelMapping;
+// === java imports === //
+import java.io.StreamCorruptedException;
+import java.util.Map;
+
+/**
+ * Encodes the keymaps of a profile in the binary format.
+ * <p>
+ * The encoded keymaps are self contained (they start with their own string
+ * table) so they can be copied between files without being decoded.
+ * Each mapping, hardware and output starts with a byte for its class.
+ * The decoded names and mappings are interned.
+ * @version 1.0
+ */
+class KeymapCodec {
+
+	// ============= Class variables ============== //
+	private static final int MAPPING = 1, BUTTON_MAPPING = 2, WHEEL_MAPPING = 3, JOYSTICK_MAPPING = 4;
+	private static final int HARDWARE = 1, BUTTON = 2, WHEEL = 3, JOYSTICK = 4;
+	private static final int OUTPUT = 1, OUTPUT_KEY = 2, OUTPUT_DISABLED = 3, OUTPUT_KEYMAP_SWITCH = 4,
+		OUTPUT_MOUSE = 5, OUTPUT_JOYSTICK = 6;
+
+	// ============= Constructors ============== //
+	private KeymapCodec() { }
+
+	// ============= Static Methods ============== //
+	/**
+	 * Encodes the keymaps.
+	 * @param keymaps the keymaps which may contain null.
+	 * @return the encoded keymaps.
+	 */
+	static byte[] encode(Keymap[] keymaps) {
+		BinaryOutput body = new BinaryOutput(2048);
+		body.writeVarInt(keymaps.length);
+		for (Keymap keymap : keymaps) {
+			body.writeBoolean(keymap != null);
+			if (keymap == null) continue;
+			body.writeVarInt(keymap.getID());
+			body.writeString(keymap.getDescription());
+			Map<String, ButtonMapping> buttonMappings = keymap.getButtonMappings();
+			body.writeVarInt(buttonMappings.size());
+			for (Map.Entry<String, ButtonMapping> entry : buttonMappings.entrySet()) {
+				body.writeString(entry.getKey());
+				writeMapping(body, entry.getValue());
+			}
+			Map<String, JoystickMapping> joystickMappings = keymap.getJoystickMappings();
+			body.writeVarInt(joystickMappings.size());
+			for (Map.Entry<String, JoystickMapping> entry : joystickMappings.entrySet()) {
+				body.writeString(entry.getKey());
+				writeMapping(body, entry.getValue());
+			}
+			writeMapping(body, keymap.getzUpWheelMapping());
+			writeMapping(body, keymap.getzDownWheelMapping());
+		}
+		BinaryOutput output = new BinaryOutput(body.size() + 512);
+		output.writeStringTable(body);
+		output.write(body);
+		return output.toByteArray();
+	}
+	/**
+	 * Decodes the keymaps.
+	 * @throws StreamCorruptedException if the keymaps are not valid.
+	 */
+	static Keymap[] decode(byte[] bytes) throws StreamCorruptedException {
+		BinaryInput input = new BinaryInput(bytes);
+		Interner interner = Interner.getInterner();
+		try {
+			input.readStringTable();
+			Keymap[] keymaps = new Keymap[input.readCount()];
+			for (int i = 0; i < keymaps.length; i++) {
+				if (!input.readBoolean()) continue;
+				Keymap keymap = new Keymap(input.readVarInt());
+				keymap.setDescription(interner.intern(input.readString()));
+				int count = input.readCount();
+				for (int j = 0; j < count; j++) {
+					String index = interner.intern(input.readString());
+					keymap.addButtonMapping(index, (ButtonMapping) readMapping(input, BUTTON_MAPPING));
+				}
+				count = input.readCount();
+				for (int j = 0; j < count; j++) {
+					String index = interner.intern(input.readString());
+					keymap.addJoystickMapping(index, (JoystickMapping) readMapping(input, JOYSTICK_MAPPING));
+				}
+				keymap.setzUpWheelMapping((WheelMapping) readMapping(input, WHEEL_MAPPING));
+				keymap.setzDownWheelMapping((WheelMapping) readMapping(input, WHEEL_MAPPING));
+				keymaps[i] = keymap;
+			}
+			return keymaps;
+		} catch (ClassCastException | IllegalArgumentException ex) {
+			throw new StreamCorruptedException(ex.toString());
+		}
+	}
+
+	/**
+	 * Encodes a single mapping which may be null.
+	 */
+	static byte[] encodeMapping(Mapping mapping) {
+		BinaryOutput body = new BinaryOutput(64);
+		writeMapping(body, mapping);
+		BinaryOutput output = new BinaryOutput(body.size() + 64);
+		output.writeStringTable(body);
+		output.write(body);
+		return output.toByteArray();
+	}
+	/**
+	 * Decodes a mapping encoded with encodeMapping.
+	 * @throws StreamCorruptedException if the mapping is not valid.
+	 */
+	static Mapping decodeMapping(byte[] bytes) throws StreamCorruptedException {
+		BinaryInput input = new BinaryInput(bytes);
+		try {
+			input.readStringTable();
+			return readMapping(input, 0);
+		} catch (ClassCastException | IllegalArgumentException ex) {
+			throw new StreamCorruptedException(ex.toString());
+		}
+	}
+
+	// ============= Private Methods ============== //
+	private static void writeMapping(BinaryOutput output, Mapping mapping) {
+		if (mapping == null) {
+			output.writeByte(0);
+			return;
+		}
+		if (mapping instanceof ButtonMapping) output.writeByte(BUTTON_MAPPING);
+		else if (mapping instanceof WheelMapping) output.writeByte(WHEEL_MAPPING);
+		else if (mapping instanceof JoystickMapping) output.writeByte(JOYSTICK_MAPPING);
+		else output.writeByte(MAPPING);
+		output.writeBoolean(mapping.hasMapping());
+		writeHardware(output, mapping.getInputHardware());
+		writeOutput(output, mapping.getOutput());
+	}
+	/**
+	 * Reads a mapping which must be of the expected class (0 for any) or null.
+	 */
+	private static Mapping readMapping(BinaryInput input, int expected) throws StreamCorruptedException {
+		int type = input.readByte();
+		if (type == 0) return null;
+		if ((expected != 0 && type != expected) || type > JOYSTICK_MAPPING)
+			throw new StreamCorruptedException("Unexpected mapping " + type);
+		boolean hasMapping = input.readBoolean();
+		Hardware hardware = readHardware(input);
+		Output output = readOutput(input);
+		Mapping mapping;
+		switch (type) {
+			case BUTTON_MAPPING: mapping = new ButtonMapping((Button) hardware, output); break;
+			case WHEEL_MAPPING: mapping = new WheelMapping((Wheel) hardware, output); break;
+			case JOYSTICK_MAPPING: mapping = new JoystickMapping(hardware, output); break;
+			default: mapping = new Mapping(hardware, output);
+		}
+		if (!hasMapping) mapping = mapping.withOutput(output, false);
+		return Interner.getInterner().intern(mapping);
+	}
+	private static void writeHardware(BinaryOutput output, Hardware hardware) {
+		if (hardware == null) {
+			output.writeByte(0);
+			return;
+		}
+		if (hardware instanceof Button) output.writeByte(BUTTON);
+		else if (hardware instanceof Wheel) output.writeByte(WHEEL);
+		else if (hardware instanceof Joystick) output.writeByte(JOYSTICK);
+		else output.writeByte(HARDWARE);
+		output.writeSignedVarInt(hardware.getID());
+		// the input of a wheel follows from its id
+		if (!(hardware instanceof Wheel)) output.writeString(hardware.getInputString());
+	}
+	private static Hardware readHardware(BinaryInput input) throws StreamCorruptedException {
+		int type = input.readByte();
+		if (type == 0) return null;
+		int id = input.readSignedVarInt();
+		switch (type) {
+			case BUTTON: return new Button(id, input.readString());
+			case WHEEL: return new Wheel(id);
+			case JOYSTICK: return new Joystick(id, input.readString());
+			case HARDWARE: return new Hardware(id, input.readString());
+			default: throw new StreamCorruptedException("Unknown hardware " + type);
+		}
+	}
+	private static void writeOutput(BinaryOutput output, Output out) {
+		if (out == null) {
+			output.writeByte(0);
+			return;
+		}
+		if (out instanceof OutputKey) output.writeByte(OUTPUT_KEY);
+		else if (out instanceof OutputDisabled) output.writeByte(OUTPUT_DISABLED);
+		else if (out instanceof OutputKeymapSwitch) output.writeByte(OUTPUT_KEYMAP_SWITCH);
+		else if (out instanceof OutputMouse) output.writeByte(OUTPUT_MOUSE);
+		else if (out instanceof OutputJoystick) output.writeByte(OUTPUT_JOYSTICK);
+		else output.writeByte(OUTPUT);
+		output.writeString(out.getName());
+		output.writeSignedVarInt(out.getKeycode());
+		output.writeSignedVarInt(out.getModifier());
+		output.writeString(out.getDescription());
+		if (out instanceof OutputKeymapSwitch) {
+			OutputKeymapSwitch keymapSwitch = (OutputKeymapSwitch) out;
+			output.writeString(keymapSwitch.getOriginalName());
+			output.writeBoolean(keymapSwitch.isIsSwitchOnRelease());
+		} else if (out instanceof OutputMouse) {
+			output.writeEnum(((OutputMouse) out).getMouseType());
+		} else if (out instanceof OutputJoystick) {
+			OutputJoystick joystick = (OutputJoystick) out;
+			output.writeEnum(joystick.getJoystickType());
+			output.writeBoolean(joystick.doPress());
+			output.writeBoolean(joystick.useWASD());
+		}
+	}
+	private static Output readOutput(BinaryInput input) throws StreamCorruptedException {
+		int type = input.readByte();
+		if (type == 0) return null;
+		String name = input.readString();
+		int keycode = input.readSignedVarInt();
+		int modifier = input.readSignedVarInt();
+		String description = input.readString();
+		Output output;
+		switch (type) {
+			case OUTPUT: output = new Output(name, keycode, modifier); break;
+			case OUTPUT_KEY: output = new OutputKey(name, keycode, modifier); break;
+			case OUTPUT_DISABLED: output = new OutputDisabled(); break;
+			case OUTPUT_KEYMAP_SWITCH:
+				String originalName = input.readString();
+				output = new OutputKeymapSwitch(originalName != null ? originalName : name, keycode, input.readBoolean());
+				break;
+			case OUTPUT_MOUSE:
+				output = new OutputMouse(name, keycode, input.readEnum(OutputMouse.MouseType.values()));
+				break;
+			case OUTPUT_JOYSTICK:
+				output = new OutputJoystick(name, keycode, input.readEnum(OutputJoystick.JoystickType.values()),
+					input.readBoolean(), input.readBoolean());
+				break;
+			default: throw new StreamCorruptedException("Unknown output " + type);
+		}
+		return output.withDescription(description);
+	}
+}
@@ -0,0 +1,197 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.io;
+
+// === kbmaster imports === //
+import com.monkygames.kbmaster.driver.DeviceList;
+import com.monkygames.kbmaster.metrics.DeviceMetrics;
+import com.monkygames.kbmaster.profiles.RootManager;
+// === java imports === //
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Saves the root managers and the global account in the background.
+ * <p>
+ * A save marks the file as dirty and the file is written once after the
+ * save window, so a burst of edits is written once with the last state.
+ * The model is serialized with the snapshot executor (the JavaFX thread in
+ * the application, which owns the model) and the file is written and
+ * synced on a single background thread with {@link AtomicFile}, which
+ * writes atomically and keeps the previous generation.
+ * Root managers are written with the {@link ProfileStore}, which only
+ * writes the profiles that changed, and the records of a
+ * {@link ProfileJournal} are appended on the same thread.
+ * <p>
+ * {@link #flush()} must be called before the model is closed or the program exits.
+ * @version 1.0
+ */
+public class PersistenceService {
+
+	// ============= Class variables ============== //
+	/**
+	 * Singleton.
+	 */
+	private static PersistenceService persistenceService;
+	/**
+	 * The time in milliseconds saves are coalesced before writing.
+	 */
+	public static final long DEFAULT_DELAY = 500;
+	private final XStreamManager streamManager;
+	private final long delay;
+	private final ScheduledExecutorService writer;
+	/**
+	 * The files waiting to be written in the order they were first saved.
+	 */
+	private final LinkedHashMap<String, Pending> dirty;
+	private volatile Executor snapshotExecutor;
+	private boolean scheduled;
+
+	// ============= Constructors ============== //
+	/**
+	 * @param streamManager serializes the global account.
+	 * @param delay the time in milliseconds saves are coalesced.
+	 */
+	public PersistenceService(XStreamManager streamManager, long delay) {
+		this.streamManager = streamManager;
+		this.delay = delay;
+		dirty = new LinkedHashMap<>();
+		snapshotExecutor = Runnable::run;
+		writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "kbmaster-persistence");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	// ============= Public Methods ============== //
+	/**
+	 * Sets the executor that serializes the model before it is written,
+	 * which runs the snapshot on the writer thread by default.
+	 */
+	public void setSnapshotExecutor(Executor snapshotExecutor) {
+		this.snapshotExecutor = snapshotExecutor;
+	}
+	/**
+	 * Saves the root manager to the directory after the save window.
+	 * @param journal the journal that is compacted into the directory and null if none.
+	 * @param metrics records the time to write the files and null to not record.
+	 */
+	public void saveRootManager(File directory, RootManager rootManager, ProfileJournal journal, DeviceMetrics metrics) {
+		markDirty(directory.getPath(), new Pending(() -> {
+			if (journal == null) return ProfileStore.getProfileStore().snapshot(directory, rootManager);
+			journal.compacted();
+			BooleanSupplier write = ProfileStore.getProfileStore().snapshot(directory, rootManager);
+			// the records appended after the snapshot are queued after the write
+			return () -> {
+				if (!write.getAsBoolean()) return false;
+				journal.truncate();
+				return true;
+			};
+		}, metrics));
+	}
+	/**
+	 * Saves the global account after the save window.
+	 */
+	public void saveGlobalAccount(DeviceList deviceList) {
+		File file = new File(streamManager.getGlobalAccountFilename());
+		markDirty(file.getPath(), new Pending(() -> {
+			byte[] bytes = streamManager.toGlobalAccountBytes(deviceList);
+			return () -> AtomicFile.write(file, bytes);
+		}, null));
+	}
+	/**
+	 * Returns true if there are saves that have not been written.
+	 */
+	public synchronized boolean isDirty() {
+		return !dirty.isEmpty();
+	}
+	/**
+	 * Serializes the dirty files on the calling thread and waits until they are written.
+	 */
+	public void flush() {
+		Future<?> written = snapshot();
+		// waits for the journal records
+		if (written == null) written = writer.submit(() -> { });
+		try {
+			written.get();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException ex) {
+			System.out.println("Persistence flush failure: " + ex.getCause());
+		}
+	}
+
+	// ============= Private Methods ============== //
+	/**
+	 * Appends a record to the journal in the order of the saves.
+	 */
+	void appendJournal(ProfileJournal journal, byte[] record) {
+		writer.execute(() -> journal.write(record));
+	}
+	/**
+	 * Replaces any pending save of the file and schedules the write.
+	 */
+	private synchronized void markDirty(String name, Pending pending) {
+		dirty.put(name, pending);
+		if (scheduled) return;
+		scheduled = true;
+		writer.schedule(() -> snapshotExecutor.execute(this::snapshot), delay, TimeUnit.MILLISECONDS);
+	}
+	/**
+	 * Serializes the dirty files on the calling thread and queues the writes.
+	 * @return the writes and null if nothing was dirty.
+	 */
+	private Future<?> snapshot() {
+		ArrayList<Pending> pendings;
+		synchronized (this) {
+			scheduled = false;
+			if (dirty.isEmpty()) return null;
+			pendings = new ArrayList<>(dirty.values());
+			dirty.clear();
+		}
+		ArrayList<BooleanSupplier> writes = new ArrayList<>(pendings.size());
+		for (Pending pending : pendings) writes.add(pending.snapshot.get());
+		return writer.submit(() -> {
+			for (int i = 0; i < writes.size(); i++) {
+				long start = System.nanoTime();
+				writes.get(i).getAsBoolean();
+				DeviceMetrics metrics = pendings.get(i).metrics;
+				if (metrics != null) metrics.recordSave(System.nanoTime() - start);
+			}
+		});
+	}
+
+	// ============= Internal Classes ============== //
+	/**
+	 * A save waiting to be written.
+	 */
+	private static class Pending {
+		/**
+		 * Serializes the model and returns the write.
+		 */
+		final Supplier<BooleanSupplier> snapshot;
+		final DeviceMetrics metrics;
+		Pending(Supplier<BooleanSupplier> snapshot, DeviceMetrics metrics) {
+			this.snapshot = snapshot;
+			this.metrics = metrics;
+		}
+	}
+
+	// ============= Static Methods ============== //
+	public static synchronized PersistenceService getPersistenceService() {
+		if (persistenceService == null)
+			persistenceService = new PersistenceService(XStreamManager.getStreamManager(), DEFAULT_DELAY);
+		return persistenceService;
+	}
+}
@@ -0,0 +1,360 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.io;
+
+// === kbmaster imports === //
+import com.monkygames.kbmaster.input.Keymap;
+import com.monkygames.kbmaster.input.Mapping;
+import com.monkygames.kbmaster.profiles.App;
+import com.monkygames.kbmaster.profiles.AppType;
+import com.monkygames.kbmaster.profiles.Profile;
+import com.monkygames.kbmaster.profiles.Root;
+import com.monkygames.kbmaster.profiles.RootManager;
+// === java imports === //
+import java.io.StreamCorruptedException;
+import java.util.function.Supplier;
+
+/**
+ * A typed change to the profiles of a device which is written to the
+ * {@link ProfileJournal}.
+ * <p>
+ * A change addresses its app and profile by name so it can be replayed on
+ * the root manager read from the store, and holds the previous value so it
+ * can be undone. Keymaps, mappings, apps and profiles are held encoded,
+ * and the stored logos of an app as references to their blobs.
+ * @version 1.0
+ */
+public class ProfileChange {
+
+	// ============= Class variables ============== //
+	static final int SET_MAPPING = 1, SET_KEYMAP = 2, SET_KEYMAP_DESCRIPTION = 3, SET_DEFAULT_KEYMAP = 4,
+		SET_PROFILE_INFO = 5, SET_APP_INFO = 6, ADD_APP = 7, REMOVE_APP = 8, ADD_PROFILE = 9, REMOVE_PROFILE = 10;
+	/**
+	 * The slot of a mapping in a keymap.
+	 */
+	static final int BUTTON = 1, JOYSTICK = 2, WHEEL_UP = 3, WHEEL_DOWN = 4;
+	/**
+	 * How a logo of an app is encoded.
+	 */
+	private static final int LOGO_NONE = 0, LOGO_INLINE = 1, LOGO_BLOB = 2;
+	private final int type;
+	private final AppType appType;
+	private final String appName, profileName;
+	/**
+	 * The keymap of the change.
+	 */
+	private final int index;
+	/**
+	 * The slot and the key of a mapping.
+	 */
+	private final int slot;
+	private final String key;
+	private final String text, previousText;
+	private final long value, previousValue;
+	private final byte[] data, previousData;
+
+	// ============= Constructors ============== //
+	private ProfileChange(int type, AppType appType, String appName, String profileName, int index, int slot, String key,
+		String text, String previousText, long value, long previousValue, byte[] data, byte[] previousData) {
+		this.type = type;
+		this.appType = appType;
+		this.appName = appName;
+		this.profileName = profileName;
+		this.index = index;
+		this.slot = slot;
+		this.key = key;
+		this.text = text;
+		this.previousText = previousText;
+		this.value = value;
+		this.previousValue = previousValue;
+		this.data = data;
+		this.previousData = previousData;
+	}
+
+	// ============= Public Methods ============== //
+	/**
+	 * Applies the change to the root manager.
+	 * @return true if applied and false if the app or profile was not found
+	 * or the change can not be decoded.
+	 */
+	public boolean apply(RootManager rootManager) {
+		App app = findApp(rootManager, appType, appName);
+		try {
+			switch (type) {
+				case ADD_APP:
+					return app == null && rootManager.addApp(decodeApp(data, ProfileStore.getBlobStore(rootManager)));
+				case REMOVE_APP:
+					return app != null && rootManager.removeApp(app);
+				case SET_APP_INFO:
+					if (app == null) return false;
+					app.setInfo(text);
+					return true;
+				case ADD_PROFILE:
+					if (app == null || app.doesProfileExist(profileName)) return false;
+					Profile added = decodeProfile(data, app);
+					rootManager.addProfile(app, added);
+					if (index >= 0 && index < app.getProfiles().size() - 1) {
+						app.removeProfile(added);
+						app.addProfile(index, added);
+					}
+					return true;
+				default:
+			}
+			Profile profile = app == null ? null : app.getProfile(profileName);
+			if (profile == null) return false;
+			switch (type) {
+				case REMOVE_PROFILE:
+					rootManager.removeProfile(app, profile);
+					return true;
+				case SET_PROFILE_INFO:
+					profile.setInfo(text);
+					profile.setLastUpdatedDate(value);
+					return true;
+				case SET_DEFAULT_KEYMAP:
+					profile.setDefaultKeymap((int) value);
+					return true;
+				case SET_KEYMAP:
+					profile.setKeymap(index, KeymapCodec.decode(data)[0]);
+					return true;
+				default:
+			}
+			Keymap keymap = profile.getKeymap(index);
+			if (keymap == null) return false;
+			if (type == SET_KEYMAP_DESCRIPTION) {
+				keymap.setDescription(text);
+				return true;
+			}
+			Mapping mapping = getMapping(keymap, slot, key);
+			Mapping changed = KeymapCodec.decodeMapping(data);
+			if (mapping == null || changed == null) return false;
+			// the mapping is shared with the clones of the keymap so it is replaced
+			return keymap.replaceMapping(mapping, mapping.withOutput(changed.getOutput(), changed.hasMapping()));
+		} catch (StreamCorruptedException | ArrayIndexOutOfBoundsException ex) {
+			System.out.println("Unable to apply the change to " + appName + ": " + ex.getMessage());
+			return false;
+		}
+	}
+	/**
+	 * Returns the change that undoes this change and null if it can not be undone.
+	 */
+	public ProfileChange inverse() {
+		switch (type) {
+			case ADD_APP: return with(REMOVE_APP);
+			case REMOVE_APP: return with(ADD_APP);
+			case ADD_PROFILE: return with(REMOVE_PROFILE);
+			case REMOVE_PROFILE: return with(ADD_PROFILE);
+			case SET_KEYMAP:
+				return previousData == null ? null : swapped();
+			default:
+				return swapped();
+		}
+	}
+	@Override
+	public String toString() {
+		return "ProfileChange[" + type + "," + appType + "," + appName + "," + profileName + "," + index + "]";
+	}
+
+	/**
+	 * Writes the change to the journal.
+	 */
+	void write(BinaryOutput output) {
+		output.writeByte(type);
+		output.writeEnum(appType);
+		output.writeString(appName);
+		output.writeString(profileName);
+		output.writeSignedVarInt(index);
+		output.writeVarInt(slot);
+		output.writeString(key);
+		output.writeString(text);
+		output.writeString(previousText);
+		output.writeVarLong(value);
+		output.writeVarLong(previousValue);
+		output.writeBlob(data);
+		output.writeBlob(previousData);
+	}
+
+	// ============= Private Methods ============== //
+	private ProfileChange with(int type) {
+		return new ProfileChange(type, appType, appName, profileName, index, slot, key,
+			text, previousText, value, previousValue, data, previousData);
+	}
+	/**
+	 * Returns the change with its previous and new values swapped.
+	 */
+	private ProfileChange swapped() {
+		return new ProfileChange(type, appType, appName, profileName, index, slot, key,
+			previousText, text, previousValue, value, previousData, data);
+	}
+	// ============= Static Methods ============== //
+	/**
+	 * Reads a change written with write.
+	 * @throws StreamCorruptedException if the change is not valid.
+	 */
+	static ProfileChange read(BinaryInput input) throws StreamCorruptedException {
+		int type = input.readByte();
+		if (type < SET_MAPPING || type > REMOVE_PROFILE) throw new StreamCorruptedException("Unknown change " + type);
+		return new ProfileChange(type, input.readEnum(AppType.values()), input.readString(), input.readString(),
+			input.readSignedVarInt(), input.readVarInt(), input.readString(), input.readString(), input.readString(),
+			input.readVarLong(), input.readVarLong(), input.readBlob(), input.readBlob());
+	}
+	static ProfileChange setMapping(App app, Profile profile, int index, int slot, String key, byte[] mapping, byte[] previous) {
+		return new ProfileChange(SET_MAPPING, app.getAppType(), app.getName(), profile.getProfileName(), index, slot, key,
+			null, null, 0, 0, mapping, previous);
+	}
+	/**
+	 * @param keymap the encoded keymap.
+	 * @param previous the previous encoded keymap and null if unknown.
+	 */
+	static ProfileChange setKeymap(App app, Profile profile, int index, byte[] keymap, byte[] previous) {
+		return new ProfileChange(SET_KEYMAP, app.getAppType(), app.getName(), profile.getProfileName(), index, 0, null,
+			null, null, 0, 0, keymap, previous);
+	}
+	static ProfileChange setKeymapDescription(App app, Profile profile, int index, String description, String previous) {
+		return new ProfileChange(SET_KEYMAP_DESCRIPTION, app.getAppType(), app.getName(), profile.getProfileName(), index, 0,
+			null, description, previous, 0, 0, null, null);
+	}
+	static ProfileChange setDefaultKeymap(App app, Profile profile, int defaultKeymap, int previous) {
+		return new ProfileChange(SET_DEFAULT_KEYMAP, app.getAppType(), app.getName(), profile.getProfileName(), 0, 0, null,
+			null, null, defaultKeymap, previous, null, null);
+	}
+	static ProfileChange setProfileInfo(App app, Profile profile, String previousInfo, long previousDate) {
+		return new ProfileChange(SET_PROFILE_INFO, app.getAppType(), app.getName(), profile.getProfileName(), 0, 0, null,
+			profile.getInfo(), previousInfo, profile.getLastUpdatedDate(), previousDate, null, null);
+	}
+	static ProfileChange setAppInfo(App app, String previous) {
+		return new ProfileChange(SET_APP_INFO, app.getAppType(), app.getName(), null, 0, 0, null,
+			app.getInfo(), previous, 0, 0, null, null);
+	}
+	/**
+	 * Adds the app with its logos and profiles.
+	 */
+	static ProfileChange addApp(App app) {
+		return new ProfileChange(ADD_APP, app.getAppType(), app.getName(), null, 0, 0, null,
+			null, null, 0, 0, encodeApp(app), null);
+	}
+	static ProfileChange removeApp(App app) {
+		return addApp(app).with(REMOVE_APP);
+	}
+	/**
+	 * @param index the position of the profile in the app.
+	 */
+	static ProfileChange addProfile(App app, Profile profile, int index) {
+		return new ProfileChange(ADD_PROFILE, app.getAppType(), app.getName(), profile.getProfileName(), index, 0, null,
+			null, null, 0, 0, encodeProfile(profile), null);
+	}
+	static ProfileChange removeProfile(App app, Profile profile, int index) {
+		return addProfile(app, profile, index).with(REMOVE_PROFILE);
+	}
+	/**
+	 * Returns the mapping in the slot and null if there is none.
+	 */
+	static Mapping getMapping(Keymap keymap, int slot, String key) {
+		switch (slot) {
+			case BUTTON: return keymap.getButtonMapping(key);
+			case JOYSTICK: return keymap.getJoystickMapping(key);
+			case WHEEL_UP: return keymap.getzUpWheelMapping();
+			case WHEEL_DOWN: return keymap.getzDownWheelMapping();
+			default: return null;
+		}
+	}
+	private static App findApp(RootManager rootManager, AppType appType, String appName) {
+		Root root = appType == AppType.APPLICATION ? rootManager.getAppsRoot() : rootManager.getGamesRoot();
+		return root.getApp(appName);
+	}
+	/**
+	 * Encodes the app, its logos and its profiles (the strings are inline
+	 * with their own table as the app is decoded on its own).
+	 */
+	private static byte[] encodeApp(App app) {
+		BinaryOutput body = new BinaryOutput(1024);
+		body.writeString(app.getInfo());
+		body.writeString(app.getDeviceName());
+		writeLogo(body, app.getAppLogoLoader(), app::getAppLogoBytes);
+		writeLogo(body, app.getDevLogoLoader(), app::getDevLogoBytes);
+		body.writeVarInt(app.getProfiles().size());
+		for (Profile profile : app.getProfiles()) body.writeBlob(encodeProfile(profile));
+		BinaryOutput output = new BinaryOutput(body.size() + 1024);
+		output.writeStringTable(body);
+		output.write(body);
+		return output.toByteArray();
+	}
+	/**
+	 * @param blobs the store of the blobs referenced and null if there is none.
+	 */
+	private App decodeApp(byte[] bytes, BlobStore blobs) throws StreamCorruptedException {
+		BinaryInput input = new BinaryInput(bytes);
+		input.readStringTable();
+		App app = new App(input.readString(), null, null, appName, input.readString(), appType);
+		Supplier<byte[]> appLogo = readLogo(input, blobs), devLogo = readLogo(input, blobs);
+		if (appLogo != null || devLogo != null) app.setLogoLoaders(appLogo, devLogo);
+		int profiles = input.readCount();
+		for (int i = 0; i < profiles; i++) app.addProfile(decodeProfile(input.readBlob(), app));
+		return app;
+	}
+	/**
+	 * Writes a stored logo as the reference to its blob and any other logo inline.
+	 */
+	private static void writeLogo(BinaryOutput output, Supplier<byte[]> loader, Supplier<byte[]> logo) {
+		if (loader instanceof BlobStore.Blob) {
+			BlobStore.Blob blob = (BlobStore.Blob) loader;
+			output.writeVarInt(LOGO_BLOB);
+			output.writeString(blob.getHash());
+			output.writeVarInt(blob.getLength());
+			return;
+		}
+		byte[] bytes = logo.get();
+		output.writeVarInt(bytes == null ? LOGO_NONE : LOGO_INLINE);
+		if (bytes != null) output.writeBlob(bytes);
+	}
+	/**
+	 * Reads a logo written with writeLogo.
+	 * @return the reader of the logo and null if there is none.
+	 */
+	private static Supplier<byte[]> readLogo(BinaryInput input, BlobStore blobs) throws StreamCorruptedException {
+		switch (input.readVarInt()) {
+			case LOGO_NONE:
+				return null;
+			case LOGO_INLINE:
+				byte[] bytes = input.readBlob();
+				return () -> bytes;
+			case LOGO_BLOB:
+				String hash = input.readString();
+				int length = input.readVarInt();
+				// the hash names a file, so a journal can not name another file
+				if (!BlobStore.isHash(hash)) throw new StreamCorruptedException("Invalid blob " + hash);
+				return blobs == null ? null : new BlobStore.Blob(blobs, hash, length);
+			default:
+				throw new StreamCorruptedException("Invalid logo");
+		}
+	}
+	/**
+	 * Encodes the profile with its keymaps.
+	 */
+	private static byte[] encodeProfile(Profile profile) {
+		BinaryOutput body = new BinaryOutput(256);
+		body.writeString(profile.getProfileName());
+		body.writeString(profile.getAuthor());
+		body.writeString(profile.getInfo());
+		body.writeVarLong(profile.getLastUpdatedDate());
+		body.writeSignedVarInt(profile.getDefaultKeymap());
+		BinaryOutput output = new BinaryOutput(body.size() + 4096);
+		output.writeStringTable(body);
+		output.write(body);
+		output.writeBlob(KeymapCodec.encode(profile.getKeymaps()));
+		return output.toByteArray();
+	}
+	private static Profile decodeProfile(byte[] bytes, App app) throws StreamCorruptedException {
+		if (bytes == null) throw new StreamCorruptedException("Missing profile");
+		BinaryInput input = new BinaryInput(bytes);
+		input.readStringTable();
+		Profile profile = new Profile(app, input.readString(), input.readString(), input.readString(),
+			input.readVarLong(), input.readSignedVarInt());
+		byte[] keymaps = input.readBlob();
+		if (keymaps == null) throw new StreamCorruptedException("Missing keymaps");
+		Keymap[] decoded = KeymapCodec.decode(keymaps);
+		profile.setKeymapLoader(() -> decoded);
+		profile.load();
+		return profile;
+	}
+}
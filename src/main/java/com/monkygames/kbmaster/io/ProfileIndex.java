@@ -0,0 +1,123 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.io;
+
+// === kbmaster imports === //
+import com.monkygames.kbmaster.input.Keymap;
+import com.monkygames.kbmaster.profiles.App;
+import com.monkygames.kbmaster.profiles.AppType;
+import com.monkygames.kbmaster.profiles.Profile;
+import com.monkygames.kbmaster.profiles.Root;
+import com.monkygames.kbmaster.profiles.RootManager;
+// === java imports === //
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.function.Supplier;
+
+/**
+ * Encodes the index of the profiles of a device: the roots, the apps and
+ * the profile headers with the location of the logos and keymaps.
+ * <p>
+ * The index starts with its string table. How a location is written is
+ * left to the store (an offset in a file or a shard).
+ * @version 1.0
+ */
+class ProfileIndex {
+
+	// ============= Class variables ============== //
+	private static final AppType[] ROOT_TYPES = { AppType.APPLICATION, AppType.GAME };
+
+	// ============= Constructors ============== //
+	private ProfileIndex() { }
+
+	// ============= Static Methods ============== //
+	/**
+	 * Encodes the index of the root manager.
+	 * @param locations writes the location of the logos and keymaps.
+	 */
+	static byte[] write(RootManager rootManager, LocationWriter locations) {
+		BinaryOutput index = new BinaryOutput(4096);
+		Root[] roots = { rootManager.getAppsRoot(), rootManager.getGamesRoot() };
+		for (Root root : roots) {
+			index.writeString(root.getName());
+			index.writeVarInt(root.getList().size());
+			for (App app : root.getList()) {
+				index.writeString(app.getName());
+				index.writeString(app.getInfo());
+				index.writeString(app.getDeviceName());
+				index.writeEnum(app.getAppType());
+				locations.writeLogos(index, app);
+				index.writeVarInt(app.getProfiles().size());
+				for (Profile profile : app.getProfiles()) {
+					index.writeString(profile.getProfileName());
+					index.writeString(profile.getAuthor());
+					index.writeString(profile.getInfo());
+					index.writeVarLong(profile.getLastUpdatedDate());
+					index.writeSignedVarInt(profile.getDefaultKeymap());
+					locations.writeKeymaps(index, profile);
+				}
+			}
+		}
+		BinaryOutput output = new BinaryOutput(index.size() + 1024);
+		output.writeStringTable(index);
+		output.write(index);
+		return output.toByteArray();
+	}
+	/**
+	 * Decodes the index into the root manager.
+	 * @param locations reads the location of the logos and keymaps.
+	 * @throws StreamCorruptedException if the index is not valid.
+	 */
+	static void read(byte[] bytes, RootManager rootManager, LocationReader locations) throws IOException {
+		BinaryInput index = new BinaryInput(bytes);
+		index.readStringTable();
+		Root[] roots = { rootManager.getAppsRoot(), rootManager.getGamesRoot() };
+		for (int r = 0; r < roots.length; r++) {
+			String name = index.readString();
+			if (name != null) roots[r].setName(name);
+			int apps = index.readCount();
+			for (int i = 0; i < apps; i++) {
+				String appName = index.readString();
+				String info = index.readString();
+				String deviceName = index.readString();
+				AppType appType = index.readEnum(AppType.values());
+				if (appType != ROOT_TYPES[r]) throw new StreamCorruptedException("Invalid app type " + appType);
+				App app = new App(info, null, null, appName, deviceName, appType);
+				Supplier<byte[]> appLogo = locations.readLogo(index, app, false);
+				Supplier<byte[]> devLogo = locations.readLogo(index, app, true);
+				if (appLogo != null || devLogo != null) app.setLogoLoaders(appLogo, devLogo);
+				int profiles = index.readCount();
+				for (int j = 0; j < profiles; j++) {
+					Profile profile = new Profile(app, index.readString(), index.readString(), index.readString(),
+						index.readVarLong(), index.readSignedVarInt());
+					profile.setKeymapLoader(locations.readKeymaps(index, profile));
+					app.addProfile(profile);
+				}
+				roots[r].addApp(app);
+			}
+		}
+	}
+
+	// ============= Internal Classes ============== //
+	/**
+	 * Writes the location of the logos and keymaps to the index.
+	 */
+	interface LocationWriter {
+		void writeLogos(BinaryOutput index, App app);
+		void writeKeymaps(BinaryOutput index, Profile profile);
+	}
+	/**
+	 * Reads the location of the logos and keymaps from the index.
+	 */
+	interface LocationReader {
+		/**
+		 * @return the loader of the logo and null if there is none.
+		 */
+		Supplier<byte[]> readLogo(BinaryInput index, App app, boolean devLogo) throws IOException;
+		/**
+		 * @return the loader of the keymaps (never null).
+		 */
+		Supplier<Keymap[]> readKeymaps(BinaryInput index, Profile profile) throws IOException;
+	}
+}
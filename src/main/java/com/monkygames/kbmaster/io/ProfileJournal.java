@@ -0,0 +1,468 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.io;
+
+// === kbmaster imports === //
+import com.monkygames.kbmaster.input.Keymap;
+import com.monkygames.kbmaster.input.Mapping;
+import com.monkygames.kbmaster.profiles.App;
+import com.monkygames.kbmaster.profiles.Profile;
+import com.monkygames.kbmaster.profiles.Root;
+import com.monkygames.kbmaster.profiles.RootManager;
+// === java imports === //
+import java.io.File;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An append-only journal of the changes to the profiles of a device, which
+ * is kept next to the manifest of the {@link ProfileStore}.
+ * <p>
+ * A save compares the model with the state of the last save and appends
+ * the changes as one record (the length, the CRC32 and the changes), so an
+ * edit writes a few bytes instead of the profile. Only the keymaps replaced
+ * or changed since the last save (see {@link Keymap#getModifications}) are
+ * encoded and compared. The journal is folded
+ * into the store by a compaction (see {@link PersistenceService}) after
+ * {@link #COMPACT_CHANGES} changes and when the device is closed, and is
+ * replayed on the store when the device is opened. A record that was not
+ * completely written is dropped.
+ * <p>
+ * The saves since the device was opened can be undone; an undo is
+ * appended as the inverse changes.
+ * Must be used on the thread that owns the model.
+ * @version 1.0
+ */
+public class ProfileJournal {
+
+	// ============= Class variables ============== //
+	/**
+	 * The name of the journal in the directory of a device.
+	 */
+	public static final String JOURNAL = "journal.kbj";
+	/**
+	 * The number of changes appended before the journal is compacted.
+	 */
+	public static final int COMPACT_CHANGES = 100;
+	/**
+	 * The number of saves that can be undone.
+	 */
+	public static final int UNDO_LIMIT = 100;
+	private static final byte[] MAGIC = "KBMJ".getBytes(StandardCharsets.US_ASCII);
+	/**
+	 * Version 1 stored the logos of an app inline.
+	 */
+	private static final int VERSION = 2;
+	/**
+	 * The record length and crc.
+	 */
+	private static final int RECORD_HEADER_SIZE = 4 + 4;
+	private final File file;
+	private final RootManager rootManager;
+	/**
+	 * The saves that can be undone, the last save first.
+	 */
+	private final ArrayDeque<ArrayList<ProfileChange>> history;
+	/**
+	 * The state of the apps and profiles at the last save.
+	 */
+	private final IdentityHashMap<App, AppState> apps;
+	private final IdentityHashMap<Profile, ProfileState> profiles;
+	/**
+	 * The changes appended since the last compaction.
+	 */
+	private int changes;
+
+	// ============= Constructors ============== //
+	/**
+	 * @param directory the directory of the device in the store.
+	 * @param rootManager the profiles read from the store.
+	 */
+	public ProfileJournal(File directory, RootManager rootManager) {
+		this.file = new File(directory, JOURNAL);
+		this.rootManager = rootManager;
+		history = new ArrayDeque<>();
+		apps = new IdentityHashMap<>();
+		profiles = new IdentityHashMap<>();
+	}
+
+	// ============= Public Methods ============== //
+	/**
+	 * Applies the changes in the journal to the root manager, which must
+	 * be as read from the store. A record that was not completely written
+	 * is truncated.
+	 * @return the number of changes applied.
+	 */
+	public int replay() {
+		int applied = 0;
+		if (file.exists()) {
+			try {
+				applied = replayFile();
+			} catch (IOException ex) {
+				System.out.println("Read error (" + file.getName() + "): " + ex.getMessage());
+				file.renameTo(new File(file.getPath() + AtomicFile.CORRUPT_EXTENSION));
+			}
+		}
+		capture();
+		return applied;
+	}
+	/**
+	 * Appends the changes since the last save.
+	 * @return true if there were changes.
+	 */
+	public boolean save() {
+		ArrayList<ProfileChange> batch = diff();
+		if (batch.isEmpty()) return false;
+		push(batch);
+		append(batch, false);
+		return true;
+	}
+	/**
+	 * Saves and then undoes the last save.
+	 * @return true if a save was undone and false if there is none.
+	 */
+	public boolean undo() {
+		save();
+		ArrayList<ProfileChange> batch = history.pollFirst();
+		if (batch == null) return false;
+		ArrayList<ProfileChange> inverse = new ArrayList<>(batch.size());
+		for (int i = batch.size() - 1; i >= 0; i--) {
+			ProfileChange change = batch.get(i).inverse();
+			if (change != null && change.apply(rootManager)) inverse.add(change);
+		}
+		capture();
+		if (!inverse.isEmpty()) append(inverse, true);
+		return true;
+	}
+	/**
+	 * Returns true if the journal should be compacted.
+	 */
+	public boolean needsCompaction() {
+		return changes >= COMPACT_CHANGES;
+	}
+	/**
+	 * Returns true if no changes were appended since the last compaction.
+	 */
+	public boolean isEmpty() {
+		return changes == 0;
+	}
+
+	// ============= Private Methods ============== //
+	/**
+	 * Called when the root manager is serialized for a compaction.
+	 */
+	void compacted() {
+		changes = 0;
+	}
+	/**
+	 * Appends a record on the writer thread and syncs the journal.
+	 */
+	void write(byte[] record) {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+			StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			ByteBuffer buffer;
+			if (channel.size() == 0) {
+				buffer = ByteBuffer.allocate(MAGIC.length + 1 + record.length);
+				buffer.put(MAGIC).put((byte) VERSION);
+			} else buffer = ByteBuffer.allocate(record.length);
+			buffer.put(record).flip();
+			while (buffer.hasRemaining()) channel.write(buffer);
+			channel.force(false);
+		} catch (IOException ex) {
+			System.out.println("Write failure (" + file.getName() + "): " + ex.getMessage());
+		}
+	}
+	/**
+	 * Deletes the journal once the store is written, on the writer thread.
+	 */
+	void truncate() {
+		try {
+			Files.deleteIfExists(file.toPath());
+		} catch (IOException ex) {
+			System.out.println("Write failure (" + file.getName() + "): " + ex.getMessage());
+		}
+	}
+	/**
+	 * Encodes the changes as a record and queues it.
+	 */
+	private void append(ArrayList<ProfileChange> batch, boolean undo) {
+		BinaryOutput body = new BinaryOutput(256);
+		body.writeBoolean(undo);
+		body.writeVarInt(batch.size());
+		for (ProfileChange change : batch) change.write(body);
+		BinaryOutput payload = new BinaryOutput(body.size() + 256);
+		payload.writeStringTable(body);
+		payload.write(body);
+		byte[] bytes = payload.toByteArray();
+		ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + bytes.length);
+		record.putInt(bytes.length).putInt((int) ProfileStore.crc(bytes)).put(bytes);
+		changes += batch.size();
+		PersistenceService.getPersistenceService().appendJournal(this, record.array());
+	}
+	private void push(ArrayList<ProfileChange> batch) {
+		history.addFirst(batch);
+		if (history.size() > UNDO_LIMIT) history.removeLast();
+	}
+	/**
+	 * Applies the records of the journal and rebuilds the history.
+	 */
+	private int replayFile() throws IOException {
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		int header = MAGIC.length + 1;
+		if (bytes.length < header || !Arrays.equals(Arrays.copyOf(bytes, MAGIC.length), MAGIC))
+			throw new StreamCorruptedException("Not a profile journal");
+		if (bytes[MAGIC.length] != VERSION) throw new IOException("Profile journal version " + bytes[MAGIC.length] + " is not supported");
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		int position = header;
+		int applied = 0;
+		while (position < bytes.length) {
+			ArrayList<ProfileChange> batch;
+			boolean undo;
+			try {
+				if (bytes.length - position < RECORD_HEADER_SIZE) throw new StreamCorruptedException("Truncated record");
+				int length = buffer.getInt(position);
+				if (length < 0 || length > bytes.length - position - RECORD_HEADER_SIZE)
+					throw new StreamCorruptedException("Truncated record");
+				byte[] payload = Arrays.copyOfRange(bytes, position + RECORD_HEADER_SIZE, position + RECORD_HEADER_SIZE + length);
+				if ((int) ProfileStore.crc(payload) != buffer.getInt(position + 4))
+					throw new StreamCorruptedException("Record checksum mismatch");
+				BinaryInput input = new BinaryInput(payload);
+				input.readStringTable();
+				undo = input.readBoolean();
+				int count = input.readCount();
+				batch = new ArrayList<>(count);
+				for (int i = 0; i < count; i++) batch.add(ProfileChange.read(input));
+				position += RECORD_HEADER_SIZE + length;
+			} catch (StreamCorruptedException ex) {
+				// a crash while appending leaves a partial record at the end
+				System.out.println("Dropped the end of " + file.getName() + ": " + ex.getMessage());
+				try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+					channel.truncate(position);
+				}
+				break;
+			}
+			for (ProfileChange change : batch) {
+				if (change.apply(rootManager)) applied++;
+				else System.out.println("Unable to replay " + change);
+			}
+			changes += batch.size();
+			if (!undo) push(batch);
+			else history.pollFirst();
+		}
+		return applied;
+	}
+	/**
+	 * Keeps the state of the apps and profiles as the last save.
+	 */
+	private void capture() {
+		apps.clear();
+		profiles.clear();
+		for (Root root : getRoots()) {
+			for (App app : root.getList()) {
+				apps.put(app, new AppState(app));
+				for (Profile profile : app.getProfiles()) profiles.put(profile, new ProfileState(app, profile));
+			}
+		}
+	}
+	/**
+	 * Compares the model with the last save and updates the last save.
+	 * @return the changes, which may be empty.
+	 */
+	private ArrayList<ProfileChange> diff() {
+		ArrayList<ProfileChange> batch = new ArrayList<>();
+		IdentityHashMap<App, App> current = new IdentityHashMap<>();
+		IdentityHashMap<Profile, App> currentProfiles = new IdentityHashMap<>();
+		for (Root root : getRoots()) {
+			for (App app : root.getList()) {
+				current.put(app, app);
+				for (Profile profile : app.getProfiles()) currentProfiles.put(profile, app);
+			}
+		}
+		// removed apps with their profiles, then removed profiles
+		for (App app : new ArrayList<>(apps.keySet())) {
+			if (current.containsKey(app)) continue;
+			batch.add(ProfileChange.removeApp(app));
+			apps.remove(app);
+			profiles.values().removeIf(state -> state.app == app);
+		}
+		for (Map.Entry<Profile, ProfileState> entry : new ArrayList<>(profiles.entrySet())) {
+			Profile profile = entry.getKey();
+			App app = entry.getValue().app;
+			if (currentProfiles.get(profile) == app) continue;
+			batch.add(ProfileChange.removeProfile(app, profile, apps.get(app).profiles.indexOf(profile)));
+			profiles.remove(profile);
+		}
+		// added apps with their profiles, then added profiles
+		for (App app : current.keySet()) {
+			if (apps.containsKey(app)) continue;
+			batch.add(ProfileChange.addApp(app));
+			apps.put(app, new AppState(app));
+			for (Profile profile : app.getProfiles()) profiles.put(profile, new ProfileState(app, profile));
+		}
+		for (Map.Entry<Profile, App> entry : currentProfiles.entrySet()) {
+			if (profiles.containsKey(entry.getKey())) continue;
+			batch.add(ProfileChange.addProfile(entry.getValue(), entry.getKey(), entry.getValue().getProfiles().indexOf(entry.getKey())));
+			profiles.put(entry.getKey(), new ProfileState(entry.getValue(), entry.getKey()));
+		}
+		// edits
+		for (App app : current.keySet()) {
+			AppState state = apps.get(app);
+			state.profiles = new ArrayList<>(app.getProfiles());
+			if (Objects.equals(state.info, app.getInfo())) continue;
+			batch.add(ProfileChange.setAppInfo(app, state.info));
+			state.info = app.getInfo();
+		}
+		for (Map.Entry<Profile, ProfileState> entry : profiles.entrySet()) {
+			diffProfile(entry.getKey(), entry.getValue(), batch);
+		}
+		return batch;
+	}
+	private void diffProfile(Profile profile, ProfileState state, ArrayList<ProfileChange> batch) {
+		App app = state.app;
+		if (!Objects.equals(state.info, profile.getInfo()) || state.lastUpdated != profile.getLastUpdatedDate()) {
+			batch.add(ProfileChange.setProfileInfo(app, profile, state.info, state.lastUpdated));
+			state.info = profile.getInfo();
+			state.lastUpdated = profile.getLastUpdatedDate();
+		}
+		if (state.defaultKeymap != profile.getDefaultKeymap()) {
+			batch.add(ProfileChange.setDefaultKeymap(app, profile, profile.getDefaultKeymap(), state.defaultKeymap));
+			state.defaultKeymap = profile.getDefaultKeymap();
+		}
+		// the keymaps of a profile that has not been read did not change
+		if (profile.getKeymapLoader() != null || profile.getKeymaps() == null) return;
+		Keymap[] keymaps = profile.getKeymaps();
+		if (state.keymaps == null) state.keymaps = encodeEach(ProfileStore.getProfileStore().readKeymaps(rootManager, profile));
+		if (state.keymaps == null || state.keymaps.length != keymaps.length)
+			state.keymaps = Arrays.copyOf(state.keymaps == null ? new byte[0][] : state.keymaps, keymaps.length);
+		if (state.seen == null || state.seen.length != keymaps.length) {
+			state.seen = new Keymap[keymaps.length];
+			state.modifications = new int[keymaps.length];
+		}
+		for (int i = 0; i < keymaps.length; i++) {
+			// only the keymaps replaced or changed since the last save are encoded
+			Keymap keymap = keymaps[i];
+			if (keymap == state.seen[i] && (keymap == null || keymap.getModifications() == state.modifications[i])) continue;
+			state.seen[i] = keymap;
+			state.modifications[i] = keymap == null ? 0 : keymap.getModifications();
+			byte[] encoded = keymap == null ? null : KeymapCodec.encode(new Keymap[] { keymap });
+			byte[] previous = state.keymaps[i];
+			if (Arrays.equals(encoded, previous)) continue;
+			if (encoded != null && !diffKeymap(app, profile, i, keymap, previous, batch))
+				batch.add(ProfileChange.setKeymap(app, profile, i, encoded, previous));
+			state.keymaps[i] = encoded;
+		}
+	}
+	/**
+	 * Adds the changes of the description and the mappings of a keymap.
+	 * @return false if the keymap has other slots than the previous keymap.
+	 */
+	private boolean diffKeymap(App app, Profile profile, int index, Keymap keymap, byte[] encoded, ArrayList<ProfileChange> batch) {
+		if (encoded == null) return false;
+		Keymap previous;
+		try {
+			previous = KeymapCodec.decode(encoded)[0];
+		} catch (StreamCorruptedException ex) {
+			return false;
+		}
+		if (previous == null
+			|| !keymap.getButtonMappings().keySet().equals(previous.getButtonMappings().keySet())
+			|| !keymap.getJoystickMappings().keySet().equals(previous.getJoystickMappings().keySet())
+			|| (keymap.getzUpWheelMapping() == null) != (previous.getzUpWheelMapping() == null)
+			|| (keymap.getzDownWheelMapping() == null) != (previous.getzDownWheelMapping() == null)) return false;
+		if (!Objects.equals(keymap.getDescription(), previous.getDescription()))
+			batch.add(ProfileChange.setKeymapDescription(app, profile, index, keymap.getDescription(), previous.getDescription()));
+		for (String key : keymap.getButtonMappings().keySet())
+			diffMapping(app, profile, index, ProfileChange.BUTTON, key, keymap, previous, batch);
+		for (String key : keymap.getJoystickMappings().keySet())
+			diffMapping(app, profile, index, ProfileChange.JOYSTICK, key, keymap, previous, batch);
+		diffMapping(app, profile, index, ProfileChange.WHEEL_UP, null, keymap, previous, batch);
+		diffMapping(app, profile, index, ProfileChange.WHEEL_DOWN, null, keymap, previous, batch);
+		return true;
+	}
+	private void diffMapping(App app, Profile profile, int index, int slot, String key, Keymap keymap, Keymap previous,
+		ArrayList<ProfileChange> batch) {
+		Mapping mapping = ProfileChange.getMapping(keymap, slot, key);
+		if (mapping == null) return;
+		byte[] encoded = KeymapCodec.encodeMapping(mapping);
+		byte[] previousEncoded = KeymapCodec.encodeMapping(ProfileChange.getMapping(previous, slot, key));
+		if (!Arrays.equals(encoded, previousEncoded))
+			batch.add(ProfileChange.setMapping(app, profile, index, slot, key, encoded, previousEncoded));
+	}
+	private Root[] getRoots() {
+		return new Root[] { rootManager.getAppsRoot(), rootManager.getGamesRoot() };
+	}
+
+	// ============= Internal Classes ============== //
+	/**
+	 * The state of an app at the last save.
+	 */
+	private static class AppState {
+		String info;
+		/**
+		 * The profiles in order, so a removed profile is restored in place.
+		 */
+		ArrayList<Profile> profiles;
+		AppState(App app) {
+			info = app.getInfo();
+			profiles = new ArrayList<>(app.getProfiles());
+		}
+	}
+	/**
+	 * The state of a profile at the last save.
+	 */
+	private static class ProfileState {
+		final App app;
+		String info;
+		long lastUpdated;
+		int defaultKeymap;
+		/**
+		 * The encoded keymaps and null until the keymaps are read.
+		 */
+		byte[][] keymaps;
+		/**
+		 * The keymaps encoded and their modifications at the last save.
+		 */
+		Keymap[] seen;
+		int[] modifications;
+		ProfileState(App app, Profile profile) {
+			this.app = app;
+			info = profile.getInfo();
+			lastUpdated = profile.getLastUpdatedDate();
+			defaultKeymap = profile.getDefaultKeymap();
+			if (profile.getKeymapLoader() == null && profile.getKeymaps() != null) {
+				Keymap[] current = profile.getKeymaps();
+				keymaps = encodeEach(current);
+				seen = current.clone();
+				modifications = new int[current.length];
+				for (int i = 0; i < current.length; i++)
+					if (current[i] != null) modifications[i] = current[i].getModifications();
+			}
+		}
+	}
+
+	// ============= Static Methods ============== //
+	/**
+	 * Encodes each keymap on its own.
+	 * @return the encoded keymaps and null if there are none.
+	 */
+	private static byte[][] encodeEach(Keymap[] keymaps) {
+		if (keymaps == null) return null;
+		byte[][] encoded = new byte[keymaps.length][];
+		for (int i = 0; i < keymaps.length; i++) {
+			if (keymaps[i] != null) encoded[i] = KeymapCodec.encode(new Keymap[] { keymaps[i] });
+		}
+		return encoded;
+	}
+}
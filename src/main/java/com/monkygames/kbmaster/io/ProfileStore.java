@@ -0,0 +1,657 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.io;
+
+// === kbmaster imports === //
+import com.monkygames.kbmaster.cloud.metadata.MetaData;
+import com.monkygames.kbmaster.input.Keymap;
+import com.monkygames.kbmaster.profiles.App;
+import com.monkygames.kbmaster.profiles.AppType;
+import com.monkygames.kbmaster.profiles.Profile;
+import com.monkygames.kbmaster.profiles.Root;
+import com.monkygames.kbmaster.profiles.RootManager;
+// === java imports === //
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Stores the profiles of a device in a directory of shards.
+ * <p>
+ * The keymaps of each profile are stored in their own shard file which is
+ * named with the id and the version of the shard, so a shard is never
+ * modified: a change is written as the next version with a new random id,
+ * so a shard name is unique across the computers syncing the profiles. The logos are stored
+ * once for every device in the {@link BlobStore}. The manifest
+ * starts with a fixed header (magic, version, the sync time of the meta
+ * data and the index length and CRC32) followed by the index, which holds
+ * the roots, the apps and the profile headers with a reference to their
+ * shards and blobs. Only the manifest is read when the directory is opened; the
+ * keymaps of a profile are read when the profile is first used and the
+ * logos each time they are shown.
+ * <p>
+ * A save writes the shards that changed and then the manifest, so a save
+ * and a sync only touch the profiles that changed. The shards no longer
+ * referenced by the manifest or its backup are deleted. The keymaps of a
+ * shard that is missing or corrupted are restored from the shard referenced
+ * by the backup of the manifest, or else set to the defaults of the device.
+ * <p>
+ * The profiles stored as xml by earlier versions are migrated when the
+ * directory does not exist. Profiles are still imported and exported as
+ * xml with {@link XStreamManager}.
+ * @version 1.0
+ */
+public class ProfileStore {
+
+	// ============= Class variables ============== //
+	/**
+	 * Singleton.
+	 */
+	private static ProfileStore profileStore;
+	/**
+	 * The name of the manifest in the directory of a device.
+	 */
+	public static final String MANIFEST = "manifest.kbm";
+	public static final String SHARD_EXTENSION = ".kbs";
+	private static final byte[] MAGIC = "KBMM".getBytes(StandardCharsets.US_ASCII);
+	/**
+	 * Version 1 stored the logos in shards.
+	 */
+	private static final int VERSION = 2;
+	/**
+	 * magic, version, last sync, index length and index crc.
+	 */
+	private static final int HEADER_SIZE = 4 + 1 + 8 + 4 + 4;
+
+	// ============= Public Methods ============== //
+	/**
+	 * Reads the root manager from the directory and migrates the profiles
+	 * of earlier versions if the directory has no manifest.
+	 * If the directory can not be read, a new root manager is returned.
+	 */
+	public RootManager readRootManager(File directory) {
+		return readRootManager(directory, null);
+	}
+	/**
+	 * Reads the root manager from the directory, where the keymaps of a
+	 * profile that can not be read are restored from the backup of the
+	 * manifest or else set to the defaults.
+	 * @param defaultKeymaps sets the default keymaps of a profile and may be null.
+	 */
+	public RootManager readRootManager(File directory, Consumer<Profile> defaultKeymaps) {
+		File manifest = new File(directory, MANIFEST);
+		if (!manifest.exists()) migrate(directory);
+		RootManager rootManager = AtomicFile.read(manifest, file -> readManifest(directory, file));
+		if (rootManager == null) {
+			rootManager = new RootManager();
+			rootManager.setSource(new DeviceStore(directory));
+		}
+		((DeviceStore) rootManager.getSource()).defaultKeymaps = defaultKeymaps;
+		return rootManager;
+	}
+	/**
+	 * Writes the root manager to the directory.
+	 * @return true on success and false otherwise.
+	 */
+	public boolean writeRootManager(File directory, RootManager rootManager) {
+		return snapshot(directory, rootManager).getAsBoolean();
+	}
+	/**
+	 * Reads only the meta data from the header of the manifest.
+	 * @return the meta data and null if the manifest can not be read.
+	 */
+	public MetaData readMetaData(File directory) {
+		try {
+			byte[] manifest = Files.readAllBytes(new File(directory, MANIFEST).toPath());
+			return new MetaData(readHeader(manifest).getLong(5));
+		} catch (IOException ex) {
+			return null;
+		}
+	}
+	/**
+	 * Sets the meta data of the manifest without reading the profiles.
+	 * @return true on success and false otherwise.
+	 */
+	public boolean writeMetaData(File directory, MetaData metaData) {
+		return replaceManifest(directory, new File(directory, MANIFEST), metaData);
+	}
+	/**
+	 * Replaces the manifest of the directory with the manifest read from the
+	 * file and sets its meta data. The file is deleted.
+	 * @return true on success and false if the file is not a valid manifest.
+	 */
+	public boolean replaceManifest(File directory, File file, MetaData metaData) {
+		try {
+			byte[] manifest = Files.readAllBytes(file.toPath());
+			readHeader(manifest).putLong(5, metaData.lastSync);
+			if (!AtomicFile.write(new File(directory, MANIFEST), manifest)) return false;
+			if (!file.getName().equals(MANIFEST)) Files.deleteIfExists(file.toPath());
+			return true;
+		} catch (IOException ex) {
+			System.out.println("Read error (" + file.getName() + "): " + ex.getMessage());
+			return false;
+		}
+	}
+	/**
+	 * Returns the names of the shards referenced by the manifest file.
+	 * @return the names and null if the manifest can not be read.
+	 */
+	public Set<String> readShardNames(File manifest) {
+		try {
+			RootManager rootManager = readManifest(manifest.getParentFile(), manifest);
+			Set<String> names = ((DeviceStore) rootManager.getSource()).committed;
+			rootManager.close();
+			return names;
+		} catch (IOException ex) {
+			return null;
+		}
+	}
+	/**
+	 * Returns the names of the blobs referenced by the manifest file.
+	 * @return the names and null if the manifest can not be read.
+	 */
+	public Set<String> readBlobNames(File manifest) {
+		try {
+			RootManager rootManager = readManifest(manifest.getParentFile(), manifest);
+			Set<String> names = ((DeviceStore) rootManager.getSource()).blobNames;
+			rootManager.close();
+			return names;
+		} catch (IOException ex) {
+			return null;
+		}
+	}
+	/**
+	 * Deletes the blobs that are not referenced by the manifest (or its
+	 * backup) of a device in the profile directory. Nothing is deleted if a
+	 * manifest can not be read. Must not be called while the store is written.
+	 * @return the number of blobs deleted.
+	 */
+	public int collectBlobs(File profileDirectory) {
+		File[] directories = profileDirectory.listFiles(file -> file.isDirectory() && !file.getName().equals(BlobStore.DIRECTORY));
+		if (directories == null) return 0;
+		HashSet<String> referenced = new HashSet<>();
+		for (File directory : directories) {
+			for (String name : new String[] { MANIFEST, MANIFEST + AtomicFile.BACKUP_EXTENSION }) {
+				File manifest = new File(directory, name);
+				if (!manifest.exists()) continue;
+				Set<String> names = readBlobNames(manifest);
+				if (names == null) return 0;
+				referenced.addAll(names);
+			}
+		}
+		return new BlobStore(new File(profileDirectory, BlobStore.DIRECTORY)).collect(referenced);
+	}
+	/**
+	 * Reads the keymaps of the profile as last stored, which may differ
+	 * from the keymaps of the profile once it is read.
+	 * @return the keymaps and null if the profile is not stored or can not be read.
+	 */
+	public Keymap[] readKeymaps(RootManager rootManager, Profile profile) {
+		if (!(rootManager.getSource() instanceof DeviceStore)) return null;
+		DeviceStore store = (DeviceStore) rootManager.getSource();
+		Shard shard = store.keymaps.get(profile);
+		if (shard == null || !shard.written) return null;
+		try {
+			return new ShardKeymaps(new ShardLoader(store, shard)).get();
+		} catch (IllegalStateException ex) {
+			System.out.println(ex.getMessage());
+			return null;
+		}
+	}
+	/**
+	 * Returns the store of the blobs of the root manager and null if it
+	 * was not read from a store.
+	 */
+	static BlobStore getBlobStore(RootManager rootManager) {
+		if (!(rootManager.getSource() instanceof DeviceStore)) return null;
+		return ((DeviceStore) rootManager.getSource()).blobs;
+	}
+	/**
+	 * Serializes the changes of the root manager and returns the write.
+	 * The keymaps and logos that have not been read are not copied and only
+	 * the shards that changed are written.
+	 * Must be called on the thread that owns the model.
+	 * @return writes the changed shards and the manifest and returns true on success.
+	 */
+	BooleanSupplier snapshot(File directory, RootManager rootManager) {
+		DeviceStore store = null;
+		if (rootManager.getSource() instanceof DeviceStore) store = (DeviceStore) rootManager.getSource();
+		if (store == null || !store.directory.equals(directory)) {
+			store = new DeviceStore(directory);
+			if (rootManager.getSource() == null) rootManager.setSource(store);
+		}
+		Snapshot snapshot = new Snapshot(store);
+		byte[] index = ProfileIndex.write(rootManager, snapshot);
+		store.keymaps = snapshot.keymaps;
+		store.blobHashes = snapshot.blobHashes;
+		ByteBuffer manifest = ByteBuffer.allocate(HEADER_SIZE + index.length);
+		manifest.put(MAGIC);
+		manifest.put((byte) VERSION);
+		manifest.putLong(rootManager.getMetaData() == null ? 0 : rootManager.getMetaData().lastSync);
+		manifest.putInt(index.length);
+		manifest.putInt((int) crc(index));
+		manifest.put(index);
+		DeviceStore target = store;
+		return () -> target.commit(manifest.array(), snapshot);
+	}
+
+	// ============= Private Methods ============== //
+	/**
+	 * Writes the profiles stored as xml next to the directory to the
+	 * directory. The xml file is kept.
+	 */
+	private void migrate(File directory) {
+		File xmlFile = new File(directory.getPath() + ".xml");
+		if (!xmlFile.exists()) return;
+		RootManager rootManager = XStreamManager.getStreamManager().readRootManager(xmlFile.getPath());
+		if (rootManager == null) return;
+		try {
+			writeRootManager(directory, rootManager);
+		} finally {
+			rootManager.close();
+		}
+	}
+	/**
+	 * Reads the header and index of the manifest.
+	 */
+	private RootManager readManifest(File directory, File file) throws IOException {
+		byte[] manifest = Files.readAllBytes(file.toPath());
+		ByteBuffer header = readHeader(manifest);
+		if (header.getInt(13) != manifest.length - HEADER_SIZE) throw new StreamCorruptedException("Invalid index");
+		byte[] indexBytes = Arrays.copyOfRange(manifest, HEADER_SIZE, manifest.length);
+		if ((int) crc(indexBytes) != header.getInt(17)) throw new StreamCorruptedException("Index checksum mismatch");
+		RootManager rootManager = new RootManager();
+		rootManager.setMetaData(new MetaData(header.getLong(5)));
+		DeviceStore store = new DeviceStore(directory);
+		HashSet<String> names = new HashSet<>();
+		HashSet<String> blobNames = new HashSet<>();
+		int version = header.get(4);
+		Function<Profile, Keymap[]> fallback = profile -> restoreKeymaps(store, profile);
+		ProfileIndex.read(indexBytes, rootManager, new ProfileIndex.LocationReader() {
+			@Override
+			public Supplier<byte[]> readLogo(BinaryInput index, App app, boolean devLogo) throws IOException {
+				if (version == 1) {
+					Shard shard = readReference(index);
+					if (shard == null) return null;
+					names.add(shard.getName());
+					return new ShardLoader(store, shard);
+				}
+				BlobStore.Blob blob = readBlobReference(index, store.blobs);
+				if (blob == null) return null;
+				store.blobHashes.put(blob, blob);
+				blobNames.add(blob.getName());
+				return blob;
+			}
+			@Override
+			public Supplier<Keymap[]> readKeymaps(BinaryInput index, Profile profile) throws IOException {
+				Shard shard = readReference(index);
+				if (shard == null) throw new StreamCorruptedException("Missing keymaps");
+				store.keymaps.put(profile, shard);
+				names.add(shard.getName());
+				profile.setKeymapFallback(fallback);
+				return new ShardKeymaps(new ShardLoader(store, shard));
+			}
+		});
+		store.committed = Collections.unmodifiableSet(names);
+		store.blobNames = Collections.unmodifiableSet(blobNames);
+		rootManager.setSource(store);
+		return rootManager;
+	}
+	/**
+	 * Reads the keymaps of a profile that can not be read from the backup of
+	 * the manifest, or else the default keymaps of the store.
+	 * @return the keymaps and null if there are none.
+	 */
+	private Keymap[] restoreKeymaps(DeviceStore store, Profile profile) {
+		File backup = new File(store.directory, MANIFEST + AtomicFile.BACKUP_EXTENSION);
+		if (backup.exists()) {
+			RootManager rootManager = null;
+			try {
+				rootManager = readManifest(store.directory, backup);
+				Root root = profile.getAppInfo().getAppType() == AppType.APPLICATION ? rootManager.getAppsRoot() : rootManager.getGamesRoot();
+				App app = root.getApp(profile.getAppInfo().getName());
+				Profile previous = app == null ? null : app.getProfile(profile.getProfileName());
+				if (previous != null && previous.getKeymapLoader() != null) {
+					Keymap[] keymaps = previous.getKeymapLoader().get();
+					System.out.println("Restored the keymaps of " + profile.getProfileName() + " from " + backup.getName());
+					return keymaps;
+				}
+			} catch (IOException | IllegalStateException ex) {
+				System.out.println("Read error (" + backup.getName() + "): " + ex.getMessage());
+			} finally {
+				if (rootManager != null) rootManager.close();
+			}
+		}
+		Consumer<Profile> defaultKeymaps = store.defaultKeymaps;
+		if (defaultKeymaps == null) return null;
+		Profile defaults = new Profile();
+		defaultKeymaps.accept(defaults);
+		return defaults.getKeymaps();
+	}
+	/**
+	 * Checks the header of the manifest.
+	 * @return the manifest wrapped for reading the header.
+	 * @throws IOException if the file is not a manifest or is a newer version.
+	 */
+	private ByteBuffer readHeader(byte[] manifest) throws IOException {
+		if (manifest.length < HEADER_SIZE) throw new StreamCorruptedException("Truncated header");
+		for (int i = 0; i < MAGIC.length; i++) {
+			if (manifest[i] != MAGIC[i]) throw new StreamCorruptedException("Not a profile manifest");
+		}
+		if (manifest[4] > VERSION) throw new IOException("Profile manifest version " + manifest[4] + " is not supported");
+		return ByteBuffer.wrap(manifest);
+	}
+	/**
+	 * Writes the reference to a shard and 0 if there is none.
+	 */
+	private static void writeReference(BinaryOutput index, Shard shard) {
+		if (shard == null) {
+			index.writeVarInt(0);
+			return;
+		}
+		index.writeVarInt(shard.length + 1);
+		index.writeString(shard.id);
+		index.writeVarLong(shard.version);
+		index.writeVarLong(shard.crc);
+	}
+	/**
+	 * Reads a reference written with writeReference.
+	 * @return the shard and null if there is none.
+	 */
+	private static Shard readReference(BinaryInput index) throws IOException {
+		int length = index.readVarInt() - 1;
+		if (length < 0) return null;
+		String id = index.readString();
+		long version = index.readVarLong();
+		long crc = index.readVarLong();
+		// the id names a file, so a manifest from the cloud can not name another file
+		if (id == null || !id.matches("[0-9a-f]{1,16}")) throw new StreamCorruptedException("Invalid shard " + id);
+		Shard shard = new Shard(id, version, length, crc);
+		shard.written = true;
+		return shard;
+	}
+	/**
+	 * Writes the reference to a blob and 0 if there is none.
+	 */
+	private static void writeBlobReference(BinaryOutput index, BlobStore.Blob blob) {
+		if (blob == null) {
+			index.writeVarInt(0);
+			return;
+		}
+		index.writeVarInt(blob.getLength() + 1);
+		index.writeString(blob.getHash());
+	}
+	/**
+	 * Reads a reference written with writeBlobReference.
+	 * @return the blob and null if there is none.
+	 */
+	private static BlobStore.Blob readBlobReference(BinaryInput index, BlobStore blobs) throws IOException {
+		int length = index.readVarInt() - 1;
+		if (length < 0) return null;
+		String hash = index.readString();
+		// the hash names a file, so a manifest from the cloud can not name another file
+		if (!BlobStore.isHash(hash)) throw new StreamCorruptedException("Invalid blob " + hash);
+		return new BlobStore.Blob(blobs, hash, length);
+	}
+	static long crc(byte[] bytes) {
+		CRC32 crc = new CRC32();
+		crc.update(bytes, 0, bytes.length);
+		return crc.getValue();
+	}
+
+	// ============= Internal Classes ============== //
+	/**
+	 * A version of the keymaps of a profile or of a logo.
+	 */
+	private static class Shard {
+		final String id;
+		final long version;
+		final int length;
+		final long crc;
+		/**
+		 * True once the shard is in its file.
+		 */
+		volatile boolean written;
+		Shard(String id, long version, int length, long crc) {
+			this.id = id;
+			this.version = version;
+			this.length = length;
+			this.crc = crc;
+		}
+		String getName() {
+			return id + "-" + version + SHARD_EXTENSION;
+		}
+	}
+	/**
+	 * The directory of a device, the shards of the profiles and the blobs of
+	 * the logos of the root manager, which are only used on the thread that
+	 * owns the model.
+	 */
+	private static class DeviceStore implements Closeable {
+		final File directory;
+		final BlobStore blobs;
+		IdentityHashMap<Profile, Shard> keymaps;
+		/**
+		 * The blob of each logo by its loader or its bytes, so a logo is hashed once.
+		 */
+		IdentityHashMap<Object, BlobStore.Blob> blobHashes;
+		/**
+		 * The shards referenced by the manifest in the directory.
+		 */
+		volatile Set<String> committed;
+		/**
+		 * The blobs referenced by the manifest when it was read.
+		 */
+		Set<String> blobNames;
+		/**
+		 * Sets the keymaps of a profile that can not be restored and may be null.
+		 */
+		volatile Consumer<Profile> defaultKeymaps;
+		DeviceStore(File directory) {
+			this.directory = directory;
+			blobs = BlobStore.forDevice(directory);
+			keymaps = new IdentityHashMap<>();
+			blobHashes = new IdentityHashMap<>();
+			committed = Collections.emptySet();
+			blobNames = Collections.emptySet();
+		}
+		/**
+		 * Writes the changed shards and then the manifest, and deletes the
+		 * shards referenced by neither the manifest nor its backup.
+		 */
+		synchronized boolean commit(byte[] manifest, Snapshot snapshot) {
+			if (!directory.isDirectory() && !directory.mkdirs()) {
+				System.out.println("Write failure (" + directory.getName() + "): Unable to create the directory.");
+				return false;
+			}
+			for (int i = 0; i < snapshot.blobWrites.size(); i++) {
+				if (!blobs.write(snapshot.blobWrites.get(i), snapshot.blobContents.get(i))) return false;
+			}
+			for (int i = 0; i < snapshot.writes.size(); i++) {
+				Shard shard = snapshot.writes.get(i);
+				if (!AtomicFile.write(new File(directory, shard.getName()), snapshot.contents.get(i), false)) return false;
+				shard.written = true;
+			}
+			if (!AtomicFile.write(new File(directory, MANIFEST), manifest)) return false;
+			File[] files = directory.listFiles((dir, name) -> name.endsWith(SHARD_EXTENSION));
+			if (files != null) {
+				for (File file : files) {
+					String name = file.getName();
+					if (!snapshot.names.contains(name) && !committed.contains(name)) file.delete();
+				}
+			}
+			committed = Collections.unmodifiableSet(snapshot.names);
+			return true;
+		}
+		@Override
+		public void close() {
+			keymaps = new IdentityHashMap<>();
+			blobHashes = new IdentityHashMap<>();
+		}
+	}
+	/**
+	 * The shards of a root manager, which reuses the shards that did not change.
+	 */
+	private static class Snapshot implements ProfileIndex.LocationWriter {
+		final DeviceStore store;
+		final IdentityHashMap<Profile, Shard> keymaps;
+		final IdentityHashMap<Object, BlobStore.Blob> blobHashes;
+		final HashSet<String> names;
+		/**
+		 * The shards to write and their content.
+		 */
+		final ArrayList<Shard> writes;
+		final ArrayList<byte[]> contents;
+		/**
+		 * The blobs to write if they are not stored yet and their content.
+		 */
+		final ArrayList<BlobStore.Blob> blobWrites;
+		final ArrayList<byte[]> blobContents;
+		Snapshot(DeviceStore store) {
+			this.store = store;
+			keymaps = new IdentityHashMap<>();
+			blobHashes = new IdentityHashMap<>();
+			names = new HashSet<>();
+			writes = new ArrayList<>();
+			contents = new ArrayList<>();
+			blobWrites = new ArrayList<>();
+			blobContents = new ArrayList<>();
+		}
+		@Override
+		public void writeLogos(BinaryOutput index, App app) {
+			writeBlobReference(index, logoBlob(app.getAppLogoLoader(), app::getAppLogoBytes));
+			writeBlobReference(index, logoBlob(app.getDevLogoLoader(), app::getDevLogoBytes));
+		}
+		@Override
+		public void writeKeymaps(BinaryOutput index, Profile profile) {
+			Supplier<Keymap[]> loader = profile.getKeymapLoader();
+			Shard shard;
+			if (loader instanceof ShardKeymaps && ((ShardKeymaps) loader).loader.store == store)
+				shard = reuse(((ShardKeymaps) loader).loader.shard);
+			else shard = shard(KeymapCodec.encode(profile.getKeymaps()), store.keymaps.get(profile));
+			keymaps.put(profile, shard);
+			writeReference(index, shard);
+		}
+		/**
+		 * Returns the blob of a logo, which is hashed once by its loader or bytes.
+		 */
+		private BlobStore.Blob logoBlob(Supplier<byte[]> loader, Supplier<byte[]> logo) {
+			// the shard of a logo stored by version 1 is kept while the model reads it
+			if (loader instanceof ShardLoader && ((ShardLoader) loader).store == store) reuse(((ShardLoader) loader).shard);
+			byte[] bytes = null;
+			Object key = loader;
+			if (key == null) key = bytes = logo.get();
+			if (key == null) return null;
+			BlobStore.Blob blob = store.blobHashes.get(key);
+			// a blob of the store, such as a logo restored by the journal, is not read again
+			if (blob == null && loader instanceof BlobStore.Blob && ((BlobStore.Blob) loader).isIn(store.blobs))
+				blob = (BlobStore.Blob) loader;
+			if (blob == null) {
+				if (bytes == null) bytes = logo.get();
+				if (bytes == null) return null;
+				blob = store.blobs.blob(bytes);
+			}
+			// a blob that is stored already is not written again
+			if (bytes != null) {
+				blobWrites.add(blob);
+				blobContents.add(bytes);
+			}
+			blobHashes.put(key, blob);
+			return blob;
+		}
+		/**
+		 * Reuses a shard that has not been read.
+		 */
+		private Shard reuse(Shard shard) {
+			names.add(shard.getName());
+			return shard;
+		}
+		/**
+		 * Returns the previous shard if the content did not change and the next version otherwise.
+		 * Each version draws a new id, so two computers changing the same
+		 * profile do not write different shards with the same name.
+		 */
+		private Shard shard(byte[] bytes, Shard previous) {
+			long crc = crc(bytes);
+			Shard shard;
+			if (previous != null && previous.length == bytes.length && previous.crc == crc) shard = previous;
+			else shard = new Shard(Long.toHexString(ThreadLocalRandom.current().nextLong()),
+				previous == null ? 1 : previous.version + 1, bytes.length, crc);
+			if (!shard.written) {
+				writes.add(shard);
+				contents.add(bytes);
+			}
+			names.add(shard.getName());
+			return shard;
+		}
+	}
+	/**
+	 * Reads a shard and checks its length and checksum.
+	 */
+	private static class ShardLoader implements Supplier<byte[]> {
+		final DeviceStore store;
+		final Shard shard;
+		ShardLoader(DeviceStore store, Shard shard) {
+			this.store = store;
+			this.shard = shard;
+		}
+		/**
+		 * @throws IllegalStateException if the shard can not be read or is corrupted.
+		 */
+		@Override
+		public byte[] get() {
+			byte[] bytes;
+			try {
+				bytes = Files.readAllBytes(new File(store.directory, shard.getName()).toPath());
+			} catch (IOException ex) {
+				throw new IllegalStateException("Unable to read the profile shard " + shard.getName(), ex);
+			}
+			if (bytes.length != shard.length || crc(bytes) != shard.crc)
+				throw new IllegalStateException("The profile shard " + shard.getName() + " is corrupted");
+			return bytes;
+		}
+	}
+	/**
+	 * The keymaps of a profile in a shard.
+	 */
+	private static class ShardKeymaps implements Supplier<Keymap[]> {
+		final ShardLoader loader;
+		ShardKeymaps(ShardLoader loader) {
+			this.loader = loader;
+		}
+		/**
+		 * @throws IllegalStateException if the shard can not be read or is corrupted.
+		 */
+		@Override
+		public Keymap[] get() {
+			try {
+				return KeymapCodec.decode(loader.get());
+			} catch (StreamCorruptedException ex) {
+				throw new IllegalStateException("The profile shard " + loader.shard.getName() + " is corrupted", ex);
+			}
+		}
+	}
+
+	// ============= Static Methods ============== //
+	public static synchronized ProfileStore getProfileStore() {
+		if (profileStore == null) profileStore = new ProfileStore();
+		return profileStore;
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.io;
+
+// === kbmaster imports === //
+import com.monkygames.kbmaster.cloud.metadata.FileSyncState;
+// === java imports === //
+import java.io.File;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stores the {@link FileSyncState} of the synced files in a small file in
+ * the profile directory, so a sync decides what changed from the
+ * modification times and the cloud revisions without reading the profiles
+ * and an upload does not rewrite the file that was uploaded.
+ * <p>
+ * The file starts with a magic and a version followed by the string
+ * table and the states by path. It is only written by {@link #save} when
+ * a state changed.
+ * @version 1.0
+ */
+public class SyncStateStore {
+
+	// ============= Class variables ============== //
+	/**
+	 * The name of the file in the profile directory.
+	 */
+	public static final String FILENAME = "sync.state";
+	private static final byte[] MAGIC = "KBSY".getBytes(StandardCharsets.US_ASCII);
+	private static final int VERSION = 1;
+	private final File file;
+	/**
+	 * The states by path.
+	 */
+	private final HashMap<String, FileSyncState> states;
+	private boolean changed;
+
+	// ============= Constructors ============== //
+	/**
+	 * Reads the states from the file, which starts empty if the file
+	 * doesn't exist or can not be read.
+	 */
+	public SyncStateStore(File file) {
+		this.file = file;
+		HashMap<String, FileSyncState> read = AtomicFile.read(file, SyncStateStore::read);
+		states = read != null ? read : new HashMap<>();
+	}
+
+	// ============= Public Methods ============== //
+	/**
+	 * Returns the state of the path and null if it was never synced.
+	 */
+	public synchronized FileSyncState get(String path) { return states.get(path); }
+	public synchronized void put(String path, FileSyncState state) {
+		states.put(path, state);
+		changed = true;
+	}
+	/**
+	 * Removes the states of the paths that are not in the collection.
+	 */
+	public synchronized void retain(Collection<String> paths) {
+		if (states.keySet().retainAll(paths)) changed = true;
+	}
+	/**
+	 * Writes the states if they changed.
+	 * @return true on success and false otherwise.
+	 */
+	public synchronized boolean save() {
+		if (!changed) return true;
+		BinaryOutput body = new BinaryOutput(states.size() * 64);
+		body.writeVarInt(states.size());
+		for (Map.Entry<String, FileSyncState> entry : states.entrySet()) {
+			FileSyncState state = entry.getValue();
+			body.writeString(entry.getKey());
+			body.writeString(state.rev);
+			body.writeString(state.contentHash);
+			body.writeVarLong(state.serverModified);
+			body.writeVarLong(state.localModified);
+			body.writeVarLong(state.length);
+		}
+		BinaryOutput output = new BinaryOutput(body.size() + 1024);
+		output.writeBytes(MAGIC);
+		output.writeByte(VERSION);
+		output.writeStringTable(body);
+		output.write(body);
+		if (!AtomicFile.write(file, output.toByteArray())) return false;
+		changed = false;
+		return true;
+	}
+
+	// ============= Static Methods ============== //
+	private static HashMap<String, FileSyncState> read(File file) throws IOException {
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		BinaryInput input = new BinaryInput(bytes);
+		for (byte magic : MAGIC) {
+			if (input.readByte() != magic) throw new StreamCorruptedException("Not a sync state");
+		}
+		if (input.readByte() > VERSION) throw new IOException("Sync state version is not supported");
+		input.readStringTable();
+		int count = input.readCount();
+		HashMap<String, FileSyncState> states = new HashMap<>(count * 2);
+		for (int i = 0; i < count; i++) {
+			String path = input.readString();
+			states.put(path, new FileSyncState(input.readString(), input.readString(),
+				input.readVarLong(), input.readVarLong(), input.readVarLong()));
+		}
+		return states;
+	}
+}
@@ -13,17 +13,40 @@ import com.monkygames.kbmaster.profiles.Profile;
 import com.monkygames.kbmaster.profiles.Root;
 import com.monkygames.kbmaster.profiles.RootManager;
 import com.thoughtworks.xstream.XStream;
-import com.thoughtworks.xstream.io.StreamException;
-import com.thoughtworks.xstream.io.xml.DomDriver;
+import com.thoughtworks.xstream.io.HierarchicalStreamDriver;
+import com.thoughtworks.xstream.io.xml.Xpp3Driver;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StreamCorruptedException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.HashMap;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 /**
  * Manages files using XStream to read and write.
+ * The files are streamed through a pull parser and buffered UTF-8
+ * readers and writers so a document is never held in memory as a String
+ * or a DOM.
+ * <p>
+ * Files are written and read with {@link AtomicFile} so a crash leaves
+ * either the old or the new file and the previous generation is restored
+ * if a file can not be parsed.
  */
 public class XStreamManager {
 
@@ -58,17 +81,32 @@ public class XStreamManager {
 
     public static final String settingsFileName = "settings.xml";
     public static final String globalAccountFileName = "device_descriptors.xml";
+    /**
+     * The size of the read and write buffers.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * Parses the meta data without resolving a DTD or external entities.
+     */
+    private final XMLInputFactory metaDataInputFactory;
 
     public XStreamManager(){
+        this(new Xpp3Driver());
+    }
+    /**
+     * Package private for the benchmarks.
+     * @param driver the driver used to parse and write the xml.
+     */
+    XStreamManager(HierarchicalStreamDriver driver){
         // user settings
-        userSettingsStream = new XStream(new DomDriver());
+        userSettingsStream = new XStream(driver);
         userSettingsStream.alias("UserSettings", UserSettings.class);
         settingsFile = new File(settingsFileName);
         XStream.setupDefaultSecurity(userSettingsStream);
         userSettingsStream.allowTypesByWildcard(new String[] {"com.monkygames.kbmaster.**"});
 
         // root manager
-        rootStream = new XStream(new DomDriver());
+        rootStream = new XStream(driver);
         rootStream.alias("RootManager",RootManager.class);
         rootStream.alias("Root",Root.class);
         rootStream.alias("App",App.class);
@@ -84,7 +122,7 @@ public class XStreamManager {
         rootStream.allowTypesByWildcard(new String[] {"com.monkygames.kbmaster.**"});
 
         // global account
-        globalStream = new XStream(new DomDriver());
+        globalStream = new XStream(driver);
         globalStream.alias("Profile",Profile.class);
         globalStream.alias("App",App.class);
         globalStream.alias("Keymap",Keymap.class);
@@ -111,6 +149,10 @@ public class XStreamManager {
         globalStream.allowTypesByWildcard(new String[] {"com.monkygames.kbmaster.**"});
         globalAccountFile = new File(globalAccountFileName);
 
+        metaDataInputFactory = XMLInputFactory.newFactory();
+        metaDataInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        metaDataInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
     }
 
     // === Public Methods === //
@@ -139,6 +181,7 @@ public class XStreamManager {
      * @return true on success and false otherwise.
      */
     public boolean writeRootManager(String filename, RootManager rootManager){
+        rootManager.load();
         return write(rootStream,filename,rootManager);
     }
 
@@ -156,11 +199,23 @@ public class XStreamManager {
         return rootManager;
     }
 
+    /**
+     * Reads only the meta data of a root manager file, the rest of the
+     * document is not parsed.
+     * @param filename the file to read from.
+     * @return the meta data and null if the file doesn't exist, has no
+     * meta data or can not be read.
+     */
+    public MetaData readMetaData(String filename){
+        return AtomicFile.read(new File(filename), this::readMetaDataFile);
+    }
+
     /**
      * Writes the profile to file.
      * @return true on success and false otherwise.
      */
     public boolean writeProfile(String filename, Profile profile){
+        profile.load();
         return write(globalStream,filename,profile);
     }
 
@@ -196,42 +251,91 @@ public class XStreamManager {
         return deviceList;
     }
 
+    /**
+     * Returns the stream used for the root managers.
+     * Package private for the benchmarks.
+     */
+    XStream getRootStream(){ return rootStream; }
+    /**
+     * Serializes the device list for writing later with {@link #writeBytes}.
+     */
+    byte[] toGlobalAccountBytes(DeviceList deviceList){ return toBytes(globalStream, deviceList); }
+    String getGlobalAccountFilename(){ return globalAccountFile.getAbsolutePath(); }
+
     // === Private Methods === //
     /**
      * Writes the specified object to the stream.
      * @return true on success and false otherwise.
      */
     private boolean write(XStream stream, String filename, Object obj){
-        File file = new File(filename);
-        String xml = stream.toXML(obj);
-        try{
-            Files.write(file.toPath(),xml.getBytes());
-        } catch (IOException ex) {
-            System.out.println("XStream write failure ("+file.getName()+"): "+ex.getMessage());
-            return false;
-        }
-        return true;
+        return AtomicFile.write(new File(filename), channel -> {
+            Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE);
+            stream.toXML(obj, writer);
+            writer.flush();
+        });
+    }
+
+    private byte[] toBytes(XStream stream, Object obj){
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(BUFFER_SIZE);
+        Writer writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8);
+        stream.toXML(obj, writer);
+        return bytes.toByteArray();
     }
 
     /**
      * Reads the object from file and returns the object.
      * If no file exist, null is returned.
+     * If the file is corrupted it is renamed with the corrupt extension and
+     * the backup is restored.
      * @param filename the file to read from.
      * @return the unsearlized object and null if error.
      */
     private Object read(XStream stream, String filename){
-        File file = new File(filename);
-        if(!file.exists()) return null;
-        try{
-            String xml = new String(Files.readAllBytes(file.toPath()));
-            return stream.fromXML(xml);
-        } catch (IOException ex){
-            System.out.println("XStream read error ("+file.getName()+"): "+ex.getMessage());
-        } catch (StreamException e) {
-            System.out.println("XStream read error ("+file.getName()+"): File corrupted.");
-            file.delete();
+        return AtomicFile.read(new File(filename), file -> readFile(stream, file));
+    }
+
+    private Object readFile(XStream stream, File file) throws IOException {
+        // files written before the charset was explicit may not be valid UTF-8
+        try(Reader reader = Channels.newReader(FileChannel.open(file.toPath(), StandardOpenOption.READ),
+                StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE), BUFFER_SIZE)){
+            return stream.fromXML(reader);
+        }
+    }
+
+    /**
+     * Streams the root element until its metaData element.
+     */
+    private MetaData readMetaDataFile(File file) throws IOException {
+        try(InputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE)){
+            XMLStreamReader reader;
+            // the factory is not guaranteed to be thread safe
+            synchronized(metaDataInputFactory){
+                reader = metaDataInputFactory.createXMLStreamReader(in);
+            }
+            try{
+                int depth = 0;
+                boolean inMetaData = false;
+                while(reader.hasNext()){
+                    int event = reader.next();
+                    if(event == XMLStreamConstants.END_ELEMENT){
+                        if(--depth == 1 && inMetaData) return null;
+                        continue;
+                    }
+                    if(event != XMLStreamConstants.START_ELEMENT) continue;
+                    depth++;
+                    if(depth == 2) inMetaData = reader.getLocalName().equals("metaData");
+                    else if(depth == 3 && inMetaData && reader.getLocalName().equals("lastSync")){
+                        return new MetaData(Long.parseLong(reader.getElementText().trim()));
+                    }
+                }
+                return null;
+            }finally{
+                reader.close();
+            }
+        }catch(XMLStreamException | NumberFormatException ex){
+            throw (StreamCorruptedException)new StreamCorruptedException(ex.getMessage()).initCause(ex);
         }
-        return null;
     }
 
     // === Static Methods === //
@@ -0,0 +1,117 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.metrics;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counters recorded for a single managed device.
+ * Counters are striped so the poll thread only pays for an uncontended
+ * increment and the queue depths are single writer gauges.
+ */
+public class DeviceMetrics {
+
+// ============= Class variables ============== //
+	public enum Queue { KEYBOARD, MOUSE, GAMEPAD }
+	/**
+	 * The name used for the device label.
+	 */
+	private final String deviceName;
+	private final LongAdder polls;
+	private final LongAdder events;
+	private final LongAdder injections;
+	private final LongAdder rescans;
+	private final LatencyHistogram injectionLatency;
+	private final LatencyHistogram saveDuration;
+	/**
+	 * The number of events returned by the last poll of each queue.
+	 * Only written by the poll thread.
+	 */
+	private final AtomicIntegerArray queueDepths;
+	/**
+	 * The counters when the metrics were created, the rates of a first scrape are since then.
+	 */
+	private final Sample firstSample;
+
+// ============= Constructors ============== //
+	public DeviceMetrics(String deviceName) {
+		this.deviceName = deviceName;
+		polls = new LongAdder();
+		events = new LongAdder();
+		injections = new LongAdder();
+		rescans = new LongAdder();
+		injectionLatency = new LatencyHistogram();
+		saveDuration = new LatencyHistogram();
+		queueDepths = new AtomicIntegerArray(Queue.values().length);
+		firstSample = sample();
+	}
+
+// ============= Public Methods ============== //
+	public void recordPoll() { polls.increment(); }
+	/**
+	 * Records the events returned by one poll of a queue.
+	 * @param queue the queue that was polled.
+	 * @param count the number of events in the queue.
+	 */
+	public void recordEvents(Queue queue, int count) {
+		queueDepths.set(queue.ordinal(), count);
+		if (count > 0) events.add(count);
+	}
+	/**
+	 * Records an output sent to the system.
+	 * @param latencyNanos the time from the poll that detected the event to the injection.
+	 */
+	public void recordInjection(long latencyNanos) {
+		injections.increment();
+		injectionLatency.record(latencyNanos);
+	}
+	public void recordRescan() { rescans.increment(); }
+	public void recordSave(long durationNanos) { saveDuration.record(durationNanos); }
+
+	public String getDeviceName() { return deviceName; }
+	public long getPolls() { return polls.sum(); }
+	public long getEvents() { return events.sum(); }
+	public long getInjections() { return injections.sum(); }
+	public long getRescans() { return rescans.sum(); }
+	public int getQueueDepth(Queue queue) { return queueDepths.get(queue.ordinal()); }
+	public LatencyHistogram getInjectionLatency() { return injectionLatency; }
+	public LatencyHistogram getSaveDuration() { return saveDuration; }
+
+	public Sample getFirstSample() { return firstSample; }
+	/**
+	 * Returns the current poll and event counters.
+	 * The rates are computed from the samples kept by each caller, so
+	 * several scrapers do not change the rates seen by the others.
+	 */
+	public Sample sample() {
+		return new Sample(System.nanoTime(), polls.sum(), events.sum());
+	}
+
+// ============= Internal Classes ============== //
+	/**
+	 * The poll and event counters at a time.
+	 */
+	public static class Sample {
+		private final long nanos, polls, events;
+		Sample(long nanos, long polls, long events) {
+			this.nanos = nanos;
+			this.polls = polls;
+			this.events = events;
+		}
+		/**
+		 * Returns the poll and event rates since the previous sample.
+		 * @return index 0 is polls per second and index 1 is events per second.
+		 */
+		public double[] getRates(Sample previous) {
+			double seconds = (nanos - previous.nanos) / 1e9;
+			double[] rates = new double[2];
+			if (seconds > 0) {
+				rates[0] = (polls - previous.polls) / seconds;
+				rates[1] = (events - previous.events) / seconds;
+			}
+			return rates;
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A log-linear histogram of durations in nanoseconds.
+ * Each power of two is split into four sub buckets which keeps the
+ * percentile error under 25% while only needing a fixed set of counters.
+ * Recording is a single striped increment so the poll thread never
+ * contends with the thread reading the values.
+ */
+public class LatencyHistogram {
+
+// ============= Class variables ============== //
+	/**
+	 * Number of sub buckets for each power of two.
+	 */
+	private static final int SUB_BUCKET_BITS = 2;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+	private final LongAdder[] buckets;
+	private final LongAdder count;
+	private final LongAdder sum;
+
+// ============= Constructors ============== //
+	public LatencyHistogram() {
+		buckets = new LongAdder[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) buckets[i] = new LongAdder();
+		count = new LongAdder();
+		sum = new LongAdder();
+	}
+
+// ============= Public Methods ============== //
+	/**
+	 * Records a single duration.
+	 * @param nanos the duration in nanoseconds (negative values are ignored).
+	 */
+	public void record(long nanos) {
+		if (nanos < 0) return;
+		buckets[bucketIndex(nanos)].increment();
+		count.increment();
+		sum.add(nanos);
+	}
+	public long getCount() { return count.sum(); }
+	public long getSumNanos() { return sum.sum(); }
+	/**
+	 * Estimates the specified percentile.
+	 * @param percentile from 0 to 1 inclusive.
+	 * @return the upper bound of the bucket containing the percentile in
+	 * nanoseconds and 0 if nothing has been recorded.
+	 */
+	public long getPercentile(double percentile) {
+		long[] snapshot = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = buckets[i].sum();
+			total += snapshot[i];
+		}
+		if (total == 0) return 0;
+		long target = (long) Math.ceil(percentile * total);
+		if (target < 1) target = 1;
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= target) return bucketUpperBound(i);
+		}
+		return bucketUpperBound(BUCKETS - 1);
+	}
+	/**
+	 * Adds the durations recorded by another histogram to this one.
+	 * @param other the histogram to add.
+	 */
+	public void add(LatencyHistogram other) {
+		for (int i = 0; i < BUCKETS; i++) buckets[i].add(other.buckets[i].sum());
+		count.add(other.count.sum());
+		sum.add(other.sum.sum());
+	}
+	public void reset() {
+		for (LongAdder bucket : buckets) bucket.reset();
+		count.reset();
+		sum.reset();
+	}
+
+// ============= Private Methods ============== //
+	/**
+	 * Values below the sub bucket count map linearly and larger values map to
+	 * their power of two plus the next most significant bits.
+	 */
+	private static int bucketIndex(long nanos) {
+		if (nanos < SUB_BUCKETS) return (int) nanos;
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		int sub = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+	}
+	private static long bucketUpperBound(int index) {
+		if (index < SUB_BUCKETS) return index;
+		int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		int sub = index % SUB_BUCKETS;
+		if (exponent >= 62) return Long.MAX_VALUE;
+		long base = 1L << exponent;
+		return base + (base >> SUB_BUCKET_BITS) * (sub + 1) - 1;
+	}
+}
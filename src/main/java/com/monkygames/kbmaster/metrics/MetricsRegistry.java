@@ -0,0 +1,160 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds the metrics for every managed device and the application wide
+ * timings (such as cloud sync).
+ */
+public class MetricsRegistry {
+
+// ============= Class variables ============== //
+	/**
+	 * Singleton.
+	 */
+	private static final MetricsRegistry metricsRegistry = new MetricsRegistry();
+	private final ConcurrentHashMap<String, DeviceMetrics> devices;
+	private final LatencyHistogram syncDuration;
+	/**
+	 * The files transferred by the cloud sync and the files skipped
+	 * because their content was the same on both sides.
+	 */
+	private final LongAdder syncTransfers, syncBytes, syncSkipped, syncBytesSaved;
+
+// ============= Constructors ============== //
+	private MetricsRegistry() {
+		devices = new ConcurrentHashMap<>();
+		syncDuration = new LatencyHistogram();
+		syncTransfers = new LongAdder();
+		syncBytes = new LongAdder();
+		syncSkipped = new LongAdder();
+		syncBytesSaved = new LongAdder();
+	}
+
+// ============= Public Methods ============== //
+	/**
+	 * Returns the metrics of the device and creates them if needed.
+	 * @param deviceName the name of the device (make_model).
+	 */
+	public DeviceMetrics getDeviceMetrics(String deviceName) {
+		return devices.computeIfAbsent(deviceName, DeviceMetrics::new);
+	}
+	public void removeDevice(String deviceName) { devices.remove(deviceName); }
+	public Collection<DeviceMetrics> getDevices() { return new ArrayList<>(devices.values()); }
+	public void recordSync(long durationNanos) { syncDuration.record(durationNanos); }
+	public LatencyHistogram getSyncDuration() { return syncDuration; }
+	public void recordSyncTransfer(long bytes) {
+		syncTransfers.increment();
+		syncBytes.add(bytes);
+	}
+	public void recordSyncSkip(long bytes) {
+		syncSkipped.increment();
+		syncBytesSaved.add(bytes);
+	}
+	public long getSyncBytesSaved() { return syncBytesSaved.sum(); }
+
+	/**
+	 * Renders all metrics in the Prometheus text exposition format, with
+	 * the rates since the metrics of each device were created.
+	 */
+	public String toPrometheusText() {
+		return toPrometheusText(new HashMap<>());
+	}
+	/**
+	 * Renders all metrics in the Prometheus text exposition format.
+	 * @param previousSamples the samples of the previous scrape of the caller
+	 * by device name, which are replaced by the samples of this scrape.
+	 */
+	public String toPrometheusText(Map<String, DeviceMetrics.Sample> previousSamples) {
+		StringBuilder out = new StringBuilder(4096);
+		ArrayList<DeviceMetrics> list = new ArrayList<>(devices.values());
+		list.sort((a, b) -> a.getDeviceName().compareTo(b.getDeviceName()));
+		ArrayList<double[]> rates = new ArrayList<>();
+		for (DeviceMetrics device : list) {
+			DeviceMetrics.Sample sample = device.sample();
+			DeviceMetrics.Sample previous = previousSamples.getOrDefault(device.getDeviceName(), device.getFirstSample());
+			rates.add(sample.getRates(previous));
+			previousSamples.put(device.getDeviceName(), sample);
+		}
+		// the devices removed are not sampled again
+		previousSamples.keySet().retainAll(devices.keySet());
+
+		header(out, "kbmaster_polls_total", "counter", "Poll loop iterations.");
+		for (DeviceMetrics device : list) sample(out, "kbmaster_polls_total", device, null, device.getPolls());
+		header(out, "kbmaster_poll_rate_hz", "gauge", "Poll loop iterations per second since the previous scrape.");
+		for (int i = 0; i < list.size(); i++) sample(out, "kbmaster_poll_rate_hz", list.get(i), null, rates.get(i)[0]);
+		header(out, "kbmaster_events_total", "counter", "Input events read from the device.");
+		for (DeviceMetrics device : list) sample(out, "kbmaster_events_total", device, null, device.getEvents());
+		header(out, "kbmaster_events_per_second", "gauge", "Input events per second since the previous scrape.");
+		for (int i = 0; i < list.size(); i++) sample(out, "kbmaster_events_per_second", list.get(i), null, rates.get(i)[1]);
+		header(out, "kbmaster_injections_total", "counter", "Outputs sent to the system.");
+		for (DeviceMetrics device : list) sample(out, "kbmaster_injections_total", device, null, device.getInjections());
+		header(out, "kbmaster_queue_depth", "gauge", "Events returned by the last poll of each queue.");
+		for (DeviceMetrics device : list) {
+			for (DeviceMetrics.Queue queue : DeviceMetrics.Queue.values())
+				sample(out, "kbmaster_queue_depth", device, "queue=\"" + queue.name().toLowerCase(Locale.ROOT) + "\"", device.getQueueDepth(queue));
+		}
+		header(out, "kbmaster_rescans_total", "counter", "Hardware rescans performed by the engine.");
+		for (DeviceMetrics device : list) sample(out, "kbmaster_rescans_total", device, null, device.getRescans());
+		header(out, "kbmaster_injection_latency_seconds", "summary", "Time from the poll that read an event to its injection.");
+		for (DeviceMetrics device : list) summary(out, "kbmaster_injection_latency_seconds", device, device.getInjectionLatency());
+		header(out, "kbmaster_save_duration_seconds", "summary", "Time spent saving the profiles of the device.");
+		for (DeviceMetrics device : list) summary(out, "kbmaster_save_duration_seconds", device, device.getSaveDuration());
+		header(out, "kbmaster_sync_duration_seconds", "summary", "Time spent syncing with the cloud.");
+		summary(out, "kbmaster_sync_duration_seconds", null, syncDuration);
+		header(out, "kbmaster_sync_transfers_total", "counter", "Files uploaded or downloaded by the cloud sync.");
+		sample(out, "kbmaster_sync_transfers_total", null, null, syncTransfers.sum());
+		header(out, "kbmaster_sync_transfer_bytes_total", "counter", "Bytes uploaded or downloaded by the cloud sync.");
+		sample(out, "kbmaster_sync_transfer_bytes_total", null, null, syncBytes.sum());
+		header(out, "kbmaster_sync_skipped_total", "counter", "Transfers skipped because the content hashes matched.");
+		sample(out, "kbmaster_sync_skipped_total", null, null, syncSkipped.sum());
+		header(out, "kbmaster_sync_bytes_saved_total", "counter", "Bytes not transferred because the content hashes matched.");
+		sample(out, "kbmaster_sync_bytes_saved_total", null, null, syncBytesSaved.sum());
+		return out.toString();
+	}
+
+// ============= Private Methods ============== //
+	private static void header(StringBuilder out, String name, String type, String help) {
+		out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+	}
+	private static void sample(StringBuilder out, String name, DeviceMetrics device, String extraLabel, double value) {
+		out.append(name);
+		if (device != null || extraLabel != null) {
+			out.append('{');
+			if (device != null) out.append("device=\"").append(escape(device.getDeviceName())).append('"');
+			if (device != null && extraLabel != null) out.append(',');
+			if (extraLabel != null) out.append(extraLabel);
+			out.append('}');
+		}
+		out.append(' ');
+		if (value == Math.rint(value) && !Double.isInfinite(value)) out.append((long) value);
+		else out.append(value);
+		out.append('\n');
+	}
+	private static void summary(StringBuilder out, String name, DeviceMetrics device, LatencyHistogram histogram) {
+		double[] quantiles = { 0.5, 0.9, 0.99, 0.999 };
+		for (double quantile : quantiles)
+			sample(out, name, device, "quantile=\"" + quantile + "\"", histogram.getPercentile(quantile) / 1e9);
+		sample(out, name + "_sum", device, null, histogram.getSumNanos() / 1e9);
+		sample(out, name + "_count", device, null, histogram.getCount());
+	}
+	private static String escape(String label) {
+		return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+// ============= Static Methods ============== //
+	/**
+	 * Singleton for returning the registry.
+	 */
+	public static MetricsRegistry getMetricsRegistry() { return metricsRegistry; }
+}
@@ -0,0 +1,115 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An optional embedded http server bound to localhost which serves the
+ * contents of the {@link MetricsRegistry} on /metrics.
+ * The server is only started if the kbmaster.metrics.port system property is set,
+ * for example -Dkbmaster.metrics.port=9464.
+ * The rates are since the previous scrape of the same scraper, which is
+ * named by the scraper query parameter (such as /metrics?scraper=prometheus)
+ * when several scrape the same server.
+ */
+public class MetricsServer {
+
+// ============= Class variables ============== //
+	public static final String PORT_PROPERTY = "kbmaster.metrics.port";
+	/**
+	 * The number of scrapers whose samples are kept, the rates of the
+	 * others are since the metrics were created.
+	 */
+	private static final int MAX_SCRAPERS = 16;
+	private static MetricsServer metricsServer;
+	private final HttpServer server;
+	/**
+	 * The samples of the previous scrape by scraper.
+	 */
+	private final ConcurrentHashMap<String, Map<String, DeviceMetrics.Sample>> scrapers;
+
+// ============= Constructors ============== //
+	private MetricsServer(int port) throws IOException {
+		scrapers = new ConcurrentHashMap<>();
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext("/metrics", this::handleMetrics);
+		server.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "kbmaster-metrics");
+			thread.setDaemon(true);
+			return thread;
+		}));
+		server.start();
+	}
+
+// ============= Public Methods ============== //
+	public int getPort() { return server.getAddress().getPort(); }
+	public void stop() { server.stop(0); }
+
+// ============= Private Methods ============== //
+	private void handleMetrics(HttpExchange exchange) throws IOException {
+		if (!exchange.getRequestMethod().equals("GET")) {
+			exchange.sendResponseHeaders(405, -1);
+			exchange.close();
+			return;
+		}
+		String scraper = getScraper(exchange.getRequestURI().getRawQuery());
+		Map<String, DeviceMetrics.Sample> samples = scrapers.size() < MAX_SCRAPERS || scrapers.containsKey(scraper)
+			? scrapers.computeIfAbsent(scraper, key -> new HashMap<>()) : new HashMap<>();
+		String text;
+		synchronized (samples) {
+			text = MetricsRegistry.getMetricsRegistry().toPrometheusText(samples);
+		}
+		byte[] body = text.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+// ============= Static Methods ============== //
+	/**
+	 * Returns the scraper parameter of the query and an empty name if there is none.
+	 */
+	private static String getScraper(String query) {
+		if (query == null) return "";
+		for (String parameter : query.split("&")) {
+			if (parameter.startsWith("scraper=")) return parameter.substring("scraper=".length());
+		}
+		return "";
+	}
+	/**
+	 * Starts the server if the port property has been set.
+	 * Does nothing if the server is already running.
+	 * @return the running server and null if disabled or unable to bind.
+	 */
+	public static synchronized MetricsServer startFromSystemProperty() {
+		if (metricsServer != null) return metricsServer;
+		String port = System.getProperty(PORT_PROPERTY);
+		if (port == null || port.isEmpty()) return null;
+		try {
+			metricsServer = new MetricsServer(Integer.parseInt(port));
+		} catch (IOException | NumberFormatException ex) {
+			Logger.getLogger(MetricsServer.class.getName()).log(Level.WARNING, "Unable to start metrics server on port " + port, ex);
+		}
+		return metricsServer;
+	}
+	public static synchronized void shutdown() {
+		if (metricsServer != null) metricsServer.stop();
+		metricsServer = null;
+	}
+}
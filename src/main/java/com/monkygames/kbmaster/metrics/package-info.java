@@ -0,0 +1,5 @@
+/**
+ * Runtime counters for the engines and the persistence layer along with an
+ * optional localhost endpoint that exposes them in the Prometheus text format.
+ */
+package com.monkygames.kbmaster.metrics;
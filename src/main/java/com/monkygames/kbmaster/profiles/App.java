@@ -3,15 +3,18 @@
  */
 package com.monkygames.kbmaster.profiles;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javafx.scene.image.Image;
+import com.monkygames.kbmaster.io.BlobStore;
+import com.monkygames.kbmaster.util.ImageCache;
 
 /**
  * Contains information about an App.
@@ -50,6 +53,20 @@ public class App implements Comparable {
 	 * A list of profiles.
 	 */
 	private ArrayList<Profile> profiles;
+	/**
+	 * Read the logos when they are used and null once they are loaded.
+	 */
+	private transient Supplier<byte[]> appLogoLoader, devLogoLoader;
+	/**
+	 * The SHA-256 of the logos that are not stored as blobs, which keys
+	 * their images and is null until known.
+	 */
+	private transient String appLogoHash, devLogoHash;
+	/**
+	 * The profiles by name, which is built when first used as it is not
+	 * serialized.
+	 */
+	private transient HashMap<String, Profile> profileIndex;
 
 
 // ============= Constructors ============== //
@@ -79,6 +96,8 @@ public class App implements Comparable {
 		if (appLogoPath == null) return;
 		try {
 			appLogoByteArray = Files.readAllBytes(new File(appLogoPath).toPath());
+			appLogoLoader = null;
+			appLogoHash = BlobStore.hash(appLogoByteArray);
 		} catch (FileNotFoundException ex) {
 			Logger.getLogger(App.class.getName()).log(Level.SEVERE, null, ex);
 		} catch (IOException ex) {
@@ -89,30 +108,99 @@ public class App implements Comparable {
 		if (devLogoPath == null) return;
 		try {
 			devLogoByteArray = Files.readAllBytes(new File(devLogoPath).toPath());
+			devLogoLoader = null;
+			devLogoHash = BlobStore.hash(devLogoByteArray);
 		} catch (FileNotFoundException ex) {
 			Logger.getLogger(App.class.getName()).log(Level.SEVERE, null, ex);
 		} catch (IOException ex) {
 			Logger.getLogger(App.class.getName()).log(Level.SEVERE, null, ex);
 		}
 	}
+	/**
+	 * Sets the loaders of the logos so they are read when first used.
+	 * @param appLogoLoader reads the app logo and null if there is none.
+	 * @param devLogoLoader reads the dev logo and null if there is none.
+	 */
+	public void setLogoLoaders(Supplier<byte[]> appLogoLoader, Supplier<byte[]> devLogoLoader) {
+		this.appLogoLoader = appLogoLoader;
+		this.devLogoLoader = devLogoLoader;
+		appLogoByteArray = null;
+		devLogoByteArray = null;
+		appLogoHash = null;
+		devLogoHash = null;
+	}
+	/**
+	 * Returns the loader of the app logo and null if it has been read.
+	 */
+	public Supplier<byte[]> getAppLogoLoader() {
+		return appLogoLoader;
+	}
+	/**
+	 * Returns the loader of the dev logo and null if it has been read.
+	 */
+	public Supplier<byte[]> getDevLogoLoader() {
+		return devLogoLoader;
+	}
+	/**
+	 * Returns the encoded app logo and null if it doesn't exists.
+	 * A logo that is read when used is not kept in memory.
+	 */
+	public byte[] getAppLogoBytes() {
+		Supplier<byte[]> loader = appLogoLoader;
+		return loader != null ? readLogo(loader) : appLogoByteArray;
+	}
+	/**
+	 * Returns the encoded dev logo and null if it doesn't exists.
+	 * A logo that is read when used is not kept in memory.
+	 */
+	public byte[] getDevLogoBytes() {
+		Supplier<byte[]> loader = devLogoLoader;
+		return loader != null ? readLogo(loader) : devLogoByteArray;
+	}
+	/**
+	 * Loads the logos and the keymaps of the profiles that have not been read yet.
+	 * A logo that can not be read keeps its loader.
+	 */
+	public void load() {
+		byte[] logo;
+		// a blob read keeps its hash, which was checked against the bytes
+		if (appLogoLoader != null && (logo = readLogo(appLogoLoader)) != null) {
+			if (appLogoLoader instanceof BlobStore.Blob) appLogoHash = ((BlobStore.Blob) appLogoLoader).getHash();
+			appLogoByteArray = logo;
+			appLogoLoader = null;
+		}
+		if (devLogoLoader != null && (logo = readLogo(devLogoLoader)) != null) {
+			if (devLogoLoader instanceof BlobStore.Blob) devLogoHash = ((BlobStore.Blob) devLogoLoader).getHash();
+			devLogoByteArray = logo;
+			devLogoLoader = null;
+		}
+		for (Profile profile : profiles) profile.load();
+	}
+	/**
+	 * Note, the app must be removed from its root before it is renamed.
+	 */
 	public void setName(String name) { this.name = name; }
 	/**
 	 * Returns the dev logo image and null if it doesn't exists.
+	 * The image is shared through the ImageCache.
 	 */
 	public Image getDevLogo() {
-		if (devLogoByteArray == null) {
-			return null;
-		}
-		return new Image(new ByteArrayInputStream(devLogoByteArray));
+		Supplier<byte[]> loader = devLogoLoader;
+		if (loader instanceof BlobStore.Blob) return getLogo(((BlobStore.Blob) loader).getHash(), loader);
+		byte[] bytes = devLogoByteArray;
+		if (devLogoHash == null) devLogoHash = hashLogo(loader, bytes);
+		return getLogo(devLogoHash, loader != null ? loader : () -> bytes);
 	}
 	/**
 	 * Returns the app logo image and null if it doesn't exists.
+	 * The image is shared through the ImageCache.
 	 */
 	public Image getAppLogo() {
-		if (appLogoByteArray == null) {
-			return null;
-		}
-		return new Image(new ByteArrayInputStream(appLogoByteArray));
+		Supplier<byte[]> loader = appLogoLoader;
+		if (loader instanceof BlobStore.Blob) return getLogo(((BlobStore.Blob) loader).getHash(), loader);
+		byte[] bytes = appLogoByteArray;
+		if (appLogoHash == null) appLogoHash = hashLogo(loader, bytes);
+		return getLogo(appLogoHash, loader != null ? loader : () -> bytes);
 	}
 	public String getName() {
 		return name;
@@ -122,7 +210,16 @@ public class App implements Comparable {
 	public String getInfo() {
 		return info;
 	}
+	/**
+	 * Returns the profiles, which must be added and removed with the app.
+	 */
 	public ArrayList<Profile> getProfiles() { return profiles; }
+	/**
+	 * Returns the profile with the name and null if there is none.
+	 */
+	public Profile getProfile(String profileName) {
+		return getProfileIndex().get(profileName);
+	}
 
 	/**
 	 * Returns true if the profile already exists and false otherwise.
@@ -130,20 +227,38 @@ public class App implements Comparable {
 	 * @return true if profile exists and false if it does not exists.
 	 */
 	public boolean doesProfileExist(String profileName) {
-		for (Profile profile : profiles) {
-			if (profile.getProfileName().equals(profileName))
-				return true;
+		return getProfileIndex().containsKey(profileName);
+	}
+	public void addProfile(Profile profile) { addProfile(profiles.size(), profile); }
+	/**
+	 * Inserts the profile at the position in the list.
+	 */
+	public void addProfile(int position, Profile profile) {
+		HashMap<String, Profile> index = getProfileIndex();
+		profiles.add(position, profile);
+		index.putIfAbsent(profile.getProfileName(), profile);
+	}
+	public void removeProfile(Profile profile) {
+		HashMap<String, Profile> index = getProfileIndex();
+		if (!profiles.remove(profile)) return;
+		if (index.get(profile.getProfileName()) != profile) return;
+		index.remove(profile.getProfileName());
+		for (Profile other : profiles) {
+			if (other.getProfileName().equals(profile.getProfileName())) {
+				index.put(other.getProfileName(), other);
+				break;
+			}
 		}
-		return false;
 	}
-	public void addProfile(Profile profile) { profiles.add(profile); }
-	public void removeProfile(Profile profile) { profiles.remove(profile); }
 	public void close() {
+		appLogoLoader = null;
+		devLogoLoader = null;
 		for (Profile profile : profiles) {
 			profile.close();
 			profile = null;
 		}
 		profiles.clear();
+		profileIndex = null;
 	}
 
 	/**
@@ -161,6 +276,49 @@ public class App implements Comparable {
 		return false;
 	}
 
+	// ============= Private Methods ============== //
+	private HashMap<String, Profile> getProfileIndex() {
+		if (profileIndex == null) {
+			profileIndex = new HashMap<>();
+			for (Profile profile : profiles) profileIndex.putIfAbsent(profile.getProfileName(), profile);
+		}
+		return profileIndex;
+	}
+	/**
+	 * Reads a stored logo.
+	 * @return the logo and null if it can not be read or is corrupted.
+	 */
+	private static byte[] readLogo(Supplier<byte[]> loader) {
+		try {
+			return loader.get();
+		} catch (IllegalStateException ex) {
+			Logger.getLogger(App.class.getName()).log(Level.WARNING, ex.getMessage());
+			return null;
+		}
+	}
+	/**
+	 * Returns the hash of a logo that is not stored as a blob.
+	 * @return the hash and null if there is no logo.
+	 */
+	private static String hashLogo(Supplier<byte[]> loader, byte[] bytes) {
+		byte[] logo = loader != null ? readLogo(loader) : bytes;
+		return logo == null ? null : BlobStore.hash(logo);
+	}
+	/**
+	 * Returns the cached image of the logo, which is keyed by the hash of
+	 * a stored blob or of the bytes.
+	 * @param hash the hash of the logo and null if there is none.
+	 */
+	private Image getLogo(String hash, Supplier<byte[]> logo) {
+		if (hash == null) return null;
+		try {
+			return ImageCache.getImageCache().getImage(hash, logo);
+		} catch (IllegalStateException ex) {
+			Logger.getLogger(App.class.getName()).log(Level.WARNING, ex.getMessage());
+			return null;
+		}
+	}
+
 	// ============= Implemented Methods ============== //
 	@Override
 	public int compareTo(Object obj) {
@@ -6,6 +6,10 @@ package com.monkygames.kbmaster.profiles;
 // === jnostromo imports === //
 
 import com.monkygames.kbmaster.input.Keymap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 
 /**
@@ -43,6 +47,19 @@ public class Profile{
      *  The default map.
      */
     private int defaultMap;
+    /**
+     * Reads the keymaps when they are first used and null once they are loaded.
+     */
+    private transient volatile Supplier<Keymap[]> keymapLoader;
+    /**
+     * Reads the keymaps of the profile if the loader fails, such as from a
+     * backup, and is shared by the profiles of a store.
+     */
+    private transient volatile Function<Profile, Keymap[]> keymapFallback;
+    /**
+     * True if the keymaps could not be read.
+     */
+    private transient volatile boolean damaged;
 
     // ============= Constructors ============== //
     public Profile(){
@@ -77,13 +94,40 @@ public class Profile{
      * Note, valid index is 0 - 7 inclusive.
      */
     public Keymap getKeymap(int index){
+        if(keymapLoader != null) load();
         return keymaps[index];
     }
     /**
      * Returns a collection of all keymaps for this profile.
      */
-    public Keymap[] getKeymaps(){ return keymaps; }
-    public void setKeymap(int index, Keymap keymap){ keymaps[index] = keymap; }
+    public Keymap[] getKeymaps(){
+        if(keymapLoader != null) load();
+        return keymaps;
+    }
+    public void setKeymap(int index, Keymap keymap){
+        if(keymapLoader != null) load();
+        keymaps[index] = keymap;
+    }
+    /**
+     * Sets the loader of the keymaps so they are read when first used.
+     */
+    public void setKeymapLoader(Supplier<Keymap[]> keymapLoader){
+        keymaps = null;
+        this.keymapLoader = keymapLoader;
+    }
+    /**
+     * Returns the loader of the keymaps and null if they are loaded.
+     */
+    public Supplier<Keymap[]> getKeymapLoader(){ return keymapLoader; }
+    /**
+     * Sets the reader of the keymaps used when the loader fails.
+     */
+    public void setKeymapFallback(Function<Profile, Keymap[]> keymapFallback){ this.keymapFallback = keymapFallback; }
+    /**
+     * Returns true if the keymaps could not be read, so they were restored
+     * from the fallback or are empty.
+     */
+    public boolean isDamaged(){ return damaged; }
     public void setAppInfo(App app){ this.appInfo = new AppInfo(app); }
     public void setAuthor(String author) { this.author = author; }
     public void setInfo(String info) { this.info = info; }
@@ -91,13 +135,33 @@ public class Profile{
     public void setLastUpdatedDate(long lastUpdatedDate) { this.lastUpdatedDate = lastUpdatedDate; }
 
     // ============= Public Methods ============== //
+    /**
+     * Loads the keymaps if they have not been read yet.
+     * Keymaps that can not be read are restored from the fallback and are
+     * empty if the fallback fails too, and the profile is damaged.
+     */
+    public synchronized void load(){
+        Supplier<Keymap[]> loader = keymapLoader;
+        if(loader == null) return;
+        try {
+            keymaps = loader.get();
+        } catch (RuntimeException ex) {
+            Logger.getLogger(Profile.class.getName()).log(Level.WARNING, "Unable to read the keymaps of " + profileName, ex);
+            damaged = true;
+            keymaps = readFallback();
+        }
+        keymapLoader = null;
+        keymapFallback = null;
+    }
     /**
      * Clones this profile.
-     * Note, this is a deep clone.
+     * Note, the keymaps of the clone share their mappings with the keymaps
+     * of this profile until either is changed.
      * @param profile the clone target.
      * @return the cloned profile.
      */
     public Profile cloneProfile(Profile profile, App app){
+        load();
         profile.setAppInfo(app);
 	    for(int i = 0; i < 8; i++)
 	        profile.setKeymap(i, (Keymap)keymaps[i].clone());
@@ -108,13 +172,34 @@ public class Profile{
 	    return profile;
     }
     public void close() {
+        keymapLoader = null;
+        keymapFallback = null;
+        if (keymaps == null) return;
         for (Keymap keymap : keymaps) {
-            keymap.close();
+            if (keymap != null) keymap.close();
             keymap = null;
         }
         keymaps = null;
     }
 
+    // ============= Private Methods ============== //
+    /**
+     * Returns the keymaps of the fallback and empty keymaps if there are none.
+     */
+    private Keymap[] readFallback(){
+        Function<Profile, Keymap[]> fallback = keymapFallback;
+        Keymap[] restored = null;
+        try {
+            if (fallback != null) restored = fallback.apply(this);
+        } catch (RuntimeException ex) {
+            Logger.getLogger(Profile.class.getName()).log(Level.WARNING, "Unable to restore the keymaps of " + profileName, ex);
+        }
+        if (restored != null && restored.length == 8) return restored;
+        restored = new Keymap[8];
+        for (int i = 0; i < 8; i++) restored[i] = new Keymap(i + 1);
+        return restored;
+    }
+
     // ============= Extended Methods ============== //
     @Override
     public String toString(){
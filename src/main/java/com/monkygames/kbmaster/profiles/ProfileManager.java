@@ -5,12 +5,20 @@ package com.monkygames.kbmaster.profiles;
 
 // === java imports === //
 import java.io.File;
-import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
 
 // === kbmaster imports === //
 import com.monkygames.kbmaster.controller.DeviceMenuUIController;
 import com.monkygames.kbmaster.driver.Device;
-import com.monkygames.kbmaster.io.XStreamManager;
+import com.monkygames.kbmaster.input.Interner;
+import com.monkygames.kbmaster.io.PersistenceService;
+import com.monkygames.kbmaster.io.ProfileJournal;
+import com.monkygames.kbmaster.io.ProfileStore;
+import com.monkygames.kbmaster.metrics.MetricsRegistry;
 /**
  * Manages saving and loading profiles.
  */
@@ -18,8 +26,17 @@ public class ProfileManager {
 
 	// ============= Class variables ============== //
 	public static final String PROFILE_DIR = "profiles";
-	private HashMap<Device, RootManager> deviceRoots;
+	private ConcurrentHashMap<Device, RootManager> deviceRoots;
+	private ConcurrentHashMap<Device, ProfileJournal> deviceJournals;
+	/**
+	 * The devices being loaded by loadManagedDevice.
+	 */
+	private ConcurrentHashMap<Device, CompletableFuture<Void>> loading;
 	private DeviceMenuUIController deviceMenuUIController;
+	/**
+	 * Notified after a profile is saved and null for none.
+	 */
+	private Runnable saveListener;
 
 	// ============= Constructors ============== //
 
@@ -28,7 +45,9 @@ public class ProfileManager {
 	 */
 	public ProfileManager(DeviceMenuUIController deviceMenuUIController) {
 		this.deviceMenuUIController = deviceMenuUIController;
-		deviceRoots = new HashMap<>();
+		deviceRoots = new ConcurrentHashMap<>();
+		deviceJournals = new ConcurrentHashMap<>();
+		loading = new ConcurrentHashMap<>();
 		File profileDir = new File(PROFILE_DIR);
 		if (!profileDir.exists()) profileDir.mkdir();
 	}
@@ -63,12 +82,81 @@ public class ProfileManager {
 
 	/**
 	 * Saves the profile to the database.
+	 * The changes are appended to the journal of the device, which is
+	 * compacted into the store in the background (see PersistenceService).
 	 */
 	public void saveProfile(Device device) {
-		String fileName = device.getDeviceInformation().getName()+".xml";
-		XStreamManager.getStreamManager().writeRootManager(PROFILE_DIR+File.separator+fileName, getRootManager(device));
+		ProfileJournal journal = getJournal(device);
+		journal.save();
+		if (journal.needsCompaction()) compact(device);
 		deviceMenuUIController.getDeviceManager().updateDescriptor(device);
 		deviceMenuUIController.getDeviceManager().save();
+		if (saveListener != null) saveListener.run();
+	}
+	/**
+	 * Sets the listener notified after a profile is saved (such as the
+	 * cloud sync) and null for none.
+	 */
+	public void setSaveListener(Runnable saveListener) {
+		this.saveListener = saveListener;
+	}
+	/**
+	 * Compacts the journals with changes and waits until the store is
+	 * written, so the files of the store hold every save (such as before
+	 * they are synced).
+	 */
+	public void writeChanges() {
+		for (Device device : deviceRoots.keySet()) {
+			ProfileJournal journal = deviceJournals.get(device);
+			if (journal == null) continue;
+			journal.save();
+			if (!journal.isEmpty()) compact(device);
+		}
+		PersistenceService.getPersistenceService().flush();
+	}
+	/**
+	 * Reads the profiles of the device stored in the directory again, such
+	 * as after they were downloaded by the cloud sync, and selects the
+	 * profile of the same app and name. A device with changes not written
+	 * to the store or open in the configuration keeps its profiles, which
+	 * are synced again with the next sync.
+	 * @param directory the directory of the device in the store.
+	 * @return the device reloaded and null if none was.
+	 */
+	public Device reloadDevice(File directory) {
+		Device device = null;
+		for (Device managed : deviceRoots.keySet()) {
+			if (getStoreDirectory(managed).getName().equalsIgnoreCase(directory.getName())) device = managed;
+		}
+		if (device == null || deviceMenuUIController.isConfiguring(device)) return null;
+		ProfileJournal journal = deviceJournals.get(device);
+		if (journal == null) return null;
+		journal.save();
+		if (!journal.isEmpty()) return null;
+		// waits for a compaction being written
+		PersistenceService.getPersistenceService().flush();
+		RootManager rootManager = ProfileStore.getProfileStore().readRootManager(getStoreDirectory(device), device::setDefaultKeymaps);
+		ProfileJournal reloaded = new ProfileJournal(getStoreDirectory(device), rootManager);
+		reloaded.replay();
+		RootManager previous = deviceRoots.put(device, rootManager);
+		deviceJournals.put(device, reloaded);
+		Profile profile = device.getProfile();
+		if (profile != null) {
+			App app = getRoot(device, profile.getAppInfo().getAppType()).getApp(profile.getAppInfo().getName());
+			Profile selected = app != null ? getProfileByName(app, profile.getProfileName()) : null;
+			if (selected != null) deviceMenuUIController.setActiveProfile(device, selected);
+			else deviceMenuUIController.clearActiveProfile(device);
+		}
+		if (previous != null) previous.close();
+		return device;
+	}
+
+	/**
+	 * Undoes the last save of the profiles of the device.
+	 * @return true if a save was undone.
+	 */
+	public boolean undo(Device device) {
+		return getJournal(device).undo();
 	}
 
 	/**
@@ -105,17 +193,67 @@ public class ProfileManager {
 	public Root getGamesRoot(Device device) {
 		return getRoot(device, AppType.GAME);
 	}
+	/**
+	 * Returns the root manager of the device and waits for it if the
+	 * device is being loaded.
+	 */
 	public RootManager getRootManager(Device device) {
+		awaitLoad(device);
 		return deviceRoots.get(device);
 	}
+	/**
+	 * Returns true if the profiles of the device have been read and its
+	 * active profile has been set.
+	 */
+	public boolean isDeviceLoaded(Device device) {
+		return deviceRoots.containsKey(device);
+	}
+	/**
+	 * Adds a device with addManagedDevice on the executor.
+	 * The methods taking the device wait for it to be loaded.
+	 * @param onRead called on the executor with the profiles read, before
+	 * the device is loaded (such as to set its active profile), and null for none.
+	 * @return completes once the device has been added.
+	 */
+	public CompletableFuture<Void> loadManagedDevice(Device device, Executor executor, BiConsumer<Device, RootManager> onRead) {
+		CompletableFuture<Void> future = new CompletableFuture<>();
+		loading.put(device, future);
+		executor.execute(() -> {
+			try {
+				addManagedDevice(device, onRead);
+				future.complete(null);
+			} catch (RuntimeException ex) {
+				future.completeExceptionally(ex);
+			} finally {
+				loading.remove(device, future);
+			}
+		});
+		return future;
+	}
 	/**
 	 * Adds a device to the profile manager. Allows for retrieval of profiles.
+	 * Only the apps and the profile names are read, the keymaps are read
+	 * when a profile is first used. The profiles saved by an earlier
+	 * version are migrated by the ProfileStore.
 	 */
 	public void addManagedDevice(Device device) {
-		String fileName = device.getDeviceInformation().getName()+".xml";
-		deviceRoots.put(device, XStreamManager.getStreamManager().readRootManager(PROFILE_DIR + File.separator + fileName));
+		addManagedDevice(device, null);
+	}
+	private void addManagedDevice(Device device, BiConsumer<Device, RootManager> onRead) {
+		File directory = getStoreDirectory(device);
+		RootManager rootManager = ProfileStore.getProfileStore().readRootManager(directory, device::setDefaultKeymaps);
+		ProfileJournal journal = new ProfileJournal(directory, rootManager);
+		int replayed = journal.replay();
+		if (onRead != null) onRead.accept(device, rootManager);
+		// the device is loaded once its profile is set (see isDeviceLoaded)
+		deviceJournals.put(device, journal);
+		deviceRoots.put(device, rootManager);
+		if (replayed > 0) compact(device);
 	}
 	public void removeDevice(Device device) {
+		awaitLoad(device);
+		closeJournal(device);
+		PersistenceService.getPersistenceService().flush();
 		RootManager rootManager = getRootManager(device);
 		rootManager.close();
 		rootManager = null;
@@ -133,24 +271,76 @@ public class ProfileManager {
 			default:
 				appType = AppType.APPLICATION;
 		}
-		for (App app : getRoot(device, appType).getList())
-			if (app.toString().equals(appName)) return app;
-		return null;
+		return getRoot(device, appType).getApp(appName);
 	}
 	/**
 	 * Finds and returns a profile. Null if no matching profile found.
 	 */
 	public Profile getProfileByName(App app, String profileName) {
-		for (Profile profile : app.getProfiles()) {
-			if (profile.getProfileName().equals(profileName)) return profile;
+		return app.getProfile(profileName);
+	}
+	/**
+	 * Waits for the device if it is being loaded.
+	 */
+	private void awaitLoad(Device device) {
+		CompletableFuture<Void> future = loading.get(device);
+		if (future == null) return;
+		try {
+			future.join();
+		} catch (CompletionException ex) {
+			System.out.println("Load failure (" + device.getDeviceInformation().getName() + "): " + ex.getCause());
 		}
-		return null;
 	}
+	private ProfileJournal getJournal(Device device) {
+		awaitLoad(device);
+		return deviceJournals.get(device);
+	}
+	/**
+	 * Returns the directory the profiles of the device are stored in.
+	 */
+	private File getStoreDirectory(Device device) {
+		return new File(PROFILE_DIR, device.getDeviceInformation().getName());
+	}
+	/**
+	 * Folds the journal of the device into the store after the save window.
+	 * Does not wait for the device as it is called while it is loaded.
+	 */
+	private void compact(Device device) {
+		PersistenceService.getPersistenceService().saveRootManager(getStoreDirectory(device), deviceRoots.get(device),
+			deviceJournals.get(device), MetricsRegistry.getMetricsRegistry().getDeviceMetrics(device.getDeviceInformation().getName()));
+	}
+	/**
+	 * Saves the last changes and compacts the journal.
+	 */
+	private void closeJournal(Device device) {
+		ProfileJournal journal = deviceJournals.remove(device);
+		if (journal == null) return;
+		journal.save();
+		if (!journal.isEmpty()) compact(device);
+	}
+	/**
+	 * Compacts the journals and closes the profiles once written, and
+	 * deletes the logos no device uses anymore. The canonical values of
+	 * the profiles are released.
+	 */
 	public void close() {
+		close(true);
+	}
+	/**
+	 * Compacts the journals and closes the profiles once written.
+	 * @param collectBlobs true to delete the logos no device uses anymore,
+	 * which must be false while the profile directory is written (such as by a sync).
+	 */
+	public void close(boolean collectBlobs) {
+		for (Device device : loading.keySet()) awaitLoad(device);
+		for (Device device : deviceRoots.keySet()) closeJournal(device);
+		PersistenceService.getPersistenceService().flush();
 		for (RootManager rootManager : deviceRoots.values()) {
 			rootManager.close();
 			rootManager = null;
 		}
 		deviceRoots.clear();
+		Interner.getInterner().clear();
+		if (collectBlobs) ProfileStore.getProfileStore().collectBlobs(new File(PROFILE_DIR));
 	}
 }
\ No newline at end of file
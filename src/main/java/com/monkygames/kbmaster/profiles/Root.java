@@ -5,6 +5,7 @@ package com.monkygames.kbmaster.profiles;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 
 /**
  * The root of the data structure.
@@ -22,9 +23,14 @@ public class Root{
      */
     private AppType appType;
     /**
-     * A list of apps.
+     * A list of apps sorted by name.
      */
     private ArrayList<App> apps;
+    /**
+     * The apps by name, which is built when first used as it is not
+     * serialized.
+     */
+    private transient HashMap<String, App> index;
 	    
     
 // ============= Constructors ============== //
@@ -47,16 +53,48 @@ public class Root{
 	return appType;
     }
 
+    /**
+     * Returns the apps sorted by name, which must not be modified.
+     */
     public ArrayList<App> getList() {
-        // always sort
-        Collections.sort(apps);
+        getIndex();
         return apps;
     }
+    /**
+     * Returns the app with the name and null if there is none.
+     */
+    public App getApp(String name) {
+        return getIndex().get(name);
+    }
+    /**
+     * Inserts the app in order.
+     * Note, an app must be removed before it is renamed.
+     */
     public void addApp(App app){
-	apps.add(app);
+        HashMap<String, App> index = getIndex();
+        // after the apps that sort the same, as a stable sort would
+        int low = 0, high = apps.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (apps.get(middle).compareTo(app) <= 0) low = middle + 1;
+            else high = middle;
+        }
+        apps.add(low, app);
+        index.putIfAbsent(app.getName(), app);
     }
     public void removeApp(App app){
-	apps.remove(app);
+        HashMap<String, App> index = getIndex();
+        int position = apps.indexOf(app);
+        if (position < 0) return;
+        apps.remove(position);
+        if (index.get(app.getName()) != app) return;
+        index.remove(app.getName());
+        // another app with the same name sorts next to it
+        int first = position;
+        while (first > 0 && apps.get(first - 1).compareTo(app) == 0) first--;
+        for (int i = first; i < apps.size() && apps.get(i).compareTo(app) == 0; i++) {
+            if (apps.get(i).getName().equals(app.getName())) index.putIfAbsent(app.getName(), apps.get(i));
+        }
     }
     public void close() {
         for (App app : apps) {
@@ -64,6 +102,18 @@ public class Root{
             app = null;
         }
         apps.clear();
+        index = null;
+    }
+    /**
+     * Returns the index of the apps and sorts the apps when it is built.
+     */
+    private HashMap<String, App> getIndex() {
+        if (index == null) {
+            Collections.sort(apps);
+            index = new HashMap<>();
+            for (App app : apps) index.putIfAbsent(app.getName(), app);
+        }
+        return index;
     }
     @Override
     public String toString(){
@@ -4,6 +4,8 @@ import com.monkygames.kbmaster.cloud.metadata.MetaData;
 import com.monkygames.kbmaster.cloud.metadata.SyncMetaData;
 import com.monkygames.kbmaster.driver.Device;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.Calendar;
 
 /**
@@ -25,6 +27,11 @@ public class RootManager implements SyncMetaData{
      * The meta data used for dropbox sync.
      */
     private MetaData metaData;
+    /**
+     * The store the profiles and logos are read from when first used
+     * and null if everything was read.
+     */
+    private transient Closeable source;
 
 
     public RootManager(){
@@ -47,6 +54,28 @@ public class RootManager implements SyncMetaData{
         return gamesRoot;
     }
 
+    /**
+     * Sets the store that is closed with this root manager.
+     */
+    public void setSource(Closeable source) {
+        this.source = source;
+    }
+
+    /**
+     * Returns the store that is closed with this root manager and null if none.
+     */
+    public Closeable getSource() {
+        return source;
+    }
+
+    /**
+     * Loads everything that has not been read yet from the store.
+     */
+    public void load() {
+        for (App app : appsRoot.getList()) app.load();
+        for (App app : gamesRoot.getList()) app.load();
+    }
+
     @Override
     public MetaData getMetaData() {
         return metaData;
@@ -105,9 +134,7 @@ public class RootManager implements SyncMetaData{
         else if (app.getAppType() == appsRoot.getAppType()) root = appsRoot;
         else return false;
         // check if there already exists an app!
-        for (App testApp : root.getList()) {
-            if (testApp.getName().equals(app.getName())) return false;
-        }
+        if (root.getApp(app.getName()) != null) return false;
         root.addApp(app);
         setMetaData(new MetaData(Calendar.getInstance().getTimeInMillis()));
         return true;
@@ -115,5 +142,10 @@ public class RootManager implements SyncMetaData{
     public void close() {
         appsRoot.close();
         gamesRoot.close();
+        if (source == null) return;
+        try {
+            source.close();
+        } catch (IOException ex) { }
+        source = null;
     }
 }
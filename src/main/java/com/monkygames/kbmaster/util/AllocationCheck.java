@@ -0,0 +1,175 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.util;
+
+// === kbmaster imports === //
+import com.monkygames.kbmaster.engine.HardwareEngine;
+import com.monkygames.kbmaster.engine.HardwareManager;
+import com.monkygames.kbmaster.engine.sim.CountingInjector;
+import com.monkygames.kbmaster.engine.sim.SimComponent;
+import com.monkygames.kbmaster.engine.sim.SimControllerEnvironment;
+import com.monkygames.kbmaster.engine.sim.SimDevice;
+import com.monkygames.kbmaster.engine.sim.SimGamepad;
+import com.monkygames.kbmaster.engine.sim.SimKeyboard;
+import com.monkygames.kbmaster.engine.sim.SimMouse;
+import com.monkygames.kbmaster.input.JoystickInfo;
+import com.monkygames.kbmaster.metrics.DeviceMetrics;
+import com.monkygames.kbmaster.metrics.MetricsRegistry;
+import com.monkygames.kbmaster.profiles.Profile;
+// === java imports === //
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.util.concurrent.locks.LockSupport;
+import net.java.games.input.Component;
+import net.java.games.input.Controller;
+
+/**
+ * Checks that the poll loop of the HardwareEngine does not allocate once
+ * it has warmed up.
+ * <p>
+ * A simulated keyboard, mouse and gamepad are driven through a fixed
+ * sequence of changes (keys, mouse buttons, moves and wheel, both sticks,
+ * the hat and the gamepad buttons) and the bytes allocated by the poll
+ * thread are measured for the second half of the run.
+ * Exits with 1 if more than the allowed bytes were allocated per event so
+ * the build fails (see the allocationCheck task).
+ * <p>
+ * Usage: AllocationCheck [iterations [max-bytes-per-event]]
+ * @version 1.0
+ */
+public class AllocationCheck {
+
+	// ============= Class variables ============== //
+	private static final long POLL_TIMEOUT = 2000000000L;
+	/**
+	 * The hat positions stepped through by the check.
+	 */
+	private static final float[] POV = { JoystickInfo.DPAD_UP, JoystickInfo.DPAD_UP_RIGHT, JoystickInfo.DPAD_RIGHT,
+		JoystickInfo.DPAD_DOWN_RIGHT, JoystickInfo.DPAD_DOWN, JoystickInfo.DPAD_DOWN_LEFT, JoystickInfo.DPAD_LEFT,
+		JoystickInfo.DPAD_UP_LEFT, JoystickInfo.RESET };
+	private final com.sun.management.ThreadMXBean threads;
+	private SimKeyboard keyboard;
+	private SimMouse mouse;
+	private SimGamepad gamepad;
+	private DeviceMetrics metrics;
+
+	// ============= Constructors ============== //
+	public AllocationCheck() {
+		threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		threads.setThreadAllocatedMemoryEnabled(true);
+	}
+
+	// ============= Public Methods ============== //
+	/**
+	 * Runs the engine for twice the number of iterations and measures the second half.
+	 * @param iterations the number of changes to measure.
+	 * @return the bytes allocated by the poll thread per event.
+	 * @throws IllegalStateException if the engine does not poll.
+	 */
+	public double run(int iterations) {
+		SimDevice device = new SimDevice("Allocation Check");
+		SimControllerEnvironment environment = new SimControllerEnvironment();
+		for (Controller controller : device.createControllers()) {
+			environment.addController(controller);
+			if (controller instanceof SimKeyboard) keyboard = (SimKeyboard) controller;
+			else if (controller instanceof SimMouse) mouse = (SimMouse) controller;
+			else if (controller instanceof SimGamepad) gamepad = (SimGamepad) controller;
+		}
+		HardwareEngine.setControllerEnvironment(environment);
+		Profile profile = new Profile();
+		device.setDefaultKeymaps(profile);
+		device.setProfile(profile);
+		device.setEnabled(true);
+		metrics = MetricsRegistry.getMetricsRegistry().getDeviceMetrics(device.getDeviceInformation().getName());
+		HardwareManager hardwareManager = new HardwareManager(null);
+		try {
+			if (!hardwareManager.addManagedDevice(device, new CountingInjector()))
+				throw new IllegalStateException("The simulated device was not found");
+			waitForPoll();
+			long pollThread = findPollThread(HardwareEngine.POLL_THREAD_PREFIX + device.getDeviceInformation().getName());
+			// warm up so the loop is compiled
+			for (int i = 0; i < iterations; i++) {
+				change(i);
+				waitForPoll();
+			}
+			long events = metrics.getEvents();
+			long bytes = threads.getThreadAllocatedBytes(pollThread);
+			for (int i = 0; i < iterations; i++) {
+				change(i);
+				waitForPoll();
+			}
+			bytes = threads.getThreadAllocatedBytes(pollThread) - bytes;
+			events = metrics.getEvents() - events;
+			System.out.println("Events: " + events);
+			System.out.println("Bytes allocated by the poll thread: " + bytes);
+			return events == 0 ? bytes : (double) bytes / events;
+		} finally {
+			hardwareManager.close();
+			HardwareEngine.setControllerEnvironment(null);
+		}
+	}
+
+	// ============= Private Methods ============== //
+	/**
+	 * Makes the change of the specified iteration, each kind of input is changed in turn.
+	 */
+	private void change(int iteration) {
+		int step = iteration / 8;
+		switch (iteration % 8) {
+			case 0 -> toggle(keyboard.getKey(step % keyboard.getComponents().length));
+			case 1 -> {
+				mouse.move(0, step % 2 == 0 ? 3 : -3);
+				mouse.move(1, step % 2 == 0 ? -2 : 2);
+			}
+			case 2 -> toggle(mouse.getSimComponent(3 + step % 3));
+			case 3 -> mouse.move(2, step % 2 == 0 ? 1 : -1);
+			case 4 -> stick(Component.Identifier.Axis.X, Component.Identifier.Axis.Y, step);
+			case 5 -> stick(Component.Identifier.Axis.RX, Component.Identifier.Axis.RY, step);
+			case 6 -> gamepad.getSimComponent(Component.Identifier.Axis.POV).setValue(POV[step % POV.length]);
+			default -> toggle(gamepad.getSimComponent(5 + step % 4));
+		}
+	}
+	private static void toggle(SimComponent component) {
+		component.setValue(component.getValue() == 0 ? 1 : 0);
+	}
+	/**
+	 * Moves a stick to one of eight directions or back to the center.
+	 */
+	private void stick(Component.Identifier x, Component.Identifier y, int step) {
+		int direction = step % 9;
+		double angle = direction * Math.PI / 4;
+		gamepad.getSimComponent(x).setValue(direction == 8 ? 0 : (float) Math.cos(angle));
+		gamepad.getSimComponent(y).setValue(direction == 8 ? 0 : (float) Math.sin(angle));
+	}
+	/**
+	 * Waits until the engine has completed a poll that started after this call.
+	 */
+	private void waitForPoll() {
+		long target = metrics.getPolls() + 2;
+		long deadline = System.nanoTime() + POLL_TIMEOUT;
+		while (metrics.getPolls() < target) {
+			if (System.nanoTime() > deadline) throw new IllegalStateException("The engine is not polling");
+			LockSupport.parkNanos(10000);
+		}
+	}
+	private long findPollThread(String name) {
+		for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+			if (info != null && info.getThreadName().equals(name)) return info.getThreadId();
+		}
+		throw new IllegalStateException("The poll thread " + name + " is not running");
+	}
+
+	// ============= Static Methods ============== //
+	public static void main(String[] args) {
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+		double maxBytesPerEvent = args.length > 1 ? Double.parseDouble(args[1]) : 1;
+		double bytesPerEvent = new AllocationCheck().run(iterations);
+		System.out.printf("Bytes per event: %.2f (allowed %.2f)%n", bytesPerEvent, maxBytesPerEvent);
+		if (bytesPerEvent > maxBytesPerEvent) {
+			System.out.println("The poll loop allocates more than allowed");
+			System.exit(1);
+		}
+		System.exit(0);
+	}
+}
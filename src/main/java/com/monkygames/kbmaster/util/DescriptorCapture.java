@@ -0,0 +1,300 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.util;
+
+// === kbmaster imports === //
+import com.monkygames.kbmaster.driver.DeviceDescriptor;
+import com.monkygames.kbmaster.driver.DeviceType;
+import com.monkygames.kbmaster.engine.PollEventQueue;
+// === java imports === //
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+// === jinput imports === //
+import net.java.games.input.Component;
+import net.java.games.input.Component.Identifier.Axis;
+import net.java.games.input.Component.Identifier.Key;
+import net.java.games.input.Controller;
+import net.java.games.input.Event;
+
+/**
+ * Records the inputs of a device in a guided session and writes them as a
+ * {@link DeviceDescriptor}, which the driver manager loads from
+ * {@link com.monkygames.kbmaster.driver.DriverManager#DRIVER_DIR} like a
+ * built in driver.
+ * <p>
+ * The user presses every input once in the order they should be numbered
+ * and presses the first input again to finish. Keys keep their own key as
+ * default output, the left, right and middle buttons click and the other
+ * buttons (such as the buttons of a pad) are given the keys 1 to 9, 0 and
+ * A to Z. The wheel is captured from its scroll up and down; sticks and
+ * hats are not captured.
+ * @version 1.0
+ */
+public class DescriptorCapture {
+
+	// ============= Class variables ============== //
+	/**
+	 * The default outputs of the buttons that are not mouse buttons.
+	 */
+	private static final String BUTTON_KEYS = "1234567890ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+	/**
+	 * The file listing the input devices and their ids on Linux.
+	 */
+	private static final Path INPUT_DEVICES = Paths.get("/proc/bus/input/devices");
+	private final Controller[] controllers;
+	private final PollEventQueue[] eventQueues;
+	/**
+	 * The captured inputs in order.
+	 */
+	private final ArrayList<Input> inputs;
+
+	// ============= Constructors ============== //
+	/**
+	 * @param controllers the controllers of the device (such as its keyboard and mouse).
+	 */
+	public DescriptorCapture(Controller[] controllers) {
+		this.controllers = controllers;
+		eventQueues = new PollEventQueue[controllers.length];
+		for (int i = 0; i < controllers.length; i++)
+			eventQueues[i] = new PollEventQueue(controllers[i].getComponents());
+		inputs = new ArrayList<>();
+	}
+
+	// ============= Public Methods ============== //
+	/**
+	 * Runs the guided session.
+	 * @param out the prompts are written to it.
+	 * @param maxInputs the session ends after this many inputs.
+	 * @param timeout the session ends if no input is pressed for this many milliseconds.
+	 * @return the number of inputs captured.
+	 */
+	public int capture(PrintStream out, int maxInputs, long timeout) throws InterruptedException {
+		out.println("Press each input once, press the first input again to finish.");
+		while (inputs.size() < maxInputs) {
+			out.print("Input " + (inputs.size() + 1) + ": ");
+			out.flush();
+			Input input = waitForInput(timeout);
+			if (input == null) {
+				out.println("timed out");
+				break;
+			}
+			if (!inputs.isEmpty() && input.equals(inputs.get(0))) {
+				out.println("done");
+				break;
+			}
+			if (inputs.contains(input)) {
+				out.println(input + " was already captured");
+				continue;
+			}
+			if (getFieldName(input.identifier) == null) {
+				out.println(input + " is not supported");
+				continue;
+			}
+			inputs.add(input);
+			out.println(input);
+		}
+		return inputs.size();
+	}
+	/**
+	 * Waits for an input to be pressed.
+	 * @return the input and null if none was pressed before the timeout.
+	 */
+	public Input waitForInput(long timeout) throws InterruptedException {
+		long end = System.currentTimeMillis() + timeout;
+		while (System.currentTimeMillis() < end) {
+			for (int i = 0; i < controllers.length; i++) {
+				controllers[i].poll();
+				List<Event> events = eventQueues[i].getEvents();
+				for (int e = 0; e < events.size(); e++) {
+					Input input = getInput(events.get(e));
+					if (input != null) return input;
+				}
+			}
+			Thread.sleep(1);
+		}
+		return null;
+	}
+	public List<Input> getInputs() {
+		return inputs;
+	}
+	/**
+	 * Returns the descriptor of the captured inputs.
+	 * @param make the make of the device.
+	 * @param model the model of the device.
+	 * @param jinputName the name of the device's controllers.
+	 */
+	public String toDescriptor(String make, String model, String jinputName) {
+		StringBuilder builder = new StringBuilder();
+		builder.append("# Captured from ").append(jinputName).append(" with ScanHardware --capture,\n");
+		builder.append("# see ").append(DeviceDescriptor.class.getName()).append(" for the format.\n");
+		builder.append("make=").append(escape(make)).append('\n');
+		builder.append("model=").append(escape(model)).append('\n');
+		builder.append("type=").append(getDeviceType()).append('\n');
+		builder.append("jinput=").append(escape(jinputName)).append('\n');
+		builder.append("package=descriptor.").append((make + "." + model).replaceAll("[^A-Za-z0-9.]", "_")).append('\n');
+		int[] usb = findUsbIds(jinputName);
+		if (usb != null) builder.append(String.format("usb=%04x:%04x%n", usb[0], usb[1]));
+		builder.append("mouse=").append(hasMouse()).append('\n');
+		builder.append("description=Captured from ").append(escape(jinputName)).append('\n');
+		builder.append("# Components\n");
+		for (Controller controller : controllers) {
+			builder.append("#  ").append(controller.getName()).append(" (").append(controller.getType()).append(")\n");
+			for (Component component : controller.getComponents()) {
+				builder.append("#    ").append(component.getIdentifier().getName())
+					.append(component.isAnalog() ? " Analog" : " Digital")
+					.append(component.isRelative() ? " Relative" : " Absolute").append('\n');
+			}
+		}
+		builder.append("# input.<id>=<kind>,<input>,<code>,<x>,<y>\n");
+		int buttons = 0;
+		for (int i = 0; i < inputs.size(); i++) {
+			Input input = inputs.get(i);
+			builder.append("input.").append(i + 1).append('=');
+			if (input.wheel != 0) {
+				builder.append(input.wheel > 0 ? "wheelup,," + -1 : "wheeldown,," + 1);
+			} else if (input.identifier instanceof Key) {
+				builder.append("key,").append(getFieldName(input.identifier)).append(',');
+			} else if (getMouseMask(input.identifier) != null) {
+				builder.append("mouse,").append(getFieldName(input.identifier)).append(',').append(getMouseMask(input.identifier));
+			} else {
+				char key = BUTTON_KEYS.charAt(buttons++ % BUTTON_KEYS.length());
+				builder.append("button,").append(getFieldName(input.identifier)).append(",VK_").append(key);
+			}
+			// the bindings image has no template to place the inputs on
+			builder.append(",0,0\n");
+		}
+		return builder.toString();
+	}
+	/**
+	 * Returns the type of the device from its controllers and inputs.
+	 */
+	public DeviceType getDeviceType() {
+		for (Controller controller : controllers) {
+			if (controller.getType() == Controller.Type.GAMEPAD) return DeviceType.GAMEPAD;
+		}
+		for (Input input : inputs) {
+			if (input.wheel == 0 && getMouseMask(input.identifier) == null) return DeviceType.KEYBOARD;
+		}
+		return inputs.isEmpty() ? DeviceType.KEYBOARD : DeviceType.MOUSE;
+	}
+
+	// ============= Private Methods ============== //
+	/**
+	 * Returns the input pressed by the event and null if it is not a press.
+	 */
+	private Input getInput(Event event) {
+		Component component = event.getComponent();
+		Component.Identifier identifier = component.getIdentifier();
+		if (identifier == Axis.Z && component.isRelative() && event.getValue() != 0)
+			return new Input(identifier, event.getValue() > 0 ? 1 : -1);
+		if ((identifier instanceof Key || identifier instanceof Component.Identifier.Button)
+				&& !component.isAnalog() && event.getValue() > 0)
+			return new Input(identifier, 0);
+		return null;
+	}
+	private boolean hasMouse() {
+		for (Input input : inputs) {
+			if (input.wheel != 0 || getMouseMask(input.identifier) != null) return true;
+		}
+		return false;
+	}
+
+	// ============= Internal Classes ============== //
+	/**
+	 * A captured input, the wheel is 1 or -1 for its scroll up and down.
+	 */
+	public static class Input {
+		private final Component.Identifier identifier;
+		private final int wheel;
+		Input(Component.Identifier identifier, int wheel) {
+			this.identifier = identifier;
+			this.wheel = wheel;
+		}
+		public Component.Identifier getIdentifier() { return identifier; }
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Input && ((Input) other).identifier == identifier && ((Input) other).wheel == wheel;
+		}
+		@Override
+		public int hashCode() { return Objects.hash(System.identityHashCode(identifier), wheel); }
+		@Override
+		public String toString() {
+			if (wheel != 0) return wheel > 0 ? "Scroll Up" : "Scroll Down";
+			String field = getFieldName(identifier);
+			return field != null ? field : identifier.getName();
+		}
+	}
+
+	// ============= Static Methods ============== //
+	/**
+	 * Returns the name of the jinput constant of the identifier and null if it is not a constant.
+	 */
+	private static String getFieldName(Component.Identifier identifier) {
+		for (Field field : identifier.getClass().getFields()) {
+			if (!Modifier.isStatic(field.getModifiers())) continue;
+			try {
+				if (field.get(null) == identifier) return field.getName();
+			} catch (IllegalAccessException e) { }
+		}
+		return null;
+	}
+	/**
+	 * Returns the name of the click mask of a mouse button and null for other buttons.
+	 */
+	private static String getMouseMask(Component.Identifier identifier) {
+		if (identifier == Component.Identifier.Button.LEFT) return "BUTTON1_DOWN_MASK";
+		if (identifier == Component.Identifier.Button.MIDDLE) return "BUTTON2_DOWN_MASK";
+		if (identifier == Component.Identifier.Button.RIGHT) return "BUTTON3_DOWN_MASK";
+		return null;
+	}
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\n", "\\n");
+	}
+	/**
+	 * Returns the USB vendor and product ids of the device from the Linux
+	 * input devices and null if they are not known.
+	 */
+	public static int[] findUsbIds(String jinputName) {
+		if (!Files.isReadable(INPUT_DEVICES)) return null;
+		try {
+			int[] ids = null;
+			for (String line : Files.readAllLines(INPUT_DEVICES, StandardCharsets.UTF_8)) {
+				if (line.startsWith("I:")) {
+					ids = new int[] { parseId(line, "Vendor="), parseId(line, "Product=") };
+				} else if (line.startsWith("N:") && ids != null && ids[0] >= 0 && ids[1] >= 0
+						&& line.contains("\"" + jinputName + "\"")) {
+					return ids;
+				}
+			}
+		} catch (IOException e) { }
+		return null;
+	}
+	private static int parseId(String line, String field) {
+		int start = line.indexOf(field);
+		if (start < 0) return -1;
+		start += field.length();
+		int end = line.indexOf(' ', start);
+		try {
+			return Integer.parseInt(end < 0 ? line.substring(start) : line.substring(start, end), 16);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+	/**
+	 * Writes the descriptor to the file.
+	 */
+	public static void write(Path file, String descriptor) throws IOException {
+		if (file.getParent() != null) Files.createDirectories(file.getParent());
+		Files.write(file, descriptor.getBytes(StandardCharsets.UTF_8));
+	}
+}
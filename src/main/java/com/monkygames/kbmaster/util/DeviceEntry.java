@@ -39,6 +39,10 @@ public class DeviceEntry{
      * The actual profile name.
      */
     private String realProfileName;
+    /**
+     * Shown instead of the profile while the profiles of the device are read.
+     */
+    public static final String LOADING = "Loading...";
 // ============= Constructors ============== //
     public DeviceEntry(Device device){
 	    this.device = device;
@@ -78,6 +82,13 @@ public class DeviceEntry{
     public void setConnected(String isConnected) {
          this.isConnected.setValue(isConnected);
     }
+    /**
+     * Shows that the profiles of the device are being read.
+     */
+    public void setLoading() {
+        realProfileName = LOADING;
+        profileName.setValue(LOADING);
+    }
     public void setProfile(Profile profile) {
         if (profile == null) realProfileName = "None Selected";
         else realProfileName = profile.getProfileName();
@@ -0,0 +1,499 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.util;
+
+// === kbmaster imports === //
+import com.monkygames.kbmaster.cloud.DropBoxContentHash;
+// === java imports === //
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+// === dropbox imports === //
+import com.dropbox.core.DbxHost;
+import com.dropbox.core.DbxRequestConfig;
+import com.dropbox.core.http.HttpRequestor;
+import com.dropbox.core.http.StandardHttpRequestor;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An embedded http server bound to localhost which stands in for the
+ * DropBox v2 endpoints used by the sync (list_folder, list_folder/continue,
+ * get_metadata, upload, download, create_folder_v2 and delete_v2), with the files
+ * kept in memory.
+ * <p>
+ * Each request is delayed by the latency, its body is throttled to the
+ * bandwidth and a fraction of the requests is refused with a 503, which
+ * the SDK retries, so the sync can be measured and its failures tested
+ * without the network. The SDK only connects to https hosts without a
+ * port, so the clients are given hosts that do not exist and a requestor
+ * which sends their requests to this server.
+ * @version 1.0
+ */
+public class DropBoxStandIn {
+
+	// ============= Class variables ============== //
+	/**
+	 * The hosts of the clients, which are sent to the server by the requestor.
+	 */
+	public static final DbxHost HOST = new DbxHost("api.standin.invalid", "content.standin.invalid",
+		"www.standin.invalid", "notify.standin.invalid");
+	/**
+	 * The number of entries listed by a page of list_folder.
+	 */
+	public static final int PAGE_SIZE = 500;
+	private static final JsonFactory JSON = new JsonFactory();
+	private final HttpServer server;
+	/**
+	 * The files by lower case path.
+	 */
+	private final ConcurrentHashMap<String, StoredFile> files;
+	/**
+	 * The lower case paths of the folders created.
+	 */
+	private final Set<String> folders;
+	private final AtomicLong revisions;
+	private final Random random;
+	private volatile long latency;
+	private volatile long bandwidth;
+	private volatile double errorRate;
+	private final LongAdder requests, errors, retries, bytesUp, bytesDown;
+	/**
+	 * The requests by endpoint.
+	 */
+	private final ConcurrentHashMap<String, LongAdder> endpoints;
+	/**
+	 * The checksums of the requests refused, so a request sent again is counted as a retry.
+	 */
+	private final Set<Long> refused;
+
+	// ============= Constructors ============== //
+	/**
+	 * Starts the server on a free port.
+	 */
+	public DropBoxStandIn() throws IOException {
+		files = new ConcurrentHashMap<>();
+		folders = ConcurrentHashMap.newKeySet();
+		revisions = new AtomicLong(0x100000000L);
+		random = new Random(42);
+		requests = new LongAdder();
+		errors = new LongAdder();
+		retries = new LongAdder();
+		bytesUp = new LongAdder();
+		bytesDown = new LongAdder();
+		endpoints = new ConcurrentHashMap<>();
+		refused = ConcurrentHashMap.newKeySet();
+		// without it each response waits on the delayed ack of the client
+		if (System.getProperty("sun.net.httpserver.nodelay") == null)
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/2/files/", this::handle);
+		ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "kbmaster-standin");
+			thread.setDaemon(true);
+			return thread;
+		});
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	// ============= Public Methods ============== //
+	public int getPort() { return server.getAddress().getPort(); }
+	public void stop() { server.stop(0); }
+	/**
+	 * Sets the time in milliseconds each request is delayed.
+	 */
+	public void setLatency(long latency) { this.latency = latency; }
+	/**
+	 * Sets the bytes per second of the request and response bodies and 0 for no limit.
+	 */
+	public void setBandwidth(long bandwidth) { this.bandwidth = bandwidth; }
+	/**
+	 * Sets the fraction of the requests refused with a 503.
+	 */
+	public void setErrorRate(double errorRate) { this.errorRate = errorRate; }
+	/**
+	 * Returns the config of the clients, which sends their requests to this server.
+	 * @param retries the number of times the SDK retries a refused request.
+	 */
+	public DbxRequestConfig getRequestConfig(int retries) {
+		return DbxRequestConfig.newBuilder("Keyboarding(Re)Master/standin")
+			.withHttpRequestor(new LocalRequestor(StandardHttpRequestor.INSTANCE, "http://127.0.0.1:" + getPort()))
+			.withAutoRetryEnabled(retries).build();
+	}
+	public long getRequests() { return requests.sum(); }
+	/**
+	 * Returns the requests refused by the error rate.
+	 */
+	public long getErrors() { return errors.sum(); }
+	/**
+	 * Returns the requests sent again after they were refused.
+	 */
+	public long getRetries() { return retries.sum(); }
+	public long getBytesUploaded() { return bytesUp.sum(); }
+	public long getBytesDownloaded() { return bytesDown.sum(); }
+	/**
+	 * Returns the number of requests by endpoint.
+	 */
+	public Map<String, Long> getEndpoints() {
+		TreeMap<String, Long> counts = new TreeMap<>();
+		endpoints.forEach((endpoint, count) -> counts.put(endpoint, count.sum()));
+		return counts;
+	}
+	public int getFileCount() { return files.size(); }
+	/**
+	 * Resets the counters, the files are kept.
+	 */
+	public void resetCounters() {
+		for (LongAdder counter : new LongAdder[] { requests, errors, retries, bytesUp, bytesDown }) counter.reset();
+		endpoints.clear();
+		refused.clear();
+	}
+
+	// ============= Private Methods ============== //
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			String endpoint = exchange.getRequestURI().getPath().substring("/2/files/".length());
+			requests.increment();
+			endpoints.computeIfAbsent(endpoint, key -> new LongAdder()).increment();
+			if (latency > 0) Thread.sleep(latency);
+			byte[] body = readBody(exchange.getRequestBody());
+			bytesUp.add(body.length);
+			throttle(body.length);
+			String arg = exchange.getRequestHeaders().getFirst("Dropbox-API-Arg");
+			if (refuse(endpoint, arg, body)) {
+				sendJson(exchange, 503, "{\"error_summary\": \"service_unavailable/\"}");
+				return;
+			}
+			Map<String, Object> args = parse(arg != null ? arg : new String(body, StandardCharsets.UTF_8));
+			switch (endpoint) {
+				case "list_folder" -> listFolder(exchange, (String) args.get("path"), Boolean.TRUE.equals(args.get("recursive")), 0);
+				case "list_folder/continue" -> continueListFolder(exchange, (String) args.get("cursor"));
+				case "get_metadata" -> getMetadata(exchange, (String) args.get("path"));
+				case "create_folder_v2" -> createFolder(exchange, (String) args.get("path"));
+				case "upload" -> upload(exchange, (String) args.get("path"), body);
+				case "download" -> download(exchange, (String) args.get("path"));
+				case "delete_v2" -> delete(exchange, (String) args.get("path"));
+				default -> sendJson(exchange, 400, "{\"error_summary\": \"unknown endpoint " + endpoint + "\"}");
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			exchange.sendResponseHeaders(500, -1);
+		} catch (RuntimeException ex) {
+			exchange.sendResponseHeaders(400, -1);
+		} finally {
+			exchange.close();
+		}
+	}
+	/**
+	 * Returns true if the request is refused by the error rate, and counts a
+	 * request refused before as a retry.
+	 */
+	private boolean refuse(String endpoint, String arg, byte[] body) {
+		CRC32 crc = new CRC32();
+		crc.update(endpoint.getBytes(StandardCharsets.UTF_8));
+		if (arg != null) crc.update(arg.getBytes(StandardCharsets.UTF_8));
+		crc.update(body);
+		long checksum = crc.getValue();
+		if (refused.remove(checksum)) retries.increment();
+		boolean refuse;
+		synchronized (random) {
+			refuse = random.nextDouble() < errorRate;
+		}
+		if (!refuse) return false;
+		errors.increment();
+		refused.add(checksum);
+		return true;
+	}
+	private void listFolder(HttpExchange exchange, String path, boolean recursive, int offset) throws IOException, InterruptedException {
+		String folder = toKey(path);
+		if (!exists(folder)) {
+			sendJson(exchange, 409, "{\"error_summary\": \"path/not_found/\", \"error\": {\".tag\": \"path\", \"path\": {\".tag\": \"not_found\"}}}");
+			return;
+		}
+		// the folders and files below the folder in path order
+		TreeMap<String, StoredFile> entries = new TreeMap<>();
+		TreeSet<String> subfolders = new TreeSet<>();
+		for (StoredFile file : files.values()) {
+			String key = toKey(file.path);
+			if (!key.startsWith(folder + "/")) continue;
+			String relative = key.substring(folder.length() + 1);
+			if (!recursive && relative.contains("/")) continue;
+			entries.put(key, file);
+			for (int i = relative.indexOf('/'); i >= 0; i = relative.indexOf('/', i + 1))
+				subfolders.add(folder + "/" + relative.substring(0, i));
+		}
+		for (String created : folders) {
+			if (created.startsWith(folder + "/") && (recursive || created.indexOf('/', folder.length() + 1) < 0))
+				subfolders.add(created);
+		}
+		ArrayList<Object> listed = new ArrayList<>(subfolders);
+		listed.addAll(entries.values());
+		int end = Math.min(listed.size(), offset + PAGE_SIZE);
+		StringWriter writer = new StringWriter();
+		try (JsonGenerator json = JSON.createGenerator(writer)) {
+			json.writeStartObject();
+			json.writeArrayFieldStart("entries");
+			for (int i = offset; i < end; i++) {
+				Object entry = listed.get(i);
+				if (entry instanceof StoredFile) writeFile(json, (StoredFile) entry, true);
+				else writeFolder(json, (String) entry);
+			}
+			json.writeEndArray();
+			json.writeStringField("cursor", folder + "|" + recursive + "|" + end);
+			json.writeBooleanField("has_more", end < listed.size());
+			json.writeEndObject();
+		}
+		sendJson(exchange, 200, writer.toString());
+	}
+	private void continueListFolder(HttpExchange exchange, String cursor) throws IOException, InterruptedException {
+		String[] parts = cursor.split("\\|");
+		if (parts.length != 3) {
+			sendJson(exchange, 409, "{\"error_summary\": \"reset/\", \"error\": {\".tag\": \"reset\"}}");
+			return;
+		}
+		listFolder(exchange, parts[0], Boolean.parseBoolean(parts[1]), Integer.parseInt(parts[2]));
+	}
+	private void getMetadata(HttpExchange exchange, String path) throws IOException, InterruptedException {
+		String key = toKey(path);
+		StoredFile file = files.get(key);
+		if (file == null && !exists(key)) {
+			sendJson(exchange, 409, "{\"error_summary\": \"path/not_found/\", \"error\": {\".tag\": \"path\", \"path\": {\".tag\": \"not_found\"}}}");
+			return;
+		}
+		StringWriter writer = new StringWriter();
+		try (JsonGenerator json = JSON.createGenerator(writer)) {
+			if (file != null) writeFile(json, file, true);
+			else writeFolder(json, key);
+		}
+		sendJson(exchange, 200, writer.toString());
+	}
+	private void createFolder(HttpExchange exchange, String path) throws IOException, InterruptedException {
+		String key = toKey(path);
+		if (exists(key) || files.containsKey(key)) {
+			sendJson(exchange, 409, "{\"error_summary\": \"path/conflict/folder/\", \"error\": {\".tag\": \"path\", \"path\": {\".tag\": \"conflict\", \"conflict\": {\".tag\": \"folder\"}}}}");
+			return;
+		}
+		folders.add(key);
+		StringWriter writer = new StringWriter();
+		try (JsonGenerator json = JSON.createGenerator(writer)) {
+			json.writeStartObject();
+			json.writeFieldName("metadata");
+			json.writeStartObject();
+			writeFolderFields(json, path);
+			json.writeEndObject();
+			json.writeEndObject();
+		}
+		sendJson(exchange, 200, writer.toString());
+	}
+	private void upload(HttpExchange exchange, String path, byte[] body) throws IOException, InterruptedException {
+		StoredFile file = new StoredFile(path, body, String.format("%012x", revisions.incrementAndGet()),
+			System.currentTimeMillis() / 1000 * 1000, DropBoxContentHash.compute(new ByteArrayInputStream(body)));
+		files.put(toKey(path), file);
+		StringWriter writer = new StringWriter();
+		try (JsonGenerator json = JSON.createGenerator(writer)) {
+			writeFile(json, file, false);
+		}
+		sendJson(exchange, 200, writer.toString());
+	}
+	private void download(HttpExchange exchange, String path) throws IOException, InterruptedException {
+		StoredFile file = files.get(toKey(path));
+		if (file == null) {
+			sendJson(exchange, 409, "{\"error_summary\": \"path/not_found/\", \"error\": {\".tag\": \"path\", \"path\": {\".tag\": \"not_found\"}}}");
+			return;
+		}
+		StringWriter writer = new StringWriter();
+		try (JsonGenerator json = JSON.createGenerator(writer)) {
+			json.enable(JsonGenerator.Feature.ESCAPE_NON_ASCII);
+			writeFile(json, file, false);
+		}
+		exchange.getResponseHeaders().set("Dropbox-API-Result", writer.toString());
+		exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+		throttle(file.content.length);
+		bytesDown.add(file.content.length);
+		exchange.sendResponseHeaders(200, file.content.length == 0 ? -1 : file.content.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(file.content);
+		}
+	}
+	private void delete(HttpExchange exchange, String path) throws IOException, InterruptedException {
+		StoredFile file = files.remove(toKey(path));
+		if (file == null) {
+			sendJson(exchange, 409, "{\"error_summary\": \"path_lookup/not_found/\", \"error\": {\".tag\": \"path_lookup\", \"path_lookup\": {\".tag\": \"not_found\"}}}");
+			return;
+		}
+		StringWriter writer = new StringWriter();
+		try (JsonGenerator json = JSON.createGenerator(writer)) {
+			json.writeStartObject();
+			json.writeFieldName("metadata");
+			writeFile(json, file, true);
+			json.writeEndObject();
+		}
+		sendJson(exchange, 200, writer.toString());
+	}
+	/**
+	 * Returns true if the folder was created or holds files.
+	 */
+	private boolean exists(String folder) {
+		if (folder.isEmpty() || folders.contains(folder)) return true;
+		for (String key : files.keySet()) {
+			if (key.startsWith(folder + "/")) return true;
+		}
+		return false;
+	}
+	/**
+	 * Waits as long as the bytes take with the bandwidth.
+	 */
+	private void throttle(long bytes) throws InterruptedException {
+		long limit = bandwidth;
+		if (limit > 0 && bytes > 0) Thread.sleep(bytes * 1000 / limit);
+	}
+	private void sendJson(HttpExchange exchange, int status, String body) throws IOException, InterruptedException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		throttle(bytes.length);
+		bytesDown.add(bytes.length);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	// ============= Internal Classes ============== //
+	/**
+	 * A file in memory.
+	 */
+	private static class StoredFile {
+		final String path, rev, contentHash;
+		final byte[] content;
+		final long serverModified;
+		StoredFile(String path, byte[] content, String rev, long serverModified, String contentHash) {
+			this.path = path;
+			this.content = content;
+			this.rev = rev;
+			this.serverModified = serverModified;
+			this.contentHash = contentHash;
+		}
+	}
+	/**
+	 * Sends the requests of the DropBox hosts to the server.
+	 */
+	private static class LocalRequestor extends HttpRequestor {
+		private final HttpRequestor requestor;
+		private final String base;
+		LocalRequestor(HttpRequestor requestor, String base) {
+			this.requestor = requestor;
+			this.base = base;
+		}
+		@Override
+		public Response doGet(String url, Iterable<Header> headers) throws IOException {
+			return requestor.doGet(toLocal(url), headers);
+		}
+		@Override
+		public Uploader startPost(String url, Iterable<Header> headers) throws IOException {
+			return requestor.startPost(toLocal(url), headers);
+		}
+		@Override
+		public Uploader startPostInStreamingMode(String url, Iterable<Header> headers) throws IOException {
+			return requestor.startPostInStreamingMode(toLocal(url), headers);
+		}
+		@Override
+		public Uploader startPut(String url, Iterable<Header> headers) throws IOException {
+			return requestor.startPut(toLocal(url), headers);
+		}
+		private String toLocal(String url) {
+			return base + url.substring(url.indexOf('/', url.indexOf("://") + 3));
+		}
+	}
+
+	// ============= Static Methods ============== //
+	private static String toKey(String path) {
+		return path.toLowerCase(Locale.ROOT);
+	}
+	private static byte[] readBody(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[64 * 1024];
+		int read;
+		while ((read = in.read(buffer)) != -1) out.write(buffer, 0, read);
+		return out.toByteArray();
+	}
+	/**
+	 * Returns the fields of a JSON object that are strings or booleans.
+	 */
+	private static Map<String, Object> parse(String text) throws IOException {
+		HashMap<String, Object> fields = new HashMap<>();
+		if (text.isEmpty()) return fields;
+		try (JsonParser json = JSON.createParser(text)) {
+			if (json.nextToken() != JsonToken.START_OBJECT) return fields;
+			while (json.nextToken() == JsonToken.FIELD_NAME) {
+				String name = json.getCurrentName();
+				JsonToken token = json.nextToken();
+				if (token == JsonToken.VALUE_STRING) fields.put(name, json.getText());
+				else if (token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE) fields.put(name, json.getBooleanValue());
+				else json.skipChildren();
+			}
+		}
+		return fields;
+	}
+	private static void writeFile(JsonGenerator json, StoredFile file, boolean tagged) throws IOException {
+		json.writeStartObject();
+		if (tagged) json.writeStringField(".tag", "file");
+		writeFolderFields(json, file.path);
+		String time = formatTime(file.serverModified);
+		json.writeStringField("client_modified", time);
+		json.writeStringField("server_modified", time);
+		json.writeStringField("rev", file.rev);
+		json.writeNumberField("size", file.content.length);
+		json.writeStringField("content_hash", file.contentHash);
+		json.writeEndObject();
+	}
+	private static void writeFolder(JsonGenerator json, String path) throws IOException {
+		json.writeStartObject();
+		json.writeStringField(".tag", "folder");
+		writeFolderFields(json, path);
+		json.writeEndObject();
+	}
+	/**
+	 * Writes the fields of both files and folders.
+	 */
+	private static void writeFolderFields(JsonGenerator json, String path) throws IOException {
+		json.writeStringField("name", path.substring(path.lastIndexOf('/') + 1));
+		json.writeStringField("path_lower", toKey(path));
+		json.writeStringField("path_display", path);
+		json.writeStringField("id", "id:" + Long.toHexString(toKey(path).hashCode() & 0xffffffffL));
+	}
+	private static String formatTime(long time) {
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.ROOT);
+		format.setTimeZone(TimeZone.getTimeZone("UTC"));
+		return format.format(new Date(time));
+	}
+}
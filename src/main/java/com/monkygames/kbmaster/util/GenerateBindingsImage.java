@@ -4,6 +4,7 @@
 package com.monkygames.kbmaster.util;
 
 // === jnostromo imports === //
+import com.monkygames.kbmaster.driver.BindingLayout;
 import com.monkygames.kbmaster.driver.Device;
 import com.monkygames.kbmaster.input.Keymap;
 import com.monkygames.kbmaster.input.Mapping;
@@ -34,6 +35,10 @@ public class GenerateBindingsImage {
 	private Color textColor2;
 	private BufferedImage image;
 	private Device device;
+	private final Font titleFont = new Font("Dialog", Font.BOLD, 18);
+	private final Font outputFont = new Font("Dialog", Font.PLAIN, 12);
+	private final Font keymapDescriptionFont = new Font("Dialog", Font.PLAIN, 15);
+	private final Font descriptionFont = new Font("Dialog", Font.ITALIC, 9);
 	
 	// ============= Constructors ============== //
 	public GenerateBindingsImage(Device device) {
@@ -81,12 +86,15 @@ public class GenerateBindingsImage {
 		try {
 			URL url = templateURL;
 			image = ImageIO.read(url);
-			this.writeTitle(keymap);
+			Graphics2D g2 = image.createGraphics();
+			this.writeTitle(g2, keymap);
 			
 			// write the mappings to the imaage
+			BindingLayout layout = device.getBindingLayout();
 			for (Mapping mapping : keymap.getMappings(true)) {
-				writeBinding(mapping);
+				writeBinding(g2, layout, mapping);
 			}
+			g2.dispose();
 			
 			return Toolkit.getDefaultToolkit().createImage(image.getSource());
 		} catch (Exception e) {
@@ -97,26 +105,33 @@ public class GenerateBindingsImage {
 	
 	// ============= Protected Methods ============== //
 	// ============= Private Methods ============== //
-	private void writeTitle(Keymap keymap) {
-		Graphics2D g2 = image.createGraphics();
-		Font font = new Font("Dialog", Font.BOLD, 18);
-		g2.setFont(font);
+	private void writeTitle(Graphics2D g2, Keymap keymap) {
+		g2.setFont(titleFont);
 		g2.setColor(textColor);
 		g2.drawString("keymap " + keymap.getID(), 15, 15);
 		if (!keymap.getDescription().equals("keymap description")) {
-			font = new Font("Dialog", Font.PLAIN, 15);
-			g2.setFont(font);
+			g2.setFont(keymapDescriptionFont);
 			g2.setColor(textColor2);
 			g2.drawString(keymap.getDescription(), 15, 30);
 			
 		}
 	}
 	
-	private void writeBinding(Mapping mapping) {
-		Rectangle rect = device.getBindingOutputAndDescriptionLocation(mapping);
+	/**
+	 * Writes the output and the description of the mapping, the locations are
+	 * looked up in the layout of the device and asked to the device if it has none.
+	 */
+	private void writeBinding(Graphics2D g2, BindingLayout layout, Mapping mapping) {
 		Output output = mapping.getOutput();
-		Graphics2D g2 = image.createGraphics();
+		g2.setFont(outputFont);
 		g2.setColor(textColor);
+		if (layout != null) {
+			int id = mapping.getInputHardware().getID();
+			g2.drawString(output.getName(), layout.getOutputX(id), layout.getOutputY(id));
+			writeDescription(g2, output, layout.getDescriptionX(id), layout.getDescriptionY(id));
+			return;
+		}
+		Rectangle rect = device.getBindingOutputAndDescriptionLocation(mapping);
 		g2.drawString(output.getName(), rect.x, rect.y);
 		writeDescription(g2, output, rect.width, rect.height);
 	}
@@ -127,8 +142,7 @@ public class GenerateBindingsImage {
 	private void writeDescription(Graphics2D g2, Output output, int posx, int posy) {
 		if (!output.getName().equals(output.getDescription())) {
 			// write description
-			Font font = new Font("Dialog", Font.ITALIC, 9);
-			g2.setFont(font);
+			g2.setFont(descriptionFont);
 			g2.setColor(textColor2);
 			g2.drawString(output.getDescription(), posx, posy);
 		}
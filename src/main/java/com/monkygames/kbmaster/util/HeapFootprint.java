@@ -0,0 +1,167 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.util;
+
+// === kbmaster imports === //
+import com.monkygames.kbmaster.driver.Device;
+import com.monkygames.kbmaster.driver.devices.razer.nostromo.Nostromo;
+import com.monkygames.kbmaster.driver.devices.razer.tartarus.Tartarus;
+import com.monkygames.kbmaster.input.ButtonMapping;
+import com.monkygames.kbmaster.input.Interner;
+import com.monkygames.kbmaster.input.Keymap;
+import com.monkygames.kbmaster.input.OutputKey;
+import com.monkygames.kbmaster.io.ProfileStore;
+import com.monkygames.kbmaster.io.XStreamManager;
+import com.monkygames.kbmaster.profiles.App;
+import com.monkygames.kbmaster.profiles.AppType;
+import com.monkygames.kbmaster.profiles.Profile;
+import com.monkygames.kbmaster.profiles.RootManager;
+// === java imports === //
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Measures the heap kept by a large synthetic library of profiles once it
+ * is read back with XStream and from the binary profile store, with and
+ * without the {@link Interner}.
+ * <p>
+ * Every profile starts from the default keymaps of its device and has a
+ * few buttons of each keymap remapped to keys from a small set, as most
+ * profiles are variations of the defaults.
+ * <p>
+ * Usage: HeapFootprint [profiles [edits-per-keymap]]
+ * @version 1.0
+ */
+public class HeapFootprint {
+
+	// ============= Class variables ============== //
+	private static final int PROFILES_PER_APP = 10;
+	private static final String KEYS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+	private final MemoryMXBean memory;
+
+	// ============= Constructors ============== //
+	public HeapFootprint() {
+		memory = ManagementFactory.getMemoryMXBean();
+	}
+
+	// ============= Public Methods ============== //
+	/**
+	 * Builds the library with the devices.
+	 * @param profiles the number of profiles of each device.
+	 * @param edits the number of buttons remapped in each keymap.
+	 */
+	public RootManager[] createLibrary(Device[] devices, int profiles, int edits) {
+		Random random = new Random(42);
+		RootManager[] library = new RootManager[devices.length];
+		for (int d = 0; d < devices.length; d++) {
+			RootManager rootManager = new RootManager();
+			App app = null;
+			for (int i = 0; i < profiles; i++) {
+				if (i % PROFILES_PER_APP == 0) {
+					app = new App("app" + i, null, null, "App " + i, devices[d].getDeviceInformation().getName(), AppType.GAME);
+					rootManager.addApp(app);
+				}
+				Profile profile = new Profile(app, "Profile " + i);
+				devices[d].setDefaultKeymaps(profile);
+				for (int k = 0; k < 8; k++) edit(profile.getKeymap(k), random, edits);
+				rootManager.addProfile(app, profile);
+			}
+			library[d] = rootManager;
+		}
+		return library;
+	}
+	/**
+	 * Returns the bytes of heap kept by the value made by the supplier.
+	 */
+	public long measure(Supplier<Object> supplier) {
+		long before = getUsedHeap();
+		Object value = supplier.get();
+		long after = getUsedHeap();
+		// keeps the value reachable until it is measured
+		Reference.reachabilityFence(value);
+		return after - before;
+	}
+
+	// ============= Private Methods ============== //
+	/**
+	 * Remaps buttons of the keymap, the outputs are new instances like the ones made by the UI.
+	 */
+	private static void edit(Keymap keymap, Random random, int edits) {
+		ArrayList<ButtonMapping> mappings = new ArrayList<>(keymap.getButtonMappings().values());
+		for (int i = 0; i < edits && !mappings.isEmpty(); i++) {
+			ButtonMapping mapping = mappings.remove(random.nextInt(mappings.size()));
+			char key = KEYS.charAt(random.nextInt(KEYS.length()));
+			keymap.replaceMapping(mapping, mapping.withOutput(new OutputKey(String.valueOf(key), key, 0), true));
+		}
+	}
+	private long getUsedHeap() {
+		for (int i = 0; i < 4; i++) System.gc();
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+	private static RootManager[] readXML(File[] files) {
+		RootManager[] library = new RootManager[files.length];
+		for (int i = 0; i < files.length; i++)
+			library[i] = XStreamManager.getStreamManager().readRootManager(files[i].getAbsolutePath());
+		return library;
+	}
+	private static RootManager[] readStore(File[] directories) {
+		RootManager[] library = new RootManager[directories.length];
+		for (int i = 0; i < directories.length; i++) {
+			library[i] = ProfileStore.getProfileStore().readRootManager(directories[i]);
+			library[i].load();
+		}
+		return library;
+	}
+	private static void delete(File directory) throws IOException {
+		try (Stream<Path> paths = Files.walk(directory.toPath())) {
+			paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+	// ============= Static Methods ============== //
+	public static void main(String[] args) throws IOException {
+		int profiles = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int edits = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		HeapFootprint footprint = new HeapFootprint();
+		Interner interner = Interner.getInterner();
+		Device[] devices = { new Nostromo(), new Tartarus() };
+		File directory = Files.createTempDirectory("heapfootprint").toFile();
+		File[] files = new File[devices.length];
+		File[] directories = new File[devices.length];
+		try {
+			RootManager[] library = footprint.createLibrary(devices, profiles, edits);
+			for (int i = 0; i < devices.length; i++) {
+				files[i] = new File(directory, "device" + i + ".xml");
+				directories[i] = new File(directory, "device" + i);
+				XStreamManager.getStreamManager().writeRootManager(files[i].getAbsolutePath(), library[i]);
+				ProfileStore.getProfileStore().writeRootManager(directories[i], library[i]);
+			}
+			library = null;
+			System.out.println("Profiles: " + profiles * devices.length + ", edits per keymap: " + edits);
+			for (boolean enabled : new boolean[] { false, true }) {
+				interner.setEnabled(enabled);
+				interner.clear();
+				long xml = footprint.measure(() -> readXML(files));
+				interner.clear();
+				long store = footprint.measure(() -> readStore(directories));
+				System.out.printf("Interning %-3s XStream: %8.2f MB  store: %8.2f MB%n", enabled ? "on" : "off",
+					xml / 1048576.0, store / 1048576.0);
+			}
+			System.out.println("Canonical values: " + interner.getSize());
+		} finally {
+			delete(directory);
+		}
+		System.exit(0);
+	}
+}
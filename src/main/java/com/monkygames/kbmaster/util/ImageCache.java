@@ -0,0 +1,94 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.util;
+
+// === java imports === //
+import java.io.ByteArrayInputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+// === javafx imports === //
+import javafx.scene.image.Image;
+
+/**
+ * Keeps the decoded logos of the apps by the hash of their content, so a
+ * logo is decoded once however often the profile UI shows it.
+ * <p>
+ * The cache is bounded by the pixel bytes of the images (4 bytes per
+ * pixel) and evicts the least recently used image.
+ * @version 1.0
+ */
+public class ImageCache {
+
+	// ============= Class variables ============== //
+	/**
+	 * Singleton.
+	 */
+	private static ImageCache imageCache;
+	/**
+	 * The pixel bytes kept by default.
+	 */
+	public static final long DEFAULT_CAPACITY = 32L * 1024 * 1024;
+	private final long capacity;
+	private final LinkedHashMap<String, Image> images;
+	private long size;
+
+	// ============= Constructors ============== //
+	/**
+	 * @param capacity the pixel bytes kept.
+	 */
+	public ImageCache(long capacity) {
+		this.capacity = capacity;
+		images = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	// ============= Public Methods ============== //
+	/**
+	 * Returns the image of the hash and decodes it if it is not cached.
+	 * @param hash the hash of the content of the image.
+	 * @param content reads the content of the image.
+	 * @return the image and null if there is no content.
+	 */
+	public synchronized Image getImage(String hash, Supplier<byte[]> content) {
+		Image image = images.get(hash);
+		if (image != null) return image;
+		byte[] bytes = content.get();
+		if (bytes == null) return null;
+		image = new Image(new ByteArrayInputStream(bytes));
+		long weight = getWeight(image);
+		// an image that can not be decoded or does not fit is not kept
+		if (image.isError() || weight > capacity) return image;
+		images.put(hash, image);
+		size += weight;
+		Iterator<Map.Entry<String, Image>> eldest = images.entrySet().iterator();
+		while (size > capacity) {
+			size -= getWeight(eldest.next().getValue());
+			eldest.remove();
+		}
+		return image;
+	}
+	/**
+	 * Returns the pixel bytes of the cached images.
+	 */
+	public synchronized long getSize() {
+		return size;
+	}
+	public synchronized int getCount() {
+		return images.size();
+	}
+	public synchronized void clear() {
+		images.clear();
+		size = 0;
+	}
+
+	// ============= Static Methods ============== //
+	private static long getWeight(Image image) {
+		return (long) image.getWidth() * (long) image.getHeight() * 4;
+	}
+	public static synchronized ImageCache getImageCache() {
+		if (imageCache == null) imageCache = new ImageCache(DEFAULT_CAPACITY);
+		return imageCache;
+	}
+}
@@ -0,0 +1,201 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.util;
+
+// === java imports === //
+import java.awt.event.KeyEvent;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+// === javafx imports === //
+import javafx.scene.input.KeyCode;
+// === jinput imports === //
+import net.java.games.input.Component.Identifier.Key;
+
+/**
+ * Translates keys between jinput {@link Key}s, JavaFX {@link KeyCode}s,
+ * AWT VK_ codes and Linux evdev (input-event-codes.h) codes.
+ * <p>
+ * The tables are built once and indexed by the KeyCode ordinal, the AWT
+ * code, the evdev code or the row of the jinput key, so a translation is
+ * an array load (a jinput key is first found by its name). A key without
+ * an equivalent translates to null, {@link KeyEvent#VK_UNDEFINED} or -1.
+ * @version 1.0
+ */
+public class KeyCodes {
+
+	// ============= Class variables ============== //
+	/**
+	 * The JavaFX keys that have no AWT key.
+	 */
+	private static final EnumSet<KeyCode> NO_AWT_KEY = EnumSet.of(KeyCode.SOFTKEY_0, KeyCode.SOFTKEY_1,
+		KeyCode.SOFTKEY_2, KeyCode.SOFTKEY_3, KeyCode.SOFTKEY_4, KeyCode.SOFTKEY_5, KeyCode.SOFTKEY_6,
+		KeyCode.SOFTKEY_7, KeyCode.SOFTKEY_8, KeyCode.SOFTKEY_9, KeyCode.GAME_A, KeyCode.GAME_B, KeyCode.GAME_C,
+		KeyCode.GAME_D, KeyCode.STAR, KeyCode.POUND, KeyCode.POWER, KeyCode.INFO, KeyCode.COLORED_KEY_0,
+		KeyCode.COLORED_KEY_1, KeyCode.COLORED_KEY_2, KeyCode.COLORED_KEY_3, KeyCode.EJECT_TOGGLE, KeyCode.PLAY,
+		KeyCode.RECORD, KeyCode.FAST_FWD, KeyCode.REWIND, KeyCode.TRACK_PREV, KeyCode.TRACK_NEXT,
+		KeyCode.CHANNEL_UP, KeyCode.CHANNEL_DOWN, KeyCode.VOLUME_UP, KeyCode.VOLUME_DOWN, KeyCode.MUTE,
+		KeyCode.COMMAND, KeyCode.SHORTCUT);
+	/**
+	 * The jinput keys with their JavaFX key and evdev code. When keys share
+	 * a JavaFX key (such as both shifts) the first one is the translation
+	 * of the JavaFX key.
+	 */
+	private static final Object[][] ROWS = {
+		{ Key.ESCAPE, KeyCode.ESCAPE, 1 }, { Key.F1, KeyCode.F1, 59 }, { Key.F2, KeyCode.F2, 60 },
+		{ Key.F3, KeyCode.F3, 61 }, { Key.F4, KeyCode.F4, 62 }, { Key.F5, KeyCode.F5, 63 },
+		{ Key.F6, KeyCode.F6, 64 }, { Key.F7, KeyCode.F7, 65 }, { Key.F8, KeyCode.F8, 66 },
+		{ Key.F9, KeyCode.F9, 67 }, { Key.F10, KeyCode.F10, 68 }, { Key.F11, KeyCode.F11, 87 },
+		{ Key.F12, KeyCode.F12, 88 }, { Key.NUMLOCK, KeyCode.NUM_LOCK, 69 },
+		{ Key.SYSRQ, KeyCode.PRINTSCREEN, 99 }, { Key.PAUSE, KeyCode.PAUSE, 119 },
+		{ Key.SCROLL, KeyCode.SCROLL_LOCK, 70 }, { Key.GRAVE, KeyCode.BACK_QUOTE, 41 },
+		{ Key._1, KeyCode.DIGIT1, 2 }, { Key._2, KeyCode.DIGIT2, 3 }, { Key._3, KeyCode.DIGIT3, 4 },
+		{ Key._4, KeyCode.DIGIT4, 5 }, { Key._5, KeyCode.DIGIT5, 6 }, { Key._6, KeyCode.DIGIT6, 7 },
+		{ Key._7, KeyCode.DIGIT7, 8 }, { Key._8, KeyCode.DIGIT8, 9 }, { Key._9, KeyCode.DIGIT9, 10 },
+		{ Key._0, KeyCode.DIGIT0, 11 }, { Key.MINUS, KeyCode.MINUS, 12 }, { Key.EQUALS, KeyCode.EQUALS, 13 },
+		{ Key.BACK, KeyCode.BACK_SPACE, 14 }, { Key.TAB, KeyCode.TAB, 15 },
+		{ Key.Q, KeyCode.Q, 16 }, { Key.W, KeyCode.W, 17 }, { Key.E, KeyCode.E, 18 }, { Key.R, KeyCode.R, 19 },
+		{ Key.T, KeyCode.T, 20 }, { Key.Y, KeyCode.Y, 21 }, { Key.U, KeyCode.U, 22 }, { Key.I, KeyCode.I, 23 },
+		{ Key.O, KeyCode.O, 24 }, { Key.P, KeyCode.P, 25 },
+		{ Key.LBRACKET, KeyCode.BRACELEFT, 26 }, { Key.RBRACKET, KeyCode.BRACERIGHT, 27 },
+		{ Key.BACKSLASH, KeyCode.BACK_SLASH, 43 }, { Key.CAPITAL, KeyCode.CAPS, 58 },
+		{ Key.A, KeyCode.A, 30 }, { Key.S, KeyCode.S, 31 }, { Key.D, KeyCode.D, 32 }, { Key.F, KeyCode.F, 33 },
+		{ Key.G, KeyCode.G, 34 }, { Key.H, KeyCode.H, 35 }, { Key.J, KeyCode.J, 36 }, { Key.K, KeyCode.K, 37 },
+		{ Key.L, KeyCode.L, 38 }, { Key.SEMICOLON, KeyCode.SEMICOLON, 39 },
+		{ Key.APOSTROPHE, KeyCode.QUOTE, 40 }, { Key.RETURN, KeyCode.ENTER, 28 },
+		{ Key.LSHIFT, KeyCode.SHIFT, 42 }, { Key.Z, KeyCode.Z, 44 }, { Key.X, KeyCode.X, 45 },
+		{ Key.C, KeyCode.C, 46 }, { Key.V, KeyCode.V, 47 }, { Key.B, KeyCode.B, 48 }, { Key.N, KeyCode.N, 49 },
+		{ Key.M, KeyCode.M, 50 }, { Key.COMMA, KeyCode.COMMA, 51 }, { Key.PERIOD, KeyCode.PERIOD, 52 },
+		{ Key.SLASH, KeyCode.SLASH, 53 }, { Key.RSHIFT, KeyCode.SHIFT, 54 },
+		{ Key.LCONTROL, KeyCode.CONTROL, 29 }, { Key.LWIN, KeyCode.WINDOWS, 125 },
+		{ Key.LALT, KeyCode.ALT, 56 }, { Key.SPACE, KeyCode.SPACE, 57 }, { Key.RALT, KeyCode.ALT, 100 },
+		{ Key.RCONTROL, KeyCode.CONTROL, 97 }, { Key.INSERT, KeyCode.INSERT, 110 },
+		{ Key.HOME, KeyCode.HOME, 102 }, { Key.PAGEUP, KeyCode.PAGE_UP, 104 },
+		{ Key.SUBTRACT, KeyCode.SUBTRACT, 74 }, { Key.DELETE, KeyCode.DELETE, 111 },
+		{ Key.END, KeyCode.END, 107 }, { Key.PAGEDOWN, KeyCode.PAGE_DOWN, 109 },
+		{ Key.NUMPAD1, KeyCode.NUMPAD1, 79 }, { Key.NUMPAD2, KeyCode.NUMPAD2, 80 },
+		{ Key.NUMPAD3, KeyCode.NUMPAD3, 81 }, { Key.NUMPAD4, KeyCode.NUMPAD4, 75 },
+		{ Key.NUMPAD5, KeyCode.NUMPAD5, 76 }, { Key.NUMPAD6, KeyCode.NUMPAD6, 77 },
+		{ Key.NUMPAD7, KeyCode.NUMPAD7, 71 }, { Key.NUMPAD8, KeyCode.NUMPAD8, 72 },
+		{ Key.NUMPAD9, KeyCode.NUMPAD9, 73 }, { Key.NUMPAD0, KeyCode.NUMPAD0, 82 },
+		{ Key.UP, KeyCode.UP, 103 }, { Key.LEFT, KeyCode.LEFT, 105 }, { Key.DOWN, KeyCode.DOWN, 108 },
+		{ Key.RIGHT, KeyCode.RIGHT, 106 }, { Key.ADD, KeyCode.ADD, 78 },
+		{ Key.NUMPADENTER, KeyCode.ENTER, 96 },
+	};
+	/**
+	 * The evdev codes are below KEY_MAX.
+	 */
+	private static final int EVDEV_SIZE = 0x300;
+	/**
+	 * The AWT codes are below 0x300 or in the 0xF000 and 0xFF00 pages,
+	 * which are folded after 0x300.
+	 */
+	private static final int AWT_SIZE = 0x500;
+	private static final Key[] keys = new Key[ROWS.length];
+	private static final KeyCode[] keyToFX = new KeyCode[ROWS.length];
+	private static final int[] keyToEvdev = new int[ROWS.length];
+	private static final HashMap<String, Integer> keyRows = new HashMap<>();
+	private static final int[] fxToAWT = new int[KeyCode.values().length];
+	private static final int[] fxToKey = new int[KeyCode.values().length];
+	private static final KeyCode[] awtToFX = new KeyCode[AWT_SIZE];
+	private static final int[] evdevToKey = new int[EVDEV_SIZE];
+
+	static {
+		Arrays.fill(fxToKey, -1);
+		Arrays.fill(evdevToKey, -1);
+		for (KeyCode code : KeyCode.values()) {
+			int awtCode = NO_AWT_KEY.contains(code) ? KeyEvent.VK_UNDEFINED : code.getCode();
+			fxToAWT[code.ordinal()] = awtCode;
+			int index = getAWTIndex(awtCode);
+			if (awtCode != KeyEvent.VK_UNDEFINED && index >= 0 && awtToFX[index] == null) awtToFX[index] = code;
+		}
+		for (int row = 0; row < ROWS.length; row++) {
+			keys[row] = (Key) ROWS[row][0];
+			keyToFX[row] = (KeyCode) ROWS[row][1];
+			keyToEvdev[row] = (Integer) ROWS[row][2];
+			keyRows.put(keys[row].getName(), row);
+			if (fxToKey[keyToFX[row].ordinal()] < 0) fxToKey[keyToFX[row].ordinal()] = row;
+			evdevToKey[keyToEvdev[row]] = row;
+		}
+	}
+
+	// ============= Static Methods ============== //
+	/**
+	 * Returns the AWT code of the JavaFX key and VK_UNDEFINED if none.
+	 */
+	public static int getAWTCode(KeyCode code) {
+		return fxToAWT[code.ordinal()];
+	}
+	/**
+	 * Returns the AWT code of the jinput key and VK_UNDEFINED if none.
+	 * @param jinputName the name of the jinput key.
+	 */
+	public static int getAWTCode(String jinputName) {
+		KeyCode code = getKeyCode(jinputName);
+		return code != null ? getAWTCode(code) : KeyEvent.VK_UNDEFINED;
+	}
+	/**
+	 * Returns the JavaFX key of the AWT code and null if none.
+	 */
+	public static KeyCode getKeyCode(int awtCode) {
+		int index = getAWTIndex(awtCode);
+		return index >= 0 ? awtToFX[index] : null;
+	}
+	/**
+	 * Returns the JavaFX key of the jinput key and null if none.
+	 * @param jinputName the name of the jinput key.
+	 */
+	public static KeyCode getKeyCode(String jinputName) {
+		Integer row = keyRows.get(jinputName);
+		return row != null ? keyToFX[row] : null;
+	}
+	/**
+	 * Returns the JavaFX key of the evdev code and null if none.
+	 */
+	public static KeyCode getKeyCodeFromEvdev(int evdevCode) {
+		int row = getEvdevRow(evdevCode);
+		return row >= 0 ? keyToFX[row] : null;
+	}
+	/**
+	 * Returns the jinput key of the JavaFX key and null if none.
+	 */
+	public static Key getJinputKey(KeyCode code) {
+		int row = fxToKey[code.ordinal()];
+		return row >= 0 ? keys[row] : null;
+	}
+	/**
+	 * Returns the jinput key of the evdev code and null if none.
+	 */
+	public static Key getJinputKeyFromEvdev(int evdevCode) {
+		int row = getEvdevRow(evdevCode);
+		return row >= 0 ? keys[row] : null;
+	}
+	/**
+	 * Returns the evdev code of the jinput key and -1 if none.
+	 * @param jinputName the name of the jinput key.
+	 */
+	public static int getEvdevCode(String jinputName) {
+		Integer row = keyRows.get(jinputName);
+		return row != null ? keyToEvdev[row] : -1;
+	}
+	/**
+	 * Returns the evdev code of the JavaFX key and -1 if none.
+	 */
+	public static int getEvdevCode(KeyCode code) {
+		int row = fxToKey[code.ordinal()];
+		return row >= 0 ? keyToEvdev[row] : -1;
+	}
+	private static int getEvdevRow(int evdevCode) {
+		return evdevCode >= 0 && evdevCode < EVDEV_SIZE ? evdevToKey[evdevCode] : -1;
+	}
+	/**
+	 * Returns the index of the AWT code in the AWT table and -1 if it has none.
+	 */
+	private static int getAWTIndex(int awtCode) {
+		if (awtCode >= 0 && awtCode < 0x300) return awtCode;
+		if (awtCode >= 0xF000 && awtCode < 0xF100) return 0x300 + awtCode - 0xF000;
+		if (awtCode >= 0xFF00 && awtCode < 0x10000) return 0x400 + awtCode - 0xFF00;
+		return -1;
+	}
+}
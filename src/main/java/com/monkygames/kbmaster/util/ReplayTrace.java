@@ -0,0 +1,226 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.util;
+
+// === kbmaster imports === //
+import com.monkygames.kbmaster.driver.Device;
+import com.monkygames.kbmaster.engine.HardwareEngine;
+import com.monkygames.kbmaster.engine.HardwareManager;
+import com.monkygames.kbmaster.engine.sim.InputTrace;
+import com.monkygames.kbmaster.engine.sim.RecordingInjector;
+import com.monkygames.kbmaster.engine.sim.SimComponent;
+import com.monkygames.kbmaster.engine.sim.SimControllerEnvironment;
+import com.monkygames.kbmaster.engine.sim.SimMouse;
+import com.monkygames.kbmaster.metrics.DeviceMetrics;
+import com.monkygames.kbmaster.metrics.LatencyHistogram;
+import com.monkygames.kbmaster.metrics.MetricsRegistry;
+import com.monkygames.kbmaster.profiles.Profile;
+// === java imports === //
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import net.java.games.input.Controller;
+
+/**
+ * Replays a trace recorded with {@link ScanHardware} through a HardwareEngine
+ * using simulated controllers and records the outputs instead of sending them
+ * to the system.
+ * <p>
+ * Each change is applied and the engine is given a complete poll before the
+ * next change so the outputs do not depend on the speed of the machine.
+ * The outputs are compared with an expected output file (which is written
+ * on the first run) and the throughput and latency are reported.
+ * <p>
+ * Usage: ReplayTrace trace-file driver-class [expected-output-file] [--ignore-moves]
+ * <br>
+ * --ignore-moves leaves mouse moves out of the comparison since the moves
+ * generated by a joystick in mouse mode depend on the time it is held.
+ * @version 1.0
+ */
+public class ReplayTrace {
+
+	// ============= Class variables ============== //
+	/**
+	 * The time to wait for the engine to poll before giving up.
+	 */
+	private static final long POLL_TIMEOUT = 2000000000L;
+	private final InputTrace trace;
+	private final Device device;
+	private final boolean ignoreMoves;
+	private Controller[] controllers;
+	private RecordingInjector injector;
+	private DeviceMetrics metrics;
+	private LatencyHistogram latency;
+	private long elapsed;
+
+	// ============= Constructors ============== //
+	/**
+	 * @param trace the trace to replay.
+	 * @param device the driver of the recorded device (the profile is its default keymaps).
+	 * @param ignoreMoves true to leave mouse moves out of the outputs.
+	 */
+	public ReplayTrace(InputTrace trace, Device device, boolean ignoreMoves) {
+		this.trace = trace;
+		this.device = device;
+		this.ignoreMoves = ignoreMoves;
+	}
+
+	// ============= Public Methods ============== //
+	/**
+	 * Replays the trace.
+	 * @return the outputs of the engine as lines of text.
+	 * @throws IllegalStateException if the trace does not match the device
+	 * or the engine stops polling.
+	 */
+	public ArrayList<String> replay() {
+		controllers = trace.createControllers();
+		SimControllerEnvironment environment = new SimControllerEnvironment();
+		for (Controller controller : controllers) {
+			if (controller != null) environment.addController(controller);
+		}
+		HardwareEngine.setControllerEnvironment(environment);
+
+		Profile profile = new Profile();
+		device.setDefaultKeymaps(profile);
+		device.setProfile(profile);
+		device.setEnabled(true);
+		injector = new RecordingInjector(500, 500);
+		metrics = MetricsRegistry.getMetricsRegistry().getDeviceMetrics(device.getDeviceInformation().getName());
+		latency = new LatencyHistogram();
+		HardwareManager hardwareManager = new HardwareManager(null);
+		try {
+			if (!hardwareManager.addManagedDevice(device, injector))
+				throw new IllegalStateException("The trace does not contain " + device.getDeviceInformation().getJinputName());
+			waitForPoll();
+			long start = System.nanoTime();
+			int record = 0;
+			while (record < trace.size()) {
+				// apply every change that was read in the same poll
+				long time = trace.getTime(record);
+				int end = record + 1;
+				while (end < trace.size() && trace.getTime(end) == time) end++;
+				int outputs = injector.size();
+				long applied = System.nanoTime();
+				apply(record, end, 0);
+				record = end;
+				waitForPoll();
+				for (int i = outputs; i < injector.size(); i++)
+					latency.record(injector.getTime(i) - applied);
+			}
+			elapsed = System.nanoTime() - start;
+			ArrayList<String> lines = new ArrayList<>();
+			for (int i = 0; i < injector.size(); i++) {
+				if (ignoreMoves && injector.getType(i) == RecordingInjector.Type.MOUSE_MOVE) continue;
+				lines.add(injector.toString(i));
+			}
+			return lines;
+		} finally {
+			hardwareManager.close();
+			HardwareEngine.setControllerEnvironment(null);
+		}
+	}
+	/**
+	 * Prints the throughput and latency of the last replay.
+	 */
+	public void printReport() {
+		double seconds = elapsed / 1e9;
+		System.out.println("Changes replayed: " + trace.size());
+		System.out.println("Outputs: " + injector.size());
+		System.out.printf("Wall time: %.3f s%n", seconds);
+		if (seconds > 0) System.out.printf("Throughput: %.0f changes/s%n", trace.size() / seconds);
+		System.out.println("Change to output latency (us): " + percentiles(latency));
+		System.out.println("Poll to output latency (us): " + percentiles(metrics.getInjectionLatency()));
+	}
+
+	// ============= Private Methods ============== //
+	/**
+	 * Applies the records while holding the lock of every controller
+	 * (which is held while polling) so a poll never sees part of a change.
+	 * @param from the first record.
+	 * @param to the record after the last record.
+	 * @param lock the index of the next controller to lock.
+	 */
+	private void apply(int from, int to, int lock) {
+		if (lock == controllers.length) {
+			for (int i = from; i < to; i++) apply(i);
+			return;
+		}
+		Object monitor = controllers[lock] != null ? controllers[lock] : this;
+		synchronized (monitor) { apply(from, to, lock + 1); }
+	}
+	/**
+	 * Applies a single record to the simulated controllers.
+	 */
+	private void apply(int record) {
+		Controller controller = controllers[trace.getControllerIndex(record)];
+		if (controller == null) return;
+		int index = trace.getComponentIndex(record);
+		SimComponent component = (SimComponent) controller.getComponents()[index];
+		float value = trace.getValue(record);
+		if (!component.isRelative()) component.setValue(value);
+		else if (value != 0 && controller instanceof SimMouse) ((SimMouse) controller).move(index, value);
+	}
+	/**
+	 * Waits until the engine has completed a poll that started after this call.
+	 */
+	private void waitForPoll() {
+		long target = metrics.getPolls() + 2;
+		long deadline = System.nanoTime() + POLL_TIMEOUT;
+		while (metrics.getPolls() < target) {
+			if (System.nanoTime() > deadline) throw new IllegalStateException("The engine is not polling");
+			// the engine polls in a busy loop so give it the processor
+			LockSupport.parkNanos(10000);
+		}
+	}
+	private static String percentiles(LatencyHistogram histogram) {
+		return String.format("p50=%.1f p90=%.1f p99=%.1f max=%.1f",
+			histogram.getPercentile(0.5) / 1e3, histogram.getPercentile(0.9) / 1e3,
+			histogram.getPercentile(0.99) / 1e3, histogram.getPercentile(1) / 1e3);
+	}
+
+	// ============= Static Methods ============== //
+	public static void main(String[] args) throws Exception {
+		ArrayList<String> arguments = new ArrayList<>(List.of(args));
+		boolean ignoreMoves = arguments.remove("--ignore-moves");
+		if (arguments.size() < 2) {
+			System.out.println("Usage: ReplayTrace trace-file driver-class [expected-output-file] [--ignore-moves]");
+			System.exit(2);
+		}
+		InputTrace trace = InputTrace.read(new File(arguments.get(0)));
+		Device device = (Device) Class.forName(arguments.get(1)).getDeclaredConstructor().newInstance();
+		ReplayTrace replayTrace = new ReplayTrace(trace, device, ignoreMoves);
+		ArrayList<String> outputs = replayTrace.replay();
+		replayTrace.printReport();
+		int status = 0;
+		if (arguments.size() > 2) status = compare(outputs, new File(arguments.get(2)));
+		System.exit(status);
+	}
+	/**
+	 * Compares the outputs with the expected outputs and writes the
+	 * expected outputs if they do not exist yet.
+	 * @return 0 if the outputs match and 1 otherwise.
+	 */
+	private static int compare(List<String> outputs, File expectedFile) throws IOException {
+		if (!expectedFile.exists()) {
+			Files.write(expectedFile.toPath(), outputs, StandardCharsets.UTF_8);
+			System.out.println("Wrote " + outputs.size() + " expected outputs to " + expectedFile);
+			return 0;
+		}
+		List<String> expected = Files.readAllLines(expectedFile.toPath(), StandardCharsets.UTF_8);
+		for (int i = 0; i < Math.max(expected.size(), outputs.size()); i++) {
+			String want = i < expected.size() ? expected.get(i) : "<end>";
+			String got = i < outputs.size() ? outputs.get(i) : "<end>";
+			if (!want.equals(got)) {
+				System.out.println("Output " + i + " differs: expected [" + want + "] but was [" + got + "]");
+				return 1;
+			}
+		}
+		System.out.println("Outputs match " + expectedFile);
+		return 0;
+	}
+}
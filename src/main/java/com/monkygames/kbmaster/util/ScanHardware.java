@@ -3,9 +3,14 @@
  */
 package com.monkygames.kbmaster.util;
 
+import com.monkygames.kbmaster.driver.DriverManager;
 import com.monkygames.kbmaster.engine.HardwareEngine;
 import com.monkygames.kbmaster.engine.PollEventQueue;
+import com.monkygames.kbmaster.engine.sim.InputTraceWriter;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import net.java.games.input.Component;
@@ -14,28 +19,84 @@ import net.java.games.input.Event;
 
 /**
  * Scans the hardware and prints out the information.
+ * The changes of a polled device can also be recorded to a trace file
+ * which can be replayed with {@link ReplayTrace}, or captured as a driver
+ * descriptor with {@link DescriptorCapture}.
  * @version 1.0
  */
 public class ScanHardware implements Runnable{
 
 // ============= Class variables ============== //
     private Controller[] pollControllers;
+    /**
+     * Records the polled changes and null if not recording.
+     */
+    private InputTraceWriter traceWriter;
 // ============= Constructors ============== //
     public ScanHardware(String deviceName, boolean doPoll){
+	this(deviceName, doPoll, null);
+    }
+    /**
+     * @param traceFile the file to record the polled changes and null to only print them.
+     */
+    public ScanHardware(String deviceName, boolean doPoll, File traceFile){
 	pollControllers = scanHardware(deviceName);
 	if(doPoll){
 	    if(pollControllers == null){
 		System.out.println("Device: "+deviceName+" not found");
 		return;
 	    }
+	    if(traceFile != null){
+		try{
+		    traceWriter = new InputTraceWriter(traceFile, pollControllers);
+		}catch(IOException ex){
+		    Logger.getLogger(ScanHardware.class.getName()).log(Level.SEVERE, null, ex);
+		    return;
+		}
+		Runtime.getRuntime().addShutdownHook(new Thread(this::closeTrace));
+		System.out.println("Recording to "+traceFile+" (Ctrl+C to stop)");
+	    }
 	    System.out.println("====== Polling ====== ");
 	    Thread thread = new Thread(this);
 	    thread.start();
 	}
     }
 // ============= Public Methods ============== //
+    /**
+     * Captures the inputs of the scanned device in a guided session and
+     * writes them as a driver descriptor.
+     * @param descriptorFile the file to write the descriptor to.
+     * @return true if the descriptor was written.
+     */
+    public boolean capture(File descriptorFile, String make, String model, String deviceName){
+	if(pollControllers == null){
+	    System.out.println("Device: "+deviceName+" not found");
+	    return false;
+	}
+	DescriptorCapture capture = new DescriptorCapture(pollControllers);
+	try{
+	    if(capture.capture(System.out, 200, 30000) == 0){
+		System.out.println("No inputs captured");
+		return false;
+	    }
+	    DescriptorCapture.write(descriptorFile.toPath(), capture.toDescriptor(make, model, deviceName));
+	}catch(IOException | InterruptedException ex){
+	    Logger.getLogger(ScanHardware.class.getName()).log(Level.SEVERE, null, ex);
+	    return false;
+	}
+	System.out.println("Wrote "+capture.getInputs().size()+" inputs to "+descriptorFile);
+	System.out.println("Copy it to "+new File(DriverManager.DRIVER_DIR).getAbsolutePath()+" to load it as a driver");
+	return true;
+    }
 // ============= Protected Methods ============== //
 // ============= Private Methods ============== //
+    private void closeTrace(){
+	try{
+	    traceWriter.close();
+	}catch(IOException ex){
+	    Logger.getLogger(ScanHardware.class.getName()).log(Level.SEVERE, null, ex);
+	}
+    }
     /**
      * Scans all hardware and writes out the components to standard out.
      * @param deviceName the name of the device.
@@ -118,11 +179,14 @@ public class ScanHardware implements Runnable{
 	System.out.println("Number of controllers to poll = "+pollControllers.length);
 	ArrayList <EventMapping> eventQueues = new ArrayList<>();
 
-	for(Controller controller: pollControllers){
+	for(int i = 0; i < pollControllers.length; i++){
+	    Controller controller = pollControllers[i];
 	    eventQueues.add(new EventMapping(new PollEventQueue(controller.getComponents()),
 	    "["+controller.getName()+":"+controller.getType()+"] ",
-	    controller));
+	    controller, i));
 	}
+	// poll at the rate of the engine while recording
+	long sleep = traceWriter == null ? 100 : 1;
 
 	while(true){
 	    //for(Event event: keyboardEventQueue.getEvents()){
@@ -130,11 +194,19 @@ public class ScanHardware implements Runnable{
 		eventMapping.controller.poll();
 		String out = eventMapping.deviceInfo;
 
+		long now = System.nanoTime();
 		for(Event event: eventMapping.eventQueue.getEvents()){
 		    Component component = event.getComponent();
 		    //String name = component.getIdentifier().getName();
 		    if(component != null){
 			System.out.println(out + getComponentDetails(component));
+			if(traceWriter != null){
+			    try{
+				traceWriter.write(now, eventMapping.index, eventMapping.componentIndexes.get(component), event.getValue());
+			    }catch(IOException ex){
+				Logger.getLogger(ScanHardware.class.getName()).log(Level.SEVERE, null, ex);
+			    }
+			}
 		    }
 		}
 		/*
@@ -146,8 +218,8 @@ public class ScanHardware implements Runnable{
 		*/
 	    }
 	    try {
-		// print out every 0.1 seconds
-		Thread.sleep(100);
+		// print out every 0.1 seconds (1 ms while recording)
+		Thread.sleep(sleep);
 	    } catch (InterruptedException ex) {
 		Logger.getLogger(ScanHardware.class.getName()).log(Level.SEVERE, null, ex);
 	    }
@@ -159,22 +231,45 @@ public class ScanHardware implements Runnable{
 	public PollEventQueue eventQueue;
 	public String deviceInfo;
 	public Controller controller;
-	public EventMapping(PollEventQueue eventQueue, String deviceInfo, Controller controller){
+	public int index;
+	public IdentityHashMap<Component,Integer> componentIndexes;
+	public EventMapping(PollEventQueue eventQueue, String deviceInfo, Controller controller, int index){
 	    this.eventQueue = eventQueue;
 	    this.deviceInfo = deviceInfo;
 	    this.controller = controller;
+	    this.index = index;
+	    componentIndexes = new IdentityHashMap<>();
+	    Component[] components = controller.getComponents();
+	    for(int i = 0; i < components.length; i++)
+		componentIndexes.put(components[i], i);
 	}
     }
 // ============= Static Methods ============== //
+    /**
+     * Usage: ScanHardware [device name [trace file]]
+     * or ScanHardware --capture device name descriptor file [make [model]]
+     */
     public static void main(String[] args) {
+		if (args.length > 0 && args[0].equals("--capture")) {
+			if (args.length < 3) {
+				System.out.println("Usage: ScanHardware --capture <device name> <descriptor file> [make [model]]");
+				return;
+			}
+			String make = args.length > 3 ? args[3] : "Generic";
+			String model = args.length > 4 ? args[4] : args[1];
+			new ScanHardware(args[1], false).capture(new File(args[2]), make, model, args[1]);
+			return;
+		}
 		boolean doPoll = true;
 		String deviceName = null;
+		File traceFile = null;
 		if (args.length == 0) {
 			doPoll = false;
 		} else {
 			System.out.println("Args " + args[0]);
 			deviceName = args[0];
+			if (args.length > 1) traceFile = new File(args[1]);
 		}
-		new ScanHardware(deviceName, doPoll);
+		new ScanHardware(deviceName, doPoll, traceFile);
 	}
 }
@@ -0,0 +1,206 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.util;
+
+// === kbmaster imports === //
+import com.monkygames.kbmaster.engine.HardwareEngine;
+import com.monkygames.kbmaster.engine.HardwareManager;
+import com.monkygames.kbmaster.engine.sim.CountingInjector;
+import com.monkygames.kbmaster.engine.sim.GeneratorDriver;
+import com.monkygames.kbmaster.engine.sim.MouseMotionGenerator;
+import com.monkygames.kbmaster.engine.sim.RandomKeyGenerator;
+import com.monkygames.kbmaster.engine.sim.SimControllerEnvironment;
+import com.monkygames.kbmaster.engine.sim.SimDevice;
+import com.monkygames.kbmaster.engine.sim.SimGamepad;
+import com.monkygames.kbmaster.engine.sim.SimKeyboard;
+import com.monkygames.kbmaster.engine.sim.SimMouse;
+import com.monkygames.kbmaster.engine.sim.StickSweepGenerator;
+import com.monkygames.kbmaster.metrics.DeviceMetrics;
+import com.monkygames.kbmaster.metrics.LatencyHistogram;
+import com.monkygames.kbmaster.metrics.MetricsRegistry;
+import com.monkygames.kbmaster.profiles.Profile;
+// === java imports === //
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import net.java.games.input.Controller;
+
+/**
+ * Runs the engine with a growing number of simulated devices and reports
+ * how it scales.
+ * <p>
+ * Each simulated device has a keyboard typing random keys, a mouse moving
+ * at 1000 Hz and a gamepad sweeping both sticks. The devices are registered
+ * with a HardwareManager like real devices and the outputs are counted
+ * instead of being sent to the system.
+ * For each step the processor time of the poll threads per device, the
+ * events and outputs per second, the poll to output latency percentiles
+ * and the garbage collections are printed.
+ * <p>
+ * Usage: SoakTest [max-devices [seconds-per-step]]
+ * <br>
+ * The number of devices doubles from 1 up to max-devices (default 16)
+ * and each step runs for 10 seconds by default.
+ * @version 1.0
+ */
+public class SoakTest {
+
+	// ============= Class variables ============== //
+	private static final int KEY_CHANGES_PER_SECOND = 20;
+	private static final int MOUSE_RATE = 1000;
+	private static final int STICK_RATE = 100;
+	private static final long WARMUP = 1000;
+	private final long duration;
+	private final ThreadMXBean threads;
+	private final OperatingSystemMXBean system;
+
+	// ============= Constructors ============== //
+	/**
+	 * @param duration the time each step is measured in milliseconds.
+	 */
+	public SoakTest(long duration) {
+		this.duration = duration;
+		threads = ManagementFactory.getThreadMXBean();
+		if (threads.isThreadCpuTimeSupported()) threads.setThreadCpuTimeEnabled(true);
+		system = ManagementFactory.getOperatingSystemMXBean();
+	}
+
+	// ============= Public Methods ============== //
+	/**
+	 * Runs the engine with the specified number of simulated devices
+	 * and prints a row of the report.
+	 * @param count the number of devices.
+	 * @throws IllegalStateException if a device is not found by the engine.
+	 */
+	public void run(int count) throws InterruptedException {
+		SimControllerEnvironment environment = new SimControllerEnvironment();
+		HardwareEngine.setControllerEnvironment(environment);
+		ArrayList<SimDevice> devices = new ArrayList<>();
+		ArrayList<CountingInjector> injectors = new ArrayList<>();
+		GeneratorDriver driver = new GeneratorDriver();
+		for (int i = 0; i < count; i++) {
+			SimDevice device = new SimDevice("Device " + i);
+			for (Controller controller : device.createControllers()) {
+				environment.addController(controller);
+				if (controller instanceof SimKeyboard)
+					driver.addGenerator(new RandomKeyGenerator((SimKeyboard) controller, KEY_CHANGES_PER_SECOND, i));
+				else if (controller instanceof SimMouse)
+					driver.addGenerator(new MouseMotionGenerator((SimMouse) controller, MOUSE_RATE, 1, 100));
+				else if (controller instanceof SimGamepad)
+					driver.addGenerator(new StickSweepGenerator((SimGamepad) controller, STICK_RATE, 0.5));
+			}
+			Profile profile = new Profile();
+			device.setDefaultKeymaps(profile);
+			device.setProfile(profile);
+			device.setEnabled(true);
+			devices.add(device);
+			injectors.add(new CountingInjector());
+		}
+
+		HardwareManager hardwareManager = new HardwareManager(null);
+		try {
+			for (int i = 0; i < count; i++) {
+				if (!hardwareManager.addManagedDevice(devices.get(i), injectors.get(i)))
+					throw new IllegalStateException(devices.get(i).getDeviceInformation().getJinputName() + " was not found");
+			}
+			driver.start();
+			Thread.sleep(WARMUP);
+
+			ArrayList<DeviceMetrics> metrics = new ArrayList<>();
+			for (SimDevice device : devices) {
+				DeviceMetrics deviceMetrics = MetricsRegistry.getMetricsRegistry().getDeviceMetrics(device.getDeviceInformation().getName());
+				deviceMetrics.getInjectionLatency().reset();
+				metrics.add(deviceMetrics);
+			}
+			Snapshot start = new Snapshot(metrics, injectors, driver);
+			Thread.sleep(duration);
+			Snapshot end = new Snapshot(metrics, injectors, driver);
+
+			LatencyHistogram latency = new LatencyHistogram();
+			for (DeviceMetrics deviceMetrics : metrics) latency.add(deviceMetrics.getInjectionLatency());
+			printRow(count, start, end, latency, driver.getLateSteps());
+		} finally {
+			driver.stop();
+			hardwareManager.close();
+			HardwareEngine.setControllerEnvironment(null);
+		}
+	}
+	public static void printHeader() {
+		System.out.println("Processors: " + Runtime.getRuntime().availableProcessors());
+		System.out.printf("%7s %9s %9s %10s %10s %10s %10s %9s %9s %9s %6s %8s %8s%n",
+			"devices", "cpu/dev%", "process%", "polls/s", "changes/s", "events/s", "outputs/s",
+			"p50(us)", "p99(us)", "max(us)", "gcs", "gc(ms)", "late");
+	}
+
+	// ============= Private Methods ============== //
+	private void printRow(int count, Snapshot start, Snapshot end, LatencyHistogram latency, long lateSteps) {
+		double seconds = (end.time - start.time) / 1e9;
+		double pollCpu = (end.pollCpu - start.pollCpu) / 1e9;
+		double processCpu = (end.processCpu - start.processCpu) / 1e9;
+		System.out.printf("%7d %9.1f %9.1f %10.0f %10.0f %10.0f %10.0f %9.1f %9.1f %9.1f %6d %8d %8d%n",
+			count, 100 * pollCpu / seconds / count, processCpu < 0 ? -1 : 100 * processCpu / seconds,
+			(end.polls - start.polls) / seconds, (end.changes - start.changes) / seconds,
+			(end.events - start.events) / seconds, (end.outputs - start.outputs) / seconds,
+			latency.getPercentile(0.5) / 1e3, latency.getPercentile(0.99) / 1e3, latency.getPercentile(1) / 1e3,
+			end.gcCount - start.gcCount, end.gcTime - start.gcTime, lateSteps);
+	}
+	/**
+	 * Returns the processor time of all of the engine poll threads.
+	 */
+	private long getPollCpuTime() {
+		if (!threads.isThreadCpuTimeSupported()) return 0;
+		long total = 0;
+		for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+			if (info == null || !info.getThreadName().startsWith(HardwareEngine.POLL_THREAD_PREFIX)) continue;
+			long time = threads.getThreadCpuTime(info.getThreadId());
+			if (time > 0) total += time;
+		}
+		return total;
+	}
+	/**
+	 * Returns the processor time of this process and -1 if not supported.
+	 */
+	private long getProcessCpuTime() {
+		if (system instanceof com.sun.management.OperatingSystemMXBean)
+			return ((com.sun.management.OperatingSystemMXBean) system).getProcessCpuTime();
+		return -1;
+	}
+
+	// ============= Internal Classes ============== //
+	/**
+	 * The counters at a point in time.
+	 */
+	private class Snapshot {
+		final long time, pollCpu, processCpu, changes;
+		long polls, events, outputs, gcCount, gcTime;
+		Snapshot(ArrayList<DeviceMetrics> metrics, ArrayList<CountingInjector> injectors, GeneratorDriver driver) {
+			time = System.nanoTime();
+			pollCpu = getPollCpuTime();
+			processCpu = getProcessCpuTime();
+			changes = driver.getChanges();
+			for (DeviceMetrics deviceMetrics : metrics) {
+				polls += deviceMetrics.getPolls();
+				events += deviceMetrics.getEvents();
+			}
+			for (CountingInjector injector : injectors) outputs += injector.getOutputs();
+			for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+				gcCount += Math.max(0, collector.getCollectionCount());
+				gcTime += Math.max(0, collector.getCollectionTime());
+			}
+		}
+	}
+
+	// ============= Static Methods ============== //
+	public static void main(String[] args) throws InterruptedException {
+		int maxDevices = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+		long seconds = args.length > 1 ? Long.parseLong(args[1]) : 10;
+		SoakTest soakTest = new SoakTest(seconds * 1000);
+		printHeader();
+		for (int count = 1; count <= maxDevices; count *= 2) soakTest.run(count);
+		System.exit(0);
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * See LICENSE in top-level directory.
+ */
+package com.monkygames.kbmaster.util;
+
+// === kbmaster imports === //
+import com.monkygames.kbmaster.cloud.DropBoxAccount;
+import com.monkygames.kbmaster.driver.Device;
+import com.monkygames.kbmaster.driver.devices.razer.nostromo.Nostromo;
+import com.monkygames.kbmaster.io.ProfileStore;
+import com.monkygames.kbmaster.profiles.App;
+import com.monkygames.kbmaster.profiles.Profile;
+import com.monkygames.kbmaster.profiles.ProfileManager;
+import com.monkygames.kbmaster.profiles.RootManager;
+// === java imports === //
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Measures the sync of a library of profile files with DropBox against the
+ * {@link DropBoxStandIn}, so the sync can be measured without the network
+ * and with the latency, bandwidth and errors of a slow connection.
+ * <p>
+ * Each device holds 24 profiles, which are a shard each with its
+ * manifest. The phases are the first upload, a sync with no change, the
+ * download into an empty directory (a new computer) and a sync after a
+ * profile of a few devices was added. Each phase reports its wall time,
+ * the requests sent and the retries of the requests refused.
+ * <p>
+ * Usage: SyncBenchmark [files [latency-ms [bandwidth-bytes-per-s [error-rate]]]]
+ * @version 1.0
+ */
+public class SyncBenchmark {
+
+	// ============= Class variables ============== //
+	private static final int PROFILES_PER_DEVICE = 24;
+	/**
+	 * The number of times the SDK retries a refused request.
+	 */
+	private static final int RETRIES = 5;
+	private final DropBoxStandIn standIn;
+
+	// ============= Constructors ============== //
+	public SyncBenchmark(DropBoxStandIn standIn) {
+		this.standIn = standIn;
+	}
+
+	// ============= Public Methods ============== //
+	/**
+	 * Writes the devices of the library in the profile directory of the root.
+	 */
+	public void createLibrary(File localRoot, int devices) {
+		Device[] library = new Device[devices];
+		for (int i = 0; i < devices; i++) library[i] = new Nostromo();
+		RootManager[] rootManagers = new HeapFootprint().createLibrary(library, PROFILES_PER_DEVICE, 4);
+		for (int i = 0; i < devices; i++)
+			ProfileStore.getProfileStore().writeRootManager(getDeviceDirectory(localRoot, i), rootManagers[i]);
+	}
+	/**
+	 * Adds a profile to each of the devices.
+	 */
+	public void addProfiles(File localRoot, int devices) {
+		ProfileStore profileStore = ProfileStore.getProfileStore();
+		for (int i = 0; i < devices; i++) {
+			File directory = getDeviceDirectory(localRoot, i);
+			RootManager rootManager = profileStore.readRootManager(directory);
+			rootManager.load();
+			App app = rootManager.getGamesRoot().getList().get(0);
+			Profile profile = new Profile(app, "Added " + System.nanoTime());
+			new Nostromo().setDefaultKeymaps(profile);
+			rootManager.addProfile(app, profile);
+			profileStore.writeRootManager(directory, rootManager);
+			rootManager.close();
+		}
+	}
+	/**
+	 * Syncs the root with the stand in and prints the measures of the sync.
+	 * @return true if successful.
+	 */
+	public boolean run(String phase, File localRoot) {
+		DropBoxAccount account = new DropBoxAccount("standin", standIn.getRequestConfig(RETRIES), DropBoxStandIn.HOST, localRoot);
+		standIn.resetCounters();
+		long start = System.nanoTime();
+		boolean synced = account.sync();
+		long wall = (System.nanoTime() - start) / 1000000;
+		System.out.printf("%-12s %8d ms %7d requests %5d retries %5d errors %9.1f KB up %9.1f KB down%s%n",
+			phase, wall, standIn.getRequests(), standIn.getRetries(), standIn.getErrors(),
+			standIn.getBytesUploaded() / 1024.0, standIn.getBytesDownloaded() / 1024.0, synced ? "" : "  FAILED");
+		System.out.println("             " + standIn.getEndpoints());
+		return synced;
+	}
+
+	// ============= Private Methods ============== //
+	private static File getDeviceDirectory(File localRoot, int device) {
+		return new File(new File(localRoot, ProfileManager.PROFILE_DIR), "Device " + device);
+	}
+	private static void delete(File directory) throws IOException {
+		try (Stream<Path> paths = Files.walk(directory.toPath())) {
+			paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+	// ============= Static Methods ============== //
+	public static void main(String[] args) throws IOException {
+		int files = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		long latency = args.length > 1 ? Long.parseLong(args[1]) : 20;
+		long bandwidth = args.length > 2 ? Long.parseLong(args[2]) : 0;
+		double errorRate = args.length > 3 ? Double.parseDouble(args[3]) : 0;
+		// a shard for each profile and the manifest
+		int devices = Math.max(1, files / (PROFILES_PER_DEVICE + 1));
+		DropBoxStandIn standIn = new DropBoxStandIn();
+		SyncBenchmark benchmark = new SyncBenchmark(standIn);
+		File directory = Files.createTempDirectory("syncbenchmark").toFile();
+		try {
+			File first = new File(directory, "first");
+			File second = new File(directory, "second");
+			benchmark.createLibrary(first, devices);
+			standIn.setLatency(latency);
+			standIn.setBandwidth(bandwidth);
+			standIn.setErrorRate(errorRate);
+			System.out.println("Files: " + devices * (PROFILES_PER_DEVICE + 1) + ", latency: " + latency
+				+ " ms, bandwidth: " + (bandwidth > 0 ? bandwidth + " B/s" : "unlimited") + ", error rate: " + errorRate);
+			benchmark.run("upload", first);
+			benchmark.run("unchanged", first);
+			benchmark.run("download", second);
+			benchmark.addProfiles(first, Math.max(1, devices / 10));
+			benchmark.run("incremental", first);
+			System.out.println("Files in the stand in: " + standIn.getFileCount());
+		} finally {
+			standIn.stop();
+			delete(directory);
+		}
+		System.exit(0);
+	}
+}